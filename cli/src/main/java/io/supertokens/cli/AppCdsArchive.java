@@ -0,0 +1,122 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.cli;
+
+import io.supertokens.cli.commandHandler.start.StartHandler;
+import io.supertokens.cli.logging.Logging;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The AppCDS archive of an installation. It holds the classes that the core loads while starting and serving its
+ * first requests, already parsed and verified, so that starting the core with it is faster.
+ * <p>
+ * An archive can only be used with the JVM that created it and with the classpath it was created with. So it is
+ * created while installing, by running io.supertokens.startup.AppCdsTraining with the installed java and jars, and the
+ * version of that JVM is saved next to it. It is only used if that version is the version of the JVM running the CLI,
+ * which is the JVM that the core is started with.
+ */
+public class AppCdsArchive {
+
+    private static final String ARCHIVE_FOLDER = "appcds";
+    private static final String ARCHIVE_FILE = "core.jsa";
+    private static final String JVM_VERSION_FILE = "jvm-version";
+    private static final long TRAINING_TIMEOUT_SECONDS = 3 * 60;
+
+    public static String getArchivePath(String installationDir) {
+        return installationDir + ARCHIVE_FOLDER + File.separator + ARCHIVE_FILE;
+    }
+
+    public static boolean canBeUsed(String installationDir) {
+        File archive = new File(getArchivePath(installationDir));
+        File versionFile = new File(installationDir + ARCHIVE_FOLDER + File.separator + JVM_VERSION_FILE);
+        if (!archive.isFile() || !versionFile.isFile()) {
+            return false;
+        }
+        try {
+            String version = new String(Files.readAllBytes(versionFile.toPath()), StandardCharsets.UTF_8).trim();
+            return version.equals(getJvmVersion());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Creates the archive by starting and stopping the core once. This only makes starting the core faster, so if it
+     * fails, the installation carries on without an archive.
+     */
+    public static void generate(String installationDir) {
+        // the supertokens script passes this to the CLI, so it is also how the classpath starts later on
+        installationDir = Utils.normaliseDirectoryPath(new File(installationDir).getAbsolutePath());
+        File folder = new File(installationDir + ARCHIVE_FOLDER);
+        File archive = new File(getArchivePath(installationDir));
+        File versionFile = new File(folder, JVM_VERSION_FILE);
+        try {
+            folder.mkdirs();
+            Files.deleteIfExists(versionFile.toPath());
+            Files.deleteIfExists(archive.toPath());
+
+            List<String> commands = new ArrayList<>();
+            if (OperatingSystem.getOS() == OperatingSystem.OS.WINDOWS) {
+                commands.add(installationDir + "jre\\bin\\java.exe");
+            } else {
+                commands.add(installationDir + "jre/bin/java");
+                commands.add("-Djava.security.egd=file:/dev/urandom");
+            }
+            commands.add("-XX:ArchiveClassesAtExit=" + archive.getAbsolutePath());
+            commands.add("-classpath");
+            commands.add(StartHandler.getClasspath(installationDir));
+            commands.add("io.supertokens.startup.AppCdsTraining");
+            if (OperatingSystem.getOS() == OperatingSystem.OS.WINDOWS) {
+                // same quoting as in StartHandler, since installationDir ends in \
+                commands.add("\"" + installationDir + "\\\"");
+            } else {
+                commands.add(installationDir);
+            }
+
+            ProcessBuilder pb = new ProcessBuilder(commands);
+            pb.redirectErrorStream(true);
+            pb.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+            Process process = pb.start();
+            if (!process.waitFor(TRAINING_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                Logging.info("Skipping creation of the class data sharing archive since it took too long");
+                return;
+            }
+            if (process.exitValue() != 0 || !archive.isFile()) {
+                Logging.info("Could not create the class data sharing archive. SuperTokens will start without it");
+                Files.deleteIfExists(archive.toPath());
+                return;
+            }
+            Files.write(versionFile.toPath(), getJvmVersion().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            Logging.info("Could not create the class data sharing archive. SuperTokens will start without it");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String getJvmVersion() {
+        return System.getProperty("java.vm.vendor") + " " + System.getProperty("java.vm.version");
+    }
+}
@@ -16,6 +16,7 @@
 
 package io.supertokens.cli.commandHandler.install;
 
+import io.supertokens.cli.AppCdsArchive;
 import io.supertokens.cli.OperatingSystem;
 import io.supertokens.cli.Utils;
 import io.supertokens.cli.cliOptionsParsers.CLIOptionsParser;
@@ -59,6 +60,8 @@ public class InstallHandler extends CommandHandler {
             } else {
                 moveContentToInstallationDir(installationDir);
                 createSupertokensScript(installationDir, exeLoc);
+                Logging.info("Creating class data sharing archive for a faster start...");
+                AppCdsArchive.generate(installationDir);
                 Logging.info("Successfully installed SuperTokens! You can now delete this directory safely");
                 Logging.info("Run \"supertokens --help\" to see list of available commands");
             }
@@ -16,6 +16,7 @@
 
 package io.supertokens.cli.commandHandler.start;
 
+import io.supertokens.cli.AppCdsArchive;
 import io.supertokens.cli.Main;
 import io.supertokens.cli.OperatingSystem;
 import io.supertokens.cli.cliOptionsParsers.CLIOptionsParser;
@@ -46,8 +47,11 @@ public class StartHandler extends CommandHandler {
         List<String> commands = new ArrayList<>();
         if (OperatingSystem.getOS() == OperatingSystem.OS.WINDOWS) {
             commands.add(installationDir + "jre\\bin\\java.exe");
+            if (AppCdsArchive.canBeUsed(installationDir)) {
+                commands.add("-XX:SharedArchiveFile=" + AppCdsArchive.getArchivePath(installationDir));
+            }
             commands.add("-classpath");
-            commands.add("\"" + installationDir + "core\\*\";\"" + installationDir + "plugin-interface\\*\"");
+            commands.add(getClasspath(installationDir));
             if (space != null) {
                 commands.add("-Xmx" + space + "M");
             }
@@ -70,9 +74,11 @@ public class StartHandler extends CommandHandler {
         } else {
             commands.add(installationDir + "jre/bin/java");
             commands.add("-Djava.security.egd=file:/dev/urandom");
+            if (AppCdsArchive.canBeUsed(installationDir)) {
+                commands.add("-XX:SharedArchiveFile=" + AppCdsArchive.getArchivePath(installationDir));
+            }
             commands.add("-classpath");
-            commands.add(
-                    installationDir + "core/*:" + installationDir + "plugin-interface/*:" + installationDir + "ee/*");
+            commands.add(getClasspath(installationDir));
             if (space != null) {
                 commands.add("-Xmx" + space + "M");
             }
@@ -136,6 +142,14 @@ public class StartHandler extends CommandHandler {
         }
     }
 
+    // the AppCDS archive is created with this classpath, and can only be used with it (see AppCdsArchive)
+    public static String getClasspath(String installationDir) {
+        if (OperatingSystem.getOS() == OperatingSystem.OS.WINDOWS) {
+            return "\"" + installationDir + "core\\*\";\"" + installationDir + "plugin-interface\\*\"";
+        }
+        return installationDir + "core/*:" + installationDir + "plugin-interface/*:" + installationDir + "ee/*";
+    }
+
     @Override
     public String getShortDescription() {
         return "Start an instance of SuperTokens";
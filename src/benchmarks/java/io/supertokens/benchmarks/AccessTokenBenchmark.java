@@ -0,0 +1,57 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.benchmarks;
+
+import com.google.gson.JsonObject;
+import io.supertokens.session.accessToken.AccessToken;
+import io.supertokens.session.info.TokenInfo;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AccessTokenBenchmark extends CoreBenchmark {
+
+    @Param({ "V2", "V3" })
+    public AccessToken.VERSION version;
+
+    private JsonObject userData;
+    private String token;
+
+    @Override
+    protected void afterStart() throws Exception {
+        userData = new JsonObject();
+        userData.addProperty("role", "admin");
+        token = sign().token;
+    }
+
+    @Benchmark
+    public TokenInfo sign() throws Exception {
+        return AccessToken.createNewAccessToken(main, "benchmark-session", "benchmark-user", "refreshTokenHash1",
+                null, userData, null, null, version, false);
+    }
+
+    @Benchmark
+    public AccessToken.AccessTokenInfo verify() throws Exception {
+        return AccessToken.getInfoFromAccessToken(main, token, false);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.benchmarks;
+
+import io.supertokens.Main;
+import io.supertokens.ProcessState;
+import io.supertokens.test.TestingProcessManager;
+import io.supertokens.test.Utils;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Starts a core with the in memory db before the benchmarks of a subclass run, and stops it afterwards. This uses the
+ * same helpers as the tests, so the benchmarks have to be run from the core's folder, with the same setup as the
+ * tests (see the jmh task in build.gradle).
+ */
+public abstract class CoreBenchmark {
+
+    protected TestingProcessManager.TestingProcess process;
+    protected Main main;
+
+    @Setup(Level.Trial)
+    public void startCore() throws Exception {
+        Utils.reset();
+        configure();
+        process = TestingProcessManager.start(new String[] { "../" }, false);
+        process.getProcess().setForceInMemoryDB();
+        process.startProcess();
+        if (process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED) == null) {
+            throw new IllegalStateException("The core did not start");
+        }
+        main = process.getProcess();
+        afterStart();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopCore() throws Exception {
+        process.kill();
+        Utils.afterTesting();
+    }
+
+    /**
+     * Called before the core starts. Use Utils.setValueInConfig here to change its config.
+     */
+    protected void configure() throws Exception {
+    }
+
+    /**
+     * Called once the core has started, to create whatever the benchmarks need.
+     */
+    protected void afterStart() throws Exception {
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.benchmarks;
+
+import io.supertokens.emailpassword.ParsedFirebaseSCryptResponse;
+import io.supertokens.emailpassword.PasswordHashing;
+import io.supertokens.test.Utils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The core can only verify firebase scrypt hashes (of imported users), so unlike PasswordHashingBenchmark this has no
+ * hashing benchmark. The hash is the one used in PasswordHashingTest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FirebaseSCryptBenchmark extends CoreBenchmark {
+
+    private static final String PASSWORD = "testPass123";
+    private static final String HASH = "$" + ParsedFirebaseSCryptResponse.FIREBASE_SCRYPT_PREFIX + "$"
+            + "qZM035es5AXYqavsKD6/rhtxg7t5PhcyRgv5blc3doYbChX8keMfQLq1ra96O2Pf2TP/eZrR5xtPCYN6mX3ESA=="
+            + "$/cj0jC1br5o4+w==$m=14$r=8$s=Bw==";
+
+    @Override
+    protected void configure() throws Exception {
+        Utils.setValueInConfig("firebase_password_hashing_signer_key",
+                "gRhC3eDeQOdyEn4bMd9c6kxguWVmcIVq/SKa0JDPFeM6TcEevkaW56sIWfx88OHbJKnCXdWscZx0l2WbCJ1wbg==");
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return PasswordHashing.getInstance(main).verifyPasswordWithHash(PASSWORD, HASH);
+    }
+}
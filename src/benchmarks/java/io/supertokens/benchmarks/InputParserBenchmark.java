@@ -0,0 +1,114 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.benchmarks;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import io.supertokens.webserver.InputParser;
+import jakarta.servlet.http.HttpServletRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses request bodies the way the APIs do. This does not need a running core.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class InputParserBenchmark {
+
+    @Param({ "createSession", "signUp", "updateUserMetadata" })
+    public String body;
+
+    private String json;
+    private HttpServletRequest request;
+
+    @Setup(Level.Trial)
+    public void createBody() {
+        JsonObject input = new JsonObject();
+        switch (body) {
+        case "createSession": {
+            input.addProperty("userId", "4bf3e5a9-9b47-4a8e-8d7b-2a8c0f3c5e11");
+            JsonObject userDataInJWT = new JsonObject();
+            userDataInJWT.addProperty("role", "admin");
+            userDataInJWT.addProperty("tenant", "public");
+            input.add("userDataInJWT", userDataInJWT);
+            input.add("userDataInDatabase", new JsonObject());
+            input.addProperty("enableAntiCsrf", false);
+            input.addProperty("useDynamicSigningKey", true);
+            break;
+        }
+        case "signUp":
+            input.addProperty("email", "johndoe@example.com");
+            input.addProperty("password", "validPass123");
+            break;
+        case "updateUserMetadata": {
+            input.addProperty("userId", "4bf3e5a9-9b47-4a8e-8d7b-2a8c0f3c5e11");
+            JsonObject metadata = new JsonObject();
+            for (int i = 0; i < 50; i++) {
+                JsonObject entry = new JsonObject();
+                entry.addProperty("value", "value-" + i);
+                entry.addProperty("updatedAt", 1_690_000_000_000L + i);
+                JsonArray tags = new JsonArray();
+                tags.add(new JsonPrimitive("tag-" + i));
+                entry.add("tags", tags);
+                metadata.add("key-" + i, entry);
+            }
+            input.add("metadataUpdate", metadata);
+            break;
+        }
+        default:
+            throw new IllegalArgumentException(body);
+        }
+        json = input.toString();
+
+        // only getReader is used by InputParser
+        request = (HttpServletRequest) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { HttpServletRequest.class }, (proxy, method, args) -> {
+                    if (method.getName().equals("getReader")) {
+                        return new BufferedReader(new StringReader(json));
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    @Benchmark
+    public Object parse() throws Exception {
+        JsonObject input = InputParser.parseJsonObjectOrThrowError(request);
+        switch (body) {
+        case "createSession":
+            InputParser.parseStringOrThrowError(input, "userId", false);
+            InputParser.parseJsonObjectOrThrowError(input, "userDataInJWT", false);
+            InputParser.parseJsonObjectOrThrowError(input, "userDataInDatabase", false);
+            return InputParser.parseBooleanOrThrowError(input, "enableAntiCsrf", false);
+        case "signUp":
+            InputParser.parseStringOrThrowError(input, "email", false);
+            return InputParser.parseStringOrThrowError(input, "password", false);
+        default:
+            InputParser.parseStringOrThrowError(input, "userId", false);
+            return InputParser.parseJsonObjectOrThrowError(input, "metadataUpdate", false);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.benchmarks;
+
+import io.supertokens.webserver.IpAddressRanges;
+import io.supertokens.webserver.RemoteAddressFilter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Checks remote addresses against an allow list given as ip_allow_regex and as ip_allow_cidrs. The ranges are all /8,
+ * /16, /24 or /32, so that the regex (written the way operators write them) allows exactly the same addresses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class IpFilterBenchmark {
+
+    private static final int ADDRESSES = 1024;
+
+    @Param({ "10", "100", "500" })
+    public int ranges;
+
+    private RemoteAddressFilter regexFilter;
+    private RemoteAddressFilter cidrFilter;
+    private String[] addresses;
+
+    @Setup(Level.Trial)
+    public void createFilters() {
+        Random random = new Random(42);
+        int[][] prefixes = new int[ranges][];
+        StringBuilder regex = new StringBuilder();
+        StringBuilder cidrs = new StringBuilder();
+        for (int i = 0; i < ranges; i++) {
+            int octets = 1 + random.nextInt(4);
+            prefixes[i] = new int[octets];
+            StringBuilder range = new StringBuilder();
+            for (int j = 0; j < 4; j++) {
+                if (j > 0) {
+                    regex.append("\\.");
+                    range.append(".");
+                }
+                if (j < octets) {
+                    prefixes[i][j] = random.nextInt(256);
+                    regex.append(prefixes[i][j]);
+                    range.append(prefixes[i][j]);
+                } else {
+                    regex.append("\\d+");
+                    range.append("0");
+                }
+            }
+            regex.append(i < ranges - 1 ? "|" : "");
+            cidrs.append(i > 0 ? "," : "").append(range).append("/").append(octets * 8);
+        }
+        regexFilter = new RemoteAddressFilter(Pattern.compile(regex.toString()), null, null, null);
+        cidrFilter = new RemoteAddressFilter(null, IpAddressRanges.parse(cidrs.toString()), null, null);
+
+        // half of the addresses are in one of the ranges
+        addresses = new String[ADDRESSES];
+        for (int i = 0; i < ADDRESSES; i++) {
+            int[] prefix = i % 2 == 0 ? prefixes[random.nextInt(ranges)] : new int[0];
+            StringBuilder address = new StringBuilder();
+            for (int j = 0; j < 4; j++) {
+                address.append(j > 0 ? "." : "").append(j < prefix.length ? prefix[j] : random.nextInt(256));
+            }
+            addresses[i] = address.toString();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ADDRESSES)
+    public void regex(Blackhole blackhole) {
+        for (String address : addresses) {
+            blackhole.consume(regexFilter.isAllowed(address));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ADDRESSES)
+    public void cidrs(Blackhole blackhole) {
+        for (String address : addresses) {
+            blackhole.consume(cidrFilter.isAllowed(address));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.benchmarks;
+
+import io.supertokens.emailpassword.PasswordHashing;
+import io.supertokens.test.Utils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PasswordHashingBenchmark extends CoreBenchmark {
+
+    private static final String PASSWORD = "benchmarkPassword123";
+
+    @Param({ "BCRYPT", "ARGON2" })
+    public String algorithm;
+
+    private String hash;
+
+    @Override
+    protected void configure() throws Exception {
+        Utils.setValueInConfig("password_hashing_alg", algorithm);
+    }
+
+    @Override
+    protected void afterStart() {
+        hash = hash();
+    }
+
+    @Benchmark
+    public String hash() {
+        return PasswordHashing.getInstance(main).createHashWithSalt(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return PasswordHashing.getInstance(main).verifyPasswordWithHash(PASSWORD, hash);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.benchmarks;
+
+import io.supertokens.session.info.TokenInfo;
+import io.supertokens.session.refreshToken.RefreshToken;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RefreshTokenBenchmark extends CoreBenchmark {
+
+    private String token;
+
+    @Override
+    protected void afterStart() throws Exception {
+        token = encrypt().token;
+    }
+
+    @Benchmark
+    public TokenInfo encrypt() throws Exception {
+        return RefreshToken.createNewRefreshToken(main, "benchmark-session", "benchmark-user", null, null);
+    }
+
+    @Benchmark
+    public RefreshToken.RefreshTokenInfo decrypt() throws Exception {
+        return RefreshToken.getInfoFromRefreshToken(main, token);
+    }
+}
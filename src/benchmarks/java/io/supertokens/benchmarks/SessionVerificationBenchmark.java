@@ -0,0 +1,55 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.benchmarks;
+
+import com.google.gson.JsonObject;
+import io.supertokens.session.Session;
+import io.supertokens.session.info.SessionInformationHolder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SessionVerificationBenchmark extends CoreBenchmark {
+
+    @Param({ "false", "true" })
+    public boolean checkDatabase;
+
+    private String accessToken;
+
+    @Override
+    protected void afterStart() throws Exception {
+        JsonObject userDataInJWT = new JsonObject();
+        userDataInJWT.addProperty("role", "admin");
+        JsonObject userDataInDatabase = new JsonObject();
+        userDataInDatabase.addProperty("plan", "free");
+
+        SessionInformationHolder session = Session.createNewSession(main, "benchmark-user", userDataInJWT,
+                userDataInDatabase, false, true, false);
+        accessToken = session.accessToken.token;
+    }
+
+    @Benchmark
+    public SessionInformationHolder getSession() throws Exception {
+        return Session.getSession(main, accessToken, null, false, false, checkDatabase);
+    }
+}
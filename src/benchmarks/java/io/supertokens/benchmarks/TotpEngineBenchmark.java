@@ -0,0 +1,96 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.benchmarks;
+
+import com.eatthepath.otp.TimeBasedOneTimePasswordGenerator;
+import io.supertokens.pluginInterface.totp.TOTPDevice;
+import io.supertokens.totp.TotpEngine;
+import org.apache.commons.codec.binary.Base32;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.security.Key;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks a code against all the devices of a user, with TotpEngine and with what Totp did before TotpEngine was added
+ * (a new generator and decoded key for each device and time step). The code never matches, which makes every device
+ * and time step be checked, so this is the slowest case.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TotpEngineBenchmark extends CoreBenchmark {
+
+    private static final int NUMBER_OF_USERS = 100;
+    private static final String CODE = "000000";
+
+    @Param({ "1", "5" })
+    public int devicesPerUser;
+
+    private TotpEngine engine;
+    private TOTPDevice[][] devices;
+    private int nextUser = 0;
+
+    @Override
+    protected void afterStart() {
+        engine = TotpEngine.getInstance(main);
+        SecureRandom random = new SecureRandom();
+        devices = new TOTPDevice[NUMBER_OF_USERS][devicesPerUser];
+        for (int i = 0; i < NUMBER_OF_USERS; i++) {
+            for (int j = 0; j < devicesPerUser; j++) {
+                byte[] secret = new byte[20];
+                random.nextBytes(secret);
+                devices[i][j] = new TOTPDevice("user" + i, "device" + j, new Base32().encodeToString(secret), 30, 1,
+                        true);
+            }
+        }
+    }
+
+    private TOTPDevice[] nextUserDevices() {
+        TOTPDevice[] userDevices = devices[nextUser];
+        nextUser = (nextUser + 1) % NUMBER_OF_USERS;
+        return userDevices;
+    }
+
+    @Benchmark
+    public TOTPDevice withEngine() {
+        return engine.findMatchingDevice(nextUserDevices(), CODE, System.currentTimeMillis());
+    }
+
+    @Benchmark
+    public TOTPDevice withoutEngine() throws Exception {
+        for (TOTPDevice device : nextUserDevices()) {
+            TimeBasedOneTimePasswordGenerator totp = new TimeBasedOneTimePasswordGenerator(
+                    Duration.ofSeconds(device.period), 6);
+            Key key = new SecretKeySpec(new Base32().decode(device.secretKey), "HmacSHA1");
+            for (int i = -device.skew; i <= device.skew; i++) {
+                if (totp.generateOneTimePasswordString(key, Instant.now().plusSeconds(i * device.period))
+                        .equals(CODE)) {
+                    return device;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.benchmarks;
+
+import io.supertokens.emailpassword.EmailPassword;
+import io.supertokens.emailpassword.PasswordHashing;
+import io.supertokens.inmemorydb.Start;
+import io.supertokens.inmemorydb.queries.GeneralQueries;
+import io.supertokens.pluginInterface.authRecipe.AuthRecipeUserInfo;
+import io.supertokens.pluginInterface.dashboard.DashboardSearchTags;
+import io.supertokens.pluginInterface.emailpassword.UserInfo;
+import io.supertokens.storageLayer.StorageLayer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class UserPaginationBenchmark extends CoreBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+    private static final int IMPORT_BATCH_SIZE = 1000;
+
+    @Param({ "1000", "10000" })
+    public int users;
+
+    private Start start;
+    private UserInfo middleUser;
+
+    @Override
+    protected void afterStart() throws Exception {
+        start = (Start) StorageLayer.getStorage(main);
+
+        // the users share one hash, so that creating them does not hash anything
+        String passwordHash = PasswordHashing.getInstance(main).createHashWithSalt("password");
+        for (int batchStart = 0; batchStart < users; batchStart += IMPORT_BATCH_SIZE) {
+            List<String> emails = new ArrayList<>();
+            for (int i = batchStart; i < Math.min(users, batchStart + IMPORT_BATCH_SIZE); i++) {
+                emails.add("user-" + i + "@example.com");
+            }
+            EmailPassword.ImportUserResponse[] responses = EmailPassword.importUsersWithValidatedPasswordHashes(
+                    main, emails, Collections.nCopies(emails.size(), passwordHash));
+            int middle = users / 2 - batchStart;
+            if (middle >= 0 && middle < responses.length) {
+                middleUser = responses[middle].user;
+            }
+        }
+    }
+
+    @Benchmark
+    public AuthRecipeUserInfo[] firstPage() throws Exception {
+        return GeneralQueries.getUsers(start, PAGE_SIZE + 1, "ASC", null, null, null, null);
+    }
+
+    // what a pagination token points to
+    @Benchmark
+    public AuthRecipeUserInfo[] pageFromTheMiddle() throws Exception {
+        return GeneralQueries.getUsers(start, PAGE_SIZE + 1, "ASC", null, middleUser.id, middleUser.timeJoined,
+                null);
+    }
+
+    @Benchmark
+    public AuthRecipeUserInfo[] searchByEmail() throws Exception {
+        return GeneralQueries.getUsers(start, PAGE_SIZE + 1, "ASC", null, null, null,
+                new DashboardSearchTags(List.of("user-42"), null, null));
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.benchmarks.load;
+
+import java.util.Locale;
+
+/**
+ * The APIs the load test sends requests to. The names are the ones used in the "mix" option.
+ */
+enum Api {
+    CREATE_SESSION("createSession"),
+    VERIFY_SESSION("verifySession"),
+    REFRESH_SESSION("refreshSession"),
+    SIGN_IN("signIn"),
+    GET_USER_ROLES("getUserRoles"),
+    GET_USER_METADATA("getUserMetadata");
+
+    final String name;
+
+    Api(String name) {
+        this.name = name;
+    }
+
+    static Api fromName(String name) {
+        for (Api api : values()) {
+            if (api.name.toLowerCase(Locale.ROOT).equals(name.toLowerCase(Locale.ROOT))) {
+                return api;
+            }
+        }
+        throw new IllegalArgumentException("Unknown api: " + name);
+    }
+}
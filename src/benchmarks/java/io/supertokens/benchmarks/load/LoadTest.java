@@ -0,0 +1,273 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.benchmarks.load;
+
+import io.supertokens.Main;
+import io.supertokens.ProcessState;
+import io.supertokens.config.Config;
+import io.supertokens.test.TestingProcessManager;
+import io.supertokens.test.Utils;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts a core with the in memory db and sends it a mix of API requests from many concurrent clients, each with its
+ * own keep-alive connection, and then prints the throughput and latency percentiles of each API. It does this for each
+ * number of clients in the "clients" option, so that the results show how the core scales.
+ * <p>
+ * The options are key=value arguments (see the loadTest task in build.gradle):
+ * <ul>
+ * <li>clients: comma separated numbers of concurrent clients to run with. Default: 1,2,4,8,16,32</li>
+ * <li>mode: "closed", where each client sends its next request as soon as it gets a response, or "open", where
+ * requests are sent at a fixed rate, however fast the core responds. Default: closed</li>
+ * <li>rate: requests per second, across all clients, in the open mode. Default: 1000</li>
+ * <li>warmup: seconds to send requests for before measuring, for each number of clients. Default: 10</li>
+ * <li>duration: seconds to measure for, for each number of clients. Default: 30</li>
+ * <li>mix: the APIs to call, with their weights. Default: {@value #DEFAULT_MIX}</li>
+ * <li>users: the number of users to create, and send requests for. Default: 100</li>
+ * <li>checkDatabase: whether session verification checks the database. Default: false</li>
+ * <li>out: a csv file that the results are appended to. Default: build/loadtest/results.csv</li>
+ * <li>core.&lt;key&gt;: sets key in the core's config, for example core.max_server_pool_size=64</li>
+ * </ul>
+ * In the open mode, latencies are measured from when a request should have been sent, so that a slow response also
+ * counts against the requests that had to wait for it.
+ * <p>
+ * The clients run in the same JVM as the core, so they use some of its CPU.
+ */
+public class LoadTest {
+
+    private static final String DEFAULT_MIX = "verifySession:50,refreshSession:10,createSession:10,signIn:5,"
+            + "getUserRoles:15,getUserMetadata:10";
+
+    private final int[] clients;
+    private final boolean openLoop;
+    private final double rate;
+    private final int warmupSeconds;
+    private final int durationSeconds;
+    private final Mix mix;
+    private final int users;
+    private final boolean checkDatabase;
+    private final File out;
+    private final Map<String, String> coreConfig = new LinkedHashMap<>();
+
+    private LoadTest(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Options must be given as key=value: " + arg);
+            }
+            String key = arg.substring(0, separator);
+            String value = arg.substring(separator + 1);
+            if (key.startsWith("core.")) {
+                coreConfig.put(key.substring("core.".length()), value);
+            } else {
+                options.put(key, value);
+            }
+        }
+
+        clients = Arrays.stream(options.getOrDefault("clients", "1,2,4,8,16,32").split(","))
+                .mapToInt(value -> Integer.parseInt(value.trim())).toArray();
+        String mode = options.getOrDefault("mode", "closed");
+        if (!mode.equals("closed") && !mode.equals("open")) {
+            throw new IllegalArgumentException("mode must be closed or open");
+        }
+        openLoop = mode.equals("open");
+        rate = Double.parseDouble(options.getOrDefault("rate", "1000"));
+        warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        durationSeconds = Integer.parseInt(options.getOrDefault("duration", "30"));
+        mix = Mix.parse(options.getOrDefault("mix", DEFAULT_MIX));
+        users = Integer.parseInt(options.getOrDefault("users", "100"));
+        checkDatabase = Boolean.parseBoolean(options.getOrDefault("checkDatabase", "false"));
+        out = new File(options.getOrDefault("out", "build/loadtest/results.csv"));
+
+        if (Arrays.stream(clients).anyMatch(value -> value <= 0) || rate <= 0 || warmupSeconds < 0
+                || durationSeconds <= 0 || users <= 0) {
+            throw new IllegalArgumentException("clients, rate, duration and users must be > 0, and warmup >= 0");
+        }
+        options.keySet().removeAll(List.of("clients", "mode", "rate", "warmup", "duration", "mix", "users",
+                "checkDatabase", "out"));
+        if (!options.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options: " + options.keySet());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadTest(args).run();
+        // the HttpClients of the clients keep some threads around
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        Utils.reset();
+        for (Map.Entry<String, String> entry : coreConfig.entrySet()) {
+            Utils.setValueInConfig(entry.getKey(), entry.getValue());
+        }
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(new String[] { "../" }, false);
+        process.getProcess().setForceInMemoryDB();
+        process.startProcess();
+        if (process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED) == null) {
+            throw new IllegalStateException("The core did not start");
+        }
+
+        try {
+            Main main = process.getProcess();
+            URI core = URI.create("http://localhost:" + Config.getConfig(main).getPort(main));
+
+            System.out.println("Creating " + users + " users");
+            Users users = Users.create(new LoadTestClient(core, checkDatabase), this.users);
+
+            System.out.println("mode: " + (openLoop ? "open, " + rate + " requests/s" : "closed") + ", mix: " + mix
+                    + ", checkDatabase: " + checkDatabase + ", CPUs: " + Runtime.getRuntime().availableProcessors());
+            Map<Integer, Map<Api, LoadTestClient.Stats>> results = new LinkedHashMap<>();
+            Map<Integer, Double> durations = new HashMap<>();
+            for (int clientCount : clients) {
+                List<LoadTestClient> clientsOfRun = new ArrayList<>();
+                for (int i = 0; i < clientCount; i++) {
+                    LoadTestClient client = new LoadTestClient(core, checkDatabase);
+                    client.useUsers(users);
+                    clientsOfRun.add(client);
+                }
+
+                if (warmupSeconds > 0) {
+                    send(clientsOfRun, warmupSeconds);
+                }
+                long start = System.nanoTime();
+                Map<Api, LoadTestClient.Stats> stats = send(clientsOfRun, durationSeconds);
+                double seconds = (System.nanoTime() - start) / 1e9;
+
+                results.put(clientCount, stats);
+                durations.put(clientCount, seconds);
+                print(clientCount, stats, seconds);
+                appendToCsv(clientCount, stats, seconds);
+            }
+
+            System.out.println();
+            System.out.println("Scaling (all apis):");
+            System.out.println(String.format("%8s %12s %10s %10s", "clients", "requests/s", "p50 ms", "p99 ms"));
+            for (Map.Entry<Integer, Map<Api, LoadTestClient.Stats>> entry : results.entrySet()) {
+                LoadTestClient.Stats all = total(entry.getValue());
+                System.out.println(String.format(Locale.ROOT, "%8d %12.1f %10.2f %10.2f", entry.getKey(),
+                        all.latencies.getTotalCount() / durations.get(entry.getKey()),
+                        toMs(all.latencies.getValueAtPercentile(50)), toMs(all.latencies.getValueAtPercentile(99))));
+            }
+            System.out.println("Results were appended to " + out.getAbsolutePath());
+        } finally {
+            process.kill();
+            Utils.afterTesting();
+        }
+    }
+
+    private Map<Api, LoadTestClient.Stats> send(List<LoadTestClient> clients, int seconds) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(clients.size());
+        try {
+            long intervalNanos = openLoop ? (long) (clients.size() * 1e9 / rate) : 0;
+            long start = System.nanoTime();
+            long end = start + TimeUnit.SECONDS.toNanos(seconds);
+
+            List<Future<Map<Api, LoadTestClient.Stats>>> futures = new ArrayList<>();
+            for (int i = 0; i < clients.size(); i++) {
+                LoadTestClient client = clients.get(i);
+                // spreads the requests of the clients evenly in the open mode
+                long firstSendTime = start + i * intervalNanos / clients.size();
+                futures.add(executor.submit(() -> client.run(mix, firstSendTime, intervalNanos, end)));
+            }
+
+            Map<Api, LoadTestClient.Stats> stats = new EnumMap<>(Api.class);
+            for (Future<Map<Api, LoadTestClient.Stats>> future : futures) {
+                for (Map.Entry<Api, LoadTestClient.Stats> entry : future.get().entrySet()) {
+                    stats.computeIfAbsent(entry.getKey(), api -> new LoadTestClient.Stats()).add(entry.getValue());
+                }
+            }
+            return stats;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void print(int clientCount, Map<Api, LoadTestClient.Stats> stats, double seconds) {
+        System.out.println();
+        System.out.println(clientCount + " clients, " + String.format(Locale.ROOT, "%.1f", seconds) + "s:");
+        System.out.println(String.format("%-16s %10s %8s %12s %10s %10s %10s %10s", "api", "requests", "errors",
+                "requests/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms"));
+        for (Map.Entry<Api, LoadTestClient.Stats> entry : stats.entrySet()) {
+            if (entry.getValue().latencies.getTotalCount() > 0) {
+                printRow(entry.getKey().name, entry.getValue(), seconds);
+            }
+        }
+        printRow("all", total(stats), seconds);
+    }
+
+    private static void printRow(String name, LoadTestClient.Stats stats, double seconds) {
+        Histogram latencies = stats.latencies;
+        System.out.println(String.format(Locale.ROOT, "%-16s %10d %8d %12.1f %10.2f %10.2f %10.2f %10.2f", name,
+                latencies.getTotalCount(), stats.errors, latencies.getTotalCount() / seconds,
+                toMs(latencies.getValueAtPercentile(50)), toMs(latencies.getValueAtPercentile(99)),
+                toMs(latencies.getValueAtPercentile(99.9)), toMs(latencies.getMaxValue())));
+    }
+
+    private void appendToCsv(int clientCount, Map<Api, LoadTestClient.Stats> stats, double seconds)
+            throws IOException {
+        if (out.getParentFile() != null) {
+            out.getParentFile().mkdirs();
+        }
+        boolean writeHeader = !out.exists();
+        try (PrintWriter writer = new PrintWriter(new FileWriter(out, true))) {
+            if (writeHeader) {
+                writer.println("mode,rate,clients,api,requests,errors,requests_per_second,"
+                        + "p50_ms,p99_ms,p99_9_ms,max_ms");
+            }
+            Map<String, LoadTestClient.Stats> rows = new LinkedHashMap<>();
+            for (Map.Entry<Api, LoadTestClient.Stats> entry : stats.entrySet()) {
+                if (entry.getValue().latencies.getTotalCount() > 0) {
+                    rows.put(entry.getKey().name, entry.getValue());
+                }
+            }
+            rows.put("all", total(stats));
+            for (Map.Entry<String, LoadTestClient.Stats> row : rows.entrySet()) {
+                Histogram latencies = row.getValue().latencies;
+                writer.println(String.format(Locale.ROOT, "%s,%s,%d,%s,%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f",
+                        openLoop ? "open" : "closed", openLoop ? String.valueOf(rate) : "", clientCount, row.getKey(),
+                        latencies.getTotalCount(), row.getValue().errors, latencies.getTotalCount() / seconds,
+                        toMs(latencies.getValueAtPercentile(50)), toMs(latencies.getValueAtPercentile(99)),
+                        toMs(latencies.getValueAtPercentile(99.9)), toMs(latencies.getMaxValue())));
+            }
+        }
+    }
+
+    private static LoadTestClient.Stats total(Map<Api, LoadTestClient.Stats> stats) {
+        LoadTestClient.Stats total = new LoadTestClient.Stats();
+        for (LoadTestClient.Stats apiStats : stats.values()) {
+            total.add(apiStats);
+        }
+        return total;
+    }
+
+    private static double toMs(long nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.benchmarks.load;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One client of the load test. It has its own HttpClient, and so its own keep-alive connection to the core, and its
+ * own session to refresh. It is only used by one thread at a time.
+ */
+class LoadTestClient {
+
+    private static final String CDI_VERSION = "2.21";
+    static final String PASSWORD = "loadTestPass123";
+    static final String ROLE = "load-test-role";
+
+    private final HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10)).build();
+    private final URI core;
+    private final boolean checkDatabase;
+    private Users users;
+    private String refreshToken;
+
+    LoadTestClient(URI core, boolean checkDatabase) {
+        this.core = core;
+        this.checkDatabase = checkDatabase;
+    }
+
+    /**
+     * Latencies (in ns, including those of failed requests) and the number of failed requests of one API.
+     */
+    static class Stats {
+        final Histogram latencies = new Histogram(3);
+        long errors = 0;
+
+        void add(Stats other) {
+            latencies.add(other.latencies);
+            errors += other.errors;
+        }
+    }
+
+    void useUsers(Users users) throws IOException, InterruptedException {
+        this.users = users;
+        JsonObject session = createSession(users.ids[0]);
+        if (session == null) {
+            throw new IllegalStateException("Could not create a session for the client");
+        }
+        refreshToken = session.getAsJsonObject("refreshToken").get("token").getAsString();
+    }
+
+    /**
+     * Sends requests until endTime (of System.nanoTime). If intervalNanos is 0, each request is sent as soon as the one
+     * before it got a response. Otherwise, request n is meant to be sent at firstSendTime + n * intervalNanos, and its
+     * latency is measured from then, even if the client could only send it later because the core was slow.
+     */
+    Map<Api, Stats> run(Mix mix, long firstSendTime, long intervalNanos, long endTime) throws InterruptedException {
+        Map<Api, Stats> stats = new EnumMap<>(Api.class);
+        for (Api api : Api.values()) {
+            stats.put(api, new Stats());
+        }
+
+        long sendTime = firstSendTime;
+        while (true) {
+            if (intervalNanos > 0) {
+                if (sendTime >= endTime) {
+                    break;
+                }
+                long now;
+                while ((now = System.nanoTime()) < sendTime) {
+                    LockSupport.parkNanos(sendTime - now);
+                }
+            } else {
+                sendTime = System.nanoTime();
+                if (sendTime >= endTime) {
+                    break;
+                }
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            Api api = mix.next();
+            boolean ok;
+            try {
+                ok = send(api);
+            } catch (IOException e) {
+                ok = false;
+            }
+            Stats apiStats = stats.get(api);
+            apiStats.latencies.recordValue(System.nanoTime() - sendTime);
+            if (!ok) {
+                apiStats.errors++;
+            }
+            sendTime += intervalNanos;
+        }
+        return stats;
+    }
+
+    private boolean send(Api api) throws IOException, InterruptedException {
+        int user = ThreadLocalRandom.current().nextInt(users.ids.length);
+        switch (api) {
+        case CREATE_SESSION:
+            return createSession(users.ids[user]) != null;
+        case VERIFY_SESSION: {
+            JsonObject body = new JsonObject();
+            body.addProperty("accessToken", users.accessTokens[user]);
+            body.addProperty("doAntiCsrfCheck", false);
+            body.addProperty("enableAntiCsrf", false);
+            body.addProperty("checkDatabase", checkDatabase);
+            return post("/recipe/session/verify", body) != null;
+        }
+        case REFRESH_SESSION: {
+            JsonObject body = new JsonObject();
+            body.addProperty("refreshToken", refreshToken);
+            body.addProperty("enableAntiCsrf", false);
+            JsonObject response = post("/recipe/session/refresh", body);
+            if (response == null) {
+                // a refresh token can only be used once, so we need a new session to keep going
+                JsonObject session = createSession(users.ids[user]);
+                if (session != null) {
+                    refreshToken = session.getAsJsonObject("refreshToken").get("token").getAsString();
+                }
+                return false;
+            }
+            refreshToken = response.getAsJsonObject("refreshToken").get("token").getAsString();
+            return true;
+        }
+        case SIGN_IN: {
+            JsonObject body = new JsonObject();
+            body.addProperty("email", users.emails[user]);
+            body.addProperty("password", PASSWORD);
+            return post("/recipe/signin", body) != null;
+        }
+        case GET_USER_ROLES:
+            return get("/recipe/user/roles?userId=" + URLEncoder.encode(users.ids[user], StandardCharsets.UTF_8))
+                    != null;
+        case GET_USER_METADATA:
+            return get("/recipe/user/metadata?userId=" + URLEncoder.encode(users.ids[user], StandardCharsets.UTF_8))
+                    != null;
+        default:
+            throw new IllegalArgumentException(api.name);
+        }
+    }
+
+    JsonObject createSession(String userId) throws IOException, InterruptedException {
+        JsonObject userDataInJWT = new JsonObject();
+        userDataInJWT.addProperty("role", ROLE);
+        JsonObject body = new JsonObject();
+        body.addProperty("userId", userId);
+        body.add("userDataInJWT", userDataInJWT);
+        body.add("userDataInDatabase", new JsonObject());
+        body.addProperty("enableAntiCsrf", false);
+        return post("/recipe/session", body);
+    }
+
+    JsonObject signUp(String email) throws IOException, InterruptedException {
+        JsonObject body = new JsonObject();
+        body.addProperty("email", email);
+        body.addProperty("password", PASSWORD);
+        return post("/recipe/signup", body);
+    }
+
+    JsonObject createRole() throws IOException, InterruptedException {
+        JsonArray permissions = new JsonArray();
+        permissions.add(new JsonPrimitive("read"));
+        JsonObject body = new JsonObject();
+        body.addProperty("role", ROLE);
+        body.add("permissions", permissions);
+        return put("/recipe/role", body);
+    }
+
+    JsonObject addRole(String userId) throws IOException, InterruptedException {
+        JsonObject body = new JsonObject();
+        body.addProperty("userId", userId);
+        body.addProperty("role", ROLE);
+        return put("/recipe/user/role", body);
+    }
+
+    JsonObject updateMetadata(String userId) throws IOException, InterruptedException {
+        JsonObject metadata = new JsonObject();
+        metadata.addProperty("plan", "free");
+        metadata.addProperty("locale", "en-GB");
+        JsonObject body = new JsonObject();
+        body.addProperty("userId", userId);
+        body.add("metadataUpdate", metadata);
+        return put("/recipe/user/metadata", body);
+    }
+
+    private JsonObject get(String path) throws IOException, InterruptedException {
+        return send(request(path).GET().build());
+    }
+
+    private JsonObject post(String path, JsonObject body) throws IOException, InterruptedException {
+        return send(request(path).header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString())).build());
+    }
+
+    private JsonObject put(String path, JsonObject body) throws IOException, InterruptedException {
+        return send(request(path).header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(body.toString())).build());
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(core.resolve(path)).timeout(Duration.ofSeconds(30)).header("cdi-version",
+                CDI_VERSION);
+    }
+
+    // returns the response if the request succeeded, and null otherwise
+    private JsonObject send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            return null;
+        }
+        JsonObject json = new JsonParser().parse(response.body()).getAsJsonObject();
+        return "OK".equals(json.get("status").getAsString()) ? json : null;
+    }
+}
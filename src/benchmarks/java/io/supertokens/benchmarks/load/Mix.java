@@ -0,0 +1,87 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.benchmarks.load;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks APIs at random, in proportion to their weights.
+ */
+class Mix {
+
+    private final Api[] apis;
+    private final int[] cumulativeWeights;
+
+    private Mix(Map<Api, Integer> weights) {
+        apis = weights.keySet().toArray(new Api[0]);
+        cumulativeWeights = new int[apis.length];
+        int total = 0;
+        for (int i = 0; i < apis.length; i++) {
+            total += weights.get(apis[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    /**
+     * Parses a mix like "verifySession:60,refreshSession:10", where each number is the weight of the API before it.
+     */
+    static Mix parse(String mix) {
+        Map<Api, Integer> weights = new EnumMap<>(Api.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weights must be >= 0: " + entry);
+            }
+            if (weight > 0) {
+                weights.merge(Api.fromName(parts[0].trim()), weight, Integer::sum);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("The mix must have at least one api with a weight > 0");
+        }
+        return new Mix(weights);
+    }
+
+    Api next() {
+        int value = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < apis.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return apis[i];
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < apis.length; i++) {
+            if (i > 0) {
+                result.append(",");
+            }
+            int weight = cumulativeWeights[i] - (i == 0 ? 0 : cumulativeWeights[i - 1]);
+            result.append(apis[i].name).append(":").append(weight);
+        }
+        return result.toString();
+    }
+}
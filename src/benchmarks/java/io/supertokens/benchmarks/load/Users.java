@@ -0,0 +1,60 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.benchmarks.load;
+
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+
+/**
+ * The users the load test sends requests for. Each one has a role, some metadata and a session, so that every API in
+ * the mix does real work for them.
+ */
+class Users {
+
+    final String[] ids;
+    final String[] emails;
+    final String[] accessTokens;
+
+    private Users(int count) {
+        ids = new String[count];
+        emails = new String[count];
+        accessTokens = new String[count];
+    }
+
+    static Users create(LoadTestClient client, int count) throws IOException, InterruptedException {
+        Users users = new Users(count);
+        requireOk(client.createRole(), "create the role");
+        for (int i = 0; i < count; i++) {
+            users.emails[i] = "load-test-user-" + i + "@example.com";
+            users.ids[i] = requireOk(client.signUp(users.emails[i]), "sign up a user").getAsJsonObject("user")
+                    .get("id").getAsString();
+            requireOk(client.addRole(users.ids[i]), "add a role to a user");
+            requireOk(client.updateMetadata(users.ids[i]), "update the metadata of a user");
+            users.accessTokens[i] = requireOk(client.createSession(users.ids[i]), "create a session")
+                    .getAsJsonObject("accessToken").get("token").getAsString();
+        }
+        return users;
+    }
+
+    private static JsonObject requireOk(JsonObject response, String action) {
+        if (response == null) {
+            throw new IllegalStateException("Could not " + action);
+        }
+        return response;
+    }
+}
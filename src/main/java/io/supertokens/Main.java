@@ -16,9 +16,11 @@
 
 package io.supertokens;
 
+import io.supertokens.authRecipe.UserSearchIndex;
 import io.supertokens.cliOptions.CLIOptions;
 import io.supertokens.config.Config;
 import io.supertokens.config.CoreConfig;
+import io.supertokens.cronjobs.CronLeaderLease;
 import io.supertokens.cronjobs.Cronjobs;
 import io.supertokens.cronjobs.deleteExpiredAccessTokenSigningKeys.DeleteExpiredAccessTokenSigningKeys;
 import io.supertokens.cronjobs.deleteExpiredDashboardSessions.DeleteExpiredDashboardSessions;
@@ -27,8 +29,11 @@ import io.supertokens.cronjobs.deleteExpiredPasswordResetTokens.DeleteExpiredPas
 import io.supertokens.cronjobs.deleteExpiredPasswordlessDevices.DeleteExpiredPasswordlessDevices;
 import io.supertokens.cronjobs.deleteExpiredSessions.DeleteExpiredSessions;
 import io.supertokens.cronjobs.deleteExpiredTotpTokens.DeleteExpiredTotpTokens;
+import io.supertokens.cronjobs.reconcileUsersCount.ReconcileUsersCount;
 import io.supertokens.cronjobs.telemetry.Telemetry;
 import io.supertokens.emailpassword.PasswordHashing;
+import io.supertokens.emailpassword.bulkImport.BulkImport;
+import io.supertokens.emailverification.EmailVerificationCache;
 import io.supertokens.exceptions.QuitProgramException;
 import io.supertokens.featureflag.FeatureFlag;
 import io.supertokens.inmemorydb.Start;
@@ -39,8 +44,14 @@ import io.supertokens.pluginInterface.exceptions.StorageQueryException;
 import io.supertokens.signingkeys.AccessTokenSigningKey;
 import io.supertokens.session.refreshToken.RefreshTokenKey;
 import io.supertokens.signingkeys.SigningKeys;
+import io.supertokens.startup.StartupPhases;
+import io.supertokens.startup.WarmUp;
 import io.supertokens.storageLayer.StorageLayer;
+import io.supertokens.totp.TotpEngine;
 import io.supertokens.version.Version;
+import io.supertokens.useridmapping.UserIdMappingCache;
+import io.supertokens.usermetadata.UserMetadataCache;
+import io.supertokens.userroles.UserRolesCache;
 import io.supertokens.webserver.Webserver;
 import org.jetbrains.annotations.TestOnly;
 import sun.misc.Unsafe;
@@ -139,30 +150,50 @@ public class Main {
         }
     }
 
-    private void init() throws IOException {
+    private void init() throws Exception {
 
         // Handle kill signal gracefully
         handleKillSignalForWhenItHappens();
 
+        StartupPhases startupPhases = StartupPhases.getInstance(this);
+        boolean successful = false;
+        try {
+            initPhases(startupPhases);
+            successful = true;
+        } finally {
+            startupPhases.complete(successful);
+        }
+
+        // this is a sign to the controlling script that this process has started.
+        createDotStartedFileForThisProcess();
+
+        // NOTE: If the message below is changed, make sure to also change the corresponding check in the CLI program
+        // for start command
+        Logging.info(this, "Started SuperTokens on " + Config.getConfig(this).getHost(this) + ":"
+                + Config.getConfig(this).getPort(this) + " with PID: " + ProcessHandle.current().pid(), true);
+    }
+
+    private void initPhases(StartupPhases startupPhases) throws Exception {
         // loading configs for core.
-        Config.loadConfig(this,
+        startupPhases.runPhase("config", () -> Config.loadConfig(this,
                 CLIOptions.get(this).getConfigFilePath() == null
                         ? CLIOptions.get(this).getInstallationPath() + "config.yaml"
-                        : CLIOptions.get(this).getConfigFilePath());
+                        : CLIOptions.get(this).getConfigFilePath()));
 
         Logging.info(this, "Completed config.yaml loading.", true);
 
         // loading storage layer
-        StorageLayer.init(this, CLIOptions.get(this).getInstallationPath() + "plugin/",
+        startupPhases.runPhase("storagePlugin", () -> StorageLayer.init(this,
+                CLIOptions.get(this).getInstallationPath() + "plugin/",
                 CLIOptions.get(this).getConfigFilePath() == null
                         ? CLIOptions.get(this).getInstallationPath() + "config.yaml"
-                        : CLIOptions.get(this).getConfigFilePath());
+                        : CLIOptions.get(this).getConfigFilePath()));
 
         // loading version file
         Version.loadVersion(this, CLIOptions.get(this).getInstallationPath() + "version.yaml");
 
         // init file logging
-        Logging.initFileLogging(this);
+        startupPhases.runPhase("fileLogging", () -> Logging.initFileLogging(this));
 
         // initialise cron job handler
         Cronjobs.init(this);
@@ -177,24 +208,46 @@ public class Main {
                 }
             }
         }
-        StorageLayer.getStorage(this).initStorage();
+        startupPhases.runPhase("storage", () -> StorageLayer.getStorage(this).initStorage());
+
+        // Everything below only needs the config and the storage, so the phases that do not depend on each other
+        // run at the same time.
+        startupPhases.newGraph(StorageLayer.getStorage(this) instanceof Start)
+                // enable ee features if license key is provided.
+                .add("featureFlag", true, () -> {
+                    synchronized (waitToEnableFeatureFlagLock) {
+                        while (waitToEnableFeatureFlag) {
+                            try {
+                                waitToEnableFeatureFlagLock.wait();
+                            } catch (InterruptedException ignored) {
+                            }
+                        }
+                    }
+                    FeatureFlag.init(this, CLIOptions.get(this).getInstallationPath() + "ee/");
+                })
+                // init signing keys
+                .add("accessTokenSigningKey", true, () -> AccessTokenSigningKey.init(this))
+                .add("refreshTokenKey", true, () -> RefreshTokenKey.init(this))
+                .add("jwtSigningKey", true, () -> JWTSigningKey.init(this))
+                .add("signingKeys", true, () -> SigningKeys.init(this), "accessTokenSigningKey", "jwtSigningKey")
+                .add("caches", false, this::initCaches)
+                // builds the in memory index used for dashboard user search, if enabled
+                .add("userSearchIndex", true, () -> UserSearchIndex.init(this), "caches")
+                .add("cronjobs", false, this::addCronjobs, "featureFlag", "accessTokenSigningKey", "refreshTokenKey",
+                        "signingKeys")
+                // start web server to accept incoming traffic. API calls wait until all the other phases are done
+                .addOnCallingThread("webserver", false, () -> Webserver.getInstance(this).start())
+                .run();
+
+        // gets the hot code paths compiled before the core says that it is ready (only if warm_up_iterations is set)
+        startupPhases.runPhase("warmUp", () -> WarmUp.run(this));
+    }
 
-        // enable ee features if license key is provided.
-        synchronized (waitToEnableFeatureFlagLock) {
-            while (waitToEnableFeatureFlag) {
-                try {
-                    waitToEnableFeatureFlagLock.wait();
-                } catch (InterruptedException ignored) {
-                }
-            }
+    private void addCronjobs() {
+        // keeps the cron leader lease, so that cluster wide cronjobs run on one core only
+        if (Config.getConfig(this).isCronLeaderLeaseEnabled()) {
+            Cronjobs.addCronjob(this, CronLeaderLease.getInstance(this));
         }
-        FeatureFlag.init(this, CLIOptions.get(this).getInstallationPath() + "ee/");
-
-        // init signing keys
-        AccessTokenSigningKey.init(this);
-        RefreshTokenKey.init(this);
-        JWTSigningKey.init(this);
-        SigningKeys.init(this);
 
         // starts removing old session cronjob
         Cronjobs.addCronjob(this, DeleteExpiredSessions.getInstance(this));
@@ -214,6 +267,9 @@ public class Main {
         // removes expired dashboard session
         Cronjobs.addCronjob(this, DeleteExpiredDashboardSessions.getInstance(this));
 
+        // recomputes the users count of each recipe in case it was changed outside of the core
+        Cronjobs.addCronjob(this, ReconcileUsersCount.getInstance(this));
+
         // starts Telemetry cronjob if the user has not disabled it
         if (!Config.getConfig(this).isTelemetryDisabled()) {
             Cronjobs.addCronjob(this, Telemetry.getInstance(this));
@@ -221,20 +277,29 @@ public class Main {
 
         // starts DeleteExpiredAccessTokenSigningKeys cronjob if the access token signing keys can change
         Cronjobs.addCronjob(this, DeleteExpiredAccessTokenSigningKeys.getInstance(this));
+    }
 
+    private void initCaches() {
         // creates password hashing pool
         PasswordHashing.init(this);
 
-        // start web server to accept incoming traffic
-        Webserver.getInstance(this).start();
+        // creates the executor for bulk user import jobs
+        BulkImport.init(this);
 
-        // this is a sign to the controlling script that this process has started.
-        createDotStartedFileForThisProcess();
+        // creates the cache used for user id mapping lookups
+        UserIdMappingCache.init(this);
 
-        // NOTE: If the message below is changed, make sure to also change the corresponding check in the CLI program
-        // for start command
-        Logging.info(this, "Started SuperTokens on " + Config.getConfig(this).getHost(this) + ":"
-                + Config.getConfig(this).getPort(this) + " with PID: " + ProcessHandle.current().pid(), true);
+        // creates the cache used for user roles and role permissions
+        UserRolesCache.init(this);
+
+        // creates the cache used for user metadata
+        UserMetadataCache.init(this);
+
+        // creates the cache of verified emails
+        EmailVerificationCache.init(this);
+
+        // creates the cache of decoded TOTP device secrets
+        TotpEngine.init(this);
     }
 
     @TestOnly
@@ -374,6 +439,7 @@ public class Main {
             Logging.info(this, "Stopping SuperTokens...", true);
             Webserver.getInstance(this).stop();
             Cronjobs.shutdownAndAwaitTermination(this);
+            BulkImport.shutdownAndAwaitTermination(this);
             if (!Main.isTesting) {
                 StorageLayer.close(this);
             } else {
@@ -17,7 +17,10 @@
 package io.supertokens.authRecipe;
 
 import io.supertokens.Main;
+import io.supertokens.emailverification.EmailVerificationCache;
+import io.supertokens.output.Logging;
 import io.supertokens.pluginInterface.RECIPE_ID;
+import io.supertokens.pluginInterface.authRecipe.AuthRecipeStorage;
 import io.supertokens.pluginInterface.authRecipe.AuthRecipeUserInfo;
 import io.supertokens.pluginInterface.dashboard.DashboardSearchTags;
 import io.supertokens.pluginInterface.exceptions.StorageQueryException;
@@ -25,15 +28,34 @@ import io.supertokens.pluginInterface.exceptions.StorageTransactionLogicExceptio
 import io.supertokens.pluginInterface.totp.sqlStorage.TOTPSQLStorage;
 import io.supertokens.pluginInterface.useridmapping.UserIdMapping;
 import io.supertokens.storageLayer.StorageLayer;
+import io.supertokens.totp.TotpEngine;
+import io.supertokens.useridmapping.UserIdMappingCache;
 import io.supertokens.useridmapping.UserIdType;
+import io.supertokens.usermetadata.UserMetadata;
+import io.supertokens.usermetadata.UserMetadataCache;
+import io.supertokens.userroles.UserRoles;
+import io.supertokens.userroles.UserRolesCache;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /*This files contains functions that are common for all auth recipes*/
 
 public class AuthRecipe {
 
     public static final int USER_PAGINATION_LIMIT = 500;
+    public static final int BULK_DELETE_BATCH_SIZE = 400;
+
+    public enum DeleteUserStatus {
+        OK, UNKNOWN_USER_ID, ERROR
+    }
 
     public static long getUsersCount(Main main, RECIPE_ID[] includeRecipeIds) throws StorageQueryException {
         return StorageLayer.getAuthRecipeStorage(main).getUsersCount(includeRecipeIds);
@@ -42,6 +64,10 @@ public class AuthRecipe {
     public static UserPaginationContainer getUsers(Main main, Integer limit, String timeJoinedOrder,
             @Nullable String paginationToken, @Nullable RECIPE_ID[] includeRecipeIds, @Nullable DashboardSearchTags dashboardSearchTags)
             throws StorageQueryException, UserPaginationToken.InvalidTokenException {
+        if (dashboardSearchTags != null && UserSearchIndex.getInstance(main).isEnabled()) {
+            return new UserPaginationContainer(searchUsingIndex(main, timeJoinedOrder, dashboardSearchTags), null);
+        }
+
         AuthRecipeUserInfo[] users;
         if (paginationToken == null) {
             users = StorageLayer.getAuthRecipeStorage(main).getUsers(limit + 1, timeJoinedOrder, includeRecipeIds, null,
@@ -69,6 +95,34 @@ public class AuthRecipe {
         return new UserPaginationContainer(resultUsers, nextPaginationToken);
     }
 
+    private static AuthRecipeUserInfo[] searchUsingIndex(Main main, String timeJoinedOrder,
+            DashboardSearchTags dashboardSearchTags) throws StorageQueryException {
+        List<UserSearchIndex.IndexedUser> matches = UserSearchIndex.getInstance(main).search(dashboardSearchTags,
+                timeJoinedOrder);
+
+        Map<RECIPE_ID, List<String>> recipeIdToUserIds = new HashMap<>();
+        for (UserSearchIndex.IndexedUser match : matches) {
+            recipeIdToUserIds.computeIfAbsent(match.recipeId, k -> new ArrayList<>()).add(match.userId);
+        }
+        Map<String, AuthRecipeUserInfo> userIdToInfo = new HashMap<>();
+        for (Map.Entry<RECIPE_ID, List<String>> entry : recipeIdToUserIds.entrySet()) {
+            for (AuthRecipeUserInfo user : StorageLayer.getAuthRecipeStorage(main)
+                    .getUsersUsingIdList(entry.getKey(), entry.getValue())) {
+                userIdToInfo.put(user.id, user);
+            }
+        }
+
+        // we keep the order from the index. Users that were deleted since we searched are skipped.
+        List<AuthRecipeUserInfo> result = new ArrayList<>();
+        for (UserSearchIndex.IndexedUser match : matches) {
+            AuthRecipeUserInfo user = userIdToInfo.get(match.userId);
+            if (user != null) {
+                result.add(user);
+            }
+        }
+        return result.toArray(new AuthRecipeUserInfo[0]);
+    }
+
     public static void deleteUser(Main main, String userId)
             throws StorageQueryException, StorageTransactionLogicException {
         // We clean up the user last so that if anything before that throws an error,
@@ -113,15 +167,120 @@ public class AuthRecipe {
             deleteAuthRecipeUser(main, userId);
         }
 
+        // deleting the user from the auth tables also deletes its user id mapping
+        List<String> userIdsToInvalidate = new ArrayList<>();
+        userIdsToInvalidate.add(userId);
+        if (userIdMapping != null) {
+            userIdsToInvalidate.add(userIdMapping.superTokensUserId);
+            userIdsToInvalidate.add(userIdMapping.externalUserId);
+        }
+        UserIdMappingCache.getInstance(main).invalidate(userIdsToInvalidate);
+    }
+
+    /**
+     * Deletes the given users in batches of {@link #BULK_DELETE_BATCH_SIZE}, each of which is deleted in a single
+     * transaction. This follows the same user id mapping rules as {@link #deleteUser}. If a batch fails, the users in
+     * it are reported as {@link DeleteUserStatus#ERROR} and the remaining batches are still processed.
+     *
+     * @return the status of each (distinct) input userId, in input order.
+     */
+    public static LinkedHashMap<String, DeleteUserStatus> deleteUsers(Main main, List<String> userIds) {
+        List<String> distinctUserIds = new ArrayList<>(new LinkedHashSet<>(userIds));
+        LinkedHashMap<String, DeleteUserStatus> result = new LinkedHashMap<>();
+        for (int from = 0; from < distinctUserIds.size(); from += BULK_DELETE_BATCH_SIZE) {
+            List<String> batch = distinctUserIds.subList(from,
+                    Math.min(from + BULK_DELETE_BATCH_SIZE, distinctUserIds.size()));
+            try {
+                result.putAll(deleteUsersBatch(main, batch));
+            } catch (StorageQueryException e) {
+                Logging.error(main, "Error while deleting a batch of " + batch.size() + " users", false, e);
+                for (String userId : batch) {
+                    result.put(userId, DeleteUserStatus.ERROR);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Map<String, DeleteUserStatus> deleteUsersBatch(Main main, List<String> userIds)
+            throws StorageQueryException {
+        AuthRecipeStorage storage = StorageLayer.getAuthRecipeStorage(main);
+        Set<String> userIdsInBatch = new HashSet<>(userIds);
+
+        // a mapping in which the userId is the SuperTokens userId takes precedence, like in
+        // UserIdMapping.getUserIdMapping with UserIdType.ANY
+        Map<String, UserIdMapping> userIdToMapping = new HashMap<>();
+        for (UserIdMapping mapping : StorageLayer.getUserIdMappingStorage(main)
+                .getUserIdMappingsInvolvingUserIds(userIds)) {
+            if (userIdsInBatch.contains(mapping.superTokensUserId)) {
+                userIdToMapping.put(mapping.superTokensUserId, mapping);
+            }
+            if (userIdsInBatch.contains(mapping.externalUserId)) {
+                userIdToMapping.putIfAbsent(mapping.externalUserId, mapping);
+            }
+        }
+        List<String> externalUserIds = new ArrayList<>();
+        for (UserIdMapping mapping : userIdToMapping.values()) {
+            externalUserIds.add(mapping.externalUserId);
+        }
+        Set<String> externalUserIdsThatAreAuthUsers = new HashSet<>(storage.getExistingUserIds(externalUserIds));
+
+        // see deleteUser for the states A3 and A4
+        Map<String, String> userIdToAuthRecipeUserId = new HashMap<>();
+        Set<String> authRecipeUserIds = new LinkedHashSet<>();
+        Set<String> nonAuthRecipeUserIds = new LinkedHashSet<>();
+        for (String userId : userIds) {
+            UserIdMapping mapping = userIdToMapping.get(userId);
+            String authRecipeUserId = userId;
+            if (mapping == null) {
+                nonAuthRecipeUserIds.add(userId);
+            } else if (!externalUserIdsThatAreAuthUsers.contains(mapping.externalUserId)) {
+                // db is in state A3
+                nonAuthRecipeUserIds.add(mapping.externalUserId);
+                authRecipeUserId = mapping.superTokensUserId;
+            }
+            authRecipeUserIds.add(authRecipeUserId);
+            userIdToAuthRecipeUserId.put(userId, authRecipeUserId);
+        }
+
+        Set<String> deletedUserIds;
+        try {
+            deletedUserIds = new HashSet<>(storage.deleteUsers(new ArrayList<>(authRecipeUserIds),
+                    new ArrayList<>(nonAuthRecipeUserIds)));
+        } finally {
+            Set<String> userIdsToInvalidate = new HashSet<>(userIds);
+            for (UserIdMapping mapping : userIdToMapping.values()) {
+                userIdsToInvalidate.add(mapping.superTokensUserId);
+                userIdsToInvalidate.add(mapping.externalUserId);
+            }
+            UserIdMappingCache.getInstance(main).invalidate(userIdsToInvalidate);
+            for (String userId : authRecipeUserIds) {
+                UserSearchIndex.getInstance(main).removeUser(userId);
+            }
+            for (String userId : nonAuthRecipeUserIds) {
+                UserMetadataCache.getInstance(main).invalidate(userId);
+                EmailVerificationCache.getInstance(main).invalidateUser(userId);
+                UserRolesCache.getInstance(main).invalidateRolesForUser(userId);
+                TotpEngine.getInstance(main).invalidateUser(userId);
+            }
+        }
+
+        Map<String, DeleteUserStatus> result = new HashMap<>();
+        for (String userId : userIds) {
+            result.put(userId, deletedUserIds.contains(userIdToAuthRecipeUserId.get(userId)) ? DeleteUserStatus.OK
+                    : DeleteUserStatus.UNKNOWN_USER_ID);
+        }
+        return result;
     }
 
     private static void deleteNonAuthRecipeUser(Main main, String userId)
             throws StorageQueryException, StorageTransactionLogicException {
         // non auth recipe deletion
-        StorageLayer.getUserMetadataStorage(main).deleteUserMetadata(userId);
+        UserMetadata.deleteUserMetadata(main, userId);
         StorageLayer.getSessionStorage(main).deleteSessionsOfUser(userId);
         StorageLayer.getEmailVerificationStorage(main).deleteEmailVerificationUserInfo(userId);
-        StorageLayer.getUserRolesStorage(main).deleteAllRolesForUser(userId);
+        EmailVerificationCache.getInstance(main).invalidateUser(userId);
+        UserRoles.deleteAllRolesForUser(main, userId);
 
         TOTPSQLStorage storage = StorageLayer.getTOTPStorage(main);
         storage.startTransaction(con -> {
@@ -129,6 +288,7 @@ public class AuthRecipe {
             storage.commitTransaction(con);
             return null;
         });
+        TotpEngine.getInstance(main).invalidateUser(userId);
     }
 
     private static void deleteAuthRecipeUser(Main main, String userId) throws StorageQueryException {
@@ -136,5 +296,6 @@ public class AuthRecipe {
         StorageLayer.getEmailPasswordStorage(main).deleteEmailPasswordUser(userId);
         StorageLayer.getThirdPartyStorage(main).deleteThirdPartyUser(userId);
         StorageLayer.getPasswordlessStorage(main).deletePasswordlessUser(userId);
+        UserSearchIndex.getInstance(main).removeUser(userId);
     }
 }
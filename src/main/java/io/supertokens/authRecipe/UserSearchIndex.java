@@ -0,0 +1,345 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.authRecipe;
+
+import io.supertokens.Main;
+import io.supertokens.ResourceDistributor;
+import io.supertokens.config.Config;
+import io.supertokens.output.Logging;
+import io.supertokens.pluginInterface.RECIPE_ID;
+import io.supertokens.pluginInterface.authRecipe.AuthRecipeUserInfo;
+import io.supertokens.pluginInterface.dashboard.DashboardSearchTags;
+import io.supertokens.pluginInterface.exceptions.StorageQueryException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In memory index used to answer dashboard user searches without scanning the recipe tables.
+ * <p>
+ * All search tags are prefix matches: an email tag matches the start of the email, or the start of the part after
+ * the "@". A phone tag matches the start of the phone number and a provider tag matches the start of the third party
+ * ID. So each of these is kept in a sorted map (from the lowercased value to the user IDs that have it), and a search
+ * is a range lookup in that map instead of a LIKE '%...%' over the whole table.
+ * <p>
+ * The index is built when the core starts and is then kept up to date by the recipe functions that create, update
+ * and delete users. Changes made to the database by anything other than this core instance are not seen, which is
+ * why it is disabled by default (user_search_index_enabled).
+ */
+public class UserSearchIndex extends ResourceDistributor.SingletonResource {
+
+    private static final String RESOURCE_KEY = "io.supertokens.authRecipe.UserSearchIndex";
+
+    // same as the limit per recipe table that is used when searching using the database
+    static final int MAX_RESULTS_PER_RECIPE = 1000;
+
+    private static final int BUILD_PAGE_SIZE = AuthRecipe.USER_PAGINATION_LIMIT;
+
+    private final boolean enabled;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, IndexedUser> usersById = new HashMap<>();
+    // contains both the full email and the part after the "@"
+    private final TreeMap<String, Set<String>> emailIndex = new TreeMap<>();
+    private final TreeMap<String, Set<String>> phoneNumberIndex = new TreeMap<>();
+    private final TreeMap<String, Set<String>> thirdPartyIdIndex = new TreeMap<>();
+
+    private UserSearchIndex(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public static UserSearchIndex getInstance(Main main) {
+        return (UserSearchIndex) main.getResourceDistributor().getResource(RESOURCE_KEY);
+    }
+
+    /**
+     * Builds the index from all the users in the database, if the index is enabled.
+     */
+    public static void init(Main main) throws StorageQueryException {
+        if (getInstance(main) != null) {
+            return;
+        }
+        UserSearchIndex instance = new UserSearchIndex(Config.getConfig(main).isUserSearchIndexEnabled());
+        if (instance.enabled) {
+            long start = System.currentTimeMillis();
+            try {
+                String paginationToken = null;
+                do {
+                    UserPaginationContainer users = AuthRecipe.getUsers(main, BUILD_PAGE_SIZE, "ASC",
+                            paginationToken, null, null);
+                    for (UserPaginationContainer.UsersContainer user : users.users) {
+                        instance.addUser(user.user);
+                    }
+                    paginationToken = users.nextPaginationToken;
+                } while (paginationToken != null);
+            } catch (UserPaginationToken.InvalidTokenException e) {
+                // we generated this token ourselves
+                throw new IllegalStateException(e);
+            }
+            Logging.info(main, "Built user search index with " + instance.usersById.size() + " users in "
+                    + (System.currentTimeMillis() - start) + "ms", true);
+        }
+        main.getResourceDistributor().setResource(RESOURCE_KEY, instance);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void addUser(@Nonnull AuthRecipeUserInfo user) {
+        if (!enabled) {
+            return;
+        }
+        String email = null;
+        String phoneNumber = null;
+        String thirdPartyId = null;
+        if (user instanceof io.supertokens.pluginInterface.emailpassword.UserInfo) {
+            email = ((io.supertokens.pluginInterface.emailpassword.UserInfo) user).email;
+        } else if (user instanceof io.supertokens.pluginInterface.thirdparty.UserInfo) {
+            io.supertokens.pluginInterface.thirdparty.UserInfo thirdPartyUser =
+                    (io.supertokens.pluginInterface.thirdparty.UserInfo) user;
+            email = thirdPartyUser.email;
+            thirdPartyId = thirdPartyUser.thirdParty.id;
+        } else if (user instanceof io.supertokens.pluginInterface.passwordless.UserInfo) {
+            io.supertokens.pluginInterface.passwordless.UserInfo passwordlessUser =
+                    (io.supertokens.pluginInterface.passwordless.UserInfo) user;
+            email = passwordlessUser.email;
+            phoneNumber = passwordlessUser.phoneNumber;
+        }
+
+        lock.writeLock().lock();
+        try {
+            IndexedUser existing = usersById.get(user.id);
+            if (existing != null) {
+                removeFromIndexes(existing);
+            }
+            IndexedUser indexedUser = new IndexedUser(user.id, user.getRecipeId(), user.timeJoined, email,
+                    phoneNumber, thirdPartyId);
+            usersById.put(user.id, indexedUser);
+            addToIndexes(indexedUser);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void updateEmail(@Nonnull String userId, @Nullable String email) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            IndexedUser user = usersById.get(userId);
+            if (user == null || Objects.equals(user.email, email)) {
+                return;
+            }
+            removeFromIndexes(user);
+            user.email = email;
+            addToIndexes(user);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void updatePhoneNumber(@Nonnull String userId, @Nullable String phoneNumber) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            IndexedUser user = usersById.get(userId);
+            if (user == null || Objects.equals(user.phoneNumber, phoneNumber)) {
+                return;
+            }
+            removeFromIndexes(user);
+            user.phoneNumber = phoneNumber;
+            addToIndexes(user);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeUser(@Nonnull String userId) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            IndexedUser user = usersById.remove(userId);
+            if (user != null) {
+                removeFromIndexes(user);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the users that match the search tags, with the same semantics as searching using the database.
+     *
+     * @return the matching users, sorted by time joined in the given order (and then by user ID, descending).
+     */
+    public List<IndexedUser> search(@Nonnull DashboardSearchTags searchTags, @Nonnull String timeJoinedOrder) {
+        Comparator<IndexedUser> comparator = Comparator.comparingLong(user -> user.timeJoined);
+        if (timeJoinedOrder.equals("DESC")) {
+            comparator = comparator.reversed();
+        }
+        comparator = comparator.thenComparing(user -> user.userId, Comparator.reverseOrder());
+
+        List<IndexedUser> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Set<String> emailMatches = searchTags.emails == null ? null : findPrefixMatches(emailIndex,
+                    searchTags.emails);
+            Set<String> phoneNumberMatches = searchTags.phoneNumbers == null ? null : findPrefixMatches(
+                    phoneNumberIndex, searchTags.phoneNumbers);
+            Set<String> thirdPartyIdMatches = searchTags.providers == null ? null : findPrefixMatches(
+                    thirdPartyIdIndex, searchTags.providers);
+
+            if (searchTags.shouldEmailPasswordTableBeSearched()) {
+                result.addAll(filter(RECIPE_ID.EMAIL_PASSWORD, emailMatches, null, comparator));
+            }
+            if (searchTags.shouldThirdPartyTableBeSearched()) {
+                result.addAll(filter(RECIPE_ID.THIRD_PARTY, emailMatches, thirdPartyIdMatches, comparator));
+            }
+            if (searchTags.shouldPasswordlessTableBeSearched()) {
+                result.addAll(filter(RECIPE_ID.PASSWORDLESS, emailMatches, phoneNumberMatches, comparator));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        result.sort(comparator);
+        return result;
+    }
+
+    /**
+     * @return the users of the given recipe that are in all the non null sets of matches. At least one of the sets
+     * must be non null.
+     */
+    private List<IndexedUser> filter(RECIPE_ID recipeId, @Nullable Set<String> matches,
+                                     @Nullable Set<String> otherMatches, Comparator<IndexedUser> comparator) {
+        if (matches == null) {
+            matches = otherMatches;
+            otherMatches = null;
+        }
+        List<IndexedUser> result = new ArrayList<>();
+        for (String userId : matches) {
+            IndexedUser user = usersById.get(userId);
+            if (user.recipeId == recipeId && (otherMatches == null || otherMatches.contains(userId))) {
+                result.add(user);
+            }
+        }
+        if (result.size() > MAX_RESULTS_PER_RECIPE) {
+            result.sort(comparator);
+            return result.subList(0, MAX_RESULTS_PER_RECIPE);
+        }
+        return result;
+    }
+
+    private static Set<String> findPrefixMatches(TreeMap<String, Set<String>> index, List<String> prefixes) {
+        Set<String> result = new HashSet<>();
+        for (String prefix : prefixes) {
+            // all strings that start with the prefix are between the prefix and the prefix followed by the largest
+            // possible char
+            NavigableMap<String, Set<String>> matches = index.subMap(prefix, true, prefix + Character.MAX_VALUE,
+                    false);
+            for (Set<String> userIds : matches.values()) {
+                result.addAll(userIds);
+            }
+        }
+        return result;
+    }
+
+    private void addToIndexes(IndexedUser user) {
+        if (user.email != null) {
+            String email = user.email.toLowerCase();
+            addToIndex(emailIndex, email, user.userId);
+            int atIndex = email.indexOf('@');
+            if (atIndex != -1) {
+                addToIndex(emailIndex, email.substring(atIndex + 1), user.userId);
+            }
+        }
+        if (user.phoneNumber != null) {
+            addToIndex(phoneNumberIndex, user.phoneNumber.toLowerCase(), user.userId);
+        }
+        if (user.thirdPartyId != null) {
+            addToIndex(thirdPartyIdIndex, user.thirdPartyId.toLowerCase(), user.userId);
+        }
+    }
+
+    private void removeFromIndexes(IndexedUser user) {
+        if (user.email != null) {
+            String email = user.email.toLowerCase();
+            removeFromIndex(emailIndex, email, user.userId);
+            int atIndex = email.indexOf('@');
+            if (atIndex != -1) {
+                removeFromIndex(emailIndex, email.substring(atIndex + 1), user.userId);
+            }
+        }
+        if (user.phoneNumber != null) {
+            removeFromIndex(phoneNumberIndex, user.phoneNumber.toLowerCase(), user.userId);
+        }
+        if (user.thirdPartyId != null) {
+            removeFromIndex(thirdPartyIdIndex, user.thirdPartyId.toLowerCase(), user.userId);
+        }
+    }
+
+    private static void addToIndex(TreeMap<String, Set<String>> index, String key, String userId) {
+        index.computeIfAbsent(key, k -> new HashSet<>()).add(userId);
+    }
+
+    private static void removeFromIndex(TreeMap<String, Set<String>> index, String key, String userId) {
+        Set<String> userIds = index.get(key);
+        if (userIds == null) {
+            return;
+        }
+        userIds.remove(userId);
+        if (userIds.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    public static class IndexedUser {
+        public final String userId;
+        public final RECIPE_ID recipeId;
+        public final long timeJoined;
+        // these are only changed while holding the write lock
+        private String email;
+        private String phoneNumber;
+        private final String thirdPartyId;
+
+        IndexedUser(String userId, RECIPE_ID recipeId, long timeJoined, String email, String phoneNumber,
+                    String thirdPartyId) {
+            this.userId = userId;
+            this.recipeId = recipeId;
+            this.timeJoined = timeJoined;
+            this.email = email;
+            this.phoneNumber = phoneNumber;
+            this.thirdPartyId = thirdPartyId;
+        }
+    }
+}
@@ -30,6 +30,7 @@ public class CLIOptions extends ResourceDistributor.SingletonResource {
     private static final String HOST_FILE_KEY = "host=";
     private static final String TEST_MODE = "test_mode";
     private static final String FORCE_NO_IN_MEM_DB = "forceNoInMemDB=true";
+    private static final String FORCE_IN_MEM_DB = "forceInMemDB=true";
     private final String installationPath;
     private final String configFilePath;
     private final Integer port;
@@ -38,6 +39,10 @@ public class CLIOptions extends ResourceDistributor.SingletonResource {
     // if this is true, then even in DEV mode, we will not use in memory db, even if there is an error in the plugin
     private final boolean forceNoInMemoryDB;
 
+    // if this is true, the in memory db is used even if a plugin could be used. This is for runs that must not touch
+    // the actual database, like the AppCDS training run
+    private final boolean forceInMemoryDB;
+
     private CLIOptions(String[] args) {
         checkIfArgsIsCorrect(args);
         String installationPath = args[0];
@@ -45,6 +50,7 @@ public class CLIOptions extends ResourceDistributor.SingletonResource {
         Integer portTemp = null;
         String hostTemp = null;
         boolean forceNoInMemoryDBTemp = false;
+        boolean forceInMemoryDBTemp = false;
         for (int i = 1; i < args.length; i++) {
             String curr = args[i];
             if (curr.startsWith(CONFIG_FILE_KEY)) {
@@ -58,6 +64,8 @@ public class CLIOptions extends ResourceDistributor.SingletonResource {
                 hostTemp = curr.split(HOST_FILE_KEY)[1];
             } else if (curr.startsWith(FORCE_NO_IN_MEM_DB)) {
                 forceNoInMemoryDBTemp = true;
+            } else if (curr.startsWith(FORCE_IN_MEM_DB)) {
+                forceInMemoryDBTemp = true;
             } else if (curr.equals(TEST_MODE)) {
                 Main.isTesting = true;
             }
@@ -67,6 +75,7 @@ public class CLIOptions extends ResourceDistributor.SingletonResource {
         this.port = portTemp;
         this.host = hostTemp;
         this.forceNoInMemoryDB = forceNoInMemoryDBTemp;
+        this.forceInMemoryDB = forceInMemoryDBTemp;
     }
 
     private static CLIOptions getInstance(Main main) {
@@ -117,4 +126,8 @@ public class CLIOptions extends ResourceDistributor.SingletonResource {
     public boolean isForceNoInMemoryDB() {
         return this.forceNoInMemoryDB;
     }
+
+    public boolean isForceInMemoryDB() {
+        return this.forceInMemoryDB;
+    }
 }
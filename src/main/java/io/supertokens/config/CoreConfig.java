@@ -139,8 +139,133 @@ public class CoreConfig {
     @JsonProperty
     private String ip_deny_regex = null;
 
+    @JsonProperty
+    private String ip_allow_cidrs = null;
+
+    @JsonProperty
+    private String ip_deny_cidrs = null;
+
+    @JsonProperty
+    private int bulk_import_batch_size = 1000;
+
+    @JsonProperty
+    private long bulk_import_max_input_bytes = 1073741824;
+
+    @JsonProperty
+    private boolean user_search_index_enabled = false;
+
+    @JsonProperty
+    private int user_id_mapping_cache_size = 10000;
+
+    @JsonProperty
+    private int user_id_mapping_cache_ttl = 60;
+
+    @JsonProperty
+    private int user_roles_cache_size = 10000;
+
+    @JsonProperty
+    private int user_roles_cache_ttl = 60;
+
+    @JsonProperty
+    private long user_metadata_cache_max_bytes = 10485760;
+
+    @JsonProperty
+    private int user_metadata_cache_ttl = 60;
+
+    @JsonProperty
+    private int email_verification_cache_size = 10000;
+
+    @JsonProperty
+    private int email_verification_cache_ttl = 60;
+
+    @JsonProperty
+    private int totp_device_key_cache_size = 10000;
+
+    @JsonProperty
+    private int transaction_max_attempts = 3;
+
+    @JsonProperty
+    private long transaction_retry_base_delay_ms = 10;
+
+    @JsonProperty
+    private boolean cron_leader_lease_enabled = false;
+
+    @JsonProperty
+    private int warm_up_iterations = 0;
+
+    @JsonProperty
+    private long warm_up_max_duration_ms = 30000;
+
     private Set<LOG_LEVEL> allowedLogLevels = null;
 
+    public int getBulkImportBatchSize() {
+        return bulk_import_batch_size;
+    }
+
+    public long getBulkImportMaxInputBytes() {
+        return bulk_import_max_input_bytes;
+    }
+
+    public boolean isUserSearchIndexEnabled() {
+        return user_search_index_enabled;
+    }
+
+    public int getUserIdMappingCacheSize() {
+        return user_id_mapping_cache_size;
+    }
+
+    public long getUserIdMappingCacheTTL() {
+        return user_id_mapping_cache_ttl * 1000L;
+    }
+
+    public int getUserRolesCacheSize() {
+        return user_roles_cache_size;
+    }
+
+    public long getUserRolesCacheTTL() {
+        return user_roles_cache_ttl * 1000L;
+    }
+
+    public long getUserMetadataCacheMaxBytes() {
+        return user_metadata_cache_max_bytes;
+    }
+
+    public long getUserMetadataCacheTTL() {
+        return user_metadata_cache_ttl * 1000L;
+    }
+
+    public int getEmailVerificationCacheSize() {
+        return email_verification_cache_size;
+    }
+
+    public long getEmailVerificationCacheTTL() {
+        return email_verification_cache_ttl * 1000L;
+    }
+
+    public int getTotpDeviceKeyCacheSize() {
+        return totp_device_key_cache_size;
+    }
+
+    public int getTransactionMaxAttempts() {
+        return transaction_max_attempts;
+    }
+
+    public long getTransactionRetryBaseDelayMs() {
+        return transaction_retry_base_delay_ms;
+    }
+
+    public boolean isCronLeaderLeaseEnabled() {
+        return cron_leader_lease_enabled;
+    }
+
+    public int getWarmUpIterations() {
+        return warm_up_iterations;
+    }
+
+    public long getWarmUpMaxDurationMs() {
+        return warm_up_max_duration_ms;
+    }
+
     public String getIpAllowRegex() {
         if (ip_allow_regex != null && ip_allow_regex.trim().equals("")) {
             return null;
@@ -155,6 +280,20 @@ public class CoreConfig {
         return ip_deny_regex;
     }
 
+    public String getIpAllowCidrs() {
+        if (ip_allow_cidrs != null && ip_allow_cidrs.trim().equals("")) {
+            return null;
+        }
+        return ip_allow_cidrs;
+    }
+
+    public String getIpDenyCidrs() {
+        if (ip_deny_cidrs != null && ip_deny_cidrs.trim().equals("")) {
+            return null;
+        }
+        return ip_deny_cidrs;
+    }
+
     public Set<LOG_LEVEL> getLogLevels(Main main) {
         if (allowedLogLevels != null) {
             return allowedLogLevels;
@@ -468,6 +607,66 @@ public class CoreConfig {
             }
         }
 
+        if (bulk_import_batch_size <= 0 || bulk_import_batch_size > 10000) {
+            throw new QuitProgramException("'bulk_import_batch_size' must be between 1 and 10000");
+        }
+
+        if (bulk_import_max_input_bytes <= 0) {
+            throw new QuitProgramException("'bulk_import_max_input_bytes' must be > 0");
+        }
+
+        if (user_id_mapping_cache_size < 0) {
+            throw new QuitProgramException("'user_id_mapping_cache_size' must be >= 0");
+        }
+
+        if (user_id_mapping_cache_ttl <= 0) {
+            throw new QuitProgramException("'user_id_mapping_cache_ttl' must be > 0");
+        }
+
+        if (user_roles_cache_size < 0) {
+            throw new QuitProgramException("'user_roles_cache_size' must be >= 0");
+        }
+
+        if (user_roles_cache_ttl <= 0) {
+            throw new QuitProgramException("'user_roles_cache_ttl' must be > 0");
+        }
+
+        if (user_metadata_cache_max_bytes < 0) {
+            throw new QuitProgramException("'user_metadata_cache_max_bytes' must be >= 0");
+        }
+
+        if (user_metadata_cache_ttl <= 0) {
+            throw new QuitProgramException("'user_metadata_cache_ttl' must be > 0");
+        }
+
+        if (email_verification_cache_size < 0) {
+            throw new QuitProgramException("'email_verification_cache_size' must be >= 0");
+        }
+
+        if (email_verification_cache_ttl <= 0) {
+            throw new QuitProgramException("'email_verification_cache_ttl' must be > 0");
+        }
+
+        if (totp_device_key_cache_size < 0) {
+            throw new QuitProgramException("'totp_device_key_cache_size' must be >= 0");
+        }
+
+        if (transaction_max_attempts < 1) {
+            throw new QuitProgramException("'transaction_max_attempts' must be >= 1");
+        }
+
+        if (transaction_retry_base_delay_ms < 0) {
+            throw new QuitProgramException("'transaction_retry_base_delay_ms' must be >= 0");
+        }
+
+        if (warm_up_iterations < 0) {
+            throw new QuitProgramException("'warm_up_iterations' must be >= 0");
+        }
+
+        if (warm_up_max_duration_ms < 0) {
+            throw new QuitProgramException("'warm_up_max_duration_ms' must be >= 0");
+        }
+
         if (base_path != null && !base_path.equals("") && !base_path.equals("/")) {
             if (base_path.contains(" ")) {
                 throw new QuitProgramException("Invalid characters in base_path config");
@@ -0,0 +1,175 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.cronjobs;
+
+import io.supertokens.Main;
+import io.supertokens.ResourceDistributor;
+import io.supertokens.config.Config;
+import io.supertokens.output.Logging;
+import io.supertokens.pluginInterface.KeyValueInfo;
+import io.supertokens.pluginInterface.STORAGE_TYPE;
+import io.supertokens.pluginInterface.exceptions.StorageQueryException;
+import io.supertokens.pluginInterface.exceptions.StorageTransactionLogicException;
+import io.supertokens.pluginInterface.sqlStorage.SQLStorage;
+import io.supertokens.storageLayer.StorageLayer;
+import io.supertokens.storageLayer.TransactionCallSite;
+import io.supertokens.utils.Utils;
+
+/**
+ * Makes sure that when several cores share a database, cluster wide cronjobs (see {@link CronTask#isClusterWide()})
+ * run on only one of them. The core that holds the lease is the leader. The lease is a row in the key value table,
+ * with the id of the holder as its value and the time it was last renewed as its created time. The leader renews it
+ * every {@link #RENEW_INTERVAL_MS}, and any core may take it over once it has not been renewed for
+ * {@link #LEASE_DURATION_MS}. The leader itself only trusts the lease for one renew interval less than that, so that
+ * a late renewal or clock skew between the cores does not make two of them the leader at once.
+ * <p>
+ * This is only active if cron_leader_lease_enabled is set, in which case Main adds it as a cronjob to renew the lease.
+ * Otherwise, or if the storage does not support transactions, every core is the leader.
+ */
+public class CronLeaderLease extends CronTask {
+
+    public static final String RESOURCE_KEY = "io.supertokens.cronjobs.CronLeaderLease";
+
+    public static final String LEASE_KEY = "cron_leader_lease";
+
+    static final long LEASE_DURATION_MS = 60 * 1000;
+
+    static final long RENEW_INTERVAL_MS = LEASE_DURATION_MS / 3;
+
+    private final String instanceId = Utils.getUUID();
+
+    // the time until which this core can be sure that it holds the lease. Guarded by this
+    private long leaseValidUntil = 0;
+
+    private CronLeaderLease(Main main) {
+        super("CronLeaderLease", main);
+    }
+
+    public static CronLeaderLease getInstance(Main main) {
+        ResourceDistributor.SingletonResource instance = main.getResourceDistributor().getResource(RESOURCE_KEY);
+        if (instance == null) {
+            instance = main.getResourceDistributor().setResource(RESOURCE_KEY, new CronLeaderLease(main));
+        }
+        return (CronLeaderLease) instance;
+    }
+
+    /**
+     * Returns true if cluster wide cronjobs should run on this core. Tries to take the lease if no one holds it.
+     */
+    public synchronized boolean isLeader() throws StorageQueryException, StorageTransactionLogicException {
+        if (!isEnabled()) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        if (leaseValidUntil > now) {
+            return true;
+        }
+        renewOrAcquire(now);
+        return leaseValidUntil > now;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    @Override
+    protected void doTask() throws Exception {
+        if (!isEnabled()) {
+            return;
+        }
+        synchronized (this) {
+            renewOrAcquire(System.currentTimeMillis());
+        }
+    }
+
+    @Override
+    protected boolean logsRunsAtInfoLevel() {
+        // the lease is renewed every few seconds
+        return false;
+    }
+
+    @Override
+    void shutdownIsGoingToBeCalled() {
+        super.shutdownIsGoingToBeCalled();
+        // gives up the lease, so that another core does not have to wait for it to expire
+        try {
+            release();
+        } catch (StorageQueryException | StorageTransactionLogicException e) {
+            Logging.error(main, "Could not release the cron leader lease", false, e);
+        }
+    }
+
+    private boolean isEnabled() {
+        return Config.getConfig(main).isCronLeaderLeaseEnabled()
+                && StorageLayer.getStorage(main).getType() == STORAGE_TYPE.SQL;
+    }
+
+    // guarded by this
+    private void renewOrAcquire(long now) throws StorageQueryException, StorageTransactionLogicException {
+        SQLStorage storage = (SQLStorage) StorageLayer.getStorage(main);
+        boolean holdsLease = TransactionCallSite.startTransaction(storage, "cron.leaderLease", con -> {
+            KeyValueInfo lease = storage.getKeyValue_Transaction(con, LEASE_KEY);
+            if (lease == null || lease.value.equals(instanceId) || lease.createdAtTime + LEASE_DURATION_MS <= now) {
+                storage.setKeyValue_Transaction(con, LEASE_KEY, new KeyValueInfo(instanceId, now));
+                storage.commitTransaction(con);
+                return true;
+            }
+            storage.commitTransaction(con);
+            return false;
+        });
+
+        boolean wasLeader = leaseValidUntil > now;
+        leaseValidUntil = holdsLease ? now + LEASE_DURATION_MS - RENEW_INTERVAL_MS : 0;
+        if (holdsLease != wasLeader) {
+            Logging.info(main,
+                    holdsLease ? "This core is now the cron leader" : "This core is no longer the cron leader", false);
+        }
+    }
+
+    private synchronized void release() throws StorageQueryException, StorageTransactionLogicException {
+        if (!isEnabled() || leaseValidUntil == 0) {
+            return;
+        }
+        SQLStorage storage = (SQLStorage) StorageLayer.getStorage(main);
+        TransactionCallSite.startTransaction(storage, "cron.leaderLease", con -> {
+            KeyValueInfo lease = storage.getKeyValue_Transaction(con, LEASE_KEY);
+            if (lease != null && lease.value.equals(instanceId)) {
+                // a lease that was last renewed at time 0 has expired for everyone
+                storage.setKeyValue_Transaction(con, LEASE_KEY, new KeyValueInfo(instanceId, 0));
+            }
+            storage.commitTransaction(con);
+            return null;
+        });
+        leaseValidUntil = 0;
+    }
+
+    @Override
+    public int getIntervalTimeSeconds() {
+        if (Main.isTesting) {
+            Integer interval = CronTaskTest.getInstance(main).getIntervalInSeconds(RESOURCE_KEY);
+            if (interval != null) {
+                return interval;
+            }
+        }
+        return (int) (RENEW_INTERVAL_MS / 1000);
+    }
+
+    @Override
+    public int getInitialWaitTimeSeconds() {
+        return 0;
+    }
+}
@@ -19,6 +19,7 @@ package io.supertokens.cronjobs;
 import io.supertokens.Main;
 import io.supertokens.ProcessState;
 import io.supertokens.ResourceDistributor;
+import io.supertokens.config.Config;
 import io.supertokens.exceptions.QuitProgramException;
 import io.supertokens.output.Logging;
 
@@ -40,7 +41,12 @@ public abstract class CronTask extends ResourceDistributor.SingletonResource imp
     @Override
     public void run() {
         try {
-            Logging.info(main, "Cronjob started: " + jobName, false);
+            if (isClusterWide() && Config.getConfig(main).isCronLeaderLeaseEnabled()
+                    && !CronLeaderLease.getInstance(main).isLeader()) {
+                Logging.debug(main, "Skipping cronjob " + jobName + " since another core is the cron leader");
+                return;
+            }
+            logRun("Cronjob started: " + jobName);
             doTask();
         } catch (Exception e) {
             ProcessState.getInstance(main).addState(ProcessState.PROCESS_STATE.CRON_TASK_ERROR_LOGGING, e);
@@ -49,7 +55,34 @@ public abstract class CronTask extends ResourceDistributor.SingletonResource imp
                 main.wakeUpMainThreadToShutdown();
             }
         }
-        Logging.info(main, "Cronjob finished: " + jobName, false);
+        logRun("Cronjob finished: " + jobName);
+    }
+
+    private void logRun(String message) {
+        if (logsRunsAtInfoLevel()) {
+            Logging.info(main, message, false);
+        } else {
+            Logging.debug(main, message);
+        }
+    }
+
+    protected String getJobName() {
+        return jobName;
+    }
+
+    /**
+     * Cluster wide cronjobs work on data that is shared by all cores using the same database, so they only need to
+     * run on one of them. See {@link CronLeaderLease}.
+     */
+    protected boolean isClusterWide() {
+        return false;
+    }
+
+    /**
+     * Tasks that run every few seconds return false here, so that their runs are only logged at debug level.
+     */
+    protected boolean logsRunsAtInfoLevel() {
+        return true;
     }
 
     protected abstract void doTask() throws Exception;
@@ -21,19 +21,23 @@ import io.supertokens.ResourceDistributor;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 public class Cronjobs extends ResourceDistributor.SingletonResource {
 
     private static final String RESOURCE_KEY = "io.supertokens.cronjobs.Cronjobs";
+    private static final int MAX_START_JITTER_SECONDS = 60;
     final Object lock = new Object();
-    private final ScheduledExecutorService executor;
+    private final ScheduledThreadPoolExecutor executor;
     private List<CronTask> tasks = new ArrayList<>();
 
     private Cronjobs() {
-        this.executor = Executors.newScheduledThreadPool(5);
+        this.executor = new ScheduledThreadPoolExecutor(5);
+        // tasks are scheduled again after each run (see schedule), so the pending ones must be dropped on shutdown
+        this.executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
     }
 
     private static Cronjobs getInstance(Main main) {
@@ -71,10 +75,35 @@ public class Cronjobs extends ResourceDistributor.SingletonResource {
         }
         Cronjobs instance = getInstance(main);
         synchronized (instance.lock) {
-            instance.executor.scheduleWithFixedDelay(task, task.getInitialWaitTimeSeconds(),
-                    task.getIntervalTimeSeconds(), TimeUnit.SECONDS);
+            instance.schedule(task, task.getInitialWaitTimeSeconds() + getStartJitterSeconds(task));
             instance.tasks.add(task);
         }
     }
 
+    // Spreads out the first run of a task, so that cores that were started together do not all run it (and hit the
+    // database) at the same time.
+    private static long getStartJitterSeconds(CronTask task) {
+        if (Main.isTesting) {
+            return 0;
+        }
+        int maxJitter = Math.min(MAX_START_JITTER_SECONDS, task.getIntervalTimeSeconds());
+        return maxJitter <= 0 ? 0 : ThreadLocalRandom.current().nextInt(maxJitter + 1);
+    }
+
+    // Like scheduleWithFixedDelay, except that the interval is asked for again after every run, so that a task can
+    // change it.
+    private void schedule(CronTask task, long delaySeconds) {
+        try {
+            executor.schedule(() -> {
+                try {
+                    task.run();
+                } finally {
+                    schedule(task, task.getIntervalTimeSeconds());
+                }
+            }, delaySeconds, TimeUnit.SECONDS);
+        } catch (RejectedExecutionException ignored) {
+            // the executor has been shut down
+        }
+    }
+
 }
@@ -0,0 +1,169 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.cronjobs;
+
+import io.supertokens.Main;
+import io.supertokens.output.Logging;
+
+/**
+ * Base for cronjobs that delete expired rows. The rows are deleted in bounded batches, with a pause between them, so
+ * that no single statement holds its locks for long. A run stops after {@link #getMaxRunTimeMs()} even if there are
+ * rows left; the next run deletes them.
+ * <p>
+ * The interval between runs adapts to the number of rows found. A run that could not delete everything makes the
+ * next run come after the minimum interval, a run that deleted more than one batch halves the interval, and a run that
+ * found nothing doubles it again, up to {@link #getDefaultIntervalTimeSeconds()}.
+ * <p>
+ * Each run logs, at info level, how many rows it deleted and how long that took.
+ */
+public abstract class ExpirySweeper extends CronTask {
+
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+    private static final long DEFAULT_PAUSE_BETWEEN_BATCHES_MS = 50;
+    private static final long DEFAULT_MAX_RUN_TIME_MS = 60 * 1000;
+    private static final int MIN_INTERVAL_SECONDS = 60;
+
+    private final String resourceKey;
+
+    // 0 until the first run has finished, in which case the default interval is used
+    private volatile int intervalSeconds = 0;
+    private volatile RunStats lastRunStats = null;
+
+    protected ExpirySweeper(String jobName, Main main, String resourceKey) {
+        super(jobName, main);
+        this.resourceKey = resourceKey;
+    }
+
+    /**
+     * Deletes up to batchSize expired rows, and returns how many were deleted. runStartTime is the same for all
+     * batches of a run. Implementations pass it to the storage as the current time, or compute their cutoff from it, so
+     * that rows which expire during the run are left for the next one.
+     */
+    protected abstract int deleteExpiredBatch(long runStartTime, int batchSize) throws Exception;
+
+    protected abstract int getDefaultIntervalTimeSeconds();
+
+    protected boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    protected final boolean isClusterWide() {
+        return true;
+    }
+
+    protected int getBatchSize() {
+        return DEFAULT_BATCH_SIZE;
+    }
+
+    protected long getPauseBetweenBatchesMs() {
+        return DEFAULT_PAUSE_BETWEEN_BATCHES_MS;
+    }
+
+    protected long getMaxRunTimeMs() {
+        return DEFAULT_MAX_RUN_TIME_MS;
+    }
+
+    public RunStats getLastRunStats() {
+        return lastRunStats;
+    }
+
+    @Override
+    protected final void doTask() throws Exception {
+        if (!isEnabled()) {
+            return;
+        }
+
+        long runStartTime = System.currentTimeMillis();
+        int batchSize = getBatchSize();
+        long rowsRemoved = 0;
+        int batches = 0;
+        boolean timeBoxed = false;
+        while (true) {
+            int deletedCount = deleteExpiredBatch(runStartTime, batchSize);
+            rowsRemoved += deletedCount;
+            batches++;
+            if (deletedCount < batchSize) {
+                break;
+            }
+            if (System.currentTimeMillis() - runStartTime + getPauseBetweenBatchesMs() >= getMaxRunTimeMs()) {
+                timeBoxed = true;
+                break;
+            }
+            Thread.sleep(getPauseBetweenBatchesMs());
+        }
+
+        RunStats stats = new RunStats(rowsRemoved, batches, System.currentTimeMillis() - runStartTime, timeBoxed);
+        lastRunStats = stats;
+        intervalSeconds = getNextIntervalSeconds(stats);
+        Logging.info(main, "Cronjob " + getJobName() + " deleted " + stats.rowsRemoved + " rows in " + stats.batches
+                + " batches and " + stats.durationMs + "ms" + (stats.timeBoxed ? ", stopping early" : "")
+                + ". Next run in " + intervalSeconds + "s", false);
+    }
+
+    private int getNextIntervalSeconds(RunStats stats) {
+        int defaultInterval = getDefaultIntervalTimeSeconds();
+        int minInterval = Math.min(MIN_INTERVAL_SECONDS, defaultInterval);
+        int currentInterval = intervalSeconds > 0 ? intervalSeconds : defaultInterval;
+
+        if (stats.timeBoxed) {
+            return minInterval;
+        }
+        if (stats.batches > 1) {
+            return Math.max(minInterval, currentInterval / 2);
+        }
+        if (stats.rowsRemoved == 0) {
+            return (int) Math.min(defaultInterval, 2L * currentInterval);
+        }
+        return currentInterval;
+    }
+
+    @Override
+    public final int getIntervalTimeSeconds() {
+        if (Main.isTesting) {
+            Integer interval = CronTaskTest.getInstance(main).getIntervalInSeconds(resourceKey);
+            if (interval != null) {
+                return interval;
+            }
+        }
+        int interval = intervalSeconds;
+        return interval > 0 ? interval : getDefaultIntervalTimeSeconds();
+    }
+
+    @Override
+    public int getInitialWaitTimeSeconds() {
+        if (!Main.isTesting) {
+            return getIntervalTimeSeconds();
+        } else {
+            return 0;
+        }
+    }
+
+    public static class RunStats {
+        public final long rowsRemoved;
+        public final int batches;
+        public final long durationMs;
+        public final boolean timeBoxed;
+
+        RunStats(long rowsRemoved, int batches, long durationMs, boolean timeBoxed) {
+            this.rowsRemoved = rowsRemoved;
+            this.batches = batches;
+            this.durationMs = durationMs;
+            this.timeBoxed = timeBoxed;
+        }
+    }
+}
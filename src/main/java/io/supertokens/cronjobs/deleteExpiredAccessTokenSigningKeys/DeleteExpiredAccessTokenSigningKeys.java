@@ -46,6 +46,11 @@ public class DeleteExpiredAccessTokenSigningKeys extends CronTask {
         AccessTokenSigningKey.getInstance(main).cleanExpiredAccessTokenSigningKeys();
     }
 
+    @Override
+    protected boolean isClusterWide() {
+        return true;
+    }
+
     @Override
     public int getIntervalTimeSeconds() {
         CoreConfig config = Config.getConfig(main);
@@ -18,17 +18,16 @@ package io.supertokens.cronjobs.deleteExpiredDashboardSessions;
 
 import io.supertokens.Main;
 import io.supertokens.ResourceDistributor;
-import io.supertokens.cronjobs.CronTask;
-import io.supertokens.cronjobs.CronTaskTest;
+import io.supertokens.cronjobs.ExpirySweeper;
 import io.supertokens.pluginInterface.STORAGE_TYPE;
 import io.supertokens.storageLayer.StorageLayer;
 
-public class DeleteExpiredDashboardSessions extends CronTask {
+public class DeleteExpiredDashboardSessions extends ExpirySweeper {
 
     public static final String RESOURCE_KEY = "io.supertokens.cronjobs.deleteExpiredDashboardSessions.DeleteExpiredDashboardSessions";
 
     private DeleteExpiredDashboardSessions(Main main) {
-        super("RemoveExpiredDashboardSessions", main);
+        super("RemoveExpiredDashboardSessions", main, RESOURCE_KEY);
     }
 
     public static DeleteExpiredDashboardSessions getInstance(Main main){
@@ -41,32 +40,17 @@ public class DeleteExpiredDashboardSessions extends CronTask {
     }
 
     @Override
-    protected void doTask() throws Exception {
-        if (StorageLayer.getStorage(this.main).getType() != STORAGE_TYPE.SQL) {
-            return;
-        }
-        StorageLayer.getDashboardStorage(this.main).revokeExpiredSessions();
-        
+    protected boolean isEnabled() {
+        return StorageLayer.getStorage(this.main).getType() == STORAGE_TYPE.SQL;
     }
 
     @Override
-    public int getIntervalTimeSeconds() {
-        if (Main.isTesting) {
-            Integer interval = CronTaskTest.getInstance(main).getIntervalInSeconds(RESOURCE_KEY);
-            if (interval != null) {
-                return interval;
-            }
-        }
-        return (12 * 3600); // twice a day.
+    protected int deleteExpiredBatch(long runStartTime, int batchSize) throws Exception {
+        return StorageLayer.getDashboardStorage(this.main).revokeExpiredSessions(runStartTime, batchSize);
     }
 
     @Override
-    public int getInitialWaitTimeSeconds() {
-        if (!Main.isTesting) {
-            return getIntervalTimeSeconds();
-        } else {
-            return 0;
-        }
+    protected int getDefaultIntervalTimeSeconds() {
+        return (12 * 3600); // twice a day.
     }
-    
 }
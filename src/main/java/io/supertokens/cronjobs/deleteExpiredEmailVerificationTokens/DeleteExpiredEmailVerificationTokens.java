@@ -18,18 +18,17 @@ package io.supertokens.cronjobs.deleteExpiredEmailVerificationTokens;
 
 import io.supertokens.Main;
 import io.supertokens.ResourceDistributor;
-import io.supertokens.cronjobs.CronTask;
-import io.supertokens.cronjobs.CronTaskTest;
+import io.supertokens.cronjobs.ExpirySweeper;
 import io.supertokens.pluginInterface.STORAGE_TYPE;
 import io.supertokens.storageLayer.StorageLayer;
 
-public class DeleteExpiredEmailVerificationTokens extends CronTask {
+public class DeleteExpiredEmailVerificationTokens extends ExpirySweeper {
 
     public static final String RESOURCE_KEY = "io.supertokens.cronjobs.deleteExpiredEmailVerificationTokens"
             + ".DeleteExpiredEmailVerificationTokens";
 
     private DeleteExpiredEmailVerificationTokens(Main main) {
-        super("RemoveOldEmailVerificationTokens", main);
+        super("RemoveOldEmailVerificationTokens", main, RESOURCE_KEY);
     }
 
     public static DeleteExpiredEmailVerificationTokens getInstance(Main main) {
@@ -42,30 +41,18 @@ public class DeleteExpiredEmailVerificationTokens extends CronTask {
     }
 
     @Override
-    protected void doTask() throws Exception {
-        if (StorageLayer.getStorage(this.main).getType() != STORAGE_TYPE.SQL) {
-            return;
-        }
-        StorageLayer.getEmailVerificationStorage(this.main).deleteExpiredEmailVerificationTokens();
+    protected boolean isEnabled() {
+        return StorageLayer.getStorage(this.main).getType() == STORAGE_TYPE.SQL;
     }
 
     @Override
-    public int getIntervalTimeSeconds() {
-        if (Main.isTesting) {
-            Integer interval = CronTaskTest.getInstance(main).getIntervalInSeconds(RESOURCE_KEY);
-            if (interval != null) {
-                return interval;
-            }
-        }
-        return 12 * 3600; // twice a day.
+    protected int deleteExpiredBatch(long runStartTime, int batchSize) throws Exception {
+        return StorageLayer.getEmailVerificationStorage(this.main).deleteExpiredEmailVerificationTokens(runStartTime,
+                batchSize);
     }
 
     @Override
-    public int getInitialWaitTimeSeconds() {
-        if (!Main.isTesting) {
-            return getIntervalTimeSeconds();
-        } else {
-            return 0;
-        }
+    protected int getDefaultIntervalTimeSeconds() {
+        return 12 * 3600; // twice a day.
     }
 }
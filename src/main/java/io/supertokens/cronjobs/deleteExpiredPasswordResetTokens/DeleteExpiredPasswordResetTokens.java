@@ -18,18 +18,17 @@ package io.supertokens.cronjobs.deleteExpiredPasswordResetTokens;
 
 import io.supertokens.Main;
 import io.supertokens.ResourceDistributor;
-import io.supertokens.cronjobs.CronTask;
-import io.supertokens.cronjobs.CronTaskTest;
+import io.supertokens.cronjobs.ExpirySweeper;
 import io.supertokens.pluginInterface.STORAGE_TYPE;
 import io.supertokens.storageLayer.StorageLayer;
 
-public class DeleteExpiredPasswordResetTokens extends CronTask {
+public class DeleteExpiredPasswordResetTokens extends ExpirySweeper {
 
     public static final String RESOURCE_KEY = "io.supertokens.cronjobs.deleteExpiredPasswordResetTokens"
             + ".DeleteExpiredPasswordResetTokens";
 
     private DeleteExpiredPasswordResetTokens(Main main) {
-        super("RemoveOldPasswordResetTokens", main);
+        super("RemoveOldPasswordResetTokens", main, RESOURCE_KEY);
     }
 
     public static DeleteExpiredPasswordResetTokens getInstance(Main main) {
@@ -42,30 +41,18 @@ public class DeleteExpiredPasswordResetTokens extends CronTask {
     }
 
     @Override
-    protected void doTask() throws Exception {
-        if (StorageLayer.getStorage(this.main).getType() != STORAGE_TYPE.SQL) {
-            return;
-        }
-        StorageLayer.getEmailPasswordStorage(this.main).deleteExpiredPasswordResetTokens();
+    protected boolean isEnabled() {
+        return StorageLayer.getStorage(this.main).getType() == STORAGE_TYPE.SQL;
     }
 
     @Override
-    public int getIntervalTimeSeconds() {
-        if (Main.isTesting) {
-            Integer interval = CronTaskTest.getInstance(main).getIntervalInSeconds(RESOURCE_KEY);
-            if (interval != null) {
-                return interval;
-            }
-        }
-        return 3600; // every hour.
+    protected int deleteExpiredBatch(long runStartTime, int batchSize) throws Exception {
+        return StorageLayer.getEmailPasswordStorage(this.main).deleteExpiredPasswordResetTokens(runStartTime,
+                batchSize);
     }
 
     @Override
-    public int getInitialWaitTimeSeconds() {
-        if (!Main.isTesting) {
-            return getIntervalTimeSeconds();
-        } else {
-            return 0;
-        }
+    protected int getDefaultIntervalTimeSeconds() {
+        return 3600; // every hour.
     }
 }
@@ -16,28 +16,22 @@
 
 package io.supertokens.cronjobs.deleteExpiredPasswordlessDevices;
 
-import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-
 import io.supertokens.Main;
 import io.supertokens.ResourceDistributor;
 import io.supertokens.config.Config;
-import io.supertokens.cronjobs.CronTask;
-import io.supertokens.cronjobs.CronTaskTest;
+import io.supertokens.cronjobs.ExpirySweeper;
 import io.supertokens.pluginInterface.STORAGE_TYPE;
-import io.supertokens.pluginInterface.passwordless.PasswordlessCode;
-import io.supertokens.pluginInterface.passwordless.PasswordlessDevice;
-import io.supertokens.pluginInterface.passwordless.sqlStorage.PasswordlessSQLStorage;
 import io.supertokens.storageLayer.StorageLayer;
 
-public class DeleteExpiredPasswordlessDevices extends CronTask {
+public class DeleteExpiredPasswordlessDevices extends ExpirySweeper {
 
     public static final String RESOURCE_KEY = "io.supertokens.cronjobs.deleteExpiredPasswordlessDevices"
             + ".DeleteExpiredPasswordlessDevices";
 
+    static final int BATCH_SIZE = 500;
+
     private DeleteExpiredPasswordlessDevices(Main main) {
-        super("DeleteExpiredPasswordlessDevices", main);
+        super("DeleteExpiredPasswordlessDevices", main, RESOURCE_KEY);
     }
 
     public static DeleteExpiredPasswordlessDevices getInstance(Main main) {
@@ -50,55 +44,27 @@ public class DeleteExpiredPasswordlessDevices extends CronTask {
     }
 
     @Override
-    protected void doTask() throws Exception {
-        if (StorageLayer.getStorage(this.main).getType() != STORAGE_TYPE.SQL) {
-            return;
-        }
-
-        PasswordlessSQLStorage storage = StorageLayer.getPasswordlessStorage(this.main);
-
-        long codeExpirationCutoff = System.currentTimeMillis() - Config.getConfig(main).getPasswordlessCodeLifetime();
-        PasswordlessCode[] expiredCodes = storage.getCodesBefore(codeExpirationCutoff);
-        Set<String> uniqueDevicesIdHashes = Stream.of(expiredCodes).map(code -> code.deviceIdHash)
-                .collect(Collectors.toSet());
-
-        for (String deviceIdHash : uniqueDevicesIdHashes) {
-            storage.startTransaction(con -> {
-                PasswordlessDevice device = storage.getDevice_Transaction(con, deviceIdHash);
-                if (device == null) {
-                    return null;
-                }
-                PasswordlessCode[] codes = storage.getCodesOfDevice_Transaction(con, deviceIdHash);
-
-                if (Stream.of(codes).allMatch(code -> code.createdAt < codeExpirationCutoff)) {
-                    storage.deleteDevice_Transaction(con, deviceIdHash);
-                }
-                // We don't delete expired codes without the device because we want to detect if the submitted
-                // user input code belongs to an expired code or if it's just incorrect.
-
-                return null;
-            });
-        }
+    protected boolean isEnabled() {
+        return StorageLayer.getStorage(this.main).getType() == STORAGE_TYPE.SQL;
+    }
 
+    @Override
+    protected int getBatchSize() {
+        return BATCH_SIZE;
     }
 
     @Override
-    public int getIntervalTimeSeconds() {
-        if (Main.isTesting) {
-            Integer interval = CronTaskTest.getInstance(main).getIntervalInSeconds(RESOURCE_KEY);
-            if (interval != null) {
-                return interval;
-            }
-        }
-        return 3600; // every hour.
+    protected int deleteExpiredBatch(long runStartTime, int batchSize) throws Exception {
+        long codeExpirationCutoff = runStartTime - Config.getConfig(main).getPasswordlessCodeLifetime();
+        // Devices are only deleted once all their codes have expired. We don't delete expired codes without the
+        // device because we want to detect if the submitted user input code belongs to an expired code or if it's
+        // just incorrect.
+        return StorageLayer.getPasswordlessStorage(this.main).deleteDevicesWithAllCodesCreatedBefore(
+                codeExpirationCutoff, batchSize);
     }
 
     @Override
-    public int getInitialWaitTimeSeconds() {
-        if (!Main.isTesting) {
-            return getIntervalTimeSeconds();
-        } else {
-            return 0;
-        }
+    protected int getDefaultIntervalTimeSeconds() {
+        return 3600; // every hour.
     }
 }
@@ -18,16 +18,15 @@ package io.supertokens.cronjobs.deleteExpiredSessions;
 
 import io.supertokens.Main;
 import io.supertokens.ResourceDistributor;
-import io.supertokens.cronjobs.CronTask;
-import io.supertokens.cronjobs.CronTaskTest;
+import io.supertokens.cronjobs.ExpirySweeper;
 import io.supertokens.storageLayer.StorageLayer;
 
-public class DeleteExpiredSessions extends CronTask {
+public class DeleteExpiredSessions extends ExpirySweeper {
 
     public static final String RESOURCE_KEY = "io.supertokens.cronjobs.deleteExpiredSessions.DeleteExpiredSessions";
 
     private DeleteExpiredSessions(Main main) {
-        super("RemoveOldSessions", main);
+        super("RemoveOldSessions", main, RESOURCE_KEY);
     }
 
     public static DeleteExpiredSessions getInstance(Main main) {
@@ -39,27 +38,12 @@ public class DeleteExpiredSessions extends CronTask {
     }
 
     @Override
-    protected void doTask() throws Exception {
-        StorageLayer.getSessionStorage(this.main).deleteAllExpiredSessions();
+    protected int deleteExpiredBatch(long runStartTime, int batchSize) throws Exception {
+        return StorageLayer.getSessionStorage(this.main).deleteExpiredSessions(runStartTime, batchSize);
     }
 
     @Override
-    public int getIntervalTimeSeconds() {
-        if (Main.isTesting) {
-            Integer interval = CronTaskTest.getInstance(main).getIntervalInSeconds(RESOURCE_KEY);
-            if (interval != null) {
-                return interval;
-            }
-        }
+    protected int getDefaultIntervalTimeSeconds() {
         return (12 * 3600); // twice a day.
     }
-
-    @Override
-    public int getInitialWaitTimeSeconds() {
-        if (!Main.isTesting) {
-            return getIntervalTimeSeconds();
-        } else {
-            return 0;
-        }
-    }
 }
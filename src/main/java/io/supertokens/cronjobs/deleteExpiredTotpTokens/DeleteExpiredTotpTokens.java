@@ -3,19 +3,16 @@ package io.supertokens.cronjobs.deleteExpiredTotpTokens;
 import io.supertokens.Main;
 import io.supertokens.ResourceDistributor;
 import io.supertokens.config.Config;
+import io.supertokens.cronjobs.ExpirySweeper;
 import io.supertokens.pluginInterface.STORAGE_TYPE;
-import io.supertokens.pluginInterface.totp.sqlStorage.TOTPSQLStorage;
-import io.supertokens.cronjobs.CronTask;
-import io.supertokens.cronjobs.CronTaskTest;
 import io.supertokens.storageLayer.StorageLayer;
-import io.supertokens.output.Logging;
 
-public class DeleteExpiredTotpTokens extends CronTask {
+public class DeleteExpiredTotpTokens extends ExpirySweeper {
 
     public static final String RESOURCE_KEY = "io.supertokens.cronjobs.deleteExpiredTotpTokens.DeleteExpiredTotpTokens";
 
     private DeleteExpiredTotpTokens(Main main) {
-        super("DeleteExpiredTotpTokens", main);
+        super("DeleteExpiredTotpTokens", main, RESOURCE_KEY);
     }
 
     public static DeleteExpiredTotpTokens getInstance(Main main) {
@@ -27,43 +24,24 @@ public class DeleteExpiredTotpTokens extends CronTask {
     }
 
     @Override
-    protected void doTask() throws Exception {
-        if (StorageLayer.getStorage(this.main).getType() != STORAGE_TYPE.SQL) {
-            return;
-        }
-
-        TOTPSQLStorage storage = StorageLayer.getTOTPStorage(this.main);
+    protected boolean isEnabled() {
+        return StorageLayer.getStorage(this.main).getType() == STORAGE_TYPE.SQL;
+    }
 
+    @Override
+    protected int deleteExpiredBatch(long runStartTime, int batchSize) throws Exception {
         long rateLimitResetInMs = Config.getConfig(this.main).getTotpRateLimitCooldownTimeSec() * 1000;
-        long expiredBefore = System.currentTimeMillis() - rateLimitResetInMs;
+        long expiredBefore = runStartTime - rateLimitResetInMs;
 
         // We will only remove expired codes that have been expired for longer
         // than rate limiting duration. This ensures that this DB query
         // doesn't delete totp codes that keep the rate limiting active for
         // the expected cooldown duration.
-        int deletedCount = storage.removeExpiredCodes(expiredBefore);
-        Logging.debug(this.main, "Cron DeleteExpiredTotpTokens deleted " + deletedCount + " expired TOTP codes");
+        return StorageLayer.getTOTPStorage(this.main).removeExpiredCodes(expiredBefore, batchSize);
     }
 
     @Override
-    public int getIntervalTimeSeconds() {
-        if (Main.isTesting) {
-            Integer interval = CronTaskTest.getInstance(main).getIntervalInSeconds(RESOURCE_KEY);
-            if (interval != null) {
-                return interval;
-            }
-        }
-
+    protected int getDefaultIntervalTimeSeconds() {
         return 3600; // every hour
     }
-
-    @Override
-    public int getInitialWaitTimeSeconds() {
-        if (!Main.isTesting) {
-            return getIntervalTimeSeconds();
-        } else {
-            return 0;
-        }
-    }
-
 }
@@ -0,0 +1,78 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.cronjobs.reconcileUsersCount;
+
+import io.supertokens.Main;
+import io.supertokens.ResourceDistributor;
+import io.supertokens.cronjobs.CronTask;
+import io.supertokens.cronjobs.CronTaskTest;
+import io.supertokens.output.Logging;
+import io.supertokens.storageLayer.StorageLayer;
+
+/**
+ * The number of users of each recipe is kept as a counter that is updated along with the users table. This
+ * recomputes the counters from the users table, in case they were changed by something that bypasses the core (for
+ * example, users deleted directly from the database).
+ */
+public class ReconcileUsersCount extends CronTask {
+
+    public static final String RESOURCE_KEY = "io.supertokens.cronjobs.reconcileUsersCount.ReconcileUsersCount";
+
+    private ReconcileUsersCount(Main main) {
+        super("ReconcileUsersCount", main);
+    }
+
+    public static ReconcileUsersCount getInstance(Main main) {
+        ResourceDistributor.SingletonResource instance = main.getResourceDistributor().getResource(RESOURCE_KEY);
+        if (instance == null) {
+            instance = main.getResourceDistributor().setResource(RESOURCE_KEY, new ReconcileUsersCount(main));
+        }
+        return (ReconcileUsersCount) instance;
+    }
+
+    @Override
+    protected void doTask() throws Exception {
+        if (StorageLayer.getAuthRecipeStorage(this.main).reconcileUsersCount()) {
+            Logging.warn(main, "Users count was out of sync with the users table and has been corrected");
+        }
+    }
+
+    @Override
+    protected boolean isClusterWide() {
+        return true;
+    }
+
+    @Override
+    public int getIntervalTimeSeconds() {
+        if (Main.isTesting) {
+            Integer interval = CronTaskTest.getInstance(main).getIntervalInSeconds(RESOURCE_KEY);
+            if (interval != null) {
+                return interval;
+            }
+        }
+        return 3600; // once an hour.
+    }
+
+    @Override
+    public int getInitialWaitTimeSeconds() {
+        if (!Main.isTesting) {
+            return getIntervalTimeSeconds();
+        } else {
+            return 0;
+        }
+    }
+}
@@ -18,6 +18,7 @@ package io.supertokens.emailpassword;
 
 import io.supertokens.Main;
 import io.supertokens.authRecipe.UserPaginationToken;
+import io.supertokens.authRecipe.UserSearchIndex;
 import io.supertokens.config.Config;
 import io.supertokens.config.CoreConfig;
 import io.supertokens.emailpassword.exceptions.ResetPasswordInvalidTokenException;
@@ -42,6 +43,10 @@ import jakarta.servlet.ServletException;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.spec.InvalidKeySpecException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class EmailPassword {
 
@@ -80,6 +85,7 @@ public class EmailPassword {
             try {
                 UserInfo user = new UserInfo(userId, email, hashedPassword, timeJoined);
                 StorageLayer.getEmailPasswordStorage(main).signUp(user);
+                UserSearchIndex.getInstance(main).addUser(user);
 
                 return user;
 
@@ -104,6 +110,7 @@ public class EmailPassword {
 
             try {
                 StorageLayer.getEmailPasswordStorage(main).signUp(userInfo);
+                UserSearchIndex.getInstance(main).addUser(userInfo);
                 return new ImportUserResponse(false, userInfo);
             } catch (DuplicateUserIdException e) {
                 // we retry with a new userId
@@ -122,6 +129,68 @@ public class EmailPassword {
         }
     }
 
+    /**
+     * Imports many users in one storage transaction. The emails must be distinct and normalised, and the password
+     * hashes must already have been checked with
+     * {@link PasswordHashingUtils#assertSuperTokensSupportInputPasswordHashFormat}. Like
+     * {@link #importUserWithPasswordHash}, users whose email already exists get their password hash updated.
+     *
+     * @return one response per input email, in the same order as the input.
+     */
+    public static ImportUserResponse[] importUsersWithValidatedPasswordHashes(Main main, @Nonnull List<String> emails,
+            @Nonnull List<String> passwordHashes) throws StorageQueryException, StorageTransactionLogicException {
+        if (emails.size() != passwordHashes.size()) {
+            throw new IllegalArgumentException("emails and passwordHashes must be of the same length");
+        }
+        EmailPasswordSQLStorage storage = StorageLayer.getEmailPasswordStorage(main);
+
+        while (true) {
+            try {
+                ImportUserResponse[] responses = storage.startTransaction(con -> {
+                    Map<String, UserInfo> existingUsers = new HashMap<>();
+                    for (UserInfo user : storage.getUsersInfoUsingEmails_Transaction(con, emails)) {
+                        existingUsers.put(user.email, user);
+                    }
+
+                    ImportUserResponse[] responses = new ImportUserResponse[emails.size()];
+                    List<UserInfo> newUsers = new ArrayList<>();
+                    for (int i = 0; i < emails.size(); i++) {
+                        UserInfo existingUser = existingUsers.get(emails.get(i));
+                        if (existingUser != null) {
+                            storage.updateUsersPassword_Transaction(con, existingUser.id, passwordHashes.get(i));
+                            responses[i] = new ImportUserResponse(true, new UserInfo(existingUser.id,
+                                    existingUser.email, passwordHashes.get(i), existingUser.timeJoined));
+                        } else {
+                            UserInfo newUser = new UserInfo(Utils.getUUID(), emails.get(i), passwordHashes.get(i),
+                                    System.currentTimeMillis());
+                            newUsers.add(newUser);
+                            responses[i] = new ImportUserResponse(false, newUser);
+                        }
+                    }
+
+                    try {
+                        storage.signUpMultiple_Transaction(con, newUsers);
+                    } catch (DuplicateUserIdException | DuplicateEmailException e) {
+                        throw new StorageTransactionLogicException(e);
+                    }
+                    storage.commitTransaction(con);
+                    return responses;
+                });
+                for (ImportUserResponse response : responses) {
+                    if (!response.didUserAlreadyExist) {
+                        UserSearchIndex.getInstance(main).addUser(response.user);
+                    }
+                }
+                return responses;
+            } catch (StorageTransactionLogicException e) {
+                if (!(e.actualException instanceof DuplicateUserIdException)) {
+                    throw e;
+                }
+                // we retry the whole batch with new userIds
+            }
+        }
+    }
+
     @TestOnly
     public static ImportUserResponse importUserWithPasswordHash(Main main, @Nonnull String email,
             @Nonnull String passwordHash)
@@ -273,6 +342,9 @@ public class EmailPassword {
                 storage.commitTransaction(transaction);
                 return null;
             });
+            if (email != null) {
+                UserSearchIndex.getInstance(main).updateEmail(userId, email);
+            }
         } catch (StorageTransactionLogicException e) {
             if (e.actualException instanceof UnknownUserIdException) {
                 throw (UnknownUserIdException) e.actualException;
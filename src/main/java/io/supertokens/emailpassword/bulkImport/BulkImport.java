@@ -0,0 +1,356 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.emailpassword.bulkImport;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import io.supertokens.Main;
+import io.supertokens.ResourceDistributor;
+import io.supertokens.config.Config;
+import io.supertokens.config.CoreConfig;
+import io.supertokens.emailpassword.EmailPassword;
+import io.supertokens.emailpassword.PasswordHashingUtils;
+import io.supertokens.emailpassword.exceptions.UnsupportedPasswordHashingFormatException;
+import io.supertokens.output.Logging;
+import io.supertokens.pluginInterface.exceptions.StorageQueryException;
+import io.supertokens.pluginInterface.exceptions.StorageTransactionLogicException;
+import io.supertokens.utils.Utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs bulk imports of email password users in the background. The input is first spooled to a temporary file by the
+ * API, so that the job does not depend on the HTTP request staying open. The job then streams through the file,
+ * validates the password hashes of each batch in parallel, and writes each batch in one storage transaction.
+ */
+public class BulkImport extends ResourceDistributor.SingletonResource {
+
+    private static final String RESOURCE_KEY = "io.supertokens.emailpassword.bulkImport.BulkImport";
+
+    // we remember the status of these many jobs. The oldest finished ones are forgotten first.
+    private static final int MAX_JOBS_TO_REMEMBER = 100;
+
+    private final Main main;
+    // jobs run one after the other so that an import does not starve the storage layer of connections
+    private final ExecutorService jobExecutor = Executors.newSingleThreadExecutor();
+    private final ExecutorService validationExecutor;
+    private final Map<String, BulkImportJob> jobs = new LinkedHashMap<>();
+    private volatile boolean shuttingDown = false;
+
+    private BulkImport(Main main) {
+        this.main = main;
+        this.validationExecutor = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public static BulkImport getInstance(Main main) {
+        return (BulkImport) main.getResourceDistributor().getResource(RESOURCE_KEY);
+    }
+
+    public static void init(Main main) {
+        if (getInstance(main) != null) {
+            return;
+        }
+        main.getResourceDistributor().setResource(RESOURCE_KEY, new BulkImport(main));
+    }
+
+    public static void shutdownAndAwaitTermination(Main main) {
+        BulkImport instance = getInstance(main);
+        if (instance == null) {
+            return;
+        }
+        instance.shuttingDown = true;
+        try {
+            // jobs that never started are dropped by shutdownNow, so their finally block that deletes the input file
+            // never runs
+            for (Runnable notStarted : instance.jobExecutor.shutdownNow()) {
+                if (notStarted instanceof ImportTask) {
+                    ((ImportTask) notStarted).discard();
+                }
+            }
+            instance.validationExecutor.shutdownNow();
+            instance.jobExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            // ignore any error as app is shutting down.
+        }
+    }
+
+    /**
+     * Starts importing the users in the given file. The file is deleted once the job finishes.
+     *
+     * @param batchSize number of users written per storage transaction. If null, the configured
+     *                  bulk_import_batch_size is used.
+     */
+    public BulkImportJob startJob(Path input, Integer batchSize) {
+        int finalBatchSize = batchSize == null ? Config.getConfig(main).getBulkImportBatchSize() : batchSize;
+        BulkImportJob job = new BulkImportJob(finalBatchSize);
+        synchronized (jobs) {
+            forgetOldJobs();
+            jobs.put(job.jobId, job);
+        }
+        jobExecutor.execute(new ImportTask(job, input, finalBatchSize));
+        return job;
+    }
+
+    public BulkImportJob getJob(String jobId) {
+        synchronized (jobs) {
+            return jobs.get(jobId);
+        }
+    }
+
+    private void forgetOldJobs() {
+        Iterator<BulkImportJob> it = jobs.values().iterator();
+        while (jobs.size() >= MAX_JOBS_TO_REMEMBER && it.hasNext()) {
+            if (it.next().isFinished()) {
+                it.remove();
+            }
+        }
+    }
+
+    private void runJob(BulkImportJob job, Path input, int batchSize) {
+        Logging.info(main, "Starting bulk import job " + job.jobId, false);
+        List<ImportEntry> batch = new ArrayList<>();
+        Set<String> emailsInBatch = new HashSet<>();
+        try (BulkImportInputReader reader = new BulkImportInputReader(
+                Files.newBufferedReader(input, StandardCharsets.UTF_8))) {
+            BulkImportInputReader.Entry entry;
+            while ((entry = reader.next()) != null) {
+                if (shuttingDown) {
+                    job.failed("SuperTokens is shutting down");
+                    return;
+                }
+                if (entry.parseError != null) {
+                    job.lineFailed(entry.line, entry.parseError);
+                    continue;
+                }
+                ImportEntry importEntry;
+                try {
+                    importEntry = parseEntry(entry);
+                } catch (InvalidEntryException e) {
+                    job.lineFailed(entry.line, e.getMessage());
+                    continue;
+                }
+
+                // the same email twice in one batch would need two writes to the same row in one transaction. So we
+                // flush what we have, which keeps the result the same as importing the lines one by one.
+                if (emailsInBatch.contains(importEntry.email)) {
+                    importBatch(job, batch);
+                    batch.clear();
+                    emailsInBatch.clear();
+                }
+                batch.add(importEntry);
+                emailsInBatch.add(importEntry.email);
+
+                if (batch.size() >= batchSize) {
+                    importBatch(job, batch);
+                    batch.clear();
+                    emailsInBatch.clear();
+                }
+            }
+            importBatch(job, batch);
+            job.completed();
+            Logging.info(main, "Finished bulk import job " + job.jobId, false);
+        } catch (BulkImportInputReader.InvalidInputException e) {
+            job.failed(e.getMessage());
+        } catch (InterruptedException e) {
+            job.failed("SuperTokens is shutting down");
+        } catch (Exception e) {
+            Logging.error(main, "Bulk import job " + job.jobId + " failed", false, e);
+            job.failed(e.getMessage() == null ? e.getClass().getName() : e.getMessage());
+        }
+    }
+
+    private static ImportEntry parseEntry(BulkImportInputReader.Entry entry) throws InvalidEntryException {
+        if (!entry.element.isJsonObject()) {
+            throw new InvalidEntryException("Each entry must be a JSON object");
+        }
+        JsonObject input = entry.element.getAsJsonObject();
+        String email = parseString(input, "email", false);
+        String passwordHash = parseString(input, "passwordHash", false);
+        String hashingAlgorithmString = parseString(input, "hashingAlgorithm", true);
+
+        // same normalisation as ImportUserWithPasswordHashAPI
+        email = Utils.normaliseEmail(email);
+        passwordHash = passwordHash.trim();
+        if (passwordHash.equals("")) {
+            throw new InvalidEntryException("Password hash cannot be an empty string");
+        }
+
+        CoreConfig.PASSWORD_HASHING_ALG passwordHashingAlgorithm = null;
+        if (hashingAlgorithmString != null) {
+            hashingAlgorithmString = hashingAlgorithmString.trim().toUpperCase();
+            if (hashingAlgorithmString.equals("")) {
+                throw new InvalidEntryException("Hashing Algorithm cannot be an empty string");
+            }
+            try {
+                passwordHashingAlgorithm = CoreConfig.PASSWORD_HASHING_ALG.valueOf(hashingAlgorithmString);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidEntryException("Unsupported password hashing algorithm");
+            }
+        }
+        return new ImportEntry(entry.line, email, passwordHash, passwordHashingAlgorithm);
+    }
+
+    private static String parseString(JsonObject input, String fieldName, boolean nullable)
+            throws InvalidEntryException {
+        JsonElement element = input.get(fieldName);
+        if (element == null || element.isJsonNull()) {
+            if (nullable) {
+                return null;
+            }
+            throw new InvalidEntryException("Field name '" + fieldName + "' is missing");
+        }
+        if (!element.isJsonPrimitive() || !element.getAsJsonPrimitive().isString()) {
+            throw new InvalidEntryException("Field name '" + fieldName + "' is invalid");
+        }
+        return element.getAsString();
+    }
+
+    private void importBatch(BulkImportJob job, List<ImportEntry> batch)
+            throws InterruptedException, ExecutionException {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<Callable<String>> validations = new ArrayList<>();
+        for (ImportEntry entry : batch) {
+            validations.add(() -> {
+                try {
+                    PasswordHashingUtils.assertSuperTokensSupportInputPasswordHashFormat(main, entry.passwordHash,
+                            entry.hashingAlgorithm);
+                    return null;
+                } catch (UnsupportedPasswordHashingFormatException | IllegalStateException e) {
+                    // IllegalStateException is thrown if the firebase signer key is not set
+                    return e.getMessage();
+                }
+            });
+        }
+        List<Future<String>> validationResults = validationExecutor.invokeAll(validations);
+
+        List<ImportEntry> validEntries = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            String error = validationResults.get(i).get();
+            if (error != null) {
+                job.lineFailed(batch.get(i).line, error);
+            } else {
+                validEntries.add(batch.get(i));
+            }
+        }
+        if (validEntries.isEmpty()) {
+            return;
+        }
+
+        List<String> emails = new ArrayList<>();
+        List<String> passwordHashes = new ArrayList<>();
+        for (ImportEntry entry : validEntries) {
+            emails.add(entry.email);
+            passwordHashes.add(entry.passwordHash);
+        }
+        try {
+            EmailPassword.ImportUserResponse[] responses = EmailPassword.importUsersWithValidatedPasswordHashes(main,
+                    emails, passwordHashes);
+            for (EmailPassword.ImportUserResponse response : responses) {
+                job.userImported(response.didUserAlreadyExist);
+            }
+        } catch (StorageQueryException | StorageTransactionLogicException e) {
+            // something in this batch could not be written (for example, a concurrent sign up with the same email).
+            // We fall back to importing the users one by one so that we can tell which line failed.
+            for (ImportEntry entry : validEntries) {
+                try {
+                    EmailPassword.ImportUserResponse response = EmailPassword.importUserWithPasswordHash(main,
+                            entry.email, entry.passwordHash, entry.hashingAlgorithm);
+                    job.userImported(response.didUserAlreadyExist);
+                } catch (StorageQueryException | StorageTransactionLogicException |
+                         UnsupportedPasswordHashingFormatException ex) {
+                    job.lineFailed(entry.line, ex.getMessage() == null ? ex.getClass().getName() : ex.getMessage());
+                }
+            }
+        }
+    }
+
+    private void deleteInputFile(Path input) {
+        try {
+            Files.deleteIfExists(input);
+        } catch (IOException e) {
+            Logging.error(main, "Error while deleting bulk import input file", false, e);
+        }
+    }
+
+    private class ImportTask implements Runnable {
+        final BulkImportJob job;
+        final Path input;
+        final int batchSize;
+
+        ImportTask(BulkImportJob job, Path input, int batchSize) {
+            this.job = job;
+            this.input = input;
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public void run() {
+            try {
+                runJob(job, input, batchSize);
+            } finally {
+                deleteInputFile(input);
+            }
+        }
+
+        // called instead of run for jobs that were still queued when the core shut down
+        void discard() {
+            job.failed("SuperTokens is shutting down");
+            deleteInputFile(input);
+        }
+    }
+
+    private static class ImportEntry {
+        final long line;
+        final String email;
+        final String passwordHash;
+        final CoreConfig.PASSWORD_HASHING_ALG hashingAlgorithm;
+
+        ImportEntry(long line, String email, String passwordHash, CoreConfig.PASSWORD_HASHING_ALG hashingAlgorithm) {
+            this.line = line;
+            this.email = email;
+            this.passwordHash = passwordHash;
+            this.hashingAlgorithm = hashingAlgorithm;
+        }
+    }
+
+    private static class InvalidEntryException extends Exception {
+        private static final long serialVersionUID = -3385484924442962455L;
+
+        InvalidEntryException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.emailpassword.bulkImport;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+
+/**
+ * Reads bulk import entries one at a time, so that the whole input never has to be in memory. The input can either
+ * be a JSON array of objects, or newline delimited JSON (one object per line). The format is detected from the first
+ * non whitespace character.
+ */
+class BulkImportInputReader implements Closeable {
+
+    private final JsonParser parser = new JsonParser();
+    private final PushbackReader pushbackReader;
+
+    // exactly one of these two is non null once the format has been detected
+    private BufferedReader ndJsonReader = null;
+    private JsonReader jsonArrayReader = null;
+
+    private boolean formatDetected = false;
+    private long position = 0;
+
+    BulkImportInputReader(Reader reader) {
+        this.pushbackReader = new PushbackReader(reader);
+    }
+
+    /**
+     * @return the next entry, or null if the input has been fully read.
+     * @throws InvalidInputException if the input is a JSON array that is not well formed. We cannot recover from
+     *                               this since we do not know where the next element starts.
+     */
+    Entry next() throws IOException, InvalidInputException {
+        if (!formatDetected) {
+            detectFormat();
+        }
+
+        if (jsonArrayReader != null) {
+            try {
+                if (!jsonArrayReader.hasNext()) {
+                    jsonArrayReader.endArray();
+                    return null;
+                }
+                position++;
+                return new Entry(position, parser.parse(jsonArrayReader), null);
+            } catch (JsonParseException | IllegalStateException | IOException e) {
+                throw new InvalidInputException("Invalid JSON array input after element " + position);
+            }
+        }
+
+        if (ndJsonReader == null) {
+            // empty input
+            return null;
+        }
+
+        while (true) {
+            String line = ndJsonReader.readLine();
+            if (line == null) {
+                return null;
+            }
+            position++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                return new Entry(position, parser.parse(line), null);
+            } catch (JsonParseException e) {
+                return new Entry(position, null, "Invalid JSON");
+            }
+        }
+    }
+
+    private void detectFormat() throws IOException, InvalidInputException {
+        formatDetected = true;
+        int c;
+        long skippedLines = 0;
+        do {
+            c = pushbackReader.read();
+            if (c == '\n') {
+                skippedLines++;
+            }
+        } while (c != -1 && Character.isWhitespace(c));
+
+        if (c == -1) {
+            return;
+        }
+        pushbackReader.unread(c);
+
+        if (c == '[') {
+            jsonArrayReader = new JsonReader(pushbackReader);
+            try {
+                jsonArrayReader.beginArray();
+            } catch (IllegalStateException | IOException e) {
+                throw new InvalidInputException("Invalid JSON array input");
+            }
+        } else {
+            ndJsonReader = new BufferedReader(pushbackReader);
+            // so that the reported line numbers match the input even if it starts with empty lines
+            position = skippedLines;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        pushbackReader.close();
+    }
+
+    static class Entry {
+        final long line;
+        final JsonElement element;
+        final String parseError;
+
+        Entry(long line, JsonElement element, String parseError) {
+            this.line = line;
+            this.element = element;
+            this.parseError = parseError;
+        }
+    }
+
+    static class InvalidInputException extends Exception {
+        private static final long serialVersionUID = 5227155462018373146L;
+
+        InvalidInputException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.emailpassword.bulkImport;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Progress of one bulk import. All counters are updated by the thread that runs the job and read by the status API,
+ * so every access goes through this object's monitor.
+ */
+public class BulkImportJob {
+
+    // we cap the number of errors we keep in memory, so that a completely broken input does not blow up the heap.
+    static final int MAX_ERRORS_TO_REPORT = 1000;
+
+    public enum STATUS {
+        IN_PROGRESS, COMPLETED, FAILED
+    }
+
+    public final String jobId = UUID.randomUUID().toString();
+    public final long createdAt = System.currentTimeMillis();
+    private final int batchSize;
+
+    private STATUS status = STATUS.IN_PROGRESS;
+    private long finishedAt = -1;
+    private String failureReason = null;
+    private long processedCount = 0;
+    private long importedCount = 0;
+    private long updatedCount = 0;
+    private long failedCount = 0;
+    private final List<LineError> errors = new ArrayList<>();
+
+    BulkImportJob(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    synchronized void userImported(boolean didUserAlreadyExist) {
+        processedCount++;
+        if (didUserAlreadyExist) {
+            updatedCount++;
+        } else {
+            importedCount++;
+        }
+    }
+
+    synchronized void lineFailed(long line, String message) {
+        processedCount++;
+        failedCount++;
+        if (errors.size() < MAX_ERRORS_TO_REPORT) {
+            errors.add(new LineError(line, message));
+        }
+    }
+
+    synchronized void completed() {
+        status = STATUS.COMPLETED;
+        finishedAt = System.currentTimeMillis();
+    }
+
+    synchronized void failed(String reason) {
+        status = STATUS.FAILED;
+        failureReason = reason;
+        finishedAt = System.currentTimeMillis();
+    }
+
+    public synchronized STATUS getStatus() {
+        return status;
+    }
+
+    public synchronized boolean isFinished() {
+        return status != STATUS.IN_PROGRESS;
+    }
+
+    public synchronized long getImportedCount() {
+        return importedCount;
+    }
+
+    public synchronized long getUpdatedCount() {
+        return updatedCount;
+    }
+
+    public synchronized long getFailedCount() {
+        return failedCount;
+    }
+
+    public synchronized List<LineError> getErrors() {
+        return new ArrayList<>(errors);
+    }
+
+    public synchronized JsonObject toJson() {
+        JsonObject result = new JsonObject();
+        result.addProperty("jobId", jobId);
+        result.addProperty("status", status.toString());
+        result.addProperty("batchSize", batchSize);
+        result.addProperty("createdAt", createdAt);
+        if (finishedAt != -1) {
+            result.addProperty("finishedAt", finishedAt);
+        }
+        if (failureReason != null) {
+            result.addProperty("failureReason", failureReason);
+        }
+        result.addProperty("processedCount", processedCount);
+        result.addProperty("importedCount", importedCount);
+        result.addProperty("updatedCount", updatedCount);
+        result.addProperty("failedCount", failedCount);
+        JsonArray errorsJson = new JsonArray();
+        for (LineError error : errors) {
+            JsonObject errorJson = new JsonObject();
+            errorJson.addProperty("line", error.line);
+            errorJson.addProperty("message", error.message);
+            errorsJson.add(errorJson);
+        }
+        result.add("errors", errorsJson);
+        result.addProperty("errorsTruncated", failedCount > errors.size());
+        return result;
+    }
+
+    public static class LineError {
+        // line number for NDJSON input and 1-based position in the array for JSON array input
+        public final long line;
+        public final String message;
+
+        LineError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+    }
+}
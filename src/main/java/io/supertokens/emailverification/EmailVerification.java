@@ -32,6 +32,8 @@ import org.jetbrains.annotations.TestOnly;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.spec.InvalidKeySpecException;
+import java.util.ArrayList;
+import java.util.List;
 
 public class EmailVerification {
 
@@ -100,8 +102,10 @@ public class EmailVerification {
 
         final String userId = tokenInfo.userId;
 
+        EmailVerificationCache cache = EmailVerificationCache.getInstance(main);
+        long modificationCount = cache.getModificationCount();
         try {
-            return storage.startTransaction(con -> {
+            User user = storage.startTransaction(con -> {
 
                 EmailVerificationTokenInfo[] allTokens = storage
                         .getAllEmailVerificationTokenInfoForUser_Transaction(con, userId, tokenInfo.email);
@@ -131,6 +135,8 @@ public class EmailVerification {
 
                 return new User(userId, tokenInfo.email);
             });
+            cache.setVerified(user.id, user.email, modificationCount);
+            return user;
         } catch (StorageTransactionLogicException e) {
             if (e.actualException instanceof EmailVerificationInvalidTokenException) {
                 throw (EmailVerificationInvalidTokenException) e.actualException;
@@ -140,7 +146,53 @@ public class EmailVerification {
     }
 
     public static boolean isEmailVerified(Main main, String userId, String email) throws StorageQueryException {
-        return StorageLayer.getEmailVerificationStorage(main).isEmailVerified(userId, email);
+        EmailVerificationCache cache = EmailVerificationCache.getInstance(main);
+        if (cache.isKnownToBeVerified(userId, email)) {
+            return true;
+        }
+
+        long modificationCount = cache.getModificationCount();
+        boolean isVerified = StorageLayer.getEmailVerificationStorage(main).isEmailVerified(userId, email);
+        if (isVerified) {
+            cache.setVerified(userId, email, modificationCount);
+        }
+        return isVerified;
+    }
+
+    // returns whether the email at each index of emails is verified for the user at the same index of userIds
+    public static boolean[] areEmailsVerified(Main main, List<String> userIds, List<String> emails)
+            throws StorageQueryException {
+        EmailVerificationCache cache = EmailVerificationCache.getInstance(main);
+        boolean[] result = new boolean[userIds.size()];
+
+        List<Integer> indexesToQuery = new ArrayList<>();
+        List<String> userIdsToQuery = new ArrayList<>();
+        List<String> emailsToQuery = new ArrayList<>();
+        for (int i = 0; i < userIds.size(); i++) {
+            if (cache.isKnownToBeVerified(userIds.get(i), emails.get(i))) {
+                result[i] = true;
+            } else {
+                indexesToQuery.add(i);
+                userIdsToQuery.add(userIds.get(i));
+                emailsToQuery.add(emails.get(i));
+            }
+        }
+        if (indexesToQuery.isEmpty()) {
+            return result;
+        }
+
+        long modificationCount = cache.getModificationCount();
+        boolean[] queryResult = StorageLayer.getEmailVerificationStorage(main).areEmailsVerified(userIdsToQuery,
+                emailsToQuery);
+        for (int i = 0; i < queryResult.length; i++) {
+            result[indexesToQuery.get(i)] = queryResult[i];
+        }
+        for (int i = 0; i < queryResult.length; i++) {
+            if (queryResult[i]) {
+                cache.setVerified(userIdsToQuery.get(i), emailsToQuery.get(i), modificationCount);
+            }
+        }
+        return result;
     }
 
     public static void revokeAllTokens(Main main, String userId, String email) throws StorageQueryException {
@@ -148,7 +200,11 @@ public class EmailVerification {
     }
 
     public static void unverifyEmail(Main main, String userId, String email) throws StorageQueryException {
-        StorageLayer.getEmailVerificationStorage(main).unverifyEmail(userId, email);
+        try {
+            StorageLayer.getEmailVerificationStorage(main).unverifyEmail(userId, email);
+        } finally {
+            EmailVerificationCache.getInstance(main).invalidate(userId, email);
+        }
     }
 
     private static String getHashedToken(String token) throws NoSuchAlgorithmException {
@@ -0,0 +1,92 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.emailverification;
+
+import io.supertokens.Main;
+import io.supertokens.ResourceDistributor;
+import io.supertokens.config.Config;
+import io.supertokens.utils.ExpiringLRUCache;
+
+/**
+ * Cache of (userId, email) pairs that are known to be verified. Pairs that are not verified are not cached, since they
+ * can be verified at any time, for example by a user clicking the link in their email while being served by another
+ * core instance. An email that is unverified through another core instance is seen once the entry expires
+ * (email_verification_cache_ttl).
+ */
+public class EmailVerificationCache extends ResourceDistributor.SingletonResource {
+
+    private static final String RESOURCE_KEY = "io.supertokens.emailverification.EmailVerificationCache";
+
+    private final ExpiringLRUCache<Boolean> verifiedPairs;
+
+    private EmailVerificationCache(int maxSize, long ttl) {
+        this.verifiedPairs = new ExpiringLRUCache<>(maxSize, ttl);
+    }
+
+    public static EmailVerificationCache getInstance(Main main) {
+        return (EmailVerificationCache) main.getResourceDistributor().getResource(RESOURCE_KEY);
+    }
+
+    public static void init(Main main) {
+        if (getInstance(main) != null) {
+            return;
+        }
+        main.getResourceDistributor().setResource(RESOURCE_KEY,
+                new EmailVerificationCache(Config.getConfig(main).getEmailVerificationCacheSize(),
+                        Config.getConfig(main).getEmailVerificationCacheTTL()));
+    }
+
+    boolean isKnownToBeVerified(String userId, String email) {
+        return verifiedPairs.getIfPresent(getKey(userId, email)) != null;
+    }
+
+    // must be called before reading or verifying the pair in the database, and the result passed to setVerified
+    long getModificationCount() {
+        return verifiedPairs.getModificationCount();
+    }
+
+    void setVerified(String userId, String email, long modificationCount) {
+        verifiedPairs.putIfNotModifiedSince(getKey(userId, email), Boolean.TRUE, modificationCount);
+    }
+
+    public void invalidate(String userId, String email) {
+        verifiedPairs.invalidate(getKey(userId, email));
+    }
+
+    public void invalidateUser(String userId) {
+        String prefix = getKeyPrefix(userId);
+        verifiedPairs.invalidateIf(key -> key.startsWith(prefix));
+    }
+
+    public long getHitCount() {
+        return verifiedPairs.getHitCount();
+    }
+
+    public long getMissCount() {
+        return verifiedPairs.getMissCount();
+    }
+
+    // the length of the userId is part of the prefix, so that the prefix of one user cannot be the start of the key
+    // of another user
+    private static String getKeyPrefix(String userId) {
+        return userId.length() + ":" + userId;
+    }
+
+    private static String getKey(String userId, String email) {
+        return getKeyPrefix(userId) + email;
+    }
+}
@@ -83,6 +83,8 @@ import io.supertokens.pluginInterface.userroles.exception.DuplicateUserRoleMappi
 import io.supertokens.pluginInterface.userroles.exception.UnknownRoleException;
 import io.supertokens.pluginInterface.userroles.sqlStorage.UserRolesSQLStorage;
 import io.supertokens.session.Session;
+import io.supertokens.storageLayer.TransactionCallSite;
+import io.supertokens.storageLayer.TransactionRetryPolicy;
 import io.supertokens.totp.Totp;
 import io.supertokens.usermetadata.UserMetadata;
 import io.supertokens.userroles.UserRoles;
@@ -95,9 +97,9 @@ import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.sql.SQLTransactionRollbackException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Set;
 
@@ -160,7 +162,8 @@ public class Start
         try {
             ConnectionPool.initPool(this);
             GeneralQueries.createTablesIfNotExists(this, this.main);
-        } catch (SQLException | StorageQueryException e) {
+            GeneralQueries.reconcileUsersCount(this);
+        } catch (SQLException | StorageQueryException | StorageTransactionLogicException e) {
             throw new QuitProgramFromPluginException(e);
         }
     }
@@ -174,18 +177,24 @@ public class Start
     @Override
     public <T> T startTransaction(TransactionLogic<T> logic, TransactionIsolationLevel isolationLevel)
             throws StorageTransactionLogicException, StorageQueryException {
+        TransactionRetryPolicy retryPolicy = TransactionRetryPolicy.getInstance(this.main);
+        String callSite = TransactionCallSite.get();
         int tries = 0;
         while (true) {
             tries++;
+            retryPolicy.recordAttempt(callSite);
             try {
                 return startTransactionHelper(logic);
             } catch (SQLException | StorageQueryException | StorageTransactionLogicException e) {
-                if ((e instanceof SQLTransactionRollbackException
-                        || (e.getMessage() != null && e.getMessage().toLowerCase().contains("deadlock")))
-                        && tries < 3) {
+                if (retryPolicy.shouldRetry(e, tries)) {
                     ProcessState.getInstance(this.main).addState(ProcessState.PROCESS_STATE.DEADLOCK_FOUND, e);
-                    continue; // this because deadlocks are not necessarily a result of faulty logic. They can
-                    // happen
+                    if (retryPolicy.backOff(callSite, tries)) {
+                        continue; // this because deadlocks are not necessarily a result of faulty logic. They can
+                        // happen
+                    }
+                }
+                if (TransactionRetryPolicy.isRetryable(e)) {
+                    retryPolicy.recordAbort(callSite);
                 }
                 if (e instanceof StorageQueryException) {
                     throw (StorageQueryException) e;
@@ -351,6 +360,24 @@ public class Start
         }
     }
 
+    @Override
+    public String[] deleteSessionsAndGetDeletedHandles(String[] sessionHandles) throws StorageQueryException {
+        try {
+            return SessionQueries.deleteSessionsAndGetDeletedHandles(this, sessionHandles);
+        } catch (StorageTransactionLogicException e) {
+            throw new StorageQueryException(e.actualException);
+        }
+    }
+
+    @Override
+    public String[] deleteNonExpiredSessionsOfUsers(String[] userIds) throws StorageQueryException {
+        try {
+            return SessionQueries.deleteNonExpiredSessionsOfUsers(this, userIds);
+        } catch (StorageTransactionLogicException e) {
+            throw new StorageQueryException(e.actualException);
+        }
+    }
+
     @Override
     public String[] getAllNonExpiredSessionHandlesForUser(String userId) throws StorageQueryException {
         try {
@@ -369,6 +396,15 @@ public class Start
         }
     }
 
+    @Override
+    public int deleteExpiredSessions(long currentTime, int limit) throws StorageQueryException {
+        try {
+            return SessionQueries.deleteExpiredSessions(this, currentTime, limit);
+        } catch (SQLException e) {
+            throw new StorageQueryException(e);
+        }
+    }
+
     @Override
     public KeyValueInfo getKeyValue(String key) throws StorageQueryException {
         try {
@@ -425,6 +461,15 @@ public class Start
         }
     }
 
+    @Override
+    public boolean reconcileUsersCount() throws StorageQueryException {
+        try {
+            return GeneralQueries.reconcileUsersCount(this);
+        } catch (StorageTransactionLogicException e) {
+            throw new StorageQueryException(e.actualException);
+        }
+    }
+
     @Override
     public AuthRecipeUserInfo[] getUsers(@NotNull Integer limit, @NotNull String timeJoinedOrder,
                                          @Nullable RECIPE_ID[] includeRecipeIds, @Nullable String userId,
@@ -438,6 +483,16 @@ public class Start
         }
     }
 
+    @Override
+    public List<? extends AuthRecipeUserInfo> getUsersUsingIdList(RECIPE_ID recipeId, List<String> userIds)
+            throws StorageQueryException {
+        try {
+            return GeneralQueries.getUserInfoForRecipeIdFromUserIds(this, recipeId, userIds);
+        } catch (SQLException e) {
+            throw new StorageQueryException(e);
+        }
+    }
+
     @Override
     public boolean doesUserIdExist(String userId) throws StorageQueryException {
         try {
@@ -447,6 +502,25 @@ public class Start
         }
     }
 
+    @Override
+    public List<String> getExistingUserIds(List<String> userIds) throws StorageQueryException {
+        try {
+            return GeneralQueries.getExistingUserIds(this, userIds);
+        } catch (SQLException e) {
+            throw new StorageQueryException(e);
+        }
+    }
+
+    @Override
+    public List<String> deleteUsers(List<String> authRecipeUserIds, List<String> nonAuthRecipeUserIds)
+            throws StorageQueryException {
+        try {
+            return GeneralQueries.deleteUsers(this, authRecipeUserIds, nonAuthRecipeUserIds);
+        } catch (StorageTransactionLogicException e) {
+            throw new StorageQueryException(e.actualException);
+        }
+    }
+
     @Override
     public void updateLastActive(String userId) throws StorageQueryException {
         try {
@@ -505,6 +579,19 @@ public class Start
         }
     }
 
+    @Override
+    public SessionInfo updateSessionInfoIfRefreshTokenMatches(String sessionHandle, String expectedRefreshTokenHash2,
+                                                              String newRefreshTokenHash2, long expiry,
+                                                              boolean onlyIfNotExpired)
+            throws StorageQueryException {
+        try {
+            return SessionQueries.updateSessionInfoIfRefreshTokenMatches(this, sessionHandle,
+                    expectedRefreshTokenHash2, newRefreshTokenHash2, expiry, onlyIfNotExpired);
+        } catch (SQLException e) {
+            throw new StorageQueryException(e);
+        }
+    }
+
     @Override
     public void setKeyValue_Transaction(TransactionConnection con, String key, KeyValueInfo info)
             throws StorageQueryException {
@@ -648,6 +735,38 @@ public class Start
         }
     }
 
+    @Override
+    public List<UserInfo> getUsersInfoUsingEmails_Transaction(TransactionConnection con, List<String> emails)
+            throws StorageQueryException {
+        Connection sqlCon = (Connection) con.getConnection();
+        try {
+            return EmailPasswordQueries.getUsersInfoUsingEmails_Transaction(this, sqlCon, emails);
+        } catch (SQLException e) {
+            throw new StorageQueryException(e);
+        }
+    }
+
+    @Override
+    public void signUpMultiple_Transaction(TransactionConnection con, List<UserInfo> users)
+            throws StorageQueryException, DuplicateUserIdException, DuplicateEmailException {
+        Connection sqlCon = (Connection) con.getConnection();
+        try {
+            EmailPasswordQueries.signUpMultiple_Transaction(this, sqlCon, users);
+        } catch (SQLException e) {
+            if (e.getMessage() != null && e.getMessage()
+                    .contains("UNIQUE constraint failed: " + Config.getConfig(this).getEmailPasswordUsersTable()
+                            + ".email")) {
+                throw new DuplicateEmailException();
+            } else if (e.getMessage() != null && (e.getMessage()
+                    .contains("UNIQUE constraint failed: " + Config.getConfig(this).getEmailPasswordUsersTable()
+                            + ".user_id") || e.getMessage()
+                    .contains("UNIQUE constraint failed: " + Config.getConfig(this).getUsersTable() + ".user_id"))) {
+                throw new DuplicateUserIdException();
+            }
+            throw new StorageQueryException(e);
+        }
+    }
+
     @Override
     public void updateUsersEmail_Transaction(TransactionConnection conn, String userId, String email)
             throws StorageQueryException, DuplicateEmailException {
@@ -716,6 +835,15 @@ public class Start
         }
     }
 
+    @Override
+    public int deleteExpiredPasswordResetTokens(long currentTime, int limit) throws StorageQueryException {
+        try {
+            return EmailPasswordQueries.deleteExpiredPasswordResetTokens(this, currentTime, limit);
+        } catch (SQLException e) {
+            throw new StorageQueryException(e);
+        }
+    }
+
     @Override
     public EmailVerificationTokenInfo[] getAllEmailVerificationTokenInfoForUser_Transaction(TransactionConnection con,
                                                                                             String userId, String email)
@@ -821,6 +949,15 @@ public class Start
         }
     }
 
+    @Override
+    public int deleteExpiredEmailVerificationTokens(long currentTime, int limit) throws StorageQueryException {
+        try {
+            return EmailVerificationQueries.deleteExpiredEmailVerificationTokens(this, currentTime, limit);
+        } catch (SQLException e) {
+            throw new StorageQueryException(e);
+        }
+    }
+
     @Override
     public EmailVerificationTokenInfo[] getAllEmailVerificationTokenInfoForUser(String userId, String email)
             throws StorageQueryException {
@@ -840,6 +977,15 @@ public class Start
         }
     }
 
+    @Override
+    public boolean[] areEmailsVerified(List<String> userIds, List<String> emails) throws StorageQueryException {
+        try {
+            return EmailVerificationQueries.areEmailsVerified(this, userIds, emails);
+        } catch (SQLException e) {
+            throw new StorageQueryException(e);
+        }
+    }
+
     @Override
     public io.supertokens.pluginInterface.thirdparty.UserInfo getUserInfoUsingId_Transaction(TransactionConnection con,
                                                                                              String thirdPartyId,
@@ -889,6 +1035,26 @@ public class Start
         }
     }
 
+    @Override
+    public io.supertokens.pluginInterface.thirdparty.UserInfo signInUp(
+            io.supertokens.pluginInterface.thirdparty.UserInfo newUser)
+            throws StorageQueryException, io.supertokens.pluginInterface.thirdparty.exception.DuplicateUserIdException {
+        try {
+            return ThirdPartyQueries.signInUp(this, newUser);
+        } catch (StorageTransactionLogicException eTemp) {
+            Exception e = eTemp.actualException;
+            if (e.getMessage()
+                    .equals("[SQLITE_CONSTRAINT]  Abort due to constraint violation (UNIQUE constraint failed: "
+                            + Config.getConfig(this).getThirdPartyUsersTable() + ".user_id)")
+                    || e.getMessage()
+                    .equals("[SQLITE_CONSTRAINT]  Abort due to constraint violation (UNIQUE constraint failed: "
+                            + Config.getConfig(this).getUsersTable() + ".user_id)")) {
+                throw new io.supertokens.pluginInterface.thirdparty.exception.DuplicateUserIdException();
+            }
+            throw new StorageQueryException(e);
+        }
+    }
+
     @Override
     public void deleteThirdPartyUser(String userId) throws StorageQueryException {
         try {
@@ -1030,6 +1196,45 @@ public class Start
         }
     }
 
+    @Override
+    public LinkedHashMap<PasswordlessDevice, PasswordlessCode[]> getDevicesWithCodesByEmail(String email)
+            throws StorageQueryException {
+        try {
+            return PasswordlessQueries.getDevicesWithCodesByEmail(this, email);
+        } catch (SQLException e) {
+            throw new StorageQueryException(e);
+        }
+    }
+
+    @Override
+    public LinkedHashMap<PasswordlessDevice, PasswordlessCode[]> getDevicesWithCodesByPhoneNumber(String phoneNumber)
+            throws StorageQueryException {
+        try {
+            return PasswordlessQueries.getDevicesWithCodesByPhoneNumber(this, phoneNumber);
+        } catch (SQLException e) {
+            throw new StorageQueryException(e);
+        }
+    }
+
+    @Override
+    public LinkedHashMap<PasswordlessDevice, PasswordlessCode[]> getDeviceWithCodesByIdHash(String deviceIdHash)
+            throws StorageQueryException {
+        try {
+            return PasswordlessQueries.getDeviceWithCodesByIdHash(this, deviceIdHash);
+        } catch (SQLException e) {
+            throw new StorageQueryException(e);
+        }
+    }
+
+    @Override
+    public int deleteDevicesWithAllCodesCreatedBefore(long time, int limit) throws StorageQueryException {
+        try {
+            return PasswordlessQueries.deleteDevicesWithAllCodesCreatedBefore(this, time, limit);
+        } catch (StorageTransactionLogicException e) {
+            throw new StorageQueryException(e.actualException);
+        }
+    }
+
     @Override
     public PasswordlessCode[] getCodesBefore(long time) throws StorageQueryException {
         try {
@@ -1417,6 +1622,15 @@ public class Start
         }
     }
 
+    @Override
+    public HashMap<String, String[]> getPermissionsForAllRoles() throws StorageQueryException {
+        try {
+            return UserRoleQueries.getPermissionsForAllRoles(this);
+        } catch (SQLException e) {
+            throw new StorageQueryException(e);
+        }
+    }
+
     @Override
     public boolean doesRoleExist(String role) throws StorageQueryException {
         try {
@@ -1604,6 +1818,15 @@ public class Start
         }
     }
 
+    @Override
+    public List<UserIdMapping> getUserIdMappingsInvolvingUserIds(List<String> userIds) throws StorageQueryException {
+        try {
+            return UserIdMappingQueries.getUserIdMappingsInvolvingUserIds(this, userIds);
+        } catch (SQLException e) {
+            throw new StorageQueryException(e);
+        }
+    }
+
     @Override
     public boolean isUserIdBeingUsedInNonAuthRecipe(String className, String userId) throws StorageQueryException {
 
@@ -1821,6 +2044,15 @@ public class Start
         }
     }
 
+    @Override
+    public int revokeExpiredSessions(long currentTime, int limit) throws StorageQueryException {
+        try {
+            return DashboardQueries.deleteExpiredSessions(this, currentTime, limit);
+        } catch (SQLException e) {
+            throw new StorageQueryException(e);
+        }
+    }
+
     public DashboardUser getDashboardUserByUserId(String userId) throws StorageQueryException {
         try {
             return DashboardQueries.getDashboardUserByUserId(this, userId);
@@ -1960,6 +2192,31 @@ public class Start
         }
     }
 
+    @Override
+    public TOTPUsedCode[] getRecentAndValidUsedCodesDescOrder_Transaction(TransactionConnection con, String userId,
+                                                                        int numberOfRecentCodes, long now)
+            throws StorageQueryException {
+        Connection sqlCon = (Connection) con.getConnection();
+        try {
+            return TOTPQueries.getRecentAndValidUsedCodesDescOrder_Transaction(this, sqlCon, userId,
+                    numberOfRecentCodes, now);
+        } catch (SQLException e) {
+            throw new StorageQueryException(e);
+        }
+    }
+
+    @Override
+    public int removeOldUsedCodes_Transaction(TransactionConnection con, String userId, int numberOfRecentCodes,
+                                              long now)
+            throws StorageQueryException {
+        Connection sqlCon = (Connection) con.getConnection();
+        try {
+            return TOTPQueries.removeOldUsedCodes_Transaction(this, sqlCon, userId, numberOfRecentCodes, now);
+        } catch (SQLException e) {
+            throw new StorageQueryException(e);
+        }
+    }
+
     @Override
     public int removeExpiredCodes(long expiredBefore)
             throws StorageQueryException {
@@ -1969,4 +2226,13 @@ public class Start
             throw new StorageQueryException(e);
         }
     }
+
+    @Override
+    public int removeExpiredCodes(long expiredBefore, int limit) throws StorageQueryException {
+        try {
+            return TOTPQueries.removeExpiredCodes(this, expiredBefore, limit);
+        } catch (SQLException e) {
+            throw new StorageQueryException(e);
+        }
+    }
 }
@@ -213,6 +213,17 @@ public class DashboardQueries {
         update(start, QUERY, pst -> pst.setLong(1, currentTimeMillis));
     }
 
+    public static int deleteExpiredSessions(Start start, long currentTime, int limit)
+            throws SQLException, StorageQueryException {
+        String QUERY = "DELETE FROM " + Config.getConfig(start).getDashboardSessionsTable()
+                + " WHERE rowid IN (SELECT rowid FROM " + Config.getConfig(start).getDashboardSessionsTable()
+                + " WHERE expiry < ? LIMIT ?)";
+        return update(start, QUERY, pst -> {
+            pst.setLong(1, currentTime);
+            pst.setInt(2, limit);
+        });
+    }
+
     private static class DashboardInfoMapper implements RowMapper<DashboardUser, ResultSet> {
         private static final DashboardInfoMapper INSTANCE = new DashboardInfoMapper();
 
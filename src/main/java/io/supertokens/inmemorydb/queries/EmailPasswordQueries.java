@@ -21,6 +21,7 @@ import io.supertokens.inmemorydb.PreparedStatementValueSetter;
 import io.supertokens.inmemorydb.QueryExecutorTemplate;
 import io.supertokens.inmemorydb.ResultSetValueExtractor;
 import io.supertokens.inmemorydb.Start;
+import io.supertokens.inmemorydb.Utils;
 import io.supertokens.inmemorydb.config.Config;
 import io.supertokens.pluginInterface.RowMapper;
 import io.supertokens.pluginInterface.emailpassword.PasswordResetTokenInfo;
@@ -30,6 +31,7 @@ import io.supertokens.pluginInterface.exceptions.StorageTransactionLogicExceptio
 import org.jetbrains.annotations.NotNull;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -71,6 +73,18 @@ public class EmailPasswordQueries {
         update(start, QUERY, pst -> pst.setLong(1, currentTimeMillis()));
     }
 
+    public static int deleteExpiredPasswordResetTokens(Start start, long currentTime, int limit)
+            throws SQLException, StorageQueryException {
+        String QUERY = "DELETE FROM " + getConfig(start).getPasswordResetTokensTable()
+                + " WHERE rowid IN (SELECT rowid FROM " + getConfig(start).getPasswordResetTokensTable()
+                + " WHERE token_expiry < ? LIMIT ?)";
+
+        return update(start, QUERY, pst -> {
+            pst.setLong(1, currentTime);
+            pst.setInt(2, limit);
+        });
+    }
+
     public static void deleteExpiredEmailVerificationTokens(Start start) throws SQLException, StorageQueryException {
         String QUERY = "DELETE FROM " + getConfig(start).getEmailVerificationTokensTable() + " WHERE token_expiry < ?";
 
@@ -157,6 +171,8 @@ public class EmailPasswordQueries {
         start.startTransaction(con -> {
             Connection sqlCon = (Connection) con.getConnection();
             try {
+                GeneralQueries.updateUsersCount_Transaction(start, sqlCon, EMAIL_PASSWORD, 1);
+
                 {
                     String QUERY = "INSERT INTO " + getConfig(start).getUsersTable()
                             + "(user_id, recipe_id, time_joined)" + " VALUES(?, ?, ?)";
@@ -192,14 +208,17 @@ public class EmailPasswordQueries {
         start.startTransaction(con -> {
             Connection sqlCon = (Connection) con.getConnection();
             try {
+                GeneralQueries.lockUsersCount_Transaction(sqlCon, EMAIL_PASSWORD);
+
                 {
                     String QUERY = "DELETE FROM " + getConfig(start).getUsersTable()
                             + " WHERE user_id = ? AND recipe_id = ?";
 
-                    update(sqlCon, QUERY, pst -> {
+                    int deletedUsers = update(sqlCon, QUERY, pst -> {
                         pst.setString(1, userId);
                         pst.setString(2, EMAIL_PASSWORD.toString());
                     });
+                    GeneralQueries.updateUsersCount_Transaction(start, sqlCon, EMAIL_PASSWORD, -deletedUsers);
                 }
                 // Since SQLite does not enforce foreign key constraints we have to manually delete the mapping for the
                 // user.
@@ -294,6 +313,58 @@ public class EmailPasswordQueries {
         });
     }
 
+    public static List<UserInfo> getUsersInfoUsingEmails_Transaction(Start start, Connection con, List<String> emails)
+            throws SQLException, StorageQueryException {
+        if (emails.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String QUERY = "SELECT user_id, email, password_hash, time_joined FROM "
+                + getConfig(start).getEmailPasswordUsersTable() + " WHERE email IN ("
+                + Utils.generateCommaSeperatedQuestionMarks(emails.size()) + ")";
+        return execute(con, QUERY, pst -> {
+            for (int i = 0; i < emails.size(); i++) {
+                pst.setString(i + 1, emails.get(i));
+            }
+        }, result -> {
+            List<UserInfo> finalResult = new ArrayList<>();
+            while (result.next()) {
+                finalResult.add(UserInfoRowMapper.getInstance().mapOrThrow(result));
+            }
+            return finalResult;
+        });
+    }
+
+    public static void signUpMultiple_Transaction(Start start, Connection con, List<UserInfo> users)
+            throws SQLException, StorageQueryException {
+        if (users.isEmpty()) {
+            return;
+        }
+        GeneralQueries.updateUsersCount_Transaction(start, con, EMAIL_PASSWORD, users.size());
+
+        String USERS_QUERY = "INSERT INTO " + getConfig(start).getUsersTable() + "(user_id, recipe_id, time_joined)"
+                + " VALUES(?, ?, ?)";
+        String EMAIL_PASSWORD_USERS_QUERY = "INSERT INTO " + getConfig(start).getEmailPasswordUsersTable()
+                + "(user_id, email, password_hash, time_joined)" + " VALUES(?, ?, ?, ?)";
+
+        try (PreparedStatement usersPst = con.prepareStatement(USERS_QUERY);
+             PreparedStatement emailPasswordUsersPst = con.prepareStatement(EMAIL_PASSWORD_USERS_QUERY)) {
+            for (UserInfo user : users) {
+                usersPst.setString(1, user.id);
+                usersPst.setString(2, EMAIL_PASSWORD.toString());
+                usersPst.setLong(3, user.timeJoined);
+                usersPst.addBatch();
+
+                emailPasswordUsersPst.setString(1, user.id);
+                emailPasswordUsersPst.setString(2, user.email);
+                emailPasswordUsersPst.setString(3, user.passwordHash);
+                emailPasswordUsersPst.setLong(4, user.timeJoined);
+                emailPasswordUsersPst.addBatch();
+            }
+            usersPst.executeBatch();
+            emailPasswordUsersPst.executeBatch();
+        }
+    }
+
     public static UserInfo getUserInfoUsingEmail(Start start, String email) throws SQLException, StorageQueryException {
         String QUERY = "SELECT user_id, email, password_hash, time_joined FROM "
                 + getConfig(start).getEmailPasswordUsersTable() + " WHERE email = ?";
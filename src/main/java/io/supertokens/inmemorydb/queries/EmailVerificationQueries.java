@@ -30,6 +30,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 
 import static io.supertokens.inmemorydb.QueryExecutorTemplate.execute;
@@ -62,6 +63,18 @@ public class EmailVerificationQueries {
         update(start, QUERY, pst -> pst.setLong(1, currentTimeMillis()));
     }
 
+    public static int deleteExpiredEmailVerificationTokens(Start start, long currentTime, int limit)
+            throws SQLException, StorageQueryException {
+        String QUERY = "DELETE FROM " + getConfig(start).getEmailVerificationTokensTable()
+                + " WHERE rowid IN (SELECT rowid FROM " + getConfig(start).getEmailVerificationTokensTable()
+                + " WHERE token_expiry < ? LIMIT ?)";
+
+        return update(start, QUERY, pst -> {
+            pst.setLong(1, currentTime);
+            pst.setInt(2, limit);
+        });
+    }
+
     public static void updateUsersIsEmailVerified_Transaction(Start start, Connection con, String userId, String email,
             boolean isEmailVerified) throws SQLException, StorageQueryException {
 
@@ -172,6 +185,43 @@ public class EmailVerificationQueries {
         }, ResultSet::next);
     }
 
+    // SQLite allows at most 999 parameters in a query, and each pair uses two
+    private static final int MAX_PAIRS_PER_QUERY = 250;
+
+    public static boolean[] areEmailsVerified(Start start, List<String> userIds, List<String> emails)
+            throws SQLException, StorageQueryException {
+        HashSet<List<String>> verifiedPairs = new HashSet<>();
+        for (int from = 0; from < userIds.size(); from += MAX_PAIRS_PER_QUERY) {
+            int to = Math.min(from + MAX_PAIRS_PER_QUERY, userIds.size());
+            int startIndex = from;
+
+            StringBuilder QUERY = new StringBuilder("SELECT user_id, email FROM "
+                    + getConfig(start).getEmailVerificationTable() + " WHERE (user_id, email) IN (VALUES ");
+            for (int i = from; i < to; i++) {
+                QUERY.append(i == from ? "(?, ?)" : ", (?, ?)");
+            }
+            QUERY.append(")");
+
+            execute(start, QUERY.toString(), pst -> {
+                for (int i = startIndex; i < to; i++) {
+                    pst.setString(2 * (i - startIndex) + 1, userIds.get(i));
+                    pst.setString(2 * (i - startIndex) + 2, emails.get(i));
+                }
+            }, result -> {
+                while (result.next()) {
+                    verifiedPairs.add(List.of(result.getString("user_id"), result.getString("email")));
+                }
+                return null;
+            });
+        }
+
+        boolean[] isVerified = new boolean[userIds.size()];
+        for (int i = 0; i < userIds.size(); i++) {
+            isVerified[i] = verifiedPairs.contains(List.of(userIds.get(i), emails.get(i)));
+        }
+        return isVerified;
+    }
+
     public static boolean isUserIdBeingUsedForEmailVerification(Start start, String userId)
             throws SQLException, StorageQueryException {
         String QUERY = "SELECT * FROM " + getConfig(start).getEmailVerificationTokensTable() + " WHERE user_id = ?";
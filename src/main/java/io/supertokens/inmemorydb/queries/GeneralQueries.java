@@ -20,6 +20,7 @@ import io.supertokens.Main;
 import io.supertokens.inmemorydb.ConnectionPool;
 import io.supertokens.inmemorydb.ConnectionWithLocks;
 import io.supertokens.inmemorydb.Start;
+import io.supertokens.inmemorydb.Utils;
 import io.supertokens.inmemorydb.config.Config;
 import io.supertokens.pluginInterface.KeyValueInfo;
 import io.supertokens.pluginInterface.RECIPE_ID;
@@ -27,17 +28,22 @@ import io.supertokens.pluginInterface.RowMapper;
 import io.supertokens.pluginInterface.authRecipe.AuthRecipeUserInfo;
 import io.supertokens.pluginInterface.dashboard.DashboardSearchTags;
 import io.supertokens.pluginInterface.exceptions.StorageQueryException;
+import io.supertokens.pluginInterface.exceptions.StorageTransactionLogicException;
 import org.jetbrains.annotations.NotNull;
 
 import javax.annotation.Nullable;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static io.supertokens.ProcessState.PROCESS_STATE.CREATING_NEW_TABLE;
 import static io.supertokens.ProcessState.getInstance;
@@ -51,11 +57,16 @@ import static io.supertokens.inmemorydb.queries.EmailVerificationQueries.*;
 import static io.supertokens.inmemorydb.queries.JWTSigningQueries.getQueryToCreateJWTSigningTable;
 import static io.supertokens.inmemorydb.queries.PasswordlessQueries.*;
 import static io.supertokens.inmemorydb.queries.SessionQueries.getQueryToCreateAccessTokenSigningKeysTable;
+import static io.supertokens.inmemorydb.queries.SessionQueries.getQueryToCreateSessionExpiryIndex;
 import static io.supertokens.inmemorydb.queries.SessionQueries.getQueryToCreateSessionInfoTable;
 import static io.supertokens.inmemorydb.queries.UserMetadataQueries.getQueryToCreateUserMetadataTable;
 
 public class GeneralQueries {
 
+    // the recipes whose users are in the users table
+    private static final RECIPE_ID[] AUTH_RECIPE_IDS = new RECIPE_ID[]{RECIPE_ID.EMAIL_PASSWORD,
+            RECIPE_ID.THIRD_PARTY, RECIPE_ID.PASSWORDLESS};
+
     private static boolean doesTableExists(Start start, String tableName) {
         try {
             String QUERY = "SELECT 1 FROM " + tableName + " LIMIT 1";
@@ -109,6 +120,8 @@ public class GeneralQueries {
         if (!doesTableExists(start, Config.getConfig(start).getSessionInfoTable())) {
             getInstance(main).addState(CREATING_NEW_TABLE, null);
             update(start, getQueryToCreateSessionInfoTable(start), NO_OP_SETTER);
+            // index
+            update(start, getQueryToCreateSessionExpiryIndex(start), NO_OP_SETTER);
         }
 
         if (!doesTableExists(start, Config.getConfig(start).getEmailPasswordUsersTable())) {
@@ -163,6 +176,7 @@ public class GeneralQueries {
             update(start, getQueryToCreateCodesTable(start), NO_OP_SETTER);
             // index
             update(start, getQueryToCreateCodeCreatedAtIndex(start), NO_OP_SETTER);
+            update(start, getQueryToCreateCodeDeviceIdHashIndex(start), NO_OP_SETTER);
         }
 
         if (!doesTableExists(start, Config.getConfig(start).getUserMetadataTable())) {
@@ -305,8 +319,32 @@ public class GeneralQueries {
         }
     }
 
+    /**
+     * Reads the number of users from the per recipe counters in the key value table. If a counter is missing, the
+     * users are counted instead.
+     */
     public static long getUsersCount(Start start, RECIPE_ID[] includeRecipeIds)
             throws SQLException, StorageQueryException {
+        Set<RECIPE_ID> recipeIds = new LinkedHashSet<>();
+        if (includeRecipeIds != null && includeRecipeIds.length > 0) {
+            recipeIds.addAll(Arrays.asList(includeRecipeIds));
+        } else {
+            recipeIds.addAll(Arrays.asList(AUTH_RECIPE_IDS));
+        }
+
+        long total = 0;
+        for (RECIPE_ID recipeId : recipeIds) {
+            KeyValueInfo count = getKeyValue(start, getUsersCountKey(recipeId));
+            if (count == null) {
+                return countUsers(start, includeRecipeIds);
+            }
+            total += Long.parseLong(count.value);
+        }
+        return total;
+    }
+
+    private static long countUsers(Start start, RECIPE_ID[] includeRecipeIds)
+            throws SQLException, StorageQueryException {
         StringBuilder QUERY = new StringBuilder("SELECT COUNT(*) as total FROM " + getConfig(start).getUsersTable());
         if (includeRecipeIds != null && includeRecipeIds.length > 0) {
             QUERY.append(" WHERE recipe_id IN (");
@@ -329,6 +367,81 @@ public class GeneralQueries {
         });
     }
 
+    private static String getUsersCountKey(RECIPE_ID recipeId) {
+        return "users_count_" + recipeId.toString();
+    }
+
+    /**
+     * Locks the users counter of the recipe till the end of the transaction. This must be called before changing the
+     * users table, so that the counter and the table are always changed together.
+     */
+    public static void lockUsersCount_Transaction(Connection con, RECIPE_ID recipeId) {
+        ((ConnectionWithLocks) con).lock(getUsersCountKey(recipeId));
+    }
+
+    /**
+     * Adds delta to the users counter of the recipe. If the counter does not exist yet, it is left as is, and will be
+     * created by {@link #reconcileUsersCount}.
+     */
+    public static void updateUsersCount_Transaction(Start start, Connection con, RECIPE_ID recipeId, long delta)
+            throws SQLException, StorageQueryException {
+        lockUsersCount_Transaction(con, recipeId);
+        if (delta == 0) {
+            return;
+        }
+        String QUERY = "UPDATE " + getConfig(start).getKeyValueTable()
+                + " SET value = CAST(value AS INTEGER) + ?, created_at_time = ? WHERE name = ?";
+        update(con, QUERY, pst -> {
+            pst.setLong(1, delta);
+            pst.setLong(2, System.currentTimeMillis());
+            pst.setString(3, getUsersCountKey(recipeId));
+        });
+    }
+
+    /**
+     * Sets the users counter of each recipe to the actual number of users in the users table.
+     *
+     * @return true if any of the counters was missing or wrong.
+     */
+    public static boolean reconcileUsersCount(Start start) throws StorageQueryException,
+            StorageTransactionLogicException {
+        return start.startTransaction(con -> {
+            Connection sqlCon = (Connection) con.getConnection();
+            try {
+                // we always lock these in the same order. Other transactions lock at most one of them.
+                for (RECIPE_ID recipeId : AUTH_RECIPE_IDS) {
+                    lockUsersCount_Transaction(sqlCon, recipeId);
+                }
+
+                String QUERY = "SELECT recipe_id, COUNT(*) as total FROM " + getConfig(start).getUsersTable()
+                        + " GROUP BY recipe_id";
+                Map<String, Long> counts = execute(sqlCon, QUERY, NO_OP_SETTER, result -> {
+                    Map<String, Long> temp = new HashMap<>();
+                    while (result.next()) {
+                        temp.put(result.getString("recipe_id"), result.getLong("total"));
+                    }
+                    return temp;
+                });
+
+                boolean wasOutOfSync = false;
+                for (RECIPE_ID recipeId : AUTH_RECIPE_IDS) {
+                    long count = counts.getOrDefault(recipeId.toString(), 0L);
+                    KeyValueInfo existing = getKeyValue_Transaction(start, sqlCon, getUsersCountKey(recipeId));
+                    if (existing == null || Long.parseLong(existing.value) != count) {
+                        wasOutOfSync = true;
+                        setKeyValue_Transaction(start, sqlCon, getUsersCountKey(recipeId),
+                                new KeyValueInfo(String.valueOf(count), System.currentTimeMillis()));
+                    }
+                }
+
+                sqlCon.commit();
+                return wasOutOfSync;
+            } catch (SQLException e) {
+                throw new StorageTransactionLogicException(e);
+            }
+        });
+    }
+
     public static AuthRecipeUserInfo[] getUsers(Start start, @NotNull Integer limit, @NotNull String timeJoinedOrder,
                                                 @Nullable RECIPE_ID[] includeRecipeIds, @Nullable String userId,
                                                 @Nullable Long timeJoined,
@@ -595,8 +708,130 @@ public class GeneralQueries {
 
     }
 
-    private static List<? extends AuthRecipeUserInfo> getUserInfoForRecipeIdFromUserIds(Start start, RECIPE_ID recipeId,
-                                                                                        List<String> userIds)
+    public static List<String> getExistingUserIds(Start start, List<String> userIds)
+            throws SQLException, StorageQueryException {
+        if (userIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String QUERY = "SELECT user_id FROM " + getConfig(start).getUsersTable() + " WHERE user_id IN ("
+                + Utils.generateCommaSeperatedQuestionMarks(userIds.size()) + ")";
+        return execute(start, QUERY, pst -> setUserIds(pst, userIds), result -> {
+            List<String> existingUserIds = new ArrayList<>();
+            while (result.next()) {
+                existingUserIds.add(result.getString("user_id"));
+            }
+            return existingUserIds;
+        });
+    }
+
+    /**
+     * Deletes many users in a single transaction, using one statement per table. Data of the non auth recipes is
+     * deleted for nonAuthRecipeUserIds, and the users, their user id mappings and their auth recipe data are deleted
+     * for authRecipeUserIds.
+     *
+     * @return the userIds from authRecipeUserIds that existed and were deleted.
+     */
+    public static List<String> deleteUsers(Start start, List<String> authRecipeUserIds,
+                                           List<String> nonAuthRecipeUserIds)
+            throws StorageQueryException, StorageTransactionLogicException {
+        return start.startTransaction(con -> {
+            Connection sqlCon = (Connection) con.getConnection();
+            try {
+                if (!nonAuthRecipeUserIds.isEmpty()) {
+                    for (String table : new String[]{getConfig(start).getUserMetadataTable(),
+                            getConfig(start).getSessionInfoTable(), getConfig(start).getEmailVerificationTable(),
+                            getConfig(start).getEmailVerificationTokensTable(), getConfig(start).getUserRolesTable(),
+                            getConfig(start).getTotpUsersTable()}) {
+                        deleteRowsByUserIds_Transaction(sqlCon, table, nonAuthRecipeUserIds);
+                    }
+                }
+
+                if (authRecipeUserIds.isEmpty()) {
+                    sqlCon.commit();
+                    return new ArrayList<String>();
+                }
+
+                // we always lock these in the same order, and before the passwordless devices table, like the
+                // single user deletes do.
+                for (RECIPE_ID recipeId : AUTH_RECIPE_IDS) {
+                    lockUsersCount_Transaction(sqlCon, recipeId);
+                }
+
+                Map<String, RECIPE_ID> deletedUsers;
+                {
+                    String QUERY = "SELECT user_id, recipe_id FROM " + getConfig(start).getUsersTable()
+                            + " WHERE user_id IN (" + Utils.generateCommaSeperatedQuestionMarks(
+                            authRecipeUserIds.size()) + ")";
+                    deletedUsers = execute(sqlCon, QUERY, pst -> setUserIds(pst, authRecipeUserIds), result -> {
+                        Map<String, RECIPE_ID> temp = new HashMap<>();
+                        while (result.next()) {
+                            temp.put(result.getString("user_id"),
+                                    RECIPE_ID.getEnumFromString(result.getString("recipe_id")));
+                        }
+                        return temp;
+                    });
+                }
+
+                {
+                    // This is done before the passwordless users are deleted, since their devices are found using
+                    // their email and phone number. We lock the whole table like the single user delete does.
+                    ((ConnectionWithLocks) sqlCon).lock(getConfig(start).getPasswordlessDevicesTable());
+                    String DEVICES_OF_USERS = "SELECT device_id_hash FROM " + getConfig(start)
+                            .getPasswordlessDevicesTable() + " AS devices WHERE EXISTS (SELECT 1 FROM " + getConfig(
+                            start).getPasswordlessUsersTable() + " AS users WHERE users.user_id IN ("
+                            + Utils.generateCommaSeperatedQuestionMarks(authRecipeUserIds.size())
+                            + ") AND (users.email = devices.email OR users.phone_number = devices.phone_number))";
+                    for (String table : new String[]{getConfig(start).getPasswordlessCodesTable(),
+                            getConfig(start).getPasswordlessDevicesTable()}) {
+                        String QUERY = "DELETE FROM " + table + " WHERE device_id_hash IN (" + DEVICES_OF_USERS + ")";
+                        update(sqlCon, QUERY, pst -> setUserIds(pst, authRecipeUserIds));
+                    }
+                }
+
+                // Since SQLite does not enforce foreign key constraints we have to manually delete the mappings and
+                // the recipe specific data of the users.
+                deleteRowsByUserIds_Transaction(sqlCon, getConfig(start).getUsersTable(), authRecipeUserIds);
+                {
+                    String QUERY = "DELETE FROM " + getConfig(start).getUserIdMappingTable()
+                            + " WHERE supertokens_user_id IN (" + Utils.generateCommaSeperatedQuestionMarks(
+                            authRecipeUserIds.size()) + ")";
+                    update(sqlCon, QUERY, pst -> setUserIds(pst, authRecipeUserIds));
+                }
+                for (String table : new String[]{getConfig(start).getEmailPasswordUsersTable(),
+                        getConfig(start).getPasswordResetTokensTable(), getConfig(start).getThirdPartyUsersTable(),
+                        getConfig(start).getPasswordlessUsersTable()}) {
+                    deleteRowsByUserIds_Transaction(sqlCon, table, authRecipeUserIds);
+                }
+
+                for (RECIPE_ID recipeId : AUTH_RECIPE_IDS) {
+                    long deletedCount = deletedUsers.values().stream().filter(recipeId::equals).count();
+                    updateUsersCount_Transaction(start, sqlCon, recipeId, -deletedCount);
+                }
+
+                sqlCon.commit();
+                return new ArrayList<>(deletedUsers.keySet());
+            } catch (SQLException e) {
+                throw new StorageTransactionLogicException(e);
+            }
+        });
+    }
+
+    private static void deleteRowsByUserIds_Transaction(Connection con, String table, List<String> userIds)
+            throws SQLException, StorageQueryException {
+        String QUERY = "DELETE FROM " + table + " WHERE user_id IN ("
+                + Utils.generateCommaSeperatedQuestionMarks(userIds.size()) + ")";
+        update(con, QUERY, pst -> setUserIds(pst, userIds));
+    }
+
+    private static void setUserIds(PreparedStatement pst, List<String> userIds) throws SQLException {
+        for (int i = 0; i < userIds.size(); i++) {
+            // i+1 cause this starts with 1 and not 0
+            pst.setString(i + 1, userIds.get(i));
+        }
+    }
+
+    public static List<? extends AuthRecipeUserInfo> getUserInfoForRecipeIdFromUserIds(Start start, RECIPE_ID recipeId,
+                                                                                       List<String> userIds)
             throws StorageQueryException, SQLException {
         if (recipeId == RECIPE_ID.EMAIL_PASSWORD) {
             return EmailPasswordQueries.getUsersInfoUsingIdList(start, userIds);
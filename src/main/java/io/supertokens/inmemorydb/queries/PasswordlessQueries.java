@@ -36,6 +36,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 
 import static io.supertokens.inmemorydb.QueryExecutorTemplate.execute;
@@ -80,6 +81,11 @@ public class PasswordlessQueries {
                 + Config.getConfig(start).getPasswordlessCodesTable() + "(created_at);";
     }
 
+    public static String getQueryToCreateCodeDeviceIdHashIndex(Start start) {
+        return "CREATE INDEX passwordless_codes_device_id_hash_index ON "
+                + Config.getConfig(start).getPasswordlessCodesTable() + "(device_id_hash);";
+    }
+
     public static void createDeviceWithCode(Start start, String email, String phoneNumber, String linkCodeSalt,
             PasswordlessCode code) throws StorageTransactionLogicException, StorageQueryException {
         start.startTransaction(con -> {
@@ -274,6 +280,8 @@ public class PasswordlessQueries {
         start.startTransaction(con -> {
             Connection sqlCon = (Connection) con.getConnection();
             try {
+                GeneralQueries.updateUsersCount_Transaction(start, sqlCon, PASSWORDLESS, 1);
+
                 {
                     String QUERY = "INSERT INTO " + getConfig(start).getUsersTable()
                             + "(user_id, recipe_id, time_joined)" + " VALUES(?, ?, ?)";
@@ -307,14 +315,17 @@ public class PasswordlessQueries {
         start.startTransaction(con -> {
             Connection sqlCon = (Connection) con.getConnection();
             try {
+                GeneralQueries.lockUsersCount_Transaction(sqlCon, PASSWORDLESS);
+
                 {
                     String QUERY = "DELETE FROM " + getConfig(start).getUsersTable()
                             + " WHERE user_id = ? AND recipe_id = ?";
 
-                    update(sqlCon, QUERY, pst -> {
+                    int deletedUsers = update(sqlCon, QUERY, pst -> {
                         pst.setString(1, userId);
                         pst.setString(2, PASSWORDLESS.toString());
                     });
+                    GeneralQueries.updateUsersCount_Transaction(start, sqlCon, PASSWORDLESS, -deletedUsers);
                 }
 
                 // Since SQLite does not enforce foreign key constraints we have to manually delete the mapping for the
@@ -423,6 +434,100 @@ public class PasswordlessQueries {
         });
     }
 
+    public static LinkedHashMap<PasswordlessDevice, PasswordlessCode[]> getDevicesWithCodesByEmail(Start start,
+            @Nonnull String email) throws StorageQueryException, SQLException {
+        return getDevicesWithCodes(start, "email", email);
+    }
+
+    public static LinkedHashMap<PasswordlessDevice, PasswordlessCode[]> getDevicesWithCodesByPhoneNumber(Start start,
+            @Nonnull String phoneNumber) throws StorageQueryException, SQLException {
+        return getDevicesWithCodes(start, "phone_number", phoneNumber);
+    }
+
+    public static LinkedHashMap<PasswordlessDevice, PasswordlessCode[]> getDeviceWithCodesByIdHash(Start start,
+            String deviceIdHash) throws StorageQueryException, SQLException {
+        return getDevicesWithCodes(start, "device_id_hash", deviceIdHash);
+    }
+
+    // Reads the matching devices along with all their codes in a single query, instead of one query for the devices
+    // and one more for the codes of each of them.
+    private static LinkedHashMap<PasswordlessDevice, PasswordlessCode[]> getDevicesWithCodes(Start start,
+            String deviceColumn, String value) throws StorageQueryException, SQLException {
+        String QUERY = "SELECT devices.device_id_hash, devices.email, devices.phone_number, devices.link_code_salt, "
+                + "devices.failed_attempts, codes.code_id, codes.link_code_hash, codes.created_at FROM "
+                + getConfig(start).getPasswordlessDevicesTable() + " AS devices LEFT JOIN "
+                + getConfig(start).getPasswordlessCodesTable()
+                + " AS codes ON devices.device_id_hash = codes.device_id_hash WHERE devices." + deviceColumn
+                + " = ? ORDER BY devices.device_id_hash";
+
+        return execute(start, QUERY, pst -> pst.setString(1, value), result -> {
+            LinkedHashMap<PasswordlessDevice, PasswordlessCode[]> devicesWithCodes = new LinkedHashMap<>();
+            PasswordlessDevice device = null;
+            List<PasswordlessCode> codes = new ArrayList<>();
+            while (result.next()) {
+                if (device == null || !device.deviceIdHash.equals(result.getString("device_id_hash"))) {
+                    if (device != null) {
+                        devicesWithCodes.put(device, codes.toArray(PasswordlessCode[]::new));
+                    }
+                    device = PasswordlessDeviceRowMapper.getInstance().mapOrThrow(result);
+                    codes = new ArrayList<>();
+                }
+                // devices without any code have a single row with null code columns
+                if (result.getString("code_id") != null) {
+                    codes.add(PasswordlessCodeRowMapper.getInstance().mapOrThrow(result));
+                }
+            }
+            if (device != null) {
+                devicesWithCodes.put(device, codes.toArray(PasswordlessCode[]::new));
+            }
+            return devicesWithCodes;
+        });
+    }
+
+    /**
+     * Deletes up to limit devices whose codes were all created before the given time, along with their codes.
+     * Devices without any code are left as they are, like they were when all expired codes were scanned.
+     *
+     * @return the number of devices that were deleted. If this is equal to limit, there may be more to delete.
+     */
+    public static int deleteDevicesWithAllCodesCreatedBefore(Start start, long time, int limit)
+            throws StorageQueryException, StorageTransactionLogicException {
+        return start.startTransaction(con -> {
+            Connection sqlCon = (Connection) con.getConnection();
+            try {
+                // We lock the whole table instead of the individual devices. This is not
+                // intended for production use.
+                ((ConnectionWithLocks) sqlCon).lock(getConfig(start).getPasswordlessDevicesTable());
+
+                String QUERY = "SELECT DISTINCT device_id_hash FROM " + getConfig(start).getPasswordlessCodesTable()
+                        + " AS codes WHERE created_at < ? AND NOT EXISTS (SELECT 1 FROM "
+                        + getConfig(start).getPasswordlessCodesTable()
+                        + " AS newer_codes WHERE newer_codes.device_id_hash = codes.device_id_hash"
+                        + " AND newer_codes.created_at >= ?) LIMIT ?";
+                List<String> deviceIdHashes = execute(sqlCon, QUERY, pst -> {
+                    pst.setLong(1, time);
+                    pst.setLong(2, time);
+                    pst.setInt(3, limit);
+                }, result -> {
+                    List<String> temp = new ArrayList<>();
+                    while (result.next()) {
+                        temp.add(result.getString("device_id_hash"));
+                    }
+                    return temp;
+                });
+
+                deleteRowsByDeviceIdHashList_Transaction(sqlCon, getConfig(start).getPasswordlessCodesTable(),
+                        deviceIdHashes);
+                deleteRowsByDeviceIdHashList_Transaction(sqlCon, getConfig(start).getPasswordlessDevicesTable(),
+                        deviceIdHashes);
+                sqlCon.commit();
+                return deviceIdHashes.size();
+            } catch (SQLException e) {
+                throw new StorageTransactionLogicException(e);
+            }
+        });
+    }
+
     public static PasswordlessCode[] getCodesOfDevice(Start start, String deviceIdHash)
             throws StorageQueryException, SQLException {
         try (Connection con = ConnectionPool.getConnection(start)) {
@@ -18,19 +18,23 @@ package io.supertokens.inmemorydb.queries;
 
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import io.supertokens.inmemorydb.ConnectionPool;
 import io.supertokens.inmemorydb.ConnectionWithLocks;
 import io.supertokens.inmemorydb.QueryExecutorTemplate;
 import io.supertokens.inmemorydb.Start;
+import io.supertokens.inmemorydb.Utils;
 import io.supertokens.inmemorydb.config.Config;
 import io.supertokens.pluginInterface.KeyValueInfo;
 import io.supertokens.pluginInterface.RowMapper;
 import io.supertokens.pluginInterface.exceptions.StorageQueryException;
+import io.supertokens.pluginInterface.exceptions.StorageTransactionLogicException;
 import io.supertokens.pluginInterface.session.SessionInfo;
 
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static io.supertokens.inmemorydb.PreparedStatementValueSetter.NO_OP_SETTER;
@@ -49,6 +53,11 @@ public class SessionQueries {
                 + "jwt_user_payload TEXT," + "use_static_key BOOLEAN NOT NULL," + "PRIMARY KEY(session_handle)" + " );";
     }
 
+    static String getQueryToCreateSessionExpiryIndex(Start start) {
+        return "CREATE INDEX session_expiry_index ON " + Config.getConfig(start).getSessionInfoTable()
+                + "(expires_at);";
+    }
+
     static String getQueryToCreateAccessTokenSigningKeysTable(Start start) {
         return "CREATE TABLE IF NOT EXISTS " + Config.getConfig(start).getAccessTokenSigningKeysTable() + " ("
                 + "created_at_time BIGINT UNSIGNED NOT NULL," + "value TEXT," + "PRIMARY KEY(created_at_time)" + " );";
@@ -103,6 +112,45 @@ public class SessionQueries {
         });
     }
 
+    /**
+     * Sets the refresh token hash and expiry of the session, only if its current refresh token hash is
+     * expectedRefreshTokenHash2 and, if onlyIfNotExpired is true, it has not expired. Returns the session as it is
+     * after the update, or null if no row was updated.
+     */
+    public static SessionInfo updateSessionInfoIfRefreshTokenMatches(Start start, String sessionHandle,
+            String expectedRefreshTokenHash2, String newRefreshTokenHash2, long expiry, boolean onlyIfNotExpired)
+            throws SQLException, StorageQueryException {
+        String QUERY = "UPDATE " + getConfig(start).getSessionInfoTable()
+                + " SET refresh_token_hash_2 = ?, expires_at = ?"
+                + " WHERE session_handle = ? AND refresh_token_hash_2 = ?"
+                + (onlyIfNotExpired ? " AND expires_at >= ?" : "");
+
+        try (Connection con = ConnectionPool.getConnection(start)) {
+            int numberOfRowsUpdated = update(con, QUERY, pst -> {
+                pst.setString(1, newRefreshTokenHash2);
+                pst.setLong(2, expiry);
+                pst.setString(3, sessionHandle);
+                pst.setString(4, expectedRefreshTokenHash2);
+                if (onlyIfNotExpired) {
+                    pst.setLong(5, currentTimeMillis());
+                }
+            });
+            if (numberOfRowsUpdated != 1) {
+                return null;
+            }
+
+            String SELECT_QUERY = "SELECT session_handle, user_id, refresh_token_hash_2, session_data, expires_at, "
+                    + "created_at_time, jwt_user_payload, use_static_key FROM "
+                    + getConfig(start).getSessionInfoTable() + " WHERE session_handle = ?";
+            return execute(con, SELECT_QUERY, pst -> pst.setString(1, sessionHandle), result -> {
+                if (result.next()) {
+                    return SessionInfoRowMapper.getInstance().mapOrThrow(result);
+                }
+                return null;
+            });
+        }
+    }
+
     public static int getNumberOfSessions(Start start) throws SQLException, StorageQueryException {
         String QUERY = "SELECT count(*) as num FROM " + getConfig(start).getSessionInfoTable();
 
@@ -135,6 +183,97 @@ public class SessionQueries {
         });
     }
 
+    public static String[] deleteSessionsAndGetDeletedHandles(Start start, String[] sessionHandles)
+            throws StorageQueryException, StorageTransactionLogicException {
+        if (sessionHandles.length == 0) {
+            return new String[0];
+        }
+        return start.startTransaction(con -> {
+            Connection sqlCon = (Connection) con.getConnection();
+            try {
+                // we lock in a fixed order so that two concurrent bulk revocations cannot deadlock each other
+                String[] sortedHandles = Arrays.stream(sessionHandles).distinct().sorted().toArray(String[]::new);
+                for (String sessionHandle : sortedHandles) {
+                    ((ConnectionWithLocks) sqlCon).lock(sessionHandle);
+                }
+
+                String[] existingHandles = getExistingSessionHandles(start, sqlCon, sortedHandles);
+                deleteSessionHandles(start, sqlCon, existingHandles);
+
+                sqlCon.commit();
+                return existingHandles;
+            } catch (SQLException throwables) {
+                throw new StorageTransactionLogicException(throwables);
+            }
+        });
+    }
+
+    public static String[] deleteNonExpiredSessionsOfUsers(Start start, String[] userIds)
+            throws StorageQueryException, StorageTransactionLogicException {
+        if (userIds.length == 0) {
+            return new String[0];
+        }
+        return start.startTransaction(con -> {
+            Connection sqlCon = (Connection) con.getConnection();
+            try {
+                String QUERY = "SELECT session_handle FROM " + getConfig(start).getSessionInfoTable()
+                        + " WHERE user_id IN (" + Utils.generateCommaSeperatedQuestionMarks(userIds.length)
+                        + ") AND expires_at >= ?";
+                String[] sessionHandles = execute(sqlCon, QUERY, pst -> {
+                    for (int i = 0; i < userIds.length; i++) {
+                        pst.setString(i + 1, userIds[i]);
+                    }
+                    pst.setLong(userIds.length + 1, currentTimeMillis());
+                }, result -> {
+                    List<String> temp = new ArrayList<>();
+                    while (result.next()) {
+                        temp.add(result.getString("session_handle"));
+                    }
+                    return temp.toArray(String[]::new);
+                });
+
+                deleteSessionHandles(start, sqlCon, sessionHandles);
+
+                sqlCon.commit();
+                return sessionHandles;
+            } catch (SQLException throwables) {
+                throw new StorageTransactionLogicException(throwables);
+            }
+        });
+    }
+
+    private static String[] getExistingSessionHandles(Start start, Connection con, String[] sessionHandles)
+            throws SQLException, StorageQueryException {
+        String QUERY = "SELECT session_handle FROM " + getConfig(start).getSessionInfoTable()
+                + " WHERE session_handle IN (" + Utils.generateCommaSeperatedQuestionMarks(sessionHandles.length)
+                + ")";
+        return execute(con, QUERY, pst -> {
+            for (int i = 0; i < sessionHandles.length; i++) {
+                pst.setString(i + 1, sessionHandles[i]);
+            }
+        }, result -> {
+            List<String> temp = new ArrayList<>();
+            while (result.next()) {
+                temp.add(result.getString("session_handle"));
+            }
+            return temp.toArray(String[]::new);
+        });
+    }
+
+    private static void deleteSessionHandles(Start start, Connection con, String[] sessionHandles)
+            throws SQLException, StorageQueryException {
+        if (sessionHandles.length == 0) {
+            return;
+        }
+        String QUERY = "DELETE FROM " + getConfig(start).getSessionInfoTable() + " WHERE session_handle IN ("
+                + Utils.generateCommaSeperatedQuestionMarks(sessionHandles.length) + ")";
+        update(con, QUERY, pst -> {
+            for (int i = 0; i < sessionHandles.length; i++) {
+                pst.setString(i + 1, sessionHandles[i]);
+            }
+        });
+    }
+
     public static void deleteSessionsOfUser(Start start, String userId) throws SQLException, StorageQueryException {
         String QUERY = "DELETE FROM " + getConfig(start).getSessionInfoTable() + " WHERE user_id = ?";
 
@@ -164,6 +303,17 @@ public class SessionQueries {
         update(start, QUERY, pst -> pst.setLong(1, currentTimeMillis()));
     }
 
+    public static int deleteExpiredSessions(Start start, long currentTime, int limit)
+            throws SQLException, StorageQueryException {
+        String QUERY = "DELETE FROM " + getConfig(start).getSessionInfoTable() + " WHERE rowid IN (SELECT rowid FROM "
+                + getConfig(start).getSessionInfoTable() + " WHERE expires_at <= ? LIMIT ?)";
+
+        return update(start, QUERY, pst -> {
+            pst.setLong(1, currentTime);
+            pst.setInt(2, limit);
+        });
+    }
+
     public static SessionInfo getSession(Start start, String sessionHandle) throws SQLException, StorageQueryException {
         String QUERY = "SELECT session_handle, user_id, refresh_token_hash_2, session_data, expires_at, "
                 + "created_at_time, jwt_user_payload, use_static_key FROM " + Config.getConfig(start).getSessionInfoTable()
@@ -209,6 +209,64 @@ public class TOTPQueries {
         });
     }
 
+    /**
+     * Query to get the latest numberOfRecentCodes used codes (expired/non-expired) of a user, along with all the valid
+     * used codes that have not expired yet, in descending order of creation time. This is all that is needed for rate
+     * limiting and for detecting replays, so unlike {@link #getAllUsedCodesDescOrder_Transaction}, the number of rows
+     * read does not depend on how many codes the user has tried before.
+     */
+    public static TOTPUsedCode[] getRecentAndValidUsedCodesDescOrder_Transaction(Start start, Connection con,
+            String userId, int numberOfRecentCodes, long now)
+            throws SQLException, StorageQueryException {
+        // Take the same lock as getAllUsedCodesDescOrder_Transaction:
+        ((ConnectionWithLocks) con).lock(userId + Config.getConfig(start).getTotpUsedCodesTable());
+
+        String QUERY = "SELECT * FROM " + Config.getConfig(start).getTotpUsedCodesTable()
+                + " WHERE user_id = ? AND (created_time_ms >= ("
+                + getQueryForOldestRecentCodeCreatedTime(start)
+                + ") OR (is_valid = ? AND expiry_time_ms > ?)) ORDER BY created_time_ms DESC";
+        return execute(con, QUERY, pst -> {
+            pst.setString(1, userId);
+            pst.setString(2, userId);
+            pst.setInt(3, numberOfRecentCodes);
+            pst.setBoolean(4, true);
+            pst.setLong(5, now);
+        }, result -> {
+            List<TOTPUsedCode> codes = new ArrayList<>();
+            while (result.next()) {
+                codes.add(TOTPUsedCodeRowMapper.getInstance().map(result));
+            }
+
+            return codes.toArray(TOTPUsedCode[]::new);
+        });
+    }
+
+    /**
+     * Deletes the expired used codes of a user that are older than the latest numberOfRecentCodes codes. These are
+     * never read by {@link #getRecentAndValidUsedCodesDescOrder_Transaction}, so keeping them would only let the
+     * table grow till the next run of the DeleteExpiredTotpTokens cronjob.
+     */
+    public static int removeOldUsedCodes_Transaction(Start start, Connection con, String userId,
+            int numberOfRecentCodes, long now)
+            throws SQLException, StorageQueryException {
+        String QUERY = "DELETE FROM " + Config.getConfig(start).getTotpUsedCodesTable()
+                + " WHERE user_id = ? AND expiry_time_ms < ? AND created_time_ms < ("
+                + getQueryForOldestRecentCodeCreatedTime(start) + ")";
+        return update(con, QUERY, pst -> {
+            pst.setString(1, userId);
+            pst.setLong(2, now);
+            pst.setString(3, userId);
+            pst.setInt(4, numberOfRecentCodes);
+        });
+    }
+
+    // takes the userId and the number of recent codes as parameters
+    private static String getQueryForOldestRecentCodeCreatedTime(Start start) {
+        return "SELECT MIN(created_time_ms) FROM (SELECT created_time_ms FROM "
+                + Config.getConfig(start).getTotpUsedCodesTable()
+                + " WHERE user_id = ? ORDER BY created_time_ms DESC LIMIT ?)";
+    }
+
     public static int removeExpiredCodes(Start start, long expiredBefore)
             throws StorageQueryException, SQLException {
         String QUERY = "DELETE FROM " + Config.getConfig(start).getTotpUsedCodesTable()
@@ -217,6 +275,18 @@ public class TOTPQueries {
         return update(start, QUERY, pst -> pst.setLong(1, expiredBefore));
     }
 
+    public static int removeExpiredCodes(Start start, long expiredBefore, int limit)
+            throws StorageQueryException, SQLException {
+        String QUERY = "DELETE FROM " + Config.getConfig(start).getTotpUsedCodesTable()
+                + " WHERE rowid IN (SELECT rowid FROM " + Config.getConfig(start).getTotpUsedCodesTable()
+                + " WHERE expiry_time_ms < ? LIMIT ?);";
+
+        return update(start, QUERY, pst -> {
+            pst.setLong(1, expiredBefore);
+            pst.setInt(2, limit);
+        });
+    }
+
     private static class TOTPDeviceRowMapper implements RowMapper<TOTPDevice, ResultSet> {
         private static final TOTPDeviceRowMapper INSTANCE = new TOTPDeviceRowMapper();
 
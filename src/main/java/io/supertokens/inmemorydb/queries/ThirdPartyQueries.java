@@ -54,49 +54,91 @@ public class ThirdPartyQueries {
         start.startTransaction(con -> {
             Connection sqlCon = (Connection) con.getConnection();
             try {
-                {
-                    String QUERY = "INSERT INTO " + getConfig(start).getUsersTable()
-                            + "(user_id, recipe_id, time_joined)" + " VALUES(?, ?, ?)";
-                    update(sqlCon, QUERY, pst -> {
-                        pst.setString(1, userInfo.id);
-                        pst.setString(2, THIRD_PARTY.toString());
-                        pst.setLong(3, userInfo.timeJoined);
-                    });
-                }
+                insertUser_Transaction(start, sqlCon, userInfo);
+                sqlCon.commit();
+            } catch (SQLException throwables) {
+                throw new StorageTransactionLogicException(throwables);
+            }
+            return null;
+        });
+    }
 
-                {
-                    String QUERY = "INSERT INTO " + getConfig(start).getThirdPartyUsersTable()
-                            + "(third_party_id, third_party_user_id, user_id, email, time_joined)"
-                            + " VALUES(?, ?, ?, ?, ?)";
-                    update(sqlCon, QUERY, pst -> {
-                        pst.setString(1, userInfo.thirdParty.id);
-                        pst.setString(2, userInfo.thirdParty.userId);
-                        pst.setString(3, userInfo.id);
-                        pst.setString(4, userInfo.email);
-                        pst.setLong(5, userInfo.timeJoined);
-                    });
+    /**
+     * Inserts newUser if there is no user with its third party info yet. Otherwise, the email of the existing user is
+     * set to the email of newUser. Either way, the user with that third party info is returned, so the user was
+     * created if the returned user has the id of newUser.
+     */
+    public static UserInfo signInUp(Start start, UserInfo newUser)
+            throws StorageQueryException, StorageTransactionLogicException {
+        return start.startTransaction(con -> {
+            Connection sqlCon = (Connection) con.getConnection();
+            try {
+                UserInfo existingUser = getUserInfoUsingId_Transaction(start, sqlCon, newUser.thirdParty.id,
+                        newUser.thirdParty.userId);
+
+                if (existingUser == null) {
+                    insertUser_Transaction(start, sqlCon, newUser);
+                    sqlCon.commit();
+                    return newUser;
                 }
 
+                if (!newUser.email.equals(existingUser.email)) {
+                    updateUserEmail_Transaction(start, sqlCon, newUser.thirdParty.id, newUser.thirdParty.userId,
+                            newUser.email);
+                    existingUser = new UserInfo(existingUser.id, newUser.email,
+                            new UserInfo.ThirdParty(existingUser.thirdParty.id, existingUser.thirdParty.userId),
+                            existingUser.timeJoined);
+                }
                 sqlCon.commit();
+                return existingUser;
             } catch (SQLException throwables) {
                 throw new StorageTransactionLogicException(throwables);
             }
-            return null;
         });
     }
 
+    private static void insertUser_Transaction(Start start, Connection sqlCon, UserInfo userInfo)
+            throws SQLException, StorageQueryException {
+        GeneralQueries.updateUsersCount_Transaction(start, sqlCon, THIRD_PARTY, 1);
+
+        {
+            String QUERY = "INSERT INTO " + getConfig(start).getUsersTable() + "(user_id, recipe_id, time_joined)"
+                    + " VALUES(?, ?, ?)";
+            update(sqlCon, QUERY, pst -> {
+                pst.setString(1, userInfo.id);
+                pst.setString(2, THIRD_PARTY.toString());
+                pst.setLong(3, userInfo.timeJoined);
+            });
+        }
+
+        {
+            String QUERY = "INSERT INTO " + getConfig(start).getThirdPartyUsersTable()
+                    + "(third_party_id, third_party_user_id, user_id, email, time_joined)" + " VALUES(?, ?, ?, ?, ?)";
+            update(sqlCon, QUERY, pst -> {
+                pst.setString(1, userInfo.thirdParty.id);
+                pst.setString(2, userInfo.thirdParty.userId);
+                pst.setString(3, userInfo.id);
+                pst.setString(4, userInfo.email);
+                pst.setLong(5, userInfo.timeJoined);
+            });
+        }
+    }
+
     public static void deleteUser(Start start, String userId)
             throws StorageQueryException, StorageTransactionLogicException {
         start.startTransaction(con -> {
             Connection sqlCon = (Connection) con.getConnection();
             try {
+                GeneralQueries.lockUsersCount_Transaction(sqlCon, THIRD_PARTY);
+
                 {
                     String QUERY = "DELETE FROM " + getConfig(start).getUsersTable()
                             + " WHERE user_id = ? AND recipe_id = ?";
-                    update(sqlCon, QUERY, pst -> {
+                    int deletedUsers = update(sqlCon, QUERY, pst -> {
                         pst.setString(1, userId);
                         pst.setString(2, THIRD_PARTY.toString());
                     });
+                    GeneralQueries.updateUsersCount_Transaction(start, sqlCon, THIRD_PARTY, -deletedUsers);
                 }
                 // Since SQLite does not enforce foreign key constraints we have to manually delete the mapping for the
                 // user.
@@ -17,6 +17,7 @@
 package io.supertokens.inmemorydb.queries;
 
 import io.supertokens.inmemorydb.Start;
+import io.supertokens.inmemorydb.Utils;
 import io.supertokens.inmemorydb.config.Config;
 import io.supertokens.pluginInterface.RowMapper;
 import io.supertokens.pluginInterface.exceptions.StorageQueryException;
@@ -27,6 +28,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 
 import static io.supertokens.inmemorydb.QueryExecutorTemplate.execute;
 import static io.supertokens.inmemorydb.QueryExecutorTemplate.update;
@@ -179,6 +181,30 @@ public class UserIdMappingQueries {
         });
     }
 
+    public static List<UserIdMapping> getUserIdMappingsInvolvingUserIds(Start start, List<String> userIds)
+            throws SQLException, StorageQueryException {
+        if (userIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String questionMarks = Utils.generateCommaSeperatedQuestionMarks(userIds.size());
+        String QUERY = "SELECT * FROM " + Config.getConfig(start).getUserIdMappingTable()
+                + " WHERE supertokens_user_id IN (" + questionMarks + ") OR external_user_id IN (" + questionMarks
+                + ")";
+
+        return execute(start, QUERY, pst -> {
+            for (int i = 0; i < userIds.size(); i++) {
+                pst.setString(i + 1, userIds.get(i));
+                pst.setString(userIds.size() + i + 1, userIds.get(i));
+            }
+        }, result -> {
+            List<UserIdMapping> userIdMappings = new ArrayList<>();
+            while (result.next()) {
+                userIdMappings.add(UserIdMappingRowMapper.getInstance().mapOrThrow(result));
+            }
+            return userIdMappings;
+        });
+    }
+
     private static class UserIdMappingRowMapper implements RowMapper<UserIdMapping, ResultSet> {
         private static final UserIdMappingRowMapper INSTANCE = new UserIdMappingRowMapper();
 
@@ -27,6 +27,7 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
 
 import static io.supertokens.inmemorydb.QueryExecutorTemplate.execute;
 import static io.supertokens.inmemorydb.QueryExecutorTemplate.update;
@@ -187,6 +188,28 @@ public class UserRoleQueries {
         });
     }
 
+    public static HashMap<String, String[]> getPermissionsForAllRoles(Start start)
+            throws SQLException, StorageQueryException {
+        String QUERY = "SELECT r.role, p.permission FROM " + getConfig(start).getRolesTable() + " AS r LEFT JOIN "
+                + getConfig(start).getUserRolesPermissionsTable() + " AS p ON r.role = p.role";
+
+        return execute(start, QUERY, PreparedStatementValueSetter.NO_OP_SETTER, result -> {
+            HashMap<String, ArrayList<String>> permissionsForRole = new HashMap<>();
+            while (result.next()) {
+                ArrayList<String> permissions = permissionsForRole.computeIfAbsent(result.getString("role"),
+                        k -> new ArrayList<>());
+                // null for roles that have no permissions
+                String permission = result.getString("permission");
+                if (permission != null) {
+                    permissions.add(permission);
+                }
+            }
+            HashMap<String, String[]> response = new HashMap<>();
+            permissionsForRole.forEach((role, permissions) -> response.put(role, permissions.toArray(String[]::new)));
+            return response;
+        });
+    }
+
     public static boolean doesRoleExist(Start start, String role) throws SQLException, StorageQueryException {
         String QUERY = "SELECT 1 FROM " + getConfig(start).getRolesTable() + " WHERE role = ?";
 
@@ -22,12 +22,14 @@ import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Stream;
 
 import javax.annotation.Nullable;
 
 import io.supertokens.Main;
+import io.supertokens.authRecipe.UserSearchIndex;
 import io.supertokens.config.Config;
 import io.supertokens.passwordless.exceptions.DeviceIdHashMismatchException;
 import io.supertokens.passwordless.exceptions.Base64EncodingException;
@@ -50,6 +52,7 @@ import io.supertokens.pluginInterface.passwordless.exception.DuplicatePhoneNumbe
 import io.supertokens.pluginInterface.passwordless.exception.UnknownDeviceIdHash;
 import io.supertokens.pluginInterface.passwordless.sqlStorage.PasswordlessSQLStorage;
 import io.supertokens.storageLayer.StorageLayer;
+import io.supertokens.storageLayer.TransactionCallSite;
 import io.supertokens.utils.Utils;
 
 public class Passwordless {
@@ -124,41 +127,32 @@ public class Passwordless {
             throws StorageQueryException, StorageTransactionLogicException {
         PasswordlessSQLStorage passwordlessStorage = StorageLayer.getPasswordlessStorage(main);
 
-        PasswordlessDevice device = passwordlessStorage.getDevice(deviceIdHash);
-
-        if (device == null) {
+        List<DeviceWithCodes> result = toDevicesWithCodes(passwordlessStorage.getDeviceWithCodesByIdHash(deviceIdHash));
+        if (result.isEmpty()) {
             return null;
         }
-        PasswordlessCode[] codes = passwordlessStorage.getCodesOfDevice(deviceIdHash);
-
-        return new DeviceWithCodes(device, codes);
+        return result.get(0);
     }
 
     public static List<DeviceWithCodes> getDevicesWithCodesByEmail(Main main, String email)
             throws StorageQueryException, StorageTransactionLogicException {
         PasswordlessSQLStorage passwordlessStorage = StorageLayer.getPasswordlessStorage(main);
 
-        PasswordlessDevice[] devices = passwordlessStorage.getDevicesByEmail(email);
-        ArrayList<DeviceWithCodes> result = new ArrayList<DeviceWithCodes>();
-        for (PasswordlessDevice device : devices) {
-            PasswordlessCode[] codes = passwordlessStorage.getCodesOfDevice(device.deviceIdHash);
-            result.add(new DeviceWithCodes(device, codes));
-        }
-
-        return result;
+        return toDevicesWithCodes(passwordlessStorage.getDevicesWithCodesByEmail(email));
     }
 
     public static List<DeviceWithCodes> getDevicesWithCodesByPhoneNumber(Main main, String phoneNumber)
             throws StorageQueryException, StorageTransactionLogicException {
         PasswordlessSQLStorage passwordlessStorage = StorageLayer.getPasswordlessStorage(main);
 
-        PasswordlessDevice[] devices = passwordlessStorage.getDevicesByPhoneNumber(phoneNumber);
+        return toDevicesWithCodes(passwordlessStorage.getDevicesWithCodesByPhoneNumber(phoneNumber));
+    }
+
+    private static List<DeviceWithCodes> toDevicesWithCodes(Map<PasswordlessDevice, PasswordlessCode[]> devices) {
         ArrayList<DeviceWithCodes> result = new ArrayList<DeviceWithCodes>();
-        for (PasswordlessDevice device : devices) {
-            PasswordlessCode[] codes = passwordlessStorage.getCodesOfDevice(device.deviceIdHash);
-            result.add(new DeviceWithCodes(device, codes));
+        for (Map.Entry<PasswordlessDevice, PasswordlessCode[]> device : devices.entrySet()) {
+            result.add(new DeviceWithCodes(device.getKey(), device.getValue()));
         }
-
         return result;
     }
 
@@ -200,7 +194,7 @@ public class Passwordless {
 
         PasswordlessDevice consumedDevice;
         try {
-            consumedDevice = passwordlessStorage.startTransaction(con -> {
+            consumedDevice = TransactionCallSite.startTransaction(passwordlessStorage, "passwordless.consumeCode", con -> {
                 PasswordlessDevice device = passwordlessStorage.getDevice_Transaction(con, deviceIdHash.encode());
                 if (device == null) {
                     throw new StorageTransactionLogicException(new RestartFlowException());
@@ -272,6 +266,7 @@ public class Passwordless {
                     long timeJoined = System.currentTimeMillis();
                     user = new UserInfo(userId, consumedDevice.email, consumedDevice.phoneNumber, timeJoined);
                     passwordlessStorage.createUser(user);
+                    UserSearchIndex.getInstance(main).addUser(user);
                     return new ConsumeCodeResponse(true, user);
                 } catch (DuplicateEmailException | DuplicatePhoneNumberException e) {
                     // Getting these would mean that between getting the user and trying creating it:
@@ -308,7 +303,7 @@ public class Passwordless {
             return;
         }
 
-        passwordlessStorage.startTransaction(con -> {
+        TransactionCallSite.startTransaction(passwordlessStorage, "passwordless.removeCode", con -> {
             // Locking the device
             passwordlessStorage.getDevice_Transaction(con, code.deviceIdHash);
 
@@ -334,7 +329,7 @@ public class Passwordless {
             throws StorageQueryException, StorageTransactionLogicException {
         PasswordlessSQLStorage passwordlessStorage = StorageLayer.getPasswordlessStorage(main);
 
-        passwordlessStorage.startTransaction(con -> {
+        TransactionCallSite.startTransaction(passwordlessStorage, "passwordless.removeCodesByEmail", con -> {
             passwordlessStorage.deleteDevicesByEmail_Transaction(con, email);
             passwordlessStorage.commitTransaction(con);
             return null;
@@ -345,7 +340,7 @@ public class Passwordless {
             throws StorageQueryException, StorageTransactionLogicException {
         PasswordlessSQLStorage passwordlessStorage = StorageLayer.getPasswordlessStorage(main);
 
-        passwordlessStorage.startTransaction(con -> {
+        TransactionCallSite.startTransaction(passwordlessStorage, "passwordless.removeCodesByPhoneNumber", con -> {
             passwordlessStorage.deleteDevicesByPhoneNumber_Transaction(con, phoneNumber);
             passwordlessStorage.commitTransaction(con);
             return null;
@@ -382,7 +377,7 @@ public class Passwordless {
             throw new UserWithoutContactInfoException();
         }
         try {
-            storage.startTransaction(con -> {
+            TransactionCallSite.startTransaction(storage, "passwordless.updateUser", con -> {
                 if (emailUpdate != null && !Objects.equals(emailUpdate.newValue, user.email)) {
                     try {
                         storage.updateUserEmail_Transaction(con, userId, emailUpdate.newValue);
@@ -412,6 +407,12 @@ public class Passwordless {
                 storage.commitTransaction(con);
                 return null;
             });
+            if (emailUpdate != null) {
+                UserSearchIndex.getInstance(main).updateEmail(userId, emailUpdate.newValue);
+            }
+            if (phoneNumberUpdate != null) {
+                UserSearchIndex.getInstance(main).updatePhoneNumber(userId, phoneNumberUpdate.newValue);
+            }
         } catch (StorageTransactionLogicException e) {
             if (e.actualException instanceof UnknownUserIdException) {
                 throw (UnknownUserIdException) e.actualException;
@@ -38,6 +38,7 @@ import io.supertokens.session.info.TokenInfo;
 import io.supertokens.session.jwt.JWT;
 import io.supertokens.session.refreshToken.RefreshToken;
 import io.supertokens.storageLayer.StorageLayer;
+import io.supertokens.storageLayer.TransactionCallSite;
 import io.supertokens.utils.Utils;
 import org.jetbrains.annotations.TestOnly;
 
@@ -217,68 +218,53 @@ public class Session {
         if (StorageLayer.getSessionStorage(main).getType() == STORAGE_TYPE.SQL) {
             SessionSQLStorage storage = (SessionSQLStorage) StorageLayer.getSessionStorage(main);
             try {
-                return storage.startTransaction(con -> {
-                    try {
-
-                        io.supertokens.pluginInterface.session.SessionInfo sessionInfo = storage
-                                .getSessionInfo_Transaction(con, accessToken.sessionHandle);
-
-                        if (sessionInfo == null) {
-                            storage.commitTransaction(con);
-                            throw new UnauthorisedException("Session missing in db");
-                        }
-
-                        boolean promote = accessToken.parentRefreshTokenHash1 != null && sessionInfo.refreshTokenHash2
-                                .equals(Utils.hashSHA256(accessToken.parentRefreshTokenHash1));
-                        if (promote
-                                || sessionInfo.refreshTokenHash2.equals(Utils.hashSHA256(accessToken.refreshTokenHash1))
-                                || JWTPayloadNeedsUpdating) {
-                            if (promote) {
-                                storage.updateSessionInfo_Transaction(con, accessToken.sessionHandle,
-                                        Utils.hashSHA256(accessToken.refreshTokenHash1),
-                                        System.currentTimeMillis() + Config.getConfig(main).getRefreshTokenValidity());
-                            }
-                            storage.commitTransaction(con);
-
-                            TokenInfo newAccessToken;
-                            if (AccessToken.getAccessTokenVersion(accessToken) == AccessToken.VERSION.V1) {
-                                newAccessToken = AccessToken.createNewAccessTokenV1(main, accessToken.sessionHandle,
-                                        accessToken.userId, accessToken.refreshTokenHash1, null,
-                                        sessionInfo.userDataInJWT, accessToken.antiCsrfToken);
-                            } else {
-                                newAccessToken = AccessToken.createNewAccessToken(main, accessToken.sessionHandle,
-                                        accessToken.userId, accessToken.refreshTokenHash1, null,
-                                        sessionInfo.userDataInJWT, accessToken.antiCsrfToken, null, accessToken.version, sessionInfo.useStaticKey);
-                            }
+                // if the refresh token in the db is the parent of this access token's refresh token, we promote the
+                // latter with one conditional update. Like before, the access token being valid is enough for this,
+                // even if the session itself has expired. If nothing was updated, we read the session to see if
+                // someone else promoted it before us.
+                io.supertokens.pluginInterface.session.SessionInfo sessionInfo = null;
+                if (accessToken.parentRefreshTokenHash1 != null) {
+                    sessionInfo = storage.updateSessionInfoIfRefreshTokenMatches(accessToken.sessionHandle,
+                            Utils.hashSHA256(accessToken.parentRefreshTokenHash1),
+                            Utils.hashSHA256(accessToken.refreshTokenHash1),
+                            System.currentTimeMillis() + Config.getConfig(main).getRefreshTokenValidity(), false);
+                }
+                boolean promoted = sessionInfo != null;
+                if (!promoted) {
+                    sessionInfo = storage.getSession(accessToken.sessionHandle);
+                }
 
-                            return new SessionInformationHolder(
-                                    new SessionInfo(accessToken.sessionHandle, accessToken.userId,
-                                            sessionInfo.userDataInJWT),
-                                    new TokenInfo(newAccessToken.token, newAccessToken.expiry,
-                                            newAccessToken.createdTime),
-                                    null, null, null);
-                        }
+                if (sessionInfo == null) {
+                    throw new UnauthorisedException("Session missing in db");
+                }
 
-                        storage.commitTransaction(con);
-                        return new SessionInformationHolder(
-                                new SessionInfo(accessToken.sessionHandle, accessToken.userId, accessToken.userData),
-                                // here we purposely use accessToken.userData instead of sessionInfo.userDataInJWT
-                                // because we are not returning a new access token
-                                null, null, null, null);
-                    } catch (UnauthorisedException | NoSuchAlgorithmException | UnsupportedEncodingException |
-                             InvalidKeyException | InvalidKeySpecException | SignatureException |
-                             UnsupportedJWTSigningAlgorithmException | AccessTokenPayloadError e) {
-                        throw new StorageTransactionLogicException(e);
+                if (promoted || sessionInfo.refreshTokenHash2.equals(Utils.hashSHA256(accessToken.refreshTokenHash1))
+                        || JWTPayloadNeedsUpdating) {
+                    TokenInfo newAccessToken;
+                    if (AccessToken.getAccessTokenVersion(accessToken) == AccessToken.VERSION.V1) {
+                        newAccessToken = AccessToken.createNewAccessTokenV1(main, accessToken.sessionHandle,
+                                accessToken.userId, accessToken.refreshTokenHash1, null, sessionInfo.userDataInJWT,
+                                accessToken.antiCsrfToken);
+                    } else {
+                        newAccessToken = AccessToken.createNewAccessToken(main, accessToken.sessionHandle,
+                                accessToken.userId, accessToken.refreshTokenHash1, null, sessionInfo.userDataInJWT,
+                                accessToken.antiCsrfToken, null, accessToken.version, sessionInfo.useStaticKey);
                     }
-                });
-            } catch (StorageTransactionLogicException e) {
-                if (e.actualException instanceof UnauthorisedException) {
-                    throw (UnauthorisedException) e.actualException;
-                }
-                if (e.actualException instanceof AccessTokenPayloadError) {
-                    throw (AccessTokenPayloadError) e.actualException;
+
+                    return new SessionInformationHolder(
+                            new SessionInfo(accessToken.sessionHandle, accessToken.userId, sessionInfo.userDataInJWT),
+                            new TokenInfo(newAccessToken.token, newAccessToken.expiry, newAccessToken.createdTime),
+                            null, null, null);
                 }
-                throw e;
+
+                return new SessionInformationHolder(
+                        new SessionInfo(accessToken.sessionHandle, accessToken.userId, accessToken.userData),
+                        // here we purposely use accessToken.userData instead of sessionInfo.userDataInJWT
+                        // because we are not returning a new access token
+                        null, null, null, null);
+            } catch (NoSuchAlgorithmException | UnsupportedEncodingException | InvalidKeyException
+                     | InvalidKeySpecException | SignatureException e) {
+                throw new StorageTransactionLogicException(e);
             }
         } else if (StorageLayer.getSessionStorage(main).getType() == STORAGE_TYPE.NOSQL_1) {
             SessionNoSQLStorage_1 storage = (SessionNoSQLStorage_1) StorageLayer.getSessionStorage(main);
@@ -366,8 +352,16 @@ public class Session {
         //////////////////////////////////////////////////////////////////////////////////////////////
         if (StorageLayer.getSessionStorage(main).getType() == STORAGE_TYPE.SQL) {
             SessionSQLStorage storage = (SessionSQLStorage) StorageLayer.getSessionStorage(main);
+            SessionInformationHolder refreshedSession = refreshSessionWithoutTransaction(main, storage, refreshToken,
+                    refreshTokenInfo, enableAntiCsrf, accessTokenVersion);
+            if (refreshedSession != null) {
+                return refreshedSession;
+            }
+
+            // the refresh token is neither the one in the db, nor its child. We check again in a transaction, which
+            // detects token theft.
             try {
-                return storage.startTransaction(con -> {
+                return TransactionCallSite.startTransaction(storage, "session.refreshSession", con -> {
                     try {
                         String sessionHandle = refreshTokenInfo.sessionHandle;
                         io.supertokens.pluginInterface.session.SessionInfo sessionInfo = storage
@@ -503,34 +497,86 @@ public class Session {
         }
     }
 
-    public static String[] revokeSessionUsingSessionHandles(Main main, String[] sessionHandles)
-            throws StorageQueryException {
-        int numberOfSessionsRevoked = StorageLayer.getSessionStorage(main).deleteSession(sessionHandles);
-
-        // most of the time we will enter the below if statement
-        if (numberOfSessionsRevoked == sessionHandles.length) {
-            return sessionHandles;
-        }
-
-        String[] result = new String[numberOfSessionsRevoked];
-        int indexIntoResult = 0;
-        for (String sessionHandle : sessionHandles) {
-            if (indexIntoResult >= numberOfSessionsRevoked) {
-                break;
+    /**
+     * Refreshes the session if the refresh token is the one in the db, promoting it first with one conditional update
+     * if the one in the db is its parent. Returns null if neither is the case, or if the session is missing or has
+     * expired, so that the caller can decide what to do in a transaction.
+     */
+    @Nullable
+    private static SessionInformationHolder refreshSessionWithoutTransaction(Main main, SessionSQLStorage storage,
+            String refreshToken, RefreshToken.RefreshTokenInfo refreshTokenInfo, boolean enableAntiCsrf,
+            AccessToken.VERSION accessTokenVersion)
+            throws StorageQueryException, StorageTransactionLogicException, UnauthorisedException,
+            UnsupportedJWTSigningAlgorithmException, AccessTokenPayloadError {
+        try {
+            String sessionHandle = refreshTokenInfo.sessionHandle;
+            String refreshTokenHash2 = Utils.hashSHA256(Utils.hashSHA256(refreshToken));
+
+            String parentRefreshTokenHash2 = null;
+            if (refreshTokenInfo.parentRefreshTokenHash1 != null) {
+                parentRefreshTokenHash2 = Utils.hashSHA256(refreshTokenInfo.parentRefreshTokenHash1);
+            } else if (refreshTokenInfo.type == RefreshToken.TYPE.FREE) {
+                parentRefreshTokenHash2 = refreshTokenInfo.parentRefreshTokenHash2;
             }
 
-            if (StorageLayer.getSessionStorage(main).getSession(sessionHandle) == null) {
-                result[indexIntoResult] = sessionHandle;
-                indexIntoResult++;
+            io.supertokens.pluginInterface.session.SessionInfo sessionInfo = null;
+            if (parentRefreshTokenHash2 != null) {
+                // an expired session must not be extended by refreshing it. If a row was updated, the input refresh
+                // token was promoted, even if the session was changed again since then.
+                sessionInfo = storage.updateSessionInfoIfRefreshTokenMatches(sessionHandle, parentRefreshTokenHash2,
+                        refreshTokenHash2,
+                        System.currentTimeMillis() + Config.getConfig(main).getRefreshTokenValidity(), true);
+            }
+            if (sessionInfo == null) {
+                // nothing was promoted. This is still the common case if the input refresh token was promoted
+                // earlier (for example, by getSession), so we read the session before falling back to a transaction.
+                sessionInfo = storage.getSession(sessionHandle);
+                if (sessionInfo == null || sessionInfo.expiry < System.currentTimeMillis()
+                        || !sessionInfo.refreshTokenHash2.equals(refreshTokenHash2)) {
+                    return null;
+                }
             }
+
+            // at this point, the input refresh token is the parent one.
+            String antiCsrfToken = enableAntiCsrf ? UUID.randomUUID().toString() : null;
+            final TokenInfo newRefreshToken = RefreshToken.createNewRefreshToken(main, sessionHandle,
+                    sessionInfo.userId, Utils.hashSHA256(refreshToken), antiCsrfToken);
+
+            TokenInfo newAccessToken = AccessToken.createNewAccessToken(main, sessionHandle, sessionInfo.userId,
+                    Utils.hashSHA256(newRefreshToken.token), Utils.hashSHA256(refreshToken),
+                    sessionInfo.userDataInJWT, antiCsrfToken, null, accessTokenVersion, sessionInfo.useStaticKey);
+
+            TokenInfo idRefreshToken = new TokenInfo(UUID.randomUUID().toString(), newRefreshToken.expiry,
+                    newRefreshToken.createdTime);
+
+            return new SessionInformationHolder(
+                    new SessionInfo(sessionHandle, sessionInfo.userId, sessionInfo.userDataInJWT), newAccessToken,
+                    newRefreshToken, idRefreshToken, antiCsrfToken);
+        } catch (NoSuchAlgorithmException | InvalidKeyException | InvalidKeySpecException | SignatureException
+                 | NoSuchPaddingException | InvalidAlgorithmParameterException | IllegalBlockSizeException
+                 | BadPaddingException | UnsupportedEncodingException e) {
+            throw new StorageTransactionLogicException(e);
         }
+    }
 
-        return result;
+    public static String[] revokeSessionUsingSessionHandles(Main main, String[] sessionHandles)
+            throws StorageQueryException {
+        // the storage layer tells us which of the handles actually existed, so that we do not have to query for
+        // each of them again.
+        return StorageLayer.getSessionStorage(main).deleteSessionsAndGetDeletedHandles(sessionHandles);
     }
 
     public static String[] revokeAllSessionsForUser(Main main, String userId) throws StorageQueryException {
-        String[] sessionHandles = getAllNonExpiredSessionHandlesForUser(main, userId);
-        return revokeSessionUsingSessionHandles(main, sessionHandles);
+        return revokeAllSessionsForUsers(main, new String[]{userId});
+    }
+
+    /**
+     * Revokes all non expired sessions of each of the given users in one storage call.
+     * Used by:
+     * - /recipe/session/remove POST (with userIds)
+     */
+    public static String[] revokeAllSessionsForUsers(Main main, String[] userIds) throws StorageQueryException {
+        return StorageLayer.getSessionStorage(main).deleteNonExpiredSessionsOfUsers(userIds);
     }
 
     public static String[] getAllNonExpiredSessionHandlesForUser(Main main, String userId)
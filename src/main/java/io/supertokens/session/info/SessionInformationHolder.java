@@ -19,9 +19,9 @@ package io.supertokens.session.info;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 
+import io.supertokens.utils.SharedGson;
 import io.supertokens.utils.Utils;
 
 public class SessionInformationHolder {
@@ -51,7 +51,7 @@ public class SessionInformationHolder {
     }
 
     public JsonObject toJsonObject() {
-        JsonObject json = new Gson().toJsonTree(this).getAsJsonObject();
+        JsonObject json = SharedGson.DEFAULT.toJsonTree(this).getAsJsonObject();
         json.add("session", Utils.toJsonTreeWithNulls(session));
 
         return json;
@@ -16,13 +16,13 @@
 
 package io.supertokens.session.refreshToken;
 
-import com.google.gson.Gson;
 import io.supertokens.Main;
 import io.supertokens.config.Config;
 import io.supertokens.exceptions.UnauthorisedException;
 import io.supertokens.pluginInterface.exceptions.StorageQueryException;
 import io.supertokens.pluginInterface.exceptions.StorageTransactionLogicException;
 import io.supertokens.session.info.TokenInfo;
+import io.supertokens.utils.SharedGson;
 import io.supertokens.utils.Utils;
 
 import javax.annotation.Nonnull;
@@ -52,7 +52,7 @@ public class RefreshToken {
             }
             String nonce = splittedToken[1];
             String decrypted = Utils.decrypt(splittedToken[0], key);
-            RefreshTokenPayload tokenPayload = new Gson().fromJson(decrypted, RefreshTokenPayload.class);
+            RefreshTokenPayload tokenPayload = SharedGson.DEFAULT.fromJson(decrypted, RefreshTokenPayload.class);
             if (tokenPayload.userId == null || tokenPayload.sessionHandle == null
                     || !nonce.equals(tokenPayload.nonce)) {
                 throw new UnauthorisedException("Invalid refresh token");
@@ -74,7 +74,7 @@ public class RefreshToken {
         String nonce = Utils.hashSHA256(UUID.randomUUID().toString());
         RefreshTokenPayload payload = new RefreshTokenPayload(sessionHandle, userId, parentRefreshTokenHash1, nonce,
                 antiCsrfToken);
-        String payloadSerialised = new Gson().toJson(payload);
+        String payloadSerialised = SharedGson.DEFAULT.toJson(payload);
         String encryptedPayload = Utils.encrypt(payloadSerialised, key);
         String token = encryptedPayload + "." + nonce + "." + TYPE.FREE_OPTIMISED.toString();
         long now = System.currentTimeMillis();
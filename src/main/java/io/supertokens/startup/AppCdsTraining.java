@@ -0,0 +1,135 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.startup;
+
+import com.google.gson.JsonObject;
+import io.supertokens.Main;
+import io.supertokens.httpRequest.HttpRequest;
+import io.supertokens.httpRequest.HttpResponseException;
+import io.supertokens.output.Logging;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Starts the core with the in memory db, calls the most used APIs and stops it again. This is run with
+ * -XX:ArchiveClassesAtExit to create an AppCDS archive of all the classes that are loaded while doing so, which later
+ * starts of the core can use instead of loading and verifying those classes from the jars again.
+ * <p>
+ * The archive only works with the JVM and the classpath it was created with, which is why the CLI creates it while
+ * installing (see io.supertokens.cli.AppCdsArchive), with the java of the installation and the installed jars.
+ * <p>
+ * Usage: java -XX:ArchiveClassesAtExit=core.jsa -classpath ... io.supertokens.startup.AppCdsTraining
+ * [installation path]
+ */
+public class AppCdsTraining {
+
+    private static final long START_TIMEOUT_MS = 60 * 1000;
+    private static final int ITERATIONS = 20;
+
+    public static void main(String[] args) throws Exception {
+        String installationPath = args.length > 0 ? args[0] : "./";
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        String[] coreArgs = { installationPath, "host=localhost", "port=" + port, "forceInMemDB=true" };
+
+        // Main must be created on the thread that runs it, since it treats that as its main thread
+        AtomicReference<Main> main = new AtomicReference<>();
+        Thread coreThread = new Thread(() -> {
+            Main core = new Main();
+            main.set(core);
+            core.start(coreArgs);
+        }, "appcds-training-core");
+        coreThread.start();
+
+        String baseUrl = "http://localhost:" + port;
+        waitForCore(coreThread, main, baseUrl);
+        try {
+            for (int i = 0; i < ITERATIONS; i++) {
+                exerciseApis(main.get(), baseUrl, i);
+            }
+        } finally {
+            main.get().wakeUpMainThreadToShutdown();
+            coreThread.join();
+        }
+        // exits explicitly so that cronjob and JDK threads that are still winding down do not keep the JVM alive. The
+        // archive is written on exit.
+        System.exit(0);
+    }
+
+    private static void waitForCore(Thread coreThread, AtomicReference<Main> main, String baseUrl)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + START_TIMEOUT_MS;
+        while (System.currentTimeMillis() < deadline) {
+            if (!coreThread.isAlive()) {
+                throw new IllegalStateException("The core stopped before it finished starting");
+            }
+            Main core = main.get();
+            if (core != null) {
+                try {
+                    HttpRequest.sendGETRequest(core, "", baseUrl + "/hello", null, 1000, 1000, null);
+                    return;
+                } catch (Exception ignored) {
+                    // not listening yet
+                }
+            }
+            Thread.sleep(50);
+        }
+        throw new IllegalStateException("The core did not start within " + START_TIMEOUT_MS + "ms");
+    }
+
+    // Goes through the session and email password APIs. Failures are ignored, since the classes involved have been
+    // loaded either way.
+    private static void exerciseApis(Main main, String baseUrl, int iteration) {
+        try {
+            HttpRequest.sendGETRequest(main, "", baseUrl + "/apiversion", null, 1000, 5000, null);
+
+            JsonObject signUp = new JsonObject();
+            signUp.addProperty("email", "appcds-training-" + iteration + "@example.com");
+            signUp.addProperty("password", "appcds-training-password-" + iteration);
+            HttpRequest.sendJsonPOSTRequest(main, "", baseUrl + "/recipe/signup", signUp, 1000, 5000, null);
+
+            JsonObject createSession = new JsonObject();
+            createSession.addProperty("userId", "appcds-training-user-" + iteration);
+            createSession.add("userDataInJWT", new JsonObject());
+            createSession.add("userDataInDatabase", new JsonObject());
+            createSession.addProperty("enableAntiCsrf", false);
+            JsonObject session = HttpRequest.sendJsonPOSTRequest(main, "", baseUrl + "/recipe/session",
+                    createSession, 1000, 5000, null);
+
+            JsonObject verify = new JsonObject();
+            verify.addProperty("accessToken",
+                    session.get("accessToken").getAsJsonObject().get("token").getAsString());
+            verify.addProperty("doAntiCsrfCheck", false);
+            verify.addProperty("enableAntiCsrf", false);
+            verify.addProperty("checkDatabase", false);
+            HttpRequest.sendJsonPOSTRequest(main, "", baseUrl + "/recipe/session/verify", verify, 1000, 5000, null);
+
+            JsonObject refresh = new JsonObject();
+            refresh.addProperty("refreshToken",
+                    session.get("refreshToken").getAsJsonObject().get("token").getAsString());
+            refresh.addProperty("enableAntiCsrf", false);
+            HttpRequest.sendJsonPOSTRequest(main, "", baseUrl + "/recipe/session/refresh", refresh, 1000, 5000,
+                    null);
+        } catch (IOException | HttpResponseException | RuntimeException e) {
+            Logging.warn(main, "AppCDS training request failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.startup;
+
+import io.supertokens.Main;
+import io.supertokens.ResourceDistributor;
+import io.supertokens.output.Logging;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the phases of starting the core and records how long each of them took. Phases that only depend on the ones
+ * before them can be run one by one with {@link #runPhase}. The rest can be put in a {@link Graph}, which runs every
+ * phase as soon as the phases it depends on have finished, so independent phases (for example creating the signing
+ * keys, syncing the feature flags and starting Tomcat) run at the same time.
+ * <p>
+ * API calls that come in before the core has finished starting wait for it (see {@link #awaitCompletion}), since the
+ * webserver may be started before other phases are done.
+ */
+public class StartupPhases extends ResourceDistributor.SingletonResource {
+
+    private static final String RESOURCE_KEY = "io.supertokens.startup.StartupPhases";
+
+    private final Main main;
+    private final long startNanos = System.nanoTime();
+    private final List<PhaseTiming> timings = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch completed = new CountDownLatch(1);
+    private volatile long totalDurationMs = -1;
+
+    private StartupPhases(Main main) {
+        this.main = main;
+    }
+
+    public static StartupPhases getInstance(Main main) {
+        ResourceDistributor.SingletonResource instance = main.getResourceDistributor().getResource(RESOURCE_KEY);
+        if (instance == null) {
+            instance = main.getResourceDistributor().setResource(RESOURCE_KEY, new StartupPhases(main));
+        }
+        return (StartupPhases) instance;
+    }
+
+    /**
+     * Blocks until the core has finished starting (or failed to). Returns straight away if the startup is not being
+     * tracked for this process.
+     */
+    public static void awaitCompletion(Main main) throws InterruptedException {
+        StartupPhases instance = (StartupPhases) main.getResourceDistributor().getResource(RESOURCE_KEY);
+        if (instance != null) {
+            instance.completed.await();
+        }
+    }
+
+    public void runPhase(String name, Phase phase) throws Exception {
+        runTimed(name, phase);
+    }
+
+    public Graph newGraph(boolean serialiseStorageAccess) {
+        return new Graph(serialiseStorageAccess);
+    }
+
+    /**
+     * Marks the startup as done, logs how long each phase took, and lets waiting API calls through. Must be called
+     * even if the startup failed.
+     */
+    public void complete(boolean successful) {
+        if (completed.getCount() == 0) {
+            return;
+        }
+        totalDurationMs = (System.nanoTime() - startNanos) / 1_000_000;
+        completed.countDown();
+        if (successful) {
+            Logging.info(main, getReport(), false);
+        }
+    }
+
+    public long getTotalDurationMs() {
+        return totalDurationMs;
+    }
+
+    public List<PhaseTiming> getPhaseTimings() {
+        synchronized (timings) {
+            return new ArrayList<>(timings);
+        }
+    }
+
+    private String getReport() {
+        StringBuilder report = new StringBuilder("Startup took " + totalDurationMs + "ms:");
+        for (PhaseTiming timing : getPhaseTimings()) {
+            report.append("\n  ").append(timing.name).append(": ").append(timing.durationMs).append("ms (started at ")
+                    .append(timing.startOffsetMs).append("ms on ").append(timing.threadName).append(")");
+        }
+        return report.toString();
+    }
+
+    private void runTimed(String name, Phase phase) throws Exception {
+        long start = System.nanoTime();
+        try {
+            phase.run();
+        } finally {
+            long end = System.nanoTime();
+            timings.add(new PhaseTiming(name, Thread.currentThread().getName(), (start - startNanos) / 1_000_000,
+                    (end - start) / 1_000_000));
+        }
+    }
+
+    @FunctionalInterface
+    public interface Phase {
+        void run() throws Exception;
+    }
+
+    public static class PhaseTiming {
+        public final String name;
+        public final String threadName;
+        public final long startOffsetMs;
+        public final long durationMs;
+
+        PhaseTiming(String name, String threadName, long startOffsetMs, long durationMs) {
+            this.name = name;
+            this.threadName = threadName;
+            this.startOffsetMs = startOffsetMs;
+            this.durationMs = durationMs;
+        }
+    }
+
+    public class Graph {
+        private final List<PhaseDefinition> phases = new ArrayList<>();
+
+        // the in memory db may fail a query with SQLITE_LOCKED if another connection is writing to the same table, so
+        // there the phases that use the storage are run one at a time.
+        private final Object storageLock;
+
+        private Graph(boolean serialiseStorageAccess) {
+            this.storageLock = serialiseStorageAccess ? new Object() : null;
+        }
+
+        /**
+         * Adds a phase that runs on a startup thread once all the phases named in dependsOn have finished. Those must
+         * have been added before.
+         */
+        public Graph add(String name, boolean usesStorage, Phase phase, String... dependsOn) {
+            phases.add(new PhaseDefinition(name, usesStorage, false, phase, dependsOn));
+            return this;
+        }
+
+        /**
+         * Like {@link #add}, but the phase runs on the thread that calls {@link #run}. This is for things like the
+         * webserver, which must be started from the main thread.
+         */
+        public Graph addOnCallingThread(String name, boolean usesStorage, Phase phase, String... dependsOn) {
+            phases.add(new PhaseDefinition(name, usesStorage, true, phase, dependsOn));
+            return this;
+        }
+
+        /**
+         * Runs all the phases, and returns once they have all finished. If a phase fails, the phases that depend on it
+         * are not run, and its exception is thrown once the phases that do not depend on it have finished.
+         */
+        public void run() throws Exception {
+            // most phases wait on the database or the network, so there is a thread for each of them rather than
+            // for each CPU
+            AtomicInteger threadCount = new AtomicInteger(0);
+            ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, phases.size()), r -> {
+                Thread t = new Thread(r, "startup-" + main.getProcessId() + "-" + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+            try {
+                Map<String, CompletableFuture<Void>> futures = new HashMap<>();
+                List<PhaseDefinition> onCallingThread = new ArrayList<>();
+                for (PhaseDefinition phase : phases) {
+                    CompletableFuture<Void> dependencies = CompletableFuture.allOf(
+                            Arrays.stream(phase.dependsOn).map(dependency -> {
+                                CompletableFuture<Void> future = futures.get(dependency);
+                                if (future == null) {
+                                    throw new IllegalArgumentException(
+                                            "Startup phase " + phase.name + " depends on unknown phase " + dependency);
+                                }
+                                return future;
+                            }).toArray(CompletableFuture[]::new));
+                    if (phase.onCallingThread) {
+                        onCallingThread.add(phase);
+                        futures.put(phase.name, new CompletableFuture<>());
+                    } else {
+                        futures.put(phase.name, dependencies.thenRunAsync(() -> {
+                            try {
+                                runPhaseOfGraph(phase);
+                            } catch (Exception e) {
+                                throw new CompletionException(e);
+                            }
+                        }, executor));
+                    }
+                }
+
+                Exception failure = null;
+                for (PhaseDefinition phase : onCallingThread) {
+                    CompletableFuture<Void> future = futures.get(phase.name);
+                    try {
+                        for (String dependency : phase.dependsOn) {
+                            futures.get(dependency).join();
+                        }
+                        runPhaseOfGraph(phase);
+                        future.complete(null);
+                    } catch (Exception e) {
+                        future.completeExceptionally(e);
+                        if (failure == null) {
+                            failure = e;
+                        }
+                    }
+                }
+
+                for (PhaseDefinition phase : phases) {
+                    try {
+                        futures.get(phase.name).join();
+                    } catch (CompletionException e) {
+                        if (failure == null) {
+                            failure = e;
+                        }
+                    }
+                }
+                if (failure != null) {
+                    throw unwrap(failure);
+                }
+            } finally {
+                executor.shutdown();
+            }
+        }
+
+        private void runPhaseOfGraph(PhaseDefinition phase) throws Exception {
+            if (storageLock != null && phase.usesStorage) {
+                synchronized (storageLock) {
+                    runTimed(phase.name, phase.phase);
+                }
+            } else {
+                runTimed(phase.name, phase.phase);
+            }
+        }
+
+        private Exception unwrap(Exception e) {
+            Throwable cause = e;
+            while (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            return (Exception) cause;
+        }
+    }
+
+    private static class PhaseDefinition {
+        final String name;
+        final boolean usesStorage;
+        final boolean onCallingThread;
+        final Phase phase;
+        final String[] dependsOn;
+
+        PhaseDefinition(String name, boolean usesStorage, boolean onCallingThread, Phase phase, String[] dependsOn) {
+            this.name = name;
+            this.usesStorage = usesStorage;
+            this.onCallingThread = onCallingThread;
+            this.phase = phase;
+            this.dependsOn = dependsOn;
+        }
+    }
+}
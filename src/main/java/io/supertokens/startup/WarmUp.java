@@ -0,0 +1,87 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.startup;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.supertokens.Main;
+import io.supertokens.config.Config;
+import io.supertokens.output.Logging;
+import io.supertokens.session.Session;
+import io.supertokens.session.accessToken.AccessToken;
+import io.supertokens.session.info.SessionInformationHolder;
+
+/**
+ * Runs the code paths that most requests go through (creating, verifying and refreshing sessions, and parsing and
+ * writing JSON) a number of times before the core says that it is ready, so that the JIT has compiled them by the time
+ * the first real requests come in.
+ * <p>
+ * The sessions are created for user ids that no real user can have, and each of them is revoked straight away, so
+ * nothing is left behind. This is off unless warm_up_iterations is set.
+ */
+public class WarmUp {
+
+    private static final String USER_ID_PREFIX = "st-warm-up-";
+
+    private WarmUp() {
+    }
+
+    public static void run(Main main) {
+        int iterations = Config.getConfig(main).getWarmUpIterations();
+        if (iterations <= 0) {
+            return;
+        }
+        long deadline = System.currentTimeMillis() + Config.getConfig(main).getWarmUpMaxDurationMs();
+        String userIdPrefix = USER_ID_PREFIX + main.getProcessId() + "-";
+
+        int done = 0;
+        try {
+            while (done < iterations && System.currentTimeMillis() < deadline) {
+                runIteration(main, userIdPrefix + done);
+                done++;
+            }
+        } catch (Exception e) {
+            // the core works the same without the warm up, it is just slower at first
+            Logging.error(main, "Stopping the warm up after " + done + " iterations since it failed", false, e);
+            return;
+        }
+        Logging.info(main, "Finished warming up with " + done + " iterations", false);
+    }
+
+    private static void runIteration(Main main, String userId) throws Exception {
+        JsonObject userDataInJWT = new JsonObject();
+        userDataInJWT.addProperty("warmUp", true);
+        JsonObject userDataInDatabase = new JsonObject();
+        userDataInDatabase.addProperty("warmUp", true);
+
+        SessionInformationHolder session = Session.createNewSession(main, userId, userDataInJWT, userDataInDatabase,
+                false, true, false);
+        try {
+            // what the APIs do with their input and output
+            new JsonParser().parse(session.toJsonObject().toString());
+
+            AccessToken.getInfoFromAccessToken(main, session.accessToken.token, false);
+            Session.getSession(main, session.accessToken.token, null, false, false, true);
+
+            SessionInformationHolder refreshed = Session.refreshSession(main, session.refreshToken.token, null,
+                    false, true);
+            Session.getSession(main, refreshed.accessToken.token, null, false, false, false);
+        } finally {
+            Session.revokeSessionUsingSessionHandles(main, new String[] { session.session.handle });
+        }
+    }
+}
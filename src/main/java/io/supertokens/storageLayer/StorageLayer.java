@@ -96,7 +96,7 @@ public class StorageLayer extends ResourceDistributor.SingletonResource {
                 }
             }
 
-            if (storageLayerTemp != null && !main.isForceInMemoryDB()
+            if (storageLayerTemp != null && !main.isForceInMemoryDB() && !CLIOptions.get(main).isForceInMemoryDB()
                     && (storageLayerTemp.canBeUsed(configFilePath) || CLIOptions.get(main).isForceNoInMemoryDB())) {
                 this.storage = storageLayerTemp;
             } else {
@@ -0,0 +1,52 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.storageLayer;
+
+import io.supertokens.pluginInterface.exceptions.StorageQueryException;
+import io.supertokens.pluginInterface.exceptions.StorageTransactionLogicException;
+import io.supertokens.pluginInterface.sqlStorage.SQLStorage;
+
+/**
+ * Names the code that starts a transaction, so that the retries of the transaction are counted against it by
+ * {@link TransactionRetryPolicy}. The name is kept for the current thread while the transaction runs, since the
+ * storage interface does not take it as a parameter.
+ */
+public class TransactionCallSite {
+
+    public static final String UNLABELLED = "unlabelled";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private TransactionCallSite() {
+    }
+
+    public static String get() {
+        String callSite = CURRENT.get();
+        return callSite == null ? UNLABELLED : callSite;
+    }
+
+    public static <T> T startTransaction(SQLStorage storage, String callSite, SQLStorage.TransactionLogic<T> logic)
+            throws StorageQueryException, StorageTransactionLogicException {
+        String previous = CURRENT.get();
+        CURRENT.set(callSite);
+        try {
+            return storage.startTransaction(logic);
+        } finally {
+            CURRENT.set(previous);
+        }
+    }
+}
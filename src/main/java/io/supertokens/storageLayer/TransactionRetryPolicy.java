@@ -0,0 +1,196 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.storageLayer;
+
+import io.supertokens.Main;
+import io.supertokens.ResourceDistributor;
+import io.supertokens.ResourceDistributor.SingletonResource;
+import io.supertokens.config.Config;
+import io.supertokens.pluginInterface.exceptions.StorageTransactionLogicException;
+
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides whether a failed storage transaction is retried, and how long to wait before doing so. The wait grows
+ * exponentially with the number of failed attempts, and a random part of it is used (full jitter) so that
+ * transactions that collided do not collide again right away.
+ * <p>
+ * It also counts attempts, retries, aborts and the time spent waiting, per call site (see
+ * {@link TransactionCallSite}), so that the places with the most contention can be found.
+ */
+public class TransactionRetryPolicy extends ResourceDistributor.SingletonResource {
+
+    private static final String RESOURCE_KEY = "io.supertokens.storageLayer.TransactionRetryPolicy";
+
+    private static final long MAX_BACKOFF_MS = 1000;
+
+    // SQLSTATE of serialization failures and deadlocks
+    private static final String SERIALIZATION_FAILURE = "40001";
+    private static final String DEADLOCK_DETECTED = "40P01";
+    // SQLite result codes
+    private static final int SQLITE_BUSY = 5;
+    private static final int SQLITE_LOCKED = 6;
+
+    private final int maxAttempts;
+    private final long baseDelayMs;
+
+    private final Map<String, CallSiteStats> stats = new ConcurrentHashMap<>();
+
+    private TransactionRetryPolicy(int maxAttempts, long baseDelayMs) {
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMs = baseDelayMs;
+    }
+
+    public static TransactionRetryPolicy getInstance(Main main) {
+        SingletonResource instance = main.getResourceDistributor().getResource(RESOURCE_KEY);
+        if (instance == null) {
+            // storage may start transactions before the other resources are initialised, so we create this lazily
+            synchronized (TransactionRetryPolicy.class) {
+                instance = main.getResourceDistributor().getResource(RESOURCE_KEY);
+                if (instance == null) {
+                    instance = main.getResourceDistributor().setResource(RESOURCE_KEY,
+                            new TransactionRetryPolicy(Config.getConfig(main).getTransactionMaxAttempts(),
+                                    Config.getConfig(main).getTransactionRetryBaseDelayMs()));
+                }
+            }
+        }
+        return (TransactionRetryPolicy) instance;
+    }
+
+    /**
+     * Returns true if the transaction failed with e after the given number of attempts should be tried again.
+     */
+    public boolean shouldRetry(Exception e, int attempts) {
+        return attempts < maxAttempts && isRetryable(e);
+    }
+
+    /**
+     * Deadlocks, serialization failures and busy / locked databases are not necessarily the result of faulty logic,
+     * so the transaction may succeed if tried again. The exception may be wrapped in other exceptions.
+     */
+    public static boolean isRetryable(Throwable e) {
+        int depth = 0;
+        while (e != null && depth++ < 10) {
+            if (e instanceof SQLTransactionRollbackException) {
+                return true;
+            }
+            if (e instanceof SQLException) {
+                SQLException sqlException = (SQLException) e;
+                if (SERIALIZATION_FAILURE.equals(sqlException.getSQLState())
+                        || DEADLOCK_DETECTED.equals(sqlException.getSQLState())
+                        || sqlException.getErrorCode() == SQLITE_BUSY || sqlException.getErrorCode() == SQLITE_LOCKED) {
+                    return true;
+                }
+            }
+            if (e.getMessage() != null && e.getMessage().toLowerCase().contains("deadlock")) {
+                return true;
+            }
+
+            Throwable next = e instanceof StorageTransactionLogicException
+                    ? ((StorageTransactionLogicException) e).actualException
+                    : e.getCause();
+            e = next == e ? null : next;
+        }
+        return false;
+    }
+
+    /**
+     * Returns how long to wait before the next attempt, given the number of attempts that have failed so far.
+     */
+    public long getBackoffMs(int failedAttempts) {
+        if (baseDelayMs == 0) {
+            return 0;
+        }
+        long maxBackoff = MAX_BACKOFF_MS;
+        if (failedAttempts <= 10) {
+            maxBackoff = Math.min(MAX_BACKOFF_MS, baseDelayMs << (failedAttempts - 1));
+        }
+        return ThreadLocalRandom.current().nextLong(maxBackoff + 1);
+    }
+
+    /**
+     * Waits before retrying a transaction of the call site. Returns false if the thread was interrupted, in which case
+     * the transaction should not be retried.
+     */
+    public boolean backOff(String callSite, int failedAttempts) {
+        CallSiteStats callSiteStats = getStats(callSite);
+        callSiteStats.retries.increment();
+
+        long backoff = getBackoffMs(failedAttempts);
+        if (backoff == 0) {
+            return true;
+        }
+        long start = System.nanoTime();
+        try {
+            Thread.sleep(backoff);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            callSiteStats.waitTimeMs.add((System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    public void recordAttempt(String callSite) {
+        getStats(callSite).attempts.increment();
+    }
+
+    /**
+     * Called when a transaction of the call site failed with a retryable error, and will not be tried again.
+     */
+    public void recordAbort(String callSite) {
+        getStats(callSite).aborts.increment();
+    }
+
+    public Map<String, CallSiteStats> getCallSiteStats() {
+        return Collections.unmodifiableMap(stats);
+    }
+
+    private CallSiteStats getStats(String callSite) {
+        return stats.computeIfAbsent(callSite, k -> new CallSiteStats());
+    }
+
+    public static class CallSiteStats {
+        private final LongAdder attempts = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder aborts = new LongAdder();
+        private final LongAdder waitTimeMs = new LongAdder();
+
+        public long getAttempts() {
+            return attempts.sum();
+        }
+
+        public long getRetries() {
+            return retries.sum();
+        }
+
+        public long getAborts() {
+            return aborts.sum();
+        }
+
+        public long getWaitTimeMs() {
+            return waitTimeMs.sum();
+        }
+    }
+}
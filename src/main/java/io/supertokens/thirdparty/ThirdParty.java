@@ -18,6 +18,7 @@ package io.supertokens.thirdparty;
 
 import io.supertokens.Main;
 import io.supertokens.authRecipe.UserPaginationToken;
+import io.supertokens.authRecipe.UserSearchIndex;
 import io.supertokens.pluginInterface.exceptions.StorageQueryException;
 import io.supertokens.pluginInterface.exceptions.StorageTransactionLogicException;
 import io.supertokens.pluginInterface.thirdparty.UserInfo;
@@ -74,6 +75,34 @@ public class ThirdParty {
     private static SignInUpResponse signInUpHelper(Main main, String thirdPartyId, String thirdPartyUserId,
             String email) throws StorageQueryException {
         ThirdPartySQLStorage storage = StorageLayer.getThirdPartyStorage(main);
+        while (true) {
+            // the storage inserts the user, or updates the email of the existing user, in one operation. The user was
+            // created if the returned user is the one we passed in.
+            UserInfo newUser = new UserInfo(Utils.getUUID(), email,
+                    new UserInfo.ThirdParty(thirdPartyId, thirdPartyUserId), System.currentTimeMillis());
+            UserInfo user;
+            try {
+                user = storage.signInUp(newUser);
+            } catch (DuplicateUserIdException e) {
+                // we try again with another userId..
+                continue;
+            } catch (UnsupportedOperationException e) {
+                // storage plugins that were written before this operation existed
+                return signInUpUsingSeparateQueries(main, storage, thirdPartyId, thirdPartyUserId, email);
+            }
+
+            if (user.id.equals(newUser.id)) {
+                UserSearchIndex.getInstance(main).addUser(user);
+                return new SignInUpResponse(true, user);
+            }
+            // the email may have been updated
+            UserSearchIndex.getInstance(main).updateEmail(user.id, user.email);
+            return new SignInUpResponse(false, user);
+        }
+    }
+
+    private static SignInUpResponse signInUpUsingSeparateQueries(Main main, ThirdPartySQLStorage storage,
+            String thirdPartyId, String thirdPartyUserId, String email) throws StorageQueryException {
         while (true) {
             // loop for sign in + sign up
 
@@ -87,6 +116,7 @@ public class ThirdParty {
                             timeJoined);
 
                     storage.signUp(user);
+                    UserSearchIndex.getInstance(main).addUser(user);
 
                     return new SignInUpResponse(true, user);
                 } catch (DuplicateUserIdException e) {
@@ -123,6 +153,8 @@ public class ThirdParty {
             }
 
             if (response != null) {
+                // the email may have been updated above
+                UserSearchIndex.getInstance(main).updateEmail(response.user.id, response.user.email);
                 return response;
             }
 
@@ -1,20 +1,13 @@
 package io.supertokens.totp;
 
-import java.security.InvalidKeyException;
-import java.security.Key;
 import java.security.NoSuchAlgorithmException;
-import java.time.Duration;
-import java.time.Instant;
 import java.util.Arrays;
 
 import javax.crypto.KeyGenerator;
-import javax.crypto.spec.SecretKeySpec;
 
 import io.supertokens.Main;
 import io.supertokens.config.Config;
 
-import com.eatthepath.otp.TimeBasedOneTimePasswordGenerator;
-
 import io.supertokens.featureflag.EE_FEATURES;
 import io.supertokens.featureflag.FeatureFlag;
 import io.supertokens.featureflag.exceptions.FeatureNotEnabledException;
@@ -29,6 +22,7 @@ import io.supertokens.pluginInterface.totp.exception.UnknownDeviceException;
 import io.supertokens.pluginInterface.totp.exception.UsedCodeAlreadyExistsException;
 import io.supertokens.pluginInterface.totp.sqlStorage.TOTPSQLStorage;
 import io.supertokens.storageLayer.StorageLayer;
+import io.supertokens.storageLayer.TransactionCallSite;
 import io.supertokens.totp.exceptions.InvalidTotpException;
 import io.supertokens.totp.exceptions.LimitReachedException;
 import org.apache.commons.codec.binary.Base32;
@@ -47,31 +41,6 @@ public class Totp {
         return new Base32().encodeToString(keyGenerator.generateKey().getEncoded());
     }
 
-    private static boolean checkCode(TOTPDevice device, String code) {
-        final TimeBasedOneTimePasswordGenerator totp = new TimeBasedOneTimePasswordGenerator(
-                Duration.ofSeconds(device.period), 6);
-
-        byte[] keyBytes = new Base32().decode(device.secretKey);
-        Key key = new SecretKeySpec(keyBytes, "HmacSHA1");
-
-        final int period = device.period;
-        final int skew = device.skew;
-
-        // Check if code is valid for any of the time periods in the skew:
-        for (int i = -skew; i <= skew; i++) {
-            try {
-                if (totp.generateOneTimePasswordString(key, Instant.now().plusSeconds(i * period)).equals(code)) {
-                    return true;
-                }
-            } catch (InvalidKeyException e) {
-                // This should never happen because we are always using a valid secretKey.
-                return false;
-            }
-        }
-
-        return false;
-    }
-
     private static boolean isTotpEnabled(Main main) throws StorageQueryException {
         EE_FEATURES[] features = FeatureFlag.getInstance(main).getEnabledFeatures();
         for (EE_FEATURES f : features) {
@@ -135,19 +104,22 @@ public class Totp {
         // [0, 0, 0] and this contains 3 contagious invalid codes, so now the user will
         // be rate limited for no reason.
 
-        // That's why we need to fetch all the codes (expired + non-expired).
-        // TOTPUsedCode[] usedCodes =
+        // That's why we need to fetch the latest N codes (expired + non-expired), along
+        // with all the valid codes that have not expired yet (for detecting replays).
+        // Older expired codes are never needed, so they are deleted in the same
+        // transaction. This keeps the cost of each attempt independent of how many
+        // attempts were made before.
 
         TOTPSQLStorage totpSQLStorage = (TOTPSQLStorage) totpStorage;
 
         while (true) {
             try {
-                totpSQLStorage.startTransaction(con -> {
-                    TOTPUsedCode[] usedCodes = totpSQLStorage.getAllUsedCodesDescOrder_Transaction(con,
-                            userId);
-
+                TransactionCallSite.startTransaction(totpSQLStorage, "totp.checkAndStoreCode", con -> {
                     // N represents # of invalid attempts that will trigger rate limiting:
                     int N = Config.getConfig(main).getTotpMaxAttempts(); // (Default 5)
+                    TOTPUsedCode[] usedCodes = totpSQLStorage.getRecentAndValidUsedCodesDescOrder_Transaction(con,
+                            userId, N, System.currentTimeMillis());
+
                     // Count # of contiguous invalids in latest N attempts (stop at first valid):
                     long invalidOutOfN = Arrays.stream(usedCodes).limit(N).takeWhile(usedCode -> !usedCode.isValid)
                             .count();
@@ -172,16 +144,9 @@ public class Totp {
                     }
 
                     // Check if the code is valid for any device:
-                    boolean isValid = false;
-                    TOTPDevice matchingDevice = null;
-                    for (TOTPDevice device : devices) {
-                        // Check if the code is valid for this device:
-                        if (checkCode(device, code)) {
-                            isValid = true;
-                            matchingDevice = device;
-                            break;
-                        }
-                    }
+                    TOTPDevice matchingDevice = TotpEngine.getInstance(main).findMatchingDevice(devices, code,
+                            System.currentTimeMillis());
+                    boolean isValid = matchingDevice != null;
 
                     // Check if the code has been previously used by the user and it was valid (and
                     // is still valid). If so, this could be a replay attack. So reject it.
@@ -217,6 +182,7 @@ public class Totp {
                     TOTPUsedCode newCode = new TOTPUsedCode(userId, code, isValid, now + 1000 * expireInSec, now);
                     try {
                         totpSQLStorage.insertUsedCode_Transaction(con, newCode);
+                        totpSQLStorage.removeOldUsedCodes_Transaction(con, userId, N, now);
                         totpSQLStorage.commitTransaction(con);
                     } catch (UsedCodeAlreadyExistsException | TotpNotEnabledException e) {
                         throw new StorageTransactionLogicException(e);
@@ -336,9 +302,10 @@ public class Totp {
             throws StorageQueryException, UnknownDeviceException, TotpNotEnabledException,
             StorageTransactionLogicException {
         TOTPSQLStorage storage = StorageLayer.getTOTPStorage(main);
+        TotpEngine.getInstance(main).invalidateDevice(userId, deviceName);
 
         try {
-            storage.startTransaction(con -> {
+            TransactionCallSite.startTransaction(storage, "totp.removeDevice", con -> {
                 int deletedCount = storage.deleteDevice_Transaction(con, userId, deviceName);
                 if (deletedCount == 0) {
                     throw new StorageTransactionLogicException(new UnknownDeviceException());
@@ -377,6 +344,7 @@ public class Totp {
         TOTPSQLStorage totpStorage = StorageLayer.getTOTPStorage(main);
         try {
             totpStorage.updateDeviceName(userId, oldDeviceName, newDeviceName);
+            TotpEngine.getInstance(main).invalidateDevice(userId, oldDeviceName);
         } catch (UnknownDeviceException e) {
             // Check if any device exists for the user:
             TOTPDevice[] devices = totpStorage.getDevices(userId);
@@ -0,0 +1,156 @@
+package io.supertokens.totp;
+
+import io.supertokens.Main;
+import io.supertokens.ResourceDistributor;
+import io.supertokens.config.Config;
+import io.supertokens.pluginInterface.totp.TOTPDevice;
+import io.supertokens.utils.ExpiringLRUCache;
+import org.apache.commons.codec.binary.Base32;
+
+import javax.annotation.Nullable;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Checks TOTP codes (RFC 6238) against the devices of a user. The decoded secret of each device is cached per
+ * (userId, deviceName), the time step is derived once per check, and the HMACs are computed with a Mac instance that
+ * is reused by each thread.
+ * <p>
+ * A cached key is only used if the secret it was decoded from is the secret of the device that is being checked, so
+ * a device that was deleted and created again with the same name (possibly through another core instance) never uses
+ * an old key. Entries are still removed when devices change, so that the cache does not hold on to deleted secrets.
+ */
+public class TotpEngine extends ResourceDistributor.SingletonResource {
+
+    private static final String RESOURCE_KEY = "io.supertokens.totp.TotpEngine";
+
+    private static final String HMAC_ALGORITHM = "HmacSHA1";
+    private static final int CODE_LENGTH = 6;
+    private static final int CODE_MODULUS = 1_000_000;
+    private static final long KEY_CACHE_TTL = 60 * 60 * 1000L;
+
+    private static final ThreadLocal<Mac> MAC = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance(HMAC_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // every JVM has to support HmacSHA1
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final ExpiringLRUCache<DeviceKey> keys;
+
+    private TotpEngine(int maxSize) {
+        this.keys = new ExpiringLRUCache<>(maxSize, KEY_CACHE_TTL);
+    }
+
+    public static TotpEngine getInstance(Main main) {
+        return (TotpEngine) main.getResourceDistributor().getResource(RESOURCE_KEY);
+    }
+
+    public static void init(Main main) {
+        if (getInstance(main) != null) {
+            return;
+        }
+        main.getResourceDistributor().setResource(RESOURCE_KEY,
+                new TotpEngine(Config.getConfig(main).getTotpDeviceKeyCacheSize()));
+    }
+
+    /**
+     * Returns the first device for which the code is valid at the given time, allowing for the skew of each device,
+     * or null if there is none.
+     */
+    @Nullable
+    public TOTPDevice findMatchingDevice(TOTPDevice[] devices, String code, long timeInMs) {
+        byte[] codeBytes = code.getBytes(StandardCharsets.UTF_8);
+        if (codeBytes.length != CODE_LENGTH) {
+            return null;
+        }
+
+        Mac mac = MAC.get();
+        byte[] expectedCode = new byte[CODE_LENGTH];
+        byte[] counterBytes = new byte[8];
+        for (TOTPDevice device : devices) {
+            try {
+                mac.init(getKey(device));
+            } catch (InvalidKeyException e) {
+                // This should never happen because we are always using a valid secretKey.
+                continue;
+            }
+
+            long timeStep = Math.floorDiv(timeInMs, device.period * 1000L);
+            for (long counter = timeStep - device.skew; counter <= timeStep + device.skew; counter++) {
+                generateCode(mac, counter, counterBytes, expectedCode);
+                if (MessageDigest.isEqual(expectedCode, codeBytes)) {
+                    return device;
+                }
+            }
+        }
+        return null;
+    }
+
+    public void invalidateDevice(String userId, String deviceName) {
+        keys.invalidate(getKey(userId, deviceName));
+    }
+
+    public void invalidateUser(String userId) {
+        String prefix = userId.length() + ":" + userId;
+        keys.invalidateIf(key -> key.startsWith(prefix));
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    private SecretKeySpec getKey(TOTPDevice device) {
+        String cacheKey = getKey(device.userId, device.deviceName);
+        DeviceKey key = keys.getIfPresent(cacheKey);
+        if (key != null && key.secret.equals(device.secretKey)) {
+            return key.keySpec;
+        }
+
+        long modificationCount = keys.getModificationCount();
+        key = new DeviceKey(device.secretKey,
+                new SecretKeySpec(new Base32().decode(device.secretKey), HMAC_ALGORITHM));
+        keys.putIfNotModifiedSince(cacheKey, key, modificationCount);
+        return key.keySpec;
+    }
+
+    // HOTP (RFC 4226) of the counter, written as ASCII digits into code. Does the same as
+    // com.eatthepath.otp.TimeBasedOneTimePasswordGenerator, without creating any objects other than the HMAC.
+    private static void generateCode(Mac mac, long counter, byte[] counterBytes, byte[] code) {
+        for (int i = 7; i >= 0; i--) {
+            counterBytes[i] = (byte) counter;
+            counter >>>= 8;
+        }
+        byte[] hmac = mac.doFinal(counterBytes);
+
+        int offset = hmac[hmac.length - 1] & 0x0f;
+        int binary = ((hmac[offset] & 0x7f) << 24) | ((hmac[offset + 1] & 0xff) << 16)
+                | ((hmac[offset + 2] & 0xff) << 8) | (hmac[offset + 3] & 0xff);
+        int otp = binary % CODE_MODULUS;
+        for (int i = CODE_LENGTH - 1; i >= 0; i--) {
+            code[i] = (byte) ('0' + otp % 10);
+            otp /= 10;
+        }
+    }
+
+    // the length prefix makes sure that a userId ending with part of a device name cannot collide with another key
+    private static String getKey(String userId, String deviceName) {
+        return userId.length() + ":" + userId + deviceName;
+    }
+
+    private static class DeviceKey {
+        final String secret;
+        final SecretKeySpec keySpec;
+
+        DeviceKey(String secret, SecretKeySpec keySpec) {
+            this.secret = secret;
+            this.keySpec = keySpec;
+        }
+    }
+}
@@ -35,6 +35,9 @@ import jakarta.servlet.ServletException;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 public class UserIdMapping {
 
@@ -61,13 +64,25 @@ public class UserIdMapping {
             }
         }
 
-        StorageLayer.getUserIdMappingStorage(main).createUserIdMapping(superTokensUserId, externalUserId,
-                externalUserIdInfo);
+        try {
+            StorageLayer.getUserIdMappingStorage(main).createUserIdMapping(superTokensUserId, externalUserId,
+                    externalUserIdInfo);
+        } finally {
+            // both ids may have a cached lookup which found no mapping
+            UserIdMappingCache.getInstance(main).invalidate(List.of(superTokensUserId, externalUserId));
+        }
     }
 
     public static io.supertokens.pluginInterface.useridmapping.UserIdMapping getUserIdMapping(Main main, String userId,
                                                                                               UserIdType userIdType)
             throws StorageQueryException {
+        return UserIdMappingCache.getInstance(main).get(userId, userIdType,
+                () -> getUserIdMappingFromStorage(main, userId, userIdType));
+    }
+
+    private static io.supertokens.pluginInterface.useridmapping.UserIdMapping getUserIdMappingFromStorage(
+            Main main, String userId, UserIdType userIdType)
+            throws StorageQueryException {
         UserIdMappingStorage storage = StorageLayer.getUserIdMappingStorage(main);
 
         if (userIdType == UserIdType.SUPERTOKENS) {
@@ -100,13 +115,24 @@ public class UserIdMapping {
 
     public static boolean deleteUserIdMapping(Main main, String userId, UserIdType userIdType, boolean force)
             throws StorageQueryException, ServletException {
+        Set<String> userIdsToInvalidate = getUserIdsOfMappingsInvolving(main, userId);
+        try {
+            return deleteUserIdMappingHelper(main, userId, userIdType, force);
+        } finally {
+            UserIdMappingCache.getInstance(main).invalidate(userIdsToInvalidate);
+        }
+    }
+
+    private static boolean deleteUserIdMappingHelper(Main main, String userId, UserIdType userIdType, boolean force)
+            throws StorageQueryException, ServletException {
 
         UserIdMappingStorage storage = StorageLayer.getUserIdMappingStorage(main);
 
         // referring to
         // https://docs.google.com/spreadsheets/d/17hYV32B0aDCeLnSxbZhfRN2Y9b0LC2xUF44vV88RNAA/edit?usp=sharing
-        // we need to check if db is in A3 or A4.
-        io.supertokens.pluginInterface.useridmapping.UserIdMapping mapping = getUserIdMapping(main, userId,
+        // we need to check if db is in A3 or A4. This is not read from the cache since a stale entry would make us
+        // delete the wrong mapping.
+        io.supertokens.pluginInterface.useridmapping.UserIdMapping mapping = getUserIdMappingFromStorage(main, userId,
                 UserIdType.ANY);
         if (mapping != null) {
             if (StorageLayer.getAuthRecipeStorage(main).doesUserIdExist(mapping.externalUserId)) {
@@ -144,6 +170,17 @@ public class UserIdMapping {
     public static boolean updateOrDeleteExternalUserIdInfo(Main main, String userId, UserIdType userIdType,
                                                            @Nullable String externalUserIdInfo)
             throws StorageQueryException {
+        Set<String> userIdsToInvalidate = getUserIdsOfMappingsInvolving(main, userId);
+        try {
+            return updateOrDeleteExternalUserIdInfoHelper(main, userId, userIdType, externalUserIdInfo);
+        } finally {
+            UserIdMappingCache.getInstance(main).invalidate(userIdsToInvalidate);
+        }
+    }
+
+    private static boolean updateOrDeleteExternalUserIdInfoHelper(Main main, String userId, UserIdType userIdType,
+                                                                  @Nullable String externalUserIdInfo)
+            throws StorageQueryException {
         UserIdMappingStorage storage = StorageLayer.getUserIdMappingStorage(main);
 
         if (userIdType == UserIdType.SUPERTOKENS) {
@@ -166,6 +203,24 @@ public class UserIdMapping {
         return StorageLayer.getUserIdMappingStorage(main).getUserIdMappingForSuperTokensIds(userIds);
     }
 
+    /**
+     * Returns the given userId together with both ids of every mapping it is a part of. These are the keys of all the
+     * cached lookups that can change when a mapping of this userId is updated or deleted.
+     */
+    private static Set<String> getUserIdsOfMappingsInvolving(Main main, String userId) throws StorageQueryException {
+        Set<String> userIds = new HashSet<>();
+        userIds.add(userId);
+        if (!UserIdMappingCache.getInstance(main).isEnabled()) {
+            return userIds;
+        }
+        for (io.supertokens.pluginInterface.useridmapping.UserIdMapping mapping : StorageLayer.getUserIdMappingStorage(
+                main).getUserIdMapping(userId)) {
+            userIds.add(mapping.superTokensUserId);
+            userIds.add(mapping.externalUserId);
+        }
+        return userIds;
+    }
+
     private static void assertThatUserIdIsNotBeingUsedInNonAuthRecipes(Main main, String userId)
             throws StorageQueryException, ServletException {
         {
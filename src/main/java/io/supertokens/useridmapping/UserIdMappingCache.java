@@ -0,0 +1,109 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.useridmapping;
+
+import io.supertokens.Main;
+import io.supertokens.ResourceDistributor;
+import io.supertokens.config.Config;
+import io.supertokens.pluginInterface.exceptions.StorageQueryException;
+import io.supertokens.pluginInterface.useridmapping.UserIdMapping;
+import io.supertokens.utils.ExpiringLRUCache;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Bounded LRU cache of user id mapping lookups, which are done on every session and user API call that takes a
+ * userId. Lookups that find no mapping are cached as well, since most apps do not use user id mapping at all.
+ * <p>
+ * Entries are removed by {@link io.supertokens.useridmapping.UserIdMapping} whenever a mapping is created, updated or
+ * deleted through this core. Changes made through other core instances are seen once the entry expires
+ * (user_id_mapping_cache_ttl).
+ */
+public class UserIdMappingCache extends ResourceDistributor.SingletonResource {
+
+    private static final String RESOURCE_KEY = "io.supertokens.useridmapping.UserIdMappingCache";
+
+    private final ExpiringLRUCache<UserIdMapping> cache;
+
+    private UserIdMappingCache(int maxSize, long ttl) {
+        this.cache = new ExpiringLRUCache<>(maxSize, ttl);
+    }
+
+    public static UserIdMappingCache getInstance(Main main) {
+        return (UserIdMappingCache) main.getResourceDistributor().getResource(RESOURCE_KEY);
+    }
+
+    public static void init(Main main) {
+        if (getInstance(main) != null) {
+            return;
+        }
+        main.getResourceDistributor().setResource(RESOURCE_KEY,
+                new UserIdMappingCache(Config.getConfig(main).getUserIdMappingCacheSize(),
+                        Config.getConfig(main).getUserIdMappingCacheTTL()));
+    }
+
+    public boolean isEnabled() {
+        return cache.isEnabled();
+    }
+
+    @Nullable
+    UserIdMapping get(String userId, UserIdType userIdType, ExpiringLRUCache.Loader<UserIdMapping> loader)
+            throws StorageQueryException {
+        return cache.get(getKey(userId, userIdType), loader);
+    }
+
+    /**
+     * Removes all cached lookups of the given user ids, of any {@link UserIdType}. The ids of both sides of a mapping
+     * need to be passed, since a lookup using either of them returns that mapping.
+     */
+    public void invalidate(Collection<String> userIds) {
+        List<String> keys = new ArrayList<>();
+        for (String userId : userIds) {
+            for (UserIdType userIdType : UserIdType.values()) {
+                keys.add(getKey(userId, userIdType));
+            }
+        }
+        cache.invalidate(keys);
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public long getHitCount() {
+        return cache.getHitCount();
+    }
+
+    public long getMissCount() {
+        return cache.getMissCount();
+    }
+
+    public double getHitRatio() {
+        return cache.getHitRatio();
+    }
+
+    private static String getKey(String userId, UserIdType userIdType) {
+        return userIdType.name() + ":" + userId;
+    }
+}
@@ -19,6 +19,7 @@ package io.supertokens.usermetadata;
 import javax.annotation.Nonnull;
 
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 
 import io.supertokens.Main;
 import io.supertokens.utils.MetadataUtils;
@@ -31,32 +32,58 @@ public class UserMetadata {
     public static JsonObject updateUserMetadata(Main main, @Nonnull String userId, @Nonnull JsonObject metadataUpdate)
             throws StorageQueryException, StorageTransactionLogicException {
         UserMetadataSQLStorage storage = StorageLayer.getUserMetadataStorage(main);
+        UserMetadataCache cache = UserMetadataCache.getInstance(main);
 
-        return storage.startTransaction((con) -> {
-            JsonObject originalMetadata = storage.getUserMetadata_Transaction(con, userId);
+        long modificationCount = cache.getModificationCount();
+        JsonObject updatedMetadata;
+        try {
+            updatedMetadata = storage.startTransaction((con) -> {
+                JsonObject originalMetadata = storage.getUserMetadata_Transaction(con, userId);
 
-            JsonObject updatedMetadata = originalMetadata == null ? new JsonObject() : originalMetadata;
-            MetadataUtils.shallowMergeMetadataUpdate(updatedMetadata, metadataUpdate);
+                JsonObject metadata = originalMetadata == null ? new JsonObject() : originalMetadata;
+                MetadataUtils.shallowMergeMetadataUpdate(metadata, metadataUpdate);
 
-            storage.setUserMetadata_Transaction(con, userId, updatedMetadata);
+                storage.setUserMetadata_Transaction(con, userId, metadata);
 
-            return updatedMetadata;
-        });
+                return metadata;
+            });
+        } catch (StorageQueryException | StorageTransactionLogicException e) {
+            // we do not know if the transaction was committed
+            cache.invalidate(userId);
+            throw e;
+        }
+
+        // the transaction has been committed by now
+        cache.putIfNotModifiedSince(userId, updatedMetadata, modificationCount);
+        return updatedMetadata;
     }
 
     public static JsonObject getUserMetadata(Main main, @Nonnull String userId) throws StorageQueryException {
         UserMetadataSQLStorage storage = StorageLayer.getUserMetadataStorage(main);
+        UserMetadataCache cache = UserMetadataCache.getInstance(main);
 
-        JsonObject metadata = storage.getUserMetadata(userId);
+        if (!cache.isEnabled()) {
+            JsonObject metadata = storage.getUserMetadata(userId);
+            return metadata == null ? new JsonObject() : metadata;
+        }
+
+        String metadata = cache.get(userId, () -> {
+            JsonObject metadataFromStorage = storage.getUserMetadata(userId);
+            return metadataFromStorage == null ? null : metadataFromStorage.toString();
+        });
 
         if (metadata == null) {
             return new JsonObject();
         }
 
-        return metadata;
+        return new JsonParser().parse(metadata).getAsJsonObject();
     }
 
     public static void deleteUserMetadata(Main main, @Nonnull String userId) throws StorageQueryException {
-        StorageLayer.getUserMetadataStorage(main).deleteUserMetadata(userId);
+        try {
+            StorageLayer.getUserMetadataStorage(main).deleteUserMetadata(userId);
+        } finally {
+            UserMetadataCache.getInstance(main).invalidate(userId);
+        }
     }
 }
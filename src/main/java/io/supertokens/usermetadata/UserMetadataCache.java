@@ -0,0 +1,97 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.usermetadata;
+
+import com.google.gson.JsonObject;
+import io.supertokens.Main;
+import io.supertokens.ResourceDistributor;
+import io.supertokens.config.Config;
+import io.supertokens.pluginInterface.exceptions.StorageQueryException;
+import io.supertokens.utils.ExpiringLRUCache;
+
+import javax.annotation.Nullable;
+
+/**
+ * LRU cache of user metadata, bounded by the total size of the cached JSON (user_metadata_cache_max_bytes) rather
+ * than by the number of users, since the metadata of one user can be much larger than that of another.
+ * <p>
+ * The metadata is cached in its serialized form, so that callers always get their own JsonObject which they can
+ * change. Users without metadata are cached as null. Changes made through other core instances are seen once the
+ * entry expires (user_metadata_cache_ttl).
+ */
+public class UserMetadataCache extends ResourceDistributor.SingletonResource {
+
+    private static final String RESOURCE_KEY = "io.supertokens.usermetadata.UserMetadataCache";
+
+    private final ExpiringLRUCache<String> cache;
+
+    private UserMetadataCache(long maxBytes, long ttl) {
+        // the key and JSON are mostly ASCII, which Java stores as one byte per character
+        this.cache = new ExpiringLRUCache<>(maxBytes, ttl,
+                (userId, json) -> userId.length() + (json == null ? 0 : json.length()));
+    }
+
+    public static UserMetadataCache getInstance(Main main) {
+        return (UserMetadataCache) main.getResourceDistributor().getResource(RESOURCE_KEY);
+    }
+
+    public static void init(Main main) {
+        if (getInstance(main) != null) {
+            return;
+        }
+        main.getResourceDistributor().setResource(RESOURCE_KEY,
+                new UserMetadataCache(Config.getConfig(main).getUserMetadataCacheMaxBytes(),
+                        Config.getConfig(main).getUserMetadataCacheTTL()));
+    }
+
+    public boolean isEnabled() {
+        return cache.isEnabled();
+    }
+
+    @Nullable
+    String get(String userId, ExpiringLRUCache.Loader<String> loader) throws StorageQueryException {
+        return cache.get(userId, loader);
+    }
+
+    long getModificationCount() {
+        return cache.getModificationCount();
+    }
+
+    void putIfNotModifiedSince(String userId, JsonObject metadata, long modificationCount) {
+        cache.putIfNotModifiedSince(userId, metadata.toString(), modificationCount);
+    }
+
+    public void invalidate(String userId) {
+        cache.invalidate(userId);
+    }
+
+    public long getUsedBytes() {
+        return cache.getTotalWeight();
+    }
+
+    public long getEvictionCount() {
+        return cache.getEvictionCount();
+    }
+
+    public long getHitCount() {
+        return cache.getHitCount();
+    }
+
+    public long getMissCount() {
+        return cache.getMissCount();
+    }
+}
@@ -25,6 +25,8 @@ import io.supertokens.pluginInterface.userroles.sqlStorage.UserRolesSQLStorage;
 import io.supertokens.storageLayer.StorageLayer;
 
 import javax.annotation.Nullable;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class UserRoles {
     // add a role to a user and return true, if the role is already mapped to the user return false, but if
@@ -37,6 +39,8 @@ public class UserRoles {
         } catch (DuplicateUserRoleMappingException e) {
             // user already has role
             return false;
+        } finally {
+            UserRolesCache.getInstance(main).invalidateRolesForUser(userId);
         }
     }
 
@@ -44,6 +48,16 @@ public class UserRoles {
     public static boolean createNewRoleOrModifyItsPermissions(Main main, String role, String[] permissions)
             throws StorageQueryException, StorageTransactionLogicException {
         UserRolesSQLStorage storage = StorageLayer.getUserRolesStorage(main);
+        try {
+            return createNewRoleOrModifyItsPermissionsHelper(storage, role, permissions);
+        } finally {
+            UserRolesCache.getInstance(main).invalidateRoleGraph();
+        }
+    }
+
+    private static boolean createNewRoleOrModifyItsPermissionsHelper(UserRolesSQLStorage storage, String role,
+                                                                     String[] permissions)
+            throws StorageQueryException, StorageTransactionLogicException {
         return storage.startTransaction(con -> {
             boolean wasANewRoleCreated = storage.createNewRoleOrDoNothingIfExists_Transaction(con, role);
 
@@ -88,12 +102,39 @@ public class UserRoles {
                 throw (UnknownRoleException) e.actualException;
             }
             throw e;
+        } finally {
+            UserRolesCache.getInstance(main).invalidateRolesForUser(userId);
         }
     }
 
     // retrieve all roles associated with the user
     public static String[] getRolesForUser(Main main, String userId) throws StorageQueryException {
-        return StorageLayer.getUserRolesStorage(main).getRolesForUser(userId);
+        // the cached array is shared, so we return a copy of it
+        return UserRolesCache.getInstance(main)
+                .getRolesForUser(userId, () -> StorageLayer.getUserRolesStorage(main).getRolesForUser(userId))
+                .clone();
+    }
+
+    // retrieve all roles associated with the user, along with the permissions of each of those roles
+    public static LinkedHashMap<String, String[]> getRolesAndPermissionsForUser(Main main, String userId)
+            throws StorageQueryException {
+        Map<String, String[]> permissionsForAllRoles = getPermissionsForAllRoles(main);
+
+        LinkedHashMap<String, String[]> result = new LinkedHashMap<>();
+        for (String role : getRolesForUser(main, userId)) {
+            String[] permissions = permissionsForAllRoles.get(role);
+            if (permissions == null) {
+                // the role was created after the cached role permissions were loaded, for example by another core
+                try {
+                    permissions = getPermissionsForRoleFromStorage(main, role);
+                } catch (UnknownRoleException e) {
+                    // the role was deleted after we got the roles of the user
+                    continue;
+                }
+            }
+            result.put(role, permissions.clone());
+        }
+        return result;
     }
 
     // retrieve all users who have the input role, if role does not exist then throw UNKNOWN_ROLE_EXCEPTION
@@ -112,6 +153,25 @@ public class UserRoles {
     // retrieve all permissions associated with the role
     public static String[] getPermissionsForRole(Main main, String role)
             throws StorageQueryException, UnknownRoleException {
+        if (!UserRolesCache.getInstance(main).isEnabled()) {
+            return getPermissionsForRoleFromStorage(main, role);
+        }
+        String[] permissions = getPermissionsForAllRoles(main).get(role);
+        if (permissions != null) {
+            return permissions.clone();
+        }
+        // the role is either unknown, or was created after the cached role permissions were loaded (for example by
+        // another core), so we check the database before throwing UnknownRoleException
+        return getPermissionsForRoleFromStorage(main, role);
+    }
+
+    private static Map<String, String[]> getPermissionsForAllRoles(Main main) throws StorageQueryException {
+        return UserRolesCache.getInstance(main)
+                .getPermissionsForAllRoles(() -> StorageLayer.getUserRolesStorage(main).getPermissionsForAllRoles());
+    }
+
+    private static String[] getPermissionsForRoleFromStorage(Main main, String role)
+            throws StorageQueryException, UnknownRoleException {
         // Since getPermissionsForRole does not change any data we do not use a transaction since it would not solve any
         // problem
         UserRolesSQLStorage storage = StorageLayer.getUserRolesStorage(main);
@@ -150,6 +210,8 @@ public class UserRoles {
                 throw (UnknownRoleException) e.actualException;
             }
             throw e;
+        } finally {
+            UserRolesCache.getInstance(main).invalidateRoleGraph();
         }
 
     }
@@ -161,7 +223,13 @@ public class UserRoles {
 
     // delete a role
     public static boolean deleteRole(Main main, String role) throws StorageQueryException {
-        return StorageLayer.getUserRolesStorage(main).deleteRole(role);
+        try {
+            return StorageLayer.getUserRolesStorage(main).deleteRole(role);
+        } finally {
+            // deleting a role also removes it from all the users that have it
+            UserRolesCache.getInstance(main).invalidateRoleGraph();
+            UserRolesCache.getInstance(main).invalidateRolesForAllUsers();
+        }
     }
 
     // retrieve all roles that have been created
@@ -171,7 +239,11 @@ public class UserRoles {
 
     // delete all roles associated with a user
     public static int deleteAllRolesForUser(Main main, String userId) throws StorageQueryException {
-        return StorageLayer.getUserRolesStorage(main).deleteAllRolesForUser(userId);
+        try {
+            return StorageLayer.getUserRolesStorage(main).deleteAllRolesForUser(userId);
+        } finally {
+            UserRolesCache.getInstance(main).invalidateRolesForUser(userId);
+        }
     }
 
 }
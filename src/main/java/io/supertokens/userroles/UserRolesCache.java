@@ -0,0 +1,139 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.userroles;
+
+import io.supertokens.Main;
+import io.supertokens.ResourceDistributor;
+import io.supertokens.config.Config;
+import io.supertokens.pluginInterface.exceptions.StorageQueryException;
+import io.supertokens.utils.ExpiringLRUCache;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Caches the roles of each user, and the permissions of all roles. The backend SDKs fetch the roles of the user and
+ * then the permissions of each of those roles on nearly every request, which would otherwise be one query per call.
+ * <p>
+ * The permissions of all roles are kept as a single map that is loaded in one query, and is dropped (to be loaded
+ * again on the next read) whenever a role or its permissions are changed. Each drop increments a version, so that a
+ * load which was started before the change cannot replace the map with old data. Changes made through other core
+ * instances are seen once the cached data expires (user_roles_cache_ttl).
+ */
+public class UserRolesCache extends ResourceDistributor.SingletonResource {
+
+    private static final String RESOURCE_KEY = "io.supertokens.userroles.UserRolesCache";
+
+    private final ExpiringLRUCache<String[]> rolesForUser;
+
+    private final long ttl;
+    private final Object roleGraphLock = new Object();
+    // guarded by roleGraphLock
+    private RoleGraph roleGraph = null;
+    // guarded by roleGraphLock
+    private long roleGraphVersion = 0;
+
+    private UserRolesCache(int maxSize, long ttl) {
+        this.rolesForUser = new ExpiringLRUCache<>(maxSize, ttl);
+        this.ttl = ttl;
+    }
+
+    public static UserRolesCache getInstance(Main main) {
+        return (UserRolesCache) main.getResourceDistributor().getResource(RESOURCE_KEY);
+    }
+
+    public static void init(Main main) {
+        if (getInstance(main) != null) {
+            return;
+        }
+        main.getResourceDistributor().setResource(RESOURCE_KEY,
+                new UserRolesCache(Config.getConfig(main).getUserRolesCacheSize(),
+                        Config.getConfig(main).getUserRolesCacheTTL()));
+    }
+
+    public boolean isEnabled() {
+        return rolesForUser.isEnabled();
+    }
+
+    String[] getRolesForUser(String userId, ExpiringLRUCache.Loader<String[]> loader) throws StorageQueryException {
+        return rolesForUser.get(userId, loader);
+    }
+
+    // returns an unmodifiable map from each role that exists to its permissions
+    Map<String, String[]> getPermissionsForAllRoles(ExpiringLRUCache.Loader<Map<String, String[]>> loader)
+            throws StorageQueryException {
+        if (!isEnabled()) {
+            return Collections.unmodifiableMap(loader.load());
+        }
+
+        long versionBeforeLoad;
+        synchronized (roleGraphLock) {
+            if (roleGraph != null && roleGraph.expiresAt > System.currentTimeMillis()) {
+                return roleGraph.permissionsForRole;
+            }
+            versionBeforeLoad = roleGraphVersion;
+        }
+
+        Map<String, String[]> permissionsForRole = Collections.unmodifiableMap(loader.load());
+
+        synchronized (roleGraphLock) {
+            if (roleGraphVersion == versionBeforeLoad) {
+                roleGraph = new RoleGraph(permissionsForRole, System.currentTimeMillis() + ttl);
+            }
+        }
+        return permissionsForRole;
+    }
+
+    public long getRoleGraphVersion() {
+        synchronized (roleGraphLock) {
+            return roleGraphVersion;
+        }
+    }
+
+    public void invalidateRolesForUser(String userId) {
+        rolesForUser.invalidate(userId);
+    }
+
+    public void invalidateRolesForAllUsers() {
+        rolesForUser.clear();
+    }
+
+    public void invalidateRoleGraph() {
+        synchronized (roleGraphLock) {
+            roleGraphVersion++;
+            roleGraph = null;
+        }
+    }
+
+    public long getHitCount() {
+        return rolesForUser.getHitCount();
+    }
+
+    public long getMissCount() {
+        return rolesForUser.getMissCount();
+    }
+
+    private static class RoleGraph {
+        final Map<String, String[]> permissionsForRole;
+        final long expiresAt;
+
+        RoleGraph(Map<String, String[]> permissionsForRole, long expiresAt) {
+            this.permissionsForRole = permissionsForRole;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
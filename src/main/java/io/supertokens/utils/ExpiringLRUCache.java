@@ -0,0 +1,273 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.utils;
+
+import io.supertokens.pluginInterface.exceptions.StorageQueryException;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Bounded, read-through LRU cache whose entries expire after a fixed time. Values may be null, so that lookups which
+ * found nothing in the database can be cached as well.
+ * <p>
+ * By default every entry has a weight of 1, so the max weight is the max number of entries. A {@link Weigher} can be
+ * passed to bound the cache by something else, like the size of the cached values. A cache with a max weight of 0
+ * does not store anything.
+ */
+public class ExpiringLRUCache<V> {
+
+    private final long maxWeight;
+    private final long ttl;
+    private final Weigher<V> weigher;
+
+    // guarded by itself
+    private final LinkedHashMap<String, CacheEntry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // guarded by entries
+    private long totalWeight = 0;
+    // incremented on every invalidation and write, so that a lookup that was started before the data changed does
+    // not put the old value back into the cache. Guarded by entries
+    private long modificationCount = 0;
+
+    private final AtomicLong hitCount = new AtomicLong(0);
+    private final AtomicLong missCount = new AtomicLong(0);
+    private final AtomicLong evictionCount = new AtomicLong(0);
+
+    public ExpiringLRUCache(int maxSize, long ttl) {
+        this(maxSize, ttl, (key, value) -> 1);
+    }
+
+    public ExpiringLRUCache(long maxWeight, long ttl, Weigher<V> weigher) {
+        this.maxWeight = maxWeight;
+        this.ttl = ttl;
+        this.weigher = weigher;
+    }
+
+    public boolean isEnabled() {
+        return maxWeight > 0;
+    }
+
+    public V get(String key, Loader<V> loader) throws StorageQueryException {
+        if (!isEnabled()) {
+            return loader.load();
+        }
+
+        long modificationCountBeforeLoad;
+        synchronized (entries) {
+            CacheEntry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt > System.currentTimeMillis()) {
+                    hitCount.incrementAndGet();
+                    return entry.value;
+                }
+                removeEntry(key);
+            }
+            modificationCountBeforeLoad = modificationCount;
+        }
+
+        missCount.incrementAndGet();
+        V value = loader.load();
+
+        synchronized (entries) {
+            if (modificationCount == modificationCountBeforeLoad) {
+                putEntry(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Returns the cached value of the key, or null if it is not cached. Unlike {@link #get}, this cannot tell a cached
+     * null value apart from a missing one, so it is meant for caches that do not store null.
+     */
+    public V getIfPresent(String key) {
+        if (!isEnabled()) {
+            return null;
+        }
+        synchronized (entries) {
+            CacheEntry<V> entry = entries.get(key);
+            if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+                hitCount.incrementAndGet();
+                return entry.value;
+            }
+            if (entry != null) {
+                removeEntry(key);
+            }
+        }
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Must be called before reading or changing the data of a key in the database, and the result passed to
+     * {@link #putIfNotModifiedSince} once the read is done or the change has been committed.
+     */
+    public long getModificationCount() {
+        synchronized (entries) {
+            return modificationCount;
+        }
+    }
+
+    /**
+     * Puts a value that was just read from or written to the database into the cache. If anything else was written or
+     * invalidated since {@link #getModificationCount} was called, we cannot know if this value is still the latest
+     * one, so the key is invalidated instead.
+     */
+    public void putIfNotModifiedSince(String key, V value, long modificationCount) {
+        if (!isEnabled()) {
+            return;
+        }
+        synchronized (entries) {
+            if (this.modificationCount == modificationCount) {
+                putEntry(key, value);
+            } else {
+                removeEntry(key);
+            }
+            this.modificationCount++;
+        }
+    }
+
+    public void invalidate(String key) {
+        if (!isEnabled()) {
+            return;
+        }
+        synchronized (entries) {
+            modificationCount++;
+            removeEntry(key);
+        }
+    }
+
+    public void invalidate(Collection<String> keys) {
+        if (!isEnabled()) {
+            return;
+        }
+        synchronized (entries) {
+            modificationCount++;
+            for (String key : keys) {
+                removeEntry(key);
+            }
+        }
+    }
+
+    public void invalidateIf(Predicate<String> keyPredicate) {
+        if (!isEnabled()) {
+            return;
+        }
+        synchronized (entries) {
+            modificationCount++;
+            Iterator<Map.Entry<String, CacheEntry<V>>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, CacheEntry<V>> entry = it.next();
+                if (keyPredicate.test(entry.getKey())) {
+                    it.remove();
+                    totalWeight -= entry.getValue().weight;
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            modificationCount++;
+            entries.clear();
+            totalWeight = 0;
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getTotalWeight() {
+        synchronized (entries) {
+            return totalWeight;
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    public double getHitRatio() {
+        long hits = hitCount.get();
+        long total = hits + missCount.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    // must be called while holding the lock on entries
+    private void putEntry(String key, V value) {
+        removeEntry(key);
+        long weight = weigher.weigh(key, value);
+        if (weight > maxWeight) {
+            // would evict everything else and then be evicted by the next put anyway
+            return;
+        }
+        entries.put(key, new CacheEntry<>(value, System.currentTimeMillis() + ttl, weight));
+        totalWeight += weight;
+
+        // the iteration order of an access ordered LinkedHashMap is from the least to the most recently used entry
+        Iterator<Map.Entry<String, CacheEntry<V>>> it = entries.entrySet().iterator();
+        while (totalWeight > maxWeight && it.hasNext()) {
+            CacheEntry<V> eldest = it.next().getValue();
+            it.remove();
+            totalWeight -= eldest.weight;
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    // must be called while holding the lock on entries
+    private void removeEntry(String key) {
+        CacheEntry<V> removed = entries.remove(key);
+        if (removed != null) {
+            totalWeight -= removed.weight;
+        }
+    }
+
+    public interface Loader<V> {
+        V load() throws StorageQueryException;
+    }
+
+    public interface Weigher<V> {
+        long weigh(String key, V value);
+    }
+
+    private static class CacheEntry<V> {
+        final V value;
+        final long expiresAt;
+        final long weight;
+
+        CacheEntry(V value, long expiresAt, long weight) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.weight = weight;
+        }
+    }
+}
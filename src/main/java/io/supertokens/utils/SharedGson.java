@@ -0,0 +1,46 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Gson instances that are shared by the whole process. A Gson instance is thread safe, but creating one is not cheap
+ * since it sets up all of its type adapters, so these should be used instead of creating a new one for each call.
+ */
+public final class SharedGson {
+
+    /**
+     * Equivalent to new Gson(): default settings, so nulls are left out and HTML characters are escaped.
+     */
+    public static final Gson DEFAULT = new Gson();
+
+    /**
+     * Like DEFAULT, but writes fields that are null instead of leaving them out.
+     */
+    public static final Gson SERIALIZE_NULLS = new GsonBuilder().serializeNulls().create();
+
+    /**
+     * Writes a JsonElement exactly like its toString does: with the nulls in it, and without escaping HTML characters.
+     * Used to write API responses.
+     */
+    public static final Gson RESPONSE = new GsonBuilder().serializeNulls().disableHtmlEscaping().create();
+
+    private SharedGson() {
+    }
+}
@@ -16,7 +16,6 @@
 
 package io.supertokens.utils;
 
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
@@ -368,6 +367,6 @@ public class Utils {
     }
 
     public static JsonElement toJsonTreeWithNulls(Object src) {
-        return new GsonBuilder().serializeNulls().create().toJsonTree(src);
+        return SharedGson.SERIALIZE_NULLS.toJsonTree(src);
     }
 }
@@ -0,0 +1,300 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.webserver;
+
+import java.util.Arrays;
+
+/**
+ * A set of IPv4 and IPv6 ranges, given in CIDR notation, that can be checked against an IP address in at most 128
+ * steps, however many ranges there are.
+ * <p>
+ * The ranges are kept in a binary trie of IPv6 prefixes, where each node is one more bit of a prefix. IPv4 addresses
+ * and ranges are mapped into the IPv6 space as IPv4 mapped addresses (::ffff:a.b.c.d). So an IPv4 client is in any
+ * IPv6 range that covers its mapped address, like ::/0 or ::ffff:0:0/96, and an IPv4 mapped client is in the IPv4
+ * ranges that cover the address it maps.
+ */
+public class IpAddressRanges {
+
+    // the high 64 bits of an IPv4 mapped address are 0, and the low 64 bits are 0000:ffff:a.b.c.d
+    private static final long IPV4_MAPPED_PREFIX = 0xffffL << 32;
+    private static final int IPV4_MAPPED_PREFIX_LENGTH = 96;
+
+    private final PrefixTrie trie = new PrefixTrie();
+
+    private IpAddressRanges() {
+    }
+
+    /**
+     * Parses comma separated ranges like "10.0.0.0/8, 192.168.1.7, ::1, fd00::/8". An address without a prefix length
+     * is a range with only that address.
+     *
+     * @throws IllegalArgumentException if one of the ranges is invalid, with a message that says which one and why.
+     */
+    public static IpAddressRanges parse(String ranges) {
+        IpAddressRanges result = new IpAddressRanges();
+        for (String range : ranges.split(",")) {
+            range = range.trim();
+            if (!range.equals("")) {
+                result.add(range);
+            }
+        }
+        return result;
+    }
+
+    private void add(String range) {
+        int slash = range.indexOf('/');
+        String address = slash < 0 ? range : range.substring(0, slash).trim();
+        boolean isIpv6 = address.indexOf(':') >= 0;
+        int maxPrefixLength = isIpv6 ? 128 : 32;
+
+        int prefixLength = maxPrefixLength;
+        if (slash >= 0) {
+            try {
+                prefixLength = Integer.parseInt(range.substring(slash + 1).trim());
+            } catch (NumberFormatException e) {
+                prefixLength = -1;
+            }
+            if (prefixLength < 0 || prefixLength > maxPrefixLength) {
+                throw new IllegalArgumentException(
+                        range + " must have a prefix length between 0 and " + maxPrefixLength);
+            }
+        }
+
+        long high;
+        long low;
+        if (isIpv6) {
+            int[] groups = new int[8];
+            if (address.indexOf('%') >= 0 || !parseIpv6(address, groups)) {
+                throw new IllegalArgumentException(range + " is not a valid IPv6 address or range");
+            }
+            high = toLong(groups, 0);
+            low = toLong(groups, 4);
+        } else {
+            long ipv4Address = parseIpv4(address, 0, address.length());
+            if (ipv4Address < 0) {
+                throw new IllegalArgumentException(range + " is not a valid IPv4 address or range");
+            }
+            high = 0;
+            low = IPV4_MAPPED_PREFIX | ipv4Address;
+        }
+
+        int mappedPrefixLength = isIpv6 ? prefixLength : IPV4_MAPPED_PREFIX_LENGTH + prefixLength;
+        if (!hasOnlyZerosAfter(high, low, mappedPrefixLength)) {
+            throw new IllegalArgumentException(range + " has bits set after its prefix of " + prefixLength + " bits");
+        }
+
+        trie.add(high, low, mappedPrefixLength);
+    }
+
+    /**
+     * Returns whether the address is in one of the ranges. The address has to be an IP address literal, like the
+     * remote address of a request. Anything else is never in any range.
+     */
+    public boolean contains(String address) {
+        if (address.indexOf(':') < 0) {
+            long ipv4Address = parseIpv4(address, 0, address.length());
+            return ipv4Address >= 0 && trie.contains(0, IPV4_MAPPED_PREFIX | ipv4Address);
+        }
+
+        int[] groups = new int[8];
+        int zone = address.indexOf('%');
+        if (!parseIpv6(zone < 0 ? address : address.substring(0, zone), groups)) {
+            return false;
+        }
+        return trie.contains(toLong(groups, 0), toLong(groups, 4));
+    }
+
+    // returns the address as an unsigned 32 bit number, or -1 if it is not a dotted decimal IPv4 address
+    private static long parseIpv4(String address, int start, int end) {
+        long result = 0;
+        int octets = 0;
+        int i = start;
+        while (true) {
+            int value = 0;
+            int digits = 0;
+            while (i < end && address.charAt(i) >= '0' && address.charAt(i) <= '9') {
+                value = value * 10 + (address.charAt(i) - '0');
+                digits++;
+                i++;
+                if (digits > 3) {
+                    return -1;
+                }
+            }
+            if (digits == 0 || value > 255) {
+                return -1;
+            }
+            result = (result << 8) | value;
+            octets++;
+            if (i == end) {
+                return octets == 4 ? result : -1;
+            }
+            if (address.charAt(i) != '.' || octets == 4) {
+                return -1;
+            }
+            i++;
+        }
+    }
+
+    // fills groups with the eight 16 bit groups of the address, and returns false if it is not an IPv6 address
+    private static boolean parseIpv6(String address, int[] groups) {
+        int end = address.length();
+        int count = 0;
+        int compressedAt = -1;
+        int i = 0;
+        if (address.startsWith("::")) {
+            compressedAt = 0;
+            i = 2;
+        }
+        while (i < end) {
+            int start = i;
+            int value = 0;
+            int digits = 0;
+            while (i < end && hexValue(address.charAt(i)) >= 0) {
+                value = (value << 4) | hexValue(address.charAt(i));
+                digits++;
+                i++;
+            }
+            if (i < end && address.charAt(i) == '.') {
+                // the last 32 bits can be written as an IPv4 address
+                long ipv4Address = parseIpv4(address, start, end);
+                if (ipv4Address < 0 || count > 6) {
+                    return false;
+                }
+                groups[count++] = (int) (ipv4Address >>> 16);
+                groups[count++] = (int) (ipv4Address & 0xffff);
+                break;
+            }
+            if (digits == 0 || digits > 4 || count == 8) {
+                return false;
+            }
+            groups[count++] = value;
+            if (i == end) {
+                break;
+            }
+            if (address.charAt(i) != ':') {
+                return false;
+            }
+            i++;
+            if (i < end && address.charAt(i) == ':') {
+                if (compressedAt >= 0) {
+                    return false;
+                }
+                compressedAt = count;
+                i++;
+            } else if (i == end) {
+                return false;
+            }
+        }
+
+        if (compressedAt < 0) {
+            return count == 8;
+        }
+        if (count == 8) {
+            return false;
+        }
+        // moves the groups after the :: to the end, and fills the gap with zeros
+        int moved = count - compressedAt;
+        System.arraycopy(groups, compressedAt, groups, 8 - moved, moved);
+        for (int j = compressedAt; j < 8 - moved; j++) {
+            groups[j] = 0;
+        }
+        return true;
+    }
+
+    private static int hexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private static long toLong(int[] groups, int from) {
+        return ((long) groups[from] << 48) | ((long) groups[from + 1] << 32) | ((long) groups[from + 2] << 16)
+                | groups[from + 3];
+    }
+
+    private static boolean hasOnlyZerosAfter(long high, long low, int prefixLength) {
+        if (prefixLength >= 64) {
+            return prefixLength == 128 || (low << (prefixLength - 64)) == 0;
+        }
+        return low == 0 && (high << prefixLength) == 0;
+    }
+
+    /**
+     * A binary trie of prefixes of 128 bit addresses, given as their high and low 64 bits.
+     */
+    private static class PrefixTrie {
+
+        // the children of node n are children[2 * n] (next bit 0) and children[2 * n + 1] (next bit 1). 0 means that
+        // there is no child, since the root (node 0) is nobody's child.
+        private int[] children = new int[32];
+        // whether a range ends at the node. Nodes below such a node are never looked at.
+        private boolean[] isEnd = new boolean[16];
+        private int nodes = 1;
+
+        void add(long high, long low, int prefixLength) {
+            int node = 0;
+            for (int bit = 0; bit < prefixLength; bit++) {
+                if (isEnd[node]) {
+                    // a shorter range already covers this one
+                    return;
+                }
+                int index = 2 * node + bitAt(high, low, bit);
+                if (children[index] == 0) {
+                    int child = newNode();
+                    children[index] = child;
+                }
+                node = children[index];
+            }
+            isEnd[node] = true;
+        }
+
+        boolean contains(long high, long low) {
+            int node = 0;
+            for (int bit = 0; ; bit++) {
+                if (isEnd[node]) {
+                    return true;
+                }
+                if (bit == 128) {
+                    return false;
+                }
+                node = children[2 * node + bitAt(high, low, bit)];
+                if (node == 0) {
+                    return false;
+                }
+            }
+        }
+
+        private int newNode() {
+            if (nodes == isEnd.length) {
+                isEnd = Arrays.copyOf(isEnd, nodes * 2);
+                children = Arrays.copyOf(children, nodes * 4);
+            }
+            return nodes++;
+        }
+
+        private static int bitAt(long high, long low, int bit) {
+            return (int) ((bit < 64 ? high >>> (63 - bit) : low >>> (127 - bit)) & 1);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.webserver;
+
+import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonWriter;
+import io.supertokens.utils.SharedGson;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes JSON responses straight to the response's output stream, encoding them as UTF-8 into a buffer that each
+ * thread reuses, instead of building the whole response as a String first.
+ * <p>
+ * Responses of up to {@link #MAX_BUFFERED_BYTES} are sent with a Content-Length. Bigger ones are sent as they are
+ * written, with chunked encoding. Responses that may be large (like lists of users) can be gzipped: they are if the
+ * client accepts gzip, and they are at least {@link #MIN_GZIPPED_BYTES} long.
+ */
+public final class JsonResponseWriter {
+
+    static final int MAX_BUFFERED_BYTES = 64 * 1024;
+    static final int MIN_GZIPPED_BYTES = 8 * 1024;
+    private static final int INITIAL_BUFFER_BYTES = 4 * 1024;
+    // what the PrintWriter.println that responses used to be written with ends lines with
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private static final ThreadLocal<ResponseBuffer> BUFFERS = ThreadLocal.withInitial(ResponseBuffer::new);
+
+    private JsonResponseWriter() {
+    }
+
+    /**
+     * Writes json (followed by the platform's line separator) as the body of resp. If req is not null, the response is
+     * gzipped if it is large enough and req accepts gzip.
+     */
+    public static void write(JsonElement json, HttpServletResponse resp, HttpServletRequest req) throws IOException {
+        boolean gzip = false;
+        if (req != null) {
+            // the response depends on this header whether or not we end up compressing it
+            resp.addHeader("Vary", "Accept-Encoding");
+            gzip = acceptsGzip(req.getHeader("Accept-Encoding"));
+        }
+
+        ResponseBuffer buffer = BUFFERS.get();
+        buffer.start(resp, gzip);
+        try {
+            SharedGson.RESPONSE.toJson(json, new JsonWriter(buffer));
+            buffer.write(LINE_SEPARATOR);
+            buffer.finish();
+        } finally {
+            buffer.release();
+        }
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            if (!parts[0].trim().equalsIgnoreCase("gzip")) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(parameter.substring(2).trim()) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Encodes what is written to it as UTF-8 into a byte array, and sends it to the response when it is finished or
+     * when it gets too big to buffer.
+     */
+    private static class ResponseBuffer extends Writer {
+
+        private byte[] bytes = new byte[INITIAL_BUFFER_BYTES];
+        private int count = 0;
+        private char highSurrogate = 0;
+
+        private HttpServletResponse resp;
+        private boolean gzip;
+        // null until the response gets too big to buffer, after which the bytes are sent to it as they are written
+        private OutputStream out;
+
+        void start(HttpServletResponse resp, boolean gzip) {
+            this.resp = resp;
+            this.gzip = gzip;
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            writeChar((char) c);
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            for (int i = offset; i < offset + length; i++) {
+                writeChar(chars[i]);
+            }
+        }
+
+        @Override
+        public void write(String string, int offset, int length) throws IOException {
+            for (int i = offset; i < offset + length; i++) {
+                writeChar(string.charAt(i));
+            }
+        }
+
+        // malformed surrogates are written as '?', like the servlet writer did before
+        private void writeChar(char c) throws IOException {
+            if (highSurrogate != 0) {
+                char high = highSurrogate;
+                highSurrogate = 0;
+                if (Character.isLowSurrogate(c)) {
+                    int codePoint = Character.toCodePoint(high, c);
+                    writeByte(0xf0 | (codePoint >> 18));
+                    writeByte(0x80 | ((codePoint >> 12) & 0x3f));
+                    writeByte(0x80 | ((codePoint >> 6) & 0x3f));
+                    writeByte(0x80 | (codePoint & 0x3f));
+                    return;
+                }
+                writeByte('?');
+            }
+
+            if (c < 0x80) {
+                writeByte(c);
+            } else if (c < 0x800) {
+                writeByte(0xc0 | (c >> 6));
+                writeByte(0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c)) {
+                highSurrogate = c;
+            } else if (Character.isLowSurrogate(c)) {
+                writeByte('?');
+            } else {
+                writeByte(0xe0 | (c >> 12));
+                writeByte(0x80 | ((c >> 6) & 0x3f));
+                writeByte(0x80 | (c & 0x3f));
+            }
+        }
+
+        private void writeByte(int b) throws IOException {
+            if (count == bytes.length) {
+                makeRoom();
+            }
+            bytes[count++] = (byte) b;
+        }
+
+        private void makeRoom() throws IOException {
+            if (out == null && bytes.length < MAX_BUFFERED_BYTES) {
+                byte[] bigger = new byte[Math.min(bytes.length * 2, MAX_BUFFERED_BYTES)];
+                System.arraycopy(bytes, 0, bigger, 0, count);
+                bytes = bigger;
+                return;
+            }
+            if (out == null) {
+                // too big to buffer, so we send it without a Content-Length, which makes Tomcat use chunked encoding
+                out = openOutputStream(gzip);
+            }
+            out.write(bytes, 0, count);
+            count = 0;
+        }
+
+        private OutputStream openOutputStream(boolean gzip) throws IOException {
+            if (gzip) {
+                resp.setHeader("Content-Encoding", "gzip");
+                return new GZIPOutputStream(resp.getOutputStream(), INITIAL_BUFFER_BYTES);
+            }
+            return resp.getOutputStream();
+        }
+
+        void finish() throws IOException {
+            if (highSurrogate != 0) {
+                highSurrogate = 0;
+                writeByte('?');
+            }
+
+            if (out == null) {
+                if (!gzip || count < MIN_GZIPPED_BYTES) {
+                    resp.setContentLength(count);
+                    resp.getOutputStream().write(bytes, 0, count);
+                    return;
+                }
+                out = openOutputStream(true);
+            }
+            out.write(bytes, 0, count);
+            count = 0;
+            if (out instanceof GZIPOutputStream) {
+                // this also frees the memory of the deflater
+                out.close();
+            }
+        }
+
+        void release() {
+            resp = null;
+            out = null;
+            count = 0;
+            highSurrogate = 0;
+        }
+
+        @Override
+        public void flush() {
+            // the response is only sent when it is finished, or when it is too big to buffer
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.webserver;
+
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletResponse;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+/**
+ * Only lets requests through from the IP addresses allowed by the ip_allow_regex and ip_allow_cidrs configs, and not
+ * denied by ip_deny_regex or ip_deny_cidrs, and responds with a 403 to all other requests.
+ * <p>
+ * It decides the same way as Tomcat's RemoteAddrFilter, which was used before the CIDR configs were added: a denied
+ * address is never let through, and if something is allowed, only the allowed addresses are let through. An address is
+ * allowed (or denied) if it matches either the regex or the CIDR ranges.
+ */
+public class RemoteAddressFilter implements Filter {
+
+    @Nullable
+    private final Pattern allowRegex;
+    @Nullable
+    private final IpAddressRanges allowRanges;
+    @Nullable
+    private final Pattern denyRegex;
+    @Nullable
+    private final IpAddressRanges denyRanges;
+
+    public RemoteAddressFilter(@Nullable Pattern allowRegex, @Nullable IpAddressRanges allowRanges,
+                               @Nullable Pattern denyRegex, @Nullable IpAddressRanges denyRanges) {
+        this.allowRegex = allowRegex;
+        this.allowRanges = allowRanges;
+        this.denyRegex = denyRegex;
+        this.denyRanges = denyRanges;
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        if (isAllowed(request.getRemoteAddr())) {
+            chain.doFilter(request, response);
+        } else {
+            ((HttpServletResponse) response).sendError(HttpServletResponse.SC_FORBIDDEN);
+        }
+    }
+
+    public boolean isAllowed(String address) {
+        if ((denyRanges != null && denyRanges.contains(address))
+                || (denyRegex != null && denyRegex.matcher(address).matches())) {
+            return false;
+        }
+        if (allowRanges == null && allowRegex == null) {
+            return true;
+        }
+        // the ranges are checked first since they are much faster to check than a regex
+        return (allowRanges != null && allowRanges.contains(address))
+                || (allowRegex != null && allowRegex.matcher(address).matches());
+    }
+}
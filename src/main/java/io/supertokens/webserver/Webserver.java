@@ -22,10 +22,12 @@ import io.supertokens.ProcessState;
 import io.supertokens.ResourceDistributor;
 import io.supertokens.cliOptions.CLIOptions;
 import io.supertokens.config.Config;
+import io.supertokens.config.CoreConfig;
 import io.supertokens.exceptions.QuitProgramException;
 import io.supertokens.output.Logging;
 import io.supertokens.webserver.api.core.UsersAPI;
 import io.supertokens.webserver.api.core.UsersCountAPI;
+import io.supertokens.webserver.api.core.UsersExportAPI;
 import io.supertokens.webserver.api.dashboard.DashboardSignInAPI;
 import io.supertokens.webserver.api.dashboard.DashboardUserAPI;
 import io.supertokens.webserver.api.dashboard.GetDashboardSessionsForUserAPI;
@@ -39,6 +41,7 @@ import io.supertokens.webserver.api.emailverification.GenerateEmailVerificationT
 import io.supertokens.webserver.api.emailverification.RevokeAllTokensForUserAPI;
 import io.supertokens.webserver.api.emailverification.UnverifyEmailAPI;
 import io.supertokens.webserver.api.emailverification.VerifyEmailAPI;
+import io.supertokens.webserver.api.emailverification.VerifyEmailBulkAPI;
 import io.supertokens.webserver.api.jwt.JWKSAPI;
 import io.supertokens.webserver.api.jwt.JWTSigningAPI;
 import io.supertokens.webserver.api.passwordless.*;
@@ -60,7 +63,6 @@ import org.apache.catalina.LifecycleException;
 import org.apache.catalina.LifecycleState;
 import org.apache.catalina.connector.Connector;
 import org.apache.catalina.core.StandardContext;
-import org.apache.catalina.filters.RemoteAddrFilter;
 import org.apache.catalina.startup.Tomcat;
 import org.apache.tomcat.util.descriptor.web.FilterDef;
 import org.apache.tomcat.util.descriptor.web.FilterMap;
@@ -70,6 +72,7 @@ import java.io.File;
 import java.util.UUID;
 import java.util.logging.Handler;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
 public class Webserver extends ResourceDistributor.SingletonResource {
@@ -173,40 +176,53 @@ public class Webserver extends ResourceDistributor.SingletonResource {
     }
 
     private void addRemoteAddressFilter(StandardContext context, Main main) {
-        String allow = Config.getConfig(main).getIpAllowRegex();
-        String deny = Config.getConfig(main).getIpDenyRegex();
-        if (allow == null && deny == null) {
+        CoreConfig config = Config.getConfig(main);
+        String allowRegex = config.getIpAllowRegex();
+        String denyRegex = config.getIpDenyRegex();
+        String allowCidrs = config.getIpAllowCidrs();
+        String denyCidrs = config.getIpDenyCidrs();
+        if (allowRegex == null && denyRegex == null && allowCidrs == null && denyCidrs == null) {
             return;
         }
         ProcessState.getInstance(main).addState(ProcessState.PROCESS_STATE.ADDING_REMOTE_ADDRESS_FILTER, null);
-        RemoteAddrFilter filter = new RemoteAddrFilter();
-        if (allow != null) {
-            try {
-                filter.setAllow(allow);
-            } catch (PatternSyntaxException e) {
-                throw new QuitProgramException("Provided regular expression is invalid for ip_allow_regex config");
-            }
-        }
-        if (deny != null) {
-            try {
-                filter.setDeny(deny);
-            } catch (PatternSyntaxException e) {
-                throw new QuitProgramException("Provided regular expression is invalid for ip_deny_regex config");
-            }
-        }
-        filter.setDenyStatus(403);
+        RemoteAddressFilter filter = new RemoteAddressFilter(compileRegex(allowRegex, "ip_allow_regex"),
+                parseCidrs(allowCidrs, "ip_allow_cidrs"), compileRegex(denyRegex, "ip_deny_regex"),
+                parseCidrs(denyCidrs, "ip_deny_cidrs"));
 
         FilterDef filterDefinition = new FilterDef();
         filterDefinition.setFilter(filter);
-        filterDefinition.setFilterName(RemoteAddrFilter.class.getSimpleName());
+        filterDefinition.setFilterName(RemoteAddressFilter.class.getSimpleName());
         context.addFilterDef(filterDefinition);
 
         FilterMap filterMapping = new FilterMap();
-        filterMapping.setFilterName(RemoteAddrFilter.class.getSimpleName());
+        filterMapping.setFilterName(RemoteAddressFilter.class.getSimpleName());
         filterMapping.addURLPattern("*");
         context.addFilterMap(filterMapping);
     }
 
+    private static Pattern compileRegex(String regex, String configName) {
+        if (regex == null) {
+            return null;
+        }
+        try {
+            return Pattern.compile(regex);
+        } catch (PatternSyntaxException e) {
+            throw new QuitProgramException("Provided regular expression is invalid for " + configName + " config");
+        }
+    }
+
+    private static IpAddressRanges parseCidrs(String cidrs, String configName) {
+        if (cidrs == null) {
+            return null;
+        }
+        try {
+            return IpAddressRanges.parse(cidrs);
+        } catch (IllegalArgumentException e) {
+            throw new QuitProgramException(
+                    "Provided value is invalid for " + configName + " config: " + e.getMessage());
+        }
+    }
+
     private void setupRoutes() throws Exception {
         addAPI(new NotFoundOrHelloAPI(main));
         addAPI(new HelloAPI(main));
@@ -230,6 +246,7 @@ public class Webserver extends ResourceDistributor.SingletonResource {
                 new io.supertokens.webserver.api.passwordless.UserAPI(main)));
         addAPI(new GenerateEmailVerificationTokenAPI(main));
         addAPI(new VerifyEmailAPI(main));
+        addAPI(new VerifyEmailBulkAPI(main));
         addAPI(new GetUsersByEmailAPI(main));
         addAPI(new SignInUpAPI(main));
         addAPI(new GetCodesAPI(main));
@@ -241,7 +258,9 @@ public class Webserver extends ResourceDistributor.SingletonResource {
         addAPI(new UsersCountAPI(main));
         addAPI(new ActiveUsersCountAPI(main));
         addAPI(new UsersAPI(main));
+        addAPI(new UsersExportAPI(main));
         addAPI(new DeleteUserAPI(main));
+        addAPI(new DeleteUsersAPI(main));
         addAPI(new RevokeAllTokensForUserAPI(main));
         addAPI(new UnverifyEmailAPI(main));
         addAPI(new JWTSigningAPI(main));
@@ -252,6 +271,7 @@ public class Webserver extends ResourceDistributor.SingletonResource {
         addAPI(new AddUserRoleAPI(main));
         addAPI(new RemoveUserRoleAPI(main));
         addAPI(new GetRolesForUserAPI(main));
+        addAPI(new GetRolesAndPermissionsForUserAPI(main));
         addAPI(new GetUsersForRoleAPI(main));
         addAPI(new GetPermissionsForRoleAPI(main));
         addAPI(new RemovePermissionsForRoleAPI(main));
@@ -267,6 +287,7 @@ public class Webserver extends ResourceDistributor.SingletonResource {
         addAPI(new GetTotpDevicesAPI(main));
         addAPI(new UpdateExternalUserIdInfoAPI(main));
         addAPI(new ImportUserWithPasswordHashAPI(main));
+        addAPI(new BulkImportUsersWithPasswordHashAPI(main));
         addAPI(new LicenseKeyAPI(main));
         addAPI(new EEFeatureFlagAPI(main));
         addAPI(new DashboardUserAPI(main));
@@ -276,6 +297,9 @@ public class Webserver extends ResourceDistributor.SingletonResource {
         addAPI(new GetDashboardUsersAPI(main));
         addAPI(new GetDashboardSessionsForUserAPI(main));
         addAPI(new SearchTagsAPI(main));
+        addAPI(new StartupReportAPI(main));
+        addAPI(new CacheMetricsAPI(main));
+        addAPI(new TransactionMetricsAPI(main));
         // deprecated APIs:
         addAPI(new RecipeRouter(main, new io.supertokens.webserver.api.emailpassword.UsersAPI(main),
                 new io.supertokens.webserver.api.thirdparty.UsersAPI(main)));
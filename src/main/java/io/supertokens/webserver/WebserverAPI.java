@@ -22,6 +22,7 @@ import io.supertokens.config.Config;
 import io.supertokens.exceptions.QuitProgramException;
 import io.supertokens.featureflag.exceptions.FeatureNotEnabledException;
 import io.supertokens.output.Logging;
+import io.supertokens.startup.StartupPhases;
 import io.supertokens.utils.SemVer;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServlet;
@@ -82,7 +83,18 @@ public abstract class WebserverAPI extends HttpServlet {
     protected void sendJsonResponse(int statusCode, JsonElement json, HttpServletResponse resp) throws IOException {
         resp.setStatus(statusCode);
         resp.setHeader("Content-Type", "application/json; charset=UTF-8");
-        resp.getWriter().println(json.toString());
+        JsonResponseWriter.write(json, resp, null);
+    }
+
+    /**
+     * Like sendJsonResponse, but gzips the response if it is large and the client accepts gzip. Meant for responses
+     * that can get large, like lists of users.
+     */
+    protected void sendCompressibleJsonResponse(int statusCode, JsonElement json, HttpServletRequest req,
+                                                HttpServletResponse resp) throws IOException {
+        resp.setStatus(statusCode);
+        resp.setHeader("Content-Type", "application/json; charset=UTF-8");
+        JsonResponseWriter.write(json, resp, req);
     }
 
     @Override
@@ -157,6 +169,9 @@ public abstract class WebserverAPI extends HttpServlet {
     @Override
     protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         try {
+            // the webserver is started alongside other startup phases, which have to be done before an API can be
+            // called
+            StartupPhases.awaitCompletion(main);
             if (this.checkAPIKey(req)) {
                 assertThatAPIKeyCheckPasses(req.getHeader("api-key"));
             }
@@ -173,8 +188,16 @@ public abstract class WebserverAPI extends HttpServlet {
         } catch (Exception e) {
             Logging.error(main, "API threw an exception: " + req.getMethod() + " " + this.getPath(), Main.isTesting, e);
 
+            if (!resp.isCommitted()) {
+                // the API may have started writing its response through the output stream (see JsonResponseWriter)
+                // or set headers like Content-Encoding, which don't apply to the error text sent below
+                resp.reset();
+            }
+
             if (e instanceof QuitProgramException) {
                 main.wakeUpMainThreadToShutdown();
+            } else if (resp.isCommitted()) {
+                // part of the response has already been sent, so the status can't be changed anymore
             } else if (e instanceof FeatureNotEnabledException) {
                 sendTextResponse(402, e.getMessage(), resp);
             } else if (e instanceof ServletException) {
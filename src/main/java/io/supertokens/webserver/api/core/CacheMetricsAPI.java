@@ -0,0 +1,66 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.webserver.api.core;
+
+import com.google.gson.JsonObject;
+import io.supertokens.Main;
+import io.supertokens.useridmapping.UserIdMappingCache;
+import io.supertokens.usermetadata.UserMetadataCache;
+import io.supertokens.webserver.WebserverAPI;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+public class CacheMetricsAPI extends WebserverAPI {
+    private static final long serialVersionUID = -6109236478203526814L;
+
+    public CacheMetricsAPI(Main main) {
+        super(main, "");
+    }
+
+    @Override
+    public String getPath() {
+        return "/metrics/caches";
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException, ServletException {
+        UserIdMappingCache userIdMappingCache = UserIdMappingCache.getInstance(main);
+        JsonObject userIdMapping = new JsonObject();
+        userIdMapping.addProperty("enabled", userIdMappingCache.isEnabled());
+        userIdMapping.addProperty("size", userIdMappingCache.size());
+        userIdMapping.addProperty("hitCount", userIdMappingCache.getHitCount());
+        userIdMapping.addProperty("missCount", userIdMappingCache.getMissCount());
+        userIdMapping.addProperty("hitRatio", userIdMappingCache.getHitRatio());
+
+        UserMetadataCache userMetadataCache = UserMetadataCache.getInstance(main);
+        JsonObject userMetadata = new JsonObject();
+        userMetadata.addProperty("enabled", userMetadataCache.isEnabled());
+        userMetadata.addProperty("usedBytes", userMetadataCache.getUsedBytes());
+        userMetadata.addProperty("evictionCount", userMetadataCache.getEvictionCount());
+        userMetadata.addProperty("hitCount", userMetadataCache.getHitCount());
+        userMetadata.addProperty("missCount", userMetadataCache.getMissCount());
+
+        JsonObject result = new JsonObject();
+        result.addProperty("status", "OK");
+        result.add("userIdMapping", userIdMapping);
+        result.add("userMetadata", userMetadata);
+        super.sendJsonResponse(200, result, resp);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.webserver.api.core;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import io.supertokens.Main;
+import io.supertokens.authRecipe.AuthRecipe;
+import io.supertokens.webserver.InputParser;
+import io.supertokens.webserver.WebserverAPI;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class DeleteUsersAPI extends WebserverAPI {
+    private static final long serialVersionUID = 6514880427365370416L;
+
+    static final int MAX_USERS_PER_REQUEST = 10000;
+
+    public DeleteUsersAPI(Main main) {
+        super(main, "");
+    }
+
+    @Override
+    public String getPath() {
+        return "/users/remove";
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws IOException, ServletException {
+        JsonObject input = InputParser.parseJsonObjectOrThrowError(req);
+        JsonArray userIdsJson = InputParser.parseArrayOrThrowError(input, "userIds", false);
+        assert userIdsJson != null;
+
+        if (userIdsJson.size() > MAX_USERS_PER_REQUEST) {
+            throw new ServletException(new BadRequestException(
+                    "Field name 'userIds' can have at most " + MAX_USERS_PER_REQUEST + " items"));
+        }
+
+        List<String> userIds = new ArrayList<>();
+        for (JsonElement userId : userIdsJson) {
+            if (!userId.isJsonPrimitive() || !userId.getAsJsonPrimitive().isString()) {
+                throw new ServletException(new BadRequestException("Field name 'userIds' must be an array of strings"));
+            }
+            userIds.add(userId.getAsString());
+        }
+
+        JsonArray usersResult = new JsonArray();
+        for (Map.Entry<String, AuthRecipe.DeleteUserStatus> entry : AuthRecipe.deleteUsers(super.main, userIds)
+                .entrySet()) {
+            JsonObject userResult = new JsonObject();
+            userResult.addProperty("userId", entry.getKey());
+            switch (entry.getValue()) {
+                case OK:
+                    userResult.addProperty("status", "OK");
+                    break;
+                case UNKNOWN_USER_ID:
+                    userResult.addProperty("status", "UNKNOWN_USER_ID_ERROR");
+                    break;
+                default:
+                    userResult.addProperty("status", "ERROR");
+            }
+            usersResult.add(userResult);
+        }
+
+        JsonObject result = new JsonObject();
+        result.addProperty("status", "OK");
+        result.add("users", usersResult);
+        super.sendJsonResponse(200, result, resp);
+    }
+}
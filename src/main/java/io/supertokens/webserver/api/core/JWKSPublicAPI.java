@@ -16,15 +16,14 @@
 
 package io.supertokens.webserver.api.core;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import io.supertokens.Main;
 import io.supertokens.pluginInterface.RECIPE_ID;
 import io.supertokens.pluginInterface.exceptions.StorageQueryException;
 import io.supertokens.pluginInterface.exceptions.StorageTransactionLogicException;
 import io.supertokens.signingkeys.SigningKeys;
+import io.supertokens.utils.SharedGson;
 import io.supertokens.webserver.WebserverAPI;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -60,7 +59,7 @@ public class JWKSPublicAPI extends WebserverAPI {
         try {
             List<JsonObject> jwks = SigningKeys.getInstance(main).getJWKS();
             JsonObject reply = new JsonObject();
-            JsonArray jwksJsonArray = new JsonParser().parse(new Gson().toJson(jwks)).getAsJsonArray();
+            JsonArray jwksJsonArray = SharedGson.DEFAULT.toJsonTree(jwks).getAsJsonArray();
             reply.add("keys", jwksJsonArray);
             super.sendJsonResponse(200, reply, resp);
         } catch (StorageQueryException | StorageTransactionLogicException | NoSuchAlgorithmException
@@ -0,0 +1,62 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.webserver.api.core;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import io.supertokens.Main;
+import io.supertokens.startup.StartupPhases;
+import io.supertokens.webserver.WebserverAPI;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+public class StartupReportAPI extends WebserverAPI {
+    private static final long serialVersionUID = 3872604716219461021L;
+
+    public StartupReportAPI(Main main) {
+        super(main, "");
+    }
+
+    @Override
+    public String getPath() {
+        return "/startup/report";
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException, ServletException {
+        StartupPhases startupPhases = StartupPhases.getInstance(main);
+
+        JsonArray phases = new JsonArray();
+        for (StartupPhases.PhaseTiming timing : startupPhases.getPhaseTimings()) {
+            JsonObject phase = new JsonObject();
+            phase.addProperty("name", timing.name);
+            phase.addProperty("thread", timing.threadName);
+            phase.addProperty("startOffsetMs", timing.startOffsetMs);
+            phase.addProperty("durationMs", timing.durationMs);
+            phases.add(phase);
+        }
+
+        JsonObject result = new JsonObject();
+        result.addProperty("status", "OK");
+        result.addProperty("totalDurationMs", startupPhases.getTotalDurationMs());
+        result.add("phases", phases);
+        super.sendJsonResponse(200, result, resp);
+    }
+}
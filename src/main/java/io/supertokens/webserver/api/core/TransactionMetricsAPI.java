@@ -0,0 +1,63 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.webserver.api.core;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import io.supertokens.Main;
+import io.supertokens.storageLayer.TransactionRetryPolicy;
+import io.supertokens.webserver.WebserverAPI;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class TransactionMetricsAPI extends WebserverAPI {
+    private static final long serialVersionUID = 4412871620549386523L;
+
+    public TransactionMetricsAPI(Main main) {
+        super(main, "");
+    }
+
+    @Override
+    public String getPath() {
+        return "/metrics/transactions";
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException, ServletException {
+        JsonArray callSites = new JsonArray();
+        for (Map.Entry<String, TransactionRetryPolicy.CallSiteStats> entry : new TreeMap<>(
+                TransactionRetryPolicy.getInstance(main).getCallSiteStats()).entrySet()) {
+            JsonObject callSite = new JsonObject();
+            callSite.addProperty("name", entry.getKey());
+            callSite.addProperty("attempts", entry.getValue().getAttempts());
+            callSite.addProperty("retries", entry.getValue().getRetries());
+            callSite.addProperty("aborts", entry.getValue().getAborts());
+            callSite.addProperty("waitTimeMs", entry.getValue().getWaitTimeMs());
+            callSites.add(callSite);
+        }
+
+        JsonObject result = new JsonObject();
+        result.addProperty("status", "OK");
+        result.add("callSites", callSites);
+        super.sendJsonResponse(200, result, resp);
+    }
+}
@@ -16,10 +16,8 @@
 
 package io.supertokens.webserver.api.core;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import io.supertokens.Main;
 import io.supertokens.authRecipe.AuthRecipe;
 import io.supertokens.authRecipe.UserPaginationContainer;
@@ -29,6 +27,7 @@ import io.supertokens.pluginInterface.RECIPE_ID;
 import io.supertokens.pluginInterface.dashboard.DashboardSearchTags;
 import io.supertokens.pluginInterface.exceptions.StorageQueryException;
 import io.supertokens.useridmapping.UserIdMapping;
+import io.supertokens.utils.SharedGson;
 import io.supertokens.utils.Utils;
 import io.supertokens.webserver.InputParser;
 import io.supertokens.webserver.WebserverAPI;
@@ -174,13 +173,13 @@ public class UsersAPI extends WebserverAPI {
             JsonObject result = new JsonObject();
             result.addProperty("status", "OK");
 
-            JsonArray usersJson = new JsonParser().parse(new Gson().toJson(users.users)).getAsJsonArray();
+            JsonArray usersJson = SharedGson.DEFAULT.toJsonTree(users.users).getAsJsonArray();
             result.add("users", usersJson);
 
             if (users.nextPaginationToken != null) {
                 result.addProperty("nextPaginationToken", users.nextPaginationToken);
             }
-            super.sendJsonResponse(200, result, resp);
+            super.sendCompressibleJsonResponse(200, result, req, resp);
         } catch (UserPaginationToken.InvalidTokenException e) {
             Logging.debug(main, Utils.exceptionStacktraceToString(e));
             throw new ServletException(new BadRequestException("invalid pagination token"));
@@ -0,0 +1,176 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.webserver.api.core;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import io.supertokens.Main;
+import io.supertokens.authRecipe.AuthRecipe;
+import io.supertokens.authRecipe.UserPaginationContainer;
+import io.supertokens.authRecipe.UserPaginationToken;
+import io.supertokens.output.Logging;
+import io.supertokens.pluginInterface.RECIPE_ID;
+import io.supertokens.pluginInterface.exceptions.StorageQueryException;
+import io.supertokens.useridmapping.UserIdMapping;
+import io.supertokens.utils.SharedGson;
+import io.supertokens.utils.Utils;
+import io.supertokens.webserver.InputParser;
+import io.supertokens.webserver.WebserverAPI;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Streams all users as newline delimited JSON. Users are read in chunks using the same keyset cursor as the
+ * paginated /users API, so only one chunk is in memory at a time and there is no limit on the total number of users.
+ * <p>
+ * Each line is one of:
+ * - {"recipeId": "...", "user": {...}}: same shape as an element of the users array returned by /users
+ * - {"nextCursor": "..."}: written after each chunk if there are more users. The export can be resumed from this
+ * point by calling this API again with the cursor query param set to this value.
+ * - {"status": "OK"}: always the last line, written once all users have been exported. If the stream ends without
+ * this line, the export should be resumed from the last received cursor.
+ */
+public class UsersExportAPI extends WebserverAPI {
+
+    private static final long serialVersionUID = 4380916233741720384L;
+
+    private static final int MAX_CHUNK_SIZE = 1000;
+
+    public UsersExportAPI(Main main) {
+        super(main, "");
+    }
+
+    @Override
+    public String getPath() {
+        return "/users/export";
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException, ServletException {
+        String[] recipeIdStrings = InputParser.getCommaSeparatedStringArrayQueryParamOrThrowError(req,
+                "includeRecipeIds", true);
+        RECIPE_ID[] recipeIds = new RECIPE_ID[recipeIdStrings == null ? 0 : recipeIdStrings.length];
+        for (int i = 0; i < recipeIds.length; i++) {
+            recipeIds[i] = RECIPE_ID.getEnumFromString(recipeIdStrings[i]);
+            if (recipeIds[i] == null) {
+                throw new ServletException(new BadRequestException("Unknown recipe ID: " + recipeIdStrings[i]));
+            }
+        }
+
+        String timeJoinedOrder = InputParser.getQueryParamOrThrowError(req, "timeJoinedOrder", true);
+        if (timeJoinedOrder != null) {
+            if (!timeJoinedOrder.equals("ASC") && !timeJoinedOrder.equals("DESC")) {
+                throw new ServletException(new BadRequestException("timeJoinedOrder can be either ASC OR DESC"));
+            }
+        } else {
+            timeJoinedOrder = "ASC";
+        }
+
+        Integer chunkSize = InputParser.getIntQueryParamOrThrowError(req, "chunkSize", true);
+        if (chunkSize != null) {
+            if (chunkSize < 1 || chunkSize > MAX_CHUNK_SIZE) {
+                throw new ServletException(
+                        new BadRequestException("chunkSize must be between 1 and " + MAX_CHUNK_SIZE));
+            }
+        } else {
+            chunkSize = MAX_CHUNK_SIZE;
+        }
+
+        String cursor = InputParser.getQueryParamOrThrowError(req, "cursor", true);
+        if (cursor != null) {
+            // we check this before anything is written so that an invalid cursor can still be reported as a 400
+            try {
+                UserPaginationToken.extractTokenInfo(cursor);
+            } catch (UserPaginationToken.InvalidTokenException e) {
+                Logging.debug(main, Utils.exceptionStacktraceToString(e));
+                throw new ServletException(new BadRequestException("invalid cursor"));
+            }
+        }
+
+        resp.setStatus(200);
+        resp.setHeader("Content-Type", "application/x-ndjson; charset=UTF-8");
+        PrintWriter writer = resp.getWriter();
+        Gson gson = SharedGson.DEFAULT;
+
+        try {
+            do {
+                UserPaginationContainer users = AuthRecipe.getUsers(super.main, chunkSize, timeJoinedOrder, cursor,
+                        recipeIds, null);
+                replaceWithExternalUserIds(users);
+
+                for (UserPaginationContainer.UsersContainer user : users.users) {
+                    gson.toJson(user, writer);
+                    writer.write('\n');
+                }
+
+                cursor = users.nextPaginationToken;
+                if (cursor != null) {
+                    JsonObject cursorJson = new JsonObject();
+                    cursorJson.addProperty("nextCursor", cursor);
+                    writer.write(cursorJson.toString());
+                    writer.write('\n');
+                }
+                // we flush after each chunk so that the client gets the users (and the cursor to resume from) as
+                // soon as they are read
+                writer.flush();
+            } while (cursor != null);
+
+            JsonObject result = new JsonObject();
+            result.addProperty("status", "OK");
+            writer.write(result.toString());
+            writer.write('\n');
+            writer.flush();
+        } catch (UserPaginationToken.InvalidTokenException e) {
+            // cannot happen since we generated this token ourselves, or validated it above
+            throw new ServletException(e);
+        } catch (StorageQueryException e) {
+            if (!resp.isCommitted()) {
+                throw new ServletException(e);
+            }
+            // part of the output has already been sent, so we cannot change the status code anymore. We end the
+            // stream without the status line so that the client knows to resume from the last cursor.
+            Logging.error(main, "Users export failed after part of the output was sent", Main.isTesting, e);
+        }
+    }
+
+    private void replaceWithExternalUserIds(UserPaginationContainer users) throws StorageQueryException {
+        if (users.users.length == 0) {
+            return;
+        }
+        ArrayList<String> userIds = new ArrayList<>();
+        for (UserPaginationContainer.UsersContainer user : users.users) {
+            userIds.add(user.user.id);
+        }
+        HashMap<String, String> userIdMapping = UserIdMapping.getUserIdMappingForSuperTokensUserIds(super.main,
+                userIds);
+        if (userIdMapping.isEmpty()) {
+            return;
+        }
+        for (UserPaginationContainer.UsersContainer user : users.users) {
+            String externalId = userIdMapping.get(user.user.id);
+            if (externalId != null) {
+                user.user.id = externalId;
+            }
+        }
+    }
+}
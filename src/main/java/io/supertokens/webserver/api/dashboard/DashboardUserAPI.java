@@ -16,9 +16,7 @@
 
 package io.supertokens.webserver.api.dashboard;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import io.supertokens.Main;
 import io.supertokens.dashboard.Dashboard;
 import io.supertokens.featureflag.exceptions.FeatureNotEnabledException;
@@ -28,6 +26,7 @@ import io.supertokens.pluginInterface.dashboard.exceptions.DuplicateEmailExcepti
 import io.supertokens.pluginInterface.dashboard.exceptions.UserIdNotFoundException;
 import io.supertokens.pluginInterface.exceptions.StorageQueryException;
 import io.supertokens.pluginInterface.exceptions.StorageTransactionLogicException;
+import io.supertokens.utils.SharedGson;
 import io.supertokens.webserver.InputParser;
 import io.supertokens.webserver.Utils;
 import io.supertokens.webserver.WebserverAPI;
@@ -88,7 +87,7 @@ public class DashboardUserAPI extends WebserverAPI {
             }
 
             DashboardUser user = Dashboard.signUpDashboardUser(main, email, password);
-            JsonObject userAsJsonObject = new JsonParser().parse(new Gson().toJson(user)).getAsJsonObject();
+            JsonObject userAsJsonObject = SharedGson.DEFAULT.toJsonTree(user).getAsJsonObject();
 
             JsonObject response = new JsonObject();
             response.addProperty("status", "OK");
@@ -146,8 +145,7 @@ public class DashboardUserAPI extends WebserverAPI {
 
                 // retrieve updated user details
                 DashboardUser user = Dashboard.updateUsersCredentialsWithUserId(main, userId, newEmail, newPassword);
-                JsonObject userJsonObject = new JsonParser().parse(new Gson().toJson(user))
-                        .getAsJsonObject();
+                JsonObject userJsonObject = SharedGson.DEFAULT.toJsonTree(user).getAsJsonObject();
                 JsonObject response = new JsonObject();
                 response.addProperty("status", "OK");
                 response.add("user", userJsonObject);
@@ -170,7 +168,7 @@ public class DashboardUserAPI extends WebserverAPI {
                 // retrieve updated user details
                 DashboardUser updatedUser = Dashboard.updateUsersCredentialsWithUserId(main, user.userId, newEmail,
                         newPassword);
-                JsonObject userJsonObject = new JsonParser().parse(new Gson().toJson(updatedUser)).getAsJsonObject();
+                JsonObject userJsonObject = SharedGson.DEFAULT.toJsonTree(updatedUser).getAsJsonObject();
                 JsonObject response = new JsonObject();
                 response.addProperty("status", "OK");
                 response.add("user", userJsonObject);
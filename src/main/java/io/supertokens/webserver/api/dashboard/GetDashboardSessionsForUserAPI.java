@@ -18,7 +18,6 @@ package io.supertokens.webserver.api.dashboard;
 
 import java.io.IOException;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 
@@ -26,6 +25,7 @@ import io.supertokens.Main;
 import io.supertokens.dashboard.Dashboard;
 import io.supertokens.pluginInterface.RECIPE_ID;
 import io.supertokens.pluginInterface.exceptions.StorageQueryException;
+import io.supertokens.utils.SharedGson;
 import io.supertokens.webserver.InputParser;
 import io.supertokens.webserver.Utils;
 import io.supertokens.webserver.WebserverAPI;
@@ -53,7 +53,7 @@ public class GetDashboardSessionsForUserAPI extends WebserverAPI{
         
         try {
             
-            JsonArray arr = new com.google.gson.JsonParser().parse(new Gson().toJson(Dashboard.getAllDashboardSessionsForUser(main, userId))).getAsJsonArray();
+            JsonArray arr = SharedGson.DEFAULT.toJsonTree(Dashboard.getAllDashboardSessionsForUser(main, userId)).getAsJsonArray();
             JsonObject response = new JsonObject();
             response.addProperty("status", "OK");
             response.add("sessions", arr);
@@ -17,7 +17,6 @@ package io.supertokens.webserver.api.dashboard;
 
 import java.io.IOException;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 
@@ -25,6 +24,7 @@ import io.supertokens.Main;
 import io.supertokens.dashboard.Dashboard;
 import io.supertokens.pluginInterface.RECIPE_ID;
 import io.supertokens.pluginInterface.exceptions.StorageQueryException;
+import io.supertokens.utils.SharedGson;
 import io.supertokens.webserver.WebserverAPI;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -48,7 +48,7 @@ public class GetDashboardUsersAPI extends WebserverAPI {
 
         try {
             
-            JsonArray arr = new com.google.gson.JsonParser().parse(new Gson().toJson(Dashboard.getAllDashboardUsers(main))).getAsJsonArray();
+            JsonArray arr = SharedGson.DEFAULT.toJsonTree(Dashboard.getAllDashboardUsers(main)).getAsJsonArray();
             JsonObject response = new JsonObject();
             response.addProperty("status", "OK");
             response.add("users", arr);
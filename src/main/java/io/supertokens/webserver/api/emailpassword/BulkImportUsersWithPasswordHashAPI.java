@@ -0,0 +1,114 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.webserver.api.emailpassword;
+
+import com.google.gson.JsonObject;
+import io.supertokens.Main;
+import io.supertokens.config.Config;
+import io.supertokens.emailpassword.bulkImport.BulkImport;
+import io.supertokens.emailpassword.bulkImport.BulkImportJob;
+import io.supertokens.pluginInterface.RECIPE_ID;
+import io.supertokens.webserver.InputParser;
+import io.supertokens.webserver.WebserverAPI;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serial;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class BulkImportUsersWithPasswordHashAPI extends WebserverAPI {
+    @Serial
+    private static final long serialVersionUID = -2225750492558064634L;
+
+    public BulkImportUsersWithPasswordHashAPI(Main main) {
+        super(main, RECIPE_ID.EMAIL_PASSWORD.toString());
+    }
+
+    @Override
+    public String getPath() {
+        return "/recipe/user/passwordhash/import/bulk";
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws IOException, ServletException {
+        // the body is either a JSON array of {email, passwordHash, hashingAlgorithm?} objects, or one such object per
+        // line (NDJSON). We do not parse it here - we only copy it to disk so that the import can outlive this request.
+        Integer batchSize = InputParser.getIntQueryParamOrThrowError(req, "batchSize", true);
+        if (batchSize != null && (batchSize <= 0 || batchSize > 10000)) {
+            throw new ServletException(new BadRequestException("batchSize must be between 1 and 10000"));
+        }
+
+        long maxInputBytes = Config.getConfig(main).getBulkImportMaxInputBytes();
+        if (req.getContentLengthLong() > maxInputBytes) {
+            throw new ServletException(new BadRequestException(
+                    "Request body must not be larger than " + maxInputBytes + " bytes"));
+        }
+
+        Path input = Files.createTempFile("supertokens-bulk-import", ".json");
+        boolean tooLarge = false;
+        try (InputStream body = req.getInputStream(); OutputStream out = Files.newOutputStream(input)) {
+            // chunked requests have no content length, so we also count the bytes as we copy them
+            byte[] buffer = new byte[8192];
+            long copied = 0;
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                copied += read;
+                if (copied > maxInputBytes) {
+                    tooLarge = true;
+                    break;
+                }
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(input);
+            throw e;
+        }
+        if (tooLarge) {
+            Files.deleteIfExists(input);
+            throw new ServletException(new BadRequestException(
+                    "Request body must not be larger than " + maxInputBytes + " bytes"));
+        }
+
+        BulkImportJob job = BulkImport.getInstance(main).startJob(input, batchSize);
+
+        JsonObject response = new JsonObject();
+        response.addProperty("status", "OK");
+        response.addProperty("jobId", job.jobId);
+        super.sendJsonResponse(200, response, resp);
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException, ServletException {
+        String jobId = InputParser.getQueryParamOrThrowError(req, "jobId", false);
+
+        BulkImportJob job = BulkImport.getInstance(main).getJob(jobId);
+
+        JsonObject response = new JsonObject();
+        if (job == null) {
+            response.addProperty("status", "UNKNOWN_JOB_ID_ERROR");
+        } else {
+            response.addProperty("status", "OK");
+            response.add("job", job.toJson());
+        }
+        super.sendJsonResponse(200, response, resp);
+    }
+}
@@ -16,16 +16,15 @@
 
 package io.supertokens.webserver.api.emailpassword;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import io.supertokens.Main;
 import io.supertokens.authRecipe.UserPaginationToken;
 import io.supertokens.emailpassword.EmailPassword;
 import io.supertokens.emailpassword.UserPaginationContainer;
 import io.supertokens.pluginInterface.RECIPE_ID;
 import io.supertokens.pluginInterface.exceptions.StorageQueryException;
+import io.supertokens.utils.SharedGson;
 import io.supertokens.webserver.InputParser;
 import io.supertokens.webserver.WebserverAPI;
 
@@ -93,12 +92,12 @@ public class UsersAPI extends WebserverAPI {
             UserPaginationContainer users = EmailPassword.getUsers(super.main, paginationToken, limit, timeJoinedOrder);
             JsonObject result = new JsonObject();
             result.addProperty("status", "OK");
-            JsonArray usersJson = new JsonParser().parse(new Gson().toJson(users.users)).getAsJsonArray();
+            JsonArray usersJson = SharedGson.DEFAULT.toJsonTree(users.users).getAsJsonArray();
             result.add("users", usersJson);
             if (users.nextPaginationToken != null) {
                 result.addProperty("nextPaginationToken", users.nextPaginationToken);
             }
-            super.sendJsonResponse(200, result, resp);
+            super.sendCompressibleJsonResponse(200, result, req, resp);
         } catch (UserPaginationToken.InvalidTokenException e) {
             throw new ServletException(new WebserverAPI.BadRequestException("invalid pagination token"));
         } catch (StorageQueryException e) {
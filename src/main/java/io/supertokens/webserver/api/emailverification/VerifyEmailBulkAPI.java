@@ -0,0 +1,92 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.webserver.api.emailverification;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import io.supertokens.Main;
+import io.supertokens.emailverification.EmailVerification;
+import io.supertokens.pluginInterface.RECIPE_ID;
+import io.supertokens.pluginInterface.exceptions.StorageQueryException;
+import io.supertokens.webserver.InputParser;
+import io.supertokens.webserver.WebserverAPI;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class VerifyEmailBulkAPI extends WebserverAPI {
+    private static final long serialVersionUID = -3265930918250147012L;
+
+    static final int MAX_USERS_PER_REQUEST = 1000;
+
+    public VerifyEmailBulkAPI(Main main) {
+        super(main, RECIPE_ID.EMAIL_VERIFICATION.toString());
+    }
+
+    @Override
+    public String getPath() {
+        return "/recipe/user/email/verify/bulk";
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws IOException, ServletException {
+        // this only reads data, but is a POST so that the list of users does not have to fit in the URL
+        JsonObject input = InputParser.parseJsonObjectOrThrowError(req);
+        JsonArray users = InputParser.parseArrayOrThrowError(input, "users", false);
+        assert users != null;
+
+        if (users.size() > MAX_USERS_PER_REQUEST) {
+            throw new ServletException(new BadRequestException(
+                    "Field name 'users' can have at most " + MAX_USERS_PER_REQUEST + " items"));
+        }
+
+        List<String> userIds = new ArrayList<>();
+        List<String> emails = new ArrayList<>();
+        for (JsonElement user : users) {
+            if (!user.isJsonObject()) {
+                throw new ServletException(new BadRequestException("Field name 'users' must be an array of objects"));
+            }
+            userIds.add(InputParser.parseStringOrThrowError(user.getAsJsonObject(), "userId", false));
+            emails.add(InputParser.parseStringOrThrowError(user.getAsJsonObject(), "email", false));
+        }
+
+        try {
+            boolean[] isVerified = EmailVerification.areEmailsVerified(super.main, userIds, emails);
+
+            JsonArray usersResult = new JsonArray();
+            for (int i = 0; i < userIds.size(); i++) {
+                JsonObject userResult = new JsonObject();
+                userResult.addProperty("userId", userIds.get(i));
+                userResult.addProperty("email", emails.get(i));
+                userResult.addProperty("isVerified", isVerified[i]);
+                usersResult.add(userResult);
+            }
+
+            JsonObject result = new JsonObject();
+            result.addProperty("status", "OK");
+            result.add("users", usersResult);
+            super.sendJsonResponse(200, result, resp);
+        } catch (StorageQueryException e) {
+            throw new ServletException(e);
+        }
+    }
+}
@@ -16,16 +16,15 @@
 
 package io.supertokens.webserver.api.jwt;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import io.supertokens.Main;
 import io.supertokens.jwt.JWTSigningFunctions;
 import io.supertokens.pluginInterface.RECIPE_ID;
 import io.supertokens.pluginInterface.exceptions.StorageQueryException;
 import io.supertokens.pluginInterface.exceptions.StorageTransactionLogicException;
 import io.supertokens.signingkeys.SigningKeys;
+import io.supertokens.utils.SharedGson;
 import io.supertokens.webserver.WebserverAPI;
 
 import jakarta.servlet.ServletException;
@@ -54,7 +53,7 @@ public class JWKSAPI extends WebserverAPI {
         try {
             List<JsonObject> jwks = SigningKeys.getInstance(main).getJWKS();
             JsonObject reply = new JsonObject();
-            JsonArray jwksJsonArray = new JsonParser().parse(new Gson().toJson(jwks)).getAsJsonArray();
+            JsonArray jwksJsonArray = SharedGson.DEFAULT.toJsonTree(jwks).getAsJsonArray();
             reply.add("keys", jwksJsonArray);
             reply.addProperty("status", "OK");
             super.sendJsonResponse(200, reply, resp);
@@ -54,6 +54,15 @@ public class SessionRemoveAPI extends WebserverAPI {
 
         String userId = InputParser.parseStringOrThrowError(input, "userId", true);
 
+        JsonArray userIdsArr = InputParser.parseArrayOrThrowError(input, "userIds", true);
+        String[] userIds = null;
+        if (userIdsArr != null) {
+            userIds = new String[userIdsArr.size()];
+            for (int i = 0; i < userIds.length; i++) {
+                userIds[i] = InputParser.parseStringFromElementOrThrowError(userIdsArr.get(i), "userIds", false);
+            }
+        }
+
         JsonArray arr = InputParser.parseArrayOrThrowError(input, "sessionHandles", true);
         String[] sessionHandles = null;
         if (arr != null) {
@@ -68,30 +77,41 @@ public class SessionRemoveAPI extends WebserverAPI {
         if (userId != null) {
             numberOfNullItems++;
         }
+        if (userIds != null) {
+            numberOfNullItems++;
+        }
         if (sessionHandles != null) {
             numberOfNullItems++;
         }
         if (numberOfNullItems == 0 || numberOfNullItems > 1) {
             throw new ServletException(
-                    new BadRequestException("Invalid JSON input - use one of userId or sessionHandles array"));
+                    new BadRequestException(
+                            "Invalid JSON input - use one of userId, userIds array or sessionHandles array"));
         }
 
         if (userId != null) {
             try {
                 String[] sessionHandlesRevoked = Session.revokeAllSessionsForUser(main, userId);
 
-                if (StorageLayer.getStorage(main).getType() == STORAGE_TYPE.SQL) {
-                    try {
-                        UserIdMapping userIdMapping = io.supertokens.useridmapping.UserIdMapping.getUserIdMapping(
-                                super.main,
-                                userId, UserIdType.ANY);
-                        if (userIdMapping != null) {
-                            ActiveUsers.updateLastActive(main, userIdMapping.superTokensUserId);
-                        } else {
-                            ActiveUsers.updateLastActive(main, userId);
-                        }
-                    } catch (StorageQueryException ignored) {
-                    }
+                updateLastActive(userId);
+
+                JsonObject result = new JsonObject();
+                result.addProperty("status", "OK");
+                JsonArray sessionHandlesRevokedJSON = new JsonArray();
+                for (String sessionHandle : sessionHandlesRevoked) {
+                    sessionHandlesRevokedJSON.add(new JsonPrimitive(sessionHandle));
+                }
+                result.add("sessionHandlesRevoked", sessionHandlesRevokedJSON);
+                super.sendJsonResponse(200, result, resp);
+            } catch (StorageQueryException e) {
+                throw new ServletException(e);
+            }
+        } else if (userIds != null) {
+            try {
+                String[] sessionHandlesRevoked = Session.revokeAllSessionsForUsers(main, userIds);
+
+                for (String id : userIds) {
+                    updateLastActive(id);
                 }
 
                 JsonObject result = new JsonObject();
@@ -121,4 +141,20 @@ public class SessionRemoveAPI extends WebserverAPI {
             }
         }
     }
+
+    private void updateLastActive(String userId) {
+        if (StorageLayer.getStorage(main).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+        try {
+            UserIdMapping userIdMapping = io.supertokens.useridmapping.UserIdMapping.getUserIdMapping(super.main,
+                    userId, UserIdType.ANY);
+            if (userIdMapping != null) {
+                ActiveUsers.updateLastActive(main, userIdMapping.superTokensUserId);
+            } else {
+                ActiveUsers.updateLastActive(main, userId);
+            }
+        } catch (StorageQueryException ignored) {
+        }
+    }
 }
@@ -16,9 +16,7 @@
 
 package io.supertokens.webserver.api.thirdparty;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 
 import io.supertokens.ActiveUsers;
 import io.supertokens.Main;
@@ -28,6 +26,7 @@ import io.supertokens.thirdparty.ThirdParty;
 import io.supertokens.useridmapping.UserIdMapping;
 import io.supertokens.useridmapping.UserIdType;
 import io.supertokens.utils.SemVer;
+import io.supertokens.utils.SharedGson;
 import io.supertokens.utils.Utils;
 import io.supertokens.webserver.InputParser;
 import io.supertokens.webserver.WebserverAPI;
@@ -78,7 +77,7 @@ public class SignInUpAPI extends WebserverAPI {
                 JsonObject result = new JsonObject();
                 result.addProperty("status", "OK");
                 result.addProperty("createdNewUser", response.createdNewUser);
-                JsonObject userJson = new JsonParser().parse(new Gson().toJson(response.user)).getAsJsonObject();
+                JsonObject userJson = SharedGson.DEFAULT.toJsonTree(response.user).getAsJsonObject();
                 result.add("user", userJson);
                 super.sendJsonResponse(200, result, resp);
 
@@ -117,7 +116,7 @@ public class SignInUpAPI extends WebserverAPI {
                 JsonObject result = new JsonObject();
                 result.addProperty("status", "OK");
                 result.addProperty("createdNewUser", response.createdNewUser);
-                JsonObject userJson = new JsonParser().parse(new Gson().toJson(response.user)).getAsJsonObject();
+                JsonObject userJson = SharedGson.DEFAULT.toJsonTree(response.user).getAsJsonObject();
                 result.add("user", userJson);
                 super.sendJsonResponse(200, result, resp);
 
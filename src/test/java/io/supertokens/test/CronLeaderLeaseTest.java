@@ -0,0 +1,179 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.test;
+
+import io.supertokens.Main;
+import io.supertokens.ProcessState;
+import io.supertokens.cronjobs.CronLeaderLease;
+import io.supertokens.cronjobs.CronTask;
+import io.supertokens.cronjobs.Cronjobs;
+import io.supertokens.pluginInterface.STORAGE_TYPE;
+import io.supertokens.storageLayer.StorageLayer;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class CronLeaderLeaseTest {
+    @Rule
+    public TestRule watchman = Utils.getOnFailure();
+
+    @AfterClass
+    public static void afterTesting() {
+        Utils.afterTesting();
+    }
+
+    @Before
+    public void beforeEach() {
+        Utils.reset();
+    }
+
+    @Test
+    public void everyCoreIsTheLeaderIfTheLeaseIsDisabled() throws Exception {
+        String[] args = { "../" };
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        CountingTask task = new CountingTask(process.getProcess());
+        Cronjobs.addCronjob(process.getProcess(), task);
+        Thread.sleep(1500);
+        assertTrue(task.runs.get() > 0);
+
+        // the lease is not kept, or even created, if it is disabled
+        assertNull(process.getProcess().getResourceDistributor().getResource(CronLeaderLease.RESOURCE_KEY));
+        assertTrue(CronLeaderLease.getInstance(process.getProcess()).isLeader());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void onlyOneOfManyCoresSharingTheDatabaseRunsClusterWideJobs() throws Exception {
+        String[] args = { "../" };
+        Utils.setValueInConfig("cron_leader_lease_enabled", "true");
+
+        List<TestingProcessManager.TestingProcess> processes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Utils.setValueInConfig("port", String.valueOf(8080 + i));
+            TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+            assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+            processes.add(process);
+        }
+
+        if (StorageLayer.getStorage(processes.get(0).getProcess()).getType() != STORAGE_TYPE.SQL) {
+            for (TestingProcessManager.TestingProcess process : processes) {
+                process.kill();
+                assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+            }
+            return;
+        }
+
+        TestingProcessManager.TestingProcess leader = getOnlyLeader(processes);
+
+        List<CountingTask> tasks = new ArrayList<>();
+        for (TestingProcessManager.TestingProcess process : processes) {
+            CountingTask task = new CountingTask(process.getProcess());
+            Cronjobs.addCronjob(process.getProcess(), task);
+            tasks.add(task);
+        }
+        Thread.sleep(2500);
+
+        for (int i = 0; i < processes.size(); i++) {
+            if (processes.get(i) == leader) {
+                assertTrue(tasks.get(i).runs.get() > 0);
+            } else {
+                assertEquals(0, tasks.get(i).runs.get());
+            }
+        }
+
+        // the leader gives up the lease when it stops, so one of the others takes over straight away
+        leader.kill();
+        assertNotNull(leader.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+        processes.remove(leader);
+
+        TestingProcessManager.TestingProcess newLeader = getOnlyLeader(processes);
+        int index = tasks.indexOf(findTask(tasks, newLeader.getProcess()));
+        int runsBefore = tasks.get(index).runs.get();
+        Thread.sleep(2500);
+        assertTrue(tasks.get(index).runs.get() > runsBefore);
+
+        for (TestingProcessManager.TestingProcess process : processes) {
+            process.kill();
+            assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+        }
+    }
+
+    private static TestingProcessManager.TestingProcess getOnlyLeader(
+            List<TestingProcessManager.TestingProcess> processes) throws Exception {
+        TestingProcessManager.TestingProcess leader = null;
+        for (TestingProcessManager.TestingProcess process : processes) {
+            if (CronLeaderLease.getInstance(process.getProcess()).isLeader()) {
+                assertNull("more than one core is the cron leader", leader);
+                leader = process;
+            }
+        }
+        assertNotNull(leader);
+        return leader;
+    }
+
+    private static CountingTask findTask(List<CountingTask> tasks, Main main) {
+        for (CountingTask task : tasks) {
+            if (task.core == main) {
+                return task;
+            }
+        }
+        throw new AssertionError("no task for this core");
+    }
+
+    private static class CountingTask extends CronTask {
+        final AtomicInteger runs = new AtomicInteger(0);
+        final Main core;
+
+        CountingTask(Main main) {
+            super("CountingTask", main);
+            this.core = main;
+        }
+
+        @Override
+        protected boolean isClusterWide() {
+            return true;
+        }
+
+        @Override
+        protected void doTask() {
+            runs.incrementAndGet();
+        }
+
+        @Override
+        public int getIntervalTimeSeconds() {
+            return 1;
+        }
+
+        @Override
+        public int getInitialWaitTimeSeconds() {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.test;
+
+import io.supertokens.ProcessState;
+import io.supertokens.ProcessState.PROCESS_STATE;
+import io.supertokens.config.Config;
+import io.supertokens.httpRequest.HttpRequest;
+import io.supertokens.httpRequest.HttpResponseException;
+import io.supertokens.test.TestingProcessManager.TestingProcess;
+import io.supertokens.webserver.IpAddressRanges;
+import io.supertokens.webserver.RemoteAddressFilter;
+import org.junit.*;
+import org.junit.rules.TestRule;
+
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+public class IpAllowDenyCidrTest {
+
+    @Rule
+    public TestRule watchman = Utils.getOnFailure();
+
+    @AfterClass
+    public static void afterTesting() {
+        Utils.afterTesting();
+    }
+
+    @Before
+    public void beforeEach() {
+        Utils.reset();
+    }
+
+    @Test
+    public void testIpv4Ranges() {
+        IpAddressRanges ranges = IpAddressRanges.parse("10.0.0.0/8, 192.168.1.7,172.16.0.0/12 ,  203.0.113.128/25");
+
+        assertTrue(ranges.contains("10.0.0.0"));
+        assertTrue(ranges.contains("10.255.255.255"));
+        assertFalse(ranges.contains("11.0.0.0"));
+        assertFalse(ranges.contains("9.255.255.255"));
+
+        assertTrue(ranges.contains("192.168.1.7"));
+        assertFalse(ranges.contains("192.168.1.6"));
+        assertFalse(ranges.contains("192.168.1.8"));
+
+        assertTrue(ranges.contains("172.31.255.255"));
+        assertFalse(ranges.contains("172.32.0.0"));
+
+        assertTrue(ranges.contains("203.0.113.128"));
+        assertTrue(ranges.contains("203.0.113.255"));
+        assertFalse(ranges.contains("203.0.113.127"));
+
+        // IPv4 ranges also match IPv4 mapped IPv6 addresses
+        assertTrue(ranges.contains("::ffff:10.1.2.3"));
+        assertTrue(ranges.contains("0:0:0:0:0:ffff:c0a8:107"));
+        assertFalse(ranges.contains("::ffff:11.1.2.3"));
+        assertFalse(ranges.contains("::10.1.2.3"));
+    }
+
+    @Test
+    public void testIpv6Ranges() {
+        IpAddressRanges ranges = IpAddressRanges.parse("::1, 2001:db8::/32, fe80::/10, 2001:db9:1:2:3:4:5:0/112");
+
+        assertTrue(ranges.contains("::1"));
+        assertTrue(ranges.contains("0:0:0:0:0:0:0:1"));
+        assertFalse(ranges.contains("::2"));
+        assertFalse(ranges.contains("::"));
+
+        assertTrue(ranges.contains("2001:db8::"));
+        assertTrue(ranges.contains("2001:0DB8:ffff:ffff:ffff:ffff:ffff:ffff"));
+        assertFalse(ranges.contains("2001:db9::"));
+
+        // the zone of link local addresses is ignored
+        assertTrue(ranges.contains("fe80::1%eth0"));
+        assertTrue(ranges.contains("febf::1"));
+        assertFalse(ranges.contains("fec0::1"));
+
+        assertTrue(ranges.contains("2001:db9:1:2:3:4:5:ffff"));
+        assertFalse(ranges.contains("2001:db9:1:2:3:4:6:0"));
+
+        // IPv4 addresses are only in the IPv6 ranges that cover their IPv4 mapped address
+        assertFalse(ranges.contains("127.0.0.1"));
+    }
+
+    @Test
+    public void testIpv4MappedRangesAndWholeAddressSpaces() {
+        IpAddressRanges mapped = IpAddressRanges.parse("::ffff:192.168.0.0/112");
+        assertTrue(mapped.contains("192.168.3.4"));
+        assertTrue(mapped.contains("::ffff:192.168.3.4"));
+        assertFalse(mapped.contains("192.169.0.0"));
+
+        IpAddressRanges allIpv4 = IpAddressRanges.parse("0.0.0.0/0");
+        assertTrue(allIpv4.contains("1.2.3.4"));
+        assertTrue(allIpv4.contains("255.255.255.255"));
+        assertFalse(allIpv4.contains("::1"));
+
+        IpAddressRanges allIpv6 = IpAddressRanges.parse("::/0");
+        assertTrue(allIpv6.contains("::1"));
+        assertTrue(allIpv6.contains("ffff:ffff:ffff:ffff:ffff:ffff:ffff:ffff"));
+        // IPv4 clients are in the IPv6 ranges that cover ::ffff:0:0/96
+        assertTrue(allIpv6.contains("1.2.3.4"));
+        assertTrue(allIpv6.contains("::ffff:1.2.3.4"));
+
+        IpAddressRanges allMapped = IpAddressRanges.parse("::ffff:0:0/96");
+        assertTrue(allMapped.contains("1.2.3.4"));
+        assertTrue(allMapped.contains("255.255.255.255"));
+        assertFalse(allMapped.contains("::1"));
+
+        IpAddressRanges firstHalf = IpAddressRanges.parse("::/1");
+        assertTrue(firstHalf.contains("10.0.0.1"));
+        assertFalse(firstHalf.contains("8000::1"));
+
+        // a range inside another one does not change anything, whatever the order
+        IpAddressRanges nested = IpAddressRanges.parse("10.1.0.0/16, 10.0.0.0/8, 10.1.2.3");
+        assertTrue(nested.contains("10.200.0.1"));
+        assertTrue(nested.contains("10.1.2.3"));
+    }
+
+    @Test
+    public void testInvalidAddressesAreNeverInRanges() {
+        IpAddressRanges ranges = IpAddressRanges.parse("0.0.0.0/0, ::/0");
+        String[] invalid = { "", "localhost", "1.2.3", "1.2.3.4.5", "256.0.0.1", "1.2.3.4 ", "1..2.3", "1:2:3:4:5:6:7",
+                "1:2:3:4:5:6:7:8:9", "1::2::3", ":1", "1:", "12345::", "::g", "::1.2.3.256", "1:2:3:4:5:6:7:1.2.3.4" };
+        for (String address : invalid) {
+            assertFalse(address, ranges.contains(address));
+        }
+    }
+
+    @Test
+    public void testInvalidRangesAreRejected() {
+        String[] invalid = { "10.0.0.0/33", "::/129", "10.0.0.0/-1", "10.0.0.0/", "10.0.0.0/a", "10.0.0.1/8",
+                "2001:db8::1/32", "example.com", "1.2.3", "fe80::1%eth0", "10.0.0.0/8; 11.0.0.0/8" };
+        for (String range : invalid) {
+            try {
+                IpAddressRanges.parse(range);
+                fail(range);
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+        try {
+            IpAddressRanges.parse("10.0.0.0/8, 10.0.0.1/8");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("10.0.0.1/8 has bits set after its prefix of 8 bits", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testFilterCombinesRegexAndRanges() {
+        IpAddressRanges allowRanges = IpAddressRanges.parse("10.0.0.0/8");
+        IpAddressRanges denyRanges = IpAddressRanges.parse("10.0.0.1");
+        Pattern allowRegex = Pattern.compile("192\\.168\\.\\d+\\.\\d+");
+        Pattern denyRegex = Pattern.compile("10\\.0\\.0\\.2");
+
+        RemoteAddressFilter filter = new RemoteAddressFilter(allowRegex, allowRanges, denyRegex, denyRanges);
+        assertTrue(filter.isAllowed("10.1.1.1"));
+        assertTrue(filter.isAllowed("192.168.1.1"));
+        assertFalse(filter.isAllowed("10.0.0.1"));
+        assertFalse(filter.isAllowed("10.0.0.2"));
+        assertFalse(filter.isAllowed("127.0.0.1"));
+
+        // with only denies, everything else is allowed
+        RemoteAddressFilter denyOnly = new RemoteAddressFilter(null, null, null, denyRanges);
+        assertFalse(denyOnly.isAllowed("10.0.0.1"));
+        assertTrue(denyOnly.isAllowed("10.0.0.2"));
+    }
+
+    @Test
+    public void EmptyCidrsAreNull() throws Exception {
+        String[] args = { "../" };
+        Utils.setValueInConfig("ip_allow_cidrs", "\"  \"");
+        Utils.setValueInConfig("ip_deny_cidrs", "\"\"");
+        TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(PROCESS_STATE.STARTED));
+
+        assertNull(Config.getConfig(process.getProcess()).getIpAllowCidrs());
+        assertNull(Config.getConfig(process.getProcess()).getIpDenyCidrs());
+        assertNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.ADDING_REMOTE_ADDRESS_FILTER, 1000));
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void InvalidCidrErrorForIpAllow() throws Exception {
+        String[] args = { "../" };
+        Utils.setValueInConfig("ip_allow_cidrs", "\"127.0.0.0/8, 300.0.0.0/8\"");
+        TestingProcess process = TestingProcessManager.start(args);
+        ProcessState.EventAndException e = process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.INIT_FAILURE);
+        assertNotNull(e);
+        assertEquals("Provided value is invalid for ip_allow_cidrs config: 300.0.0.0/8 is not a valid IPv4 address or "
+                + "range", e.exception.getMessage());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void CheckAllowAndDenyCidrsWork() throws Exception {
+        {
+            String[] args = { "../" };
+            Utils.setValueInConfig("ip_allow_cidrs", "\"192.123.3.0/24\"");
+            TestingProcess process = TestingProcessManager.start(args);
+            assertNotNull(process.checkOrWaitForEvent(PROCESS_STATE.STARTED));
+            assertNotNull(process.checkOrWaitForEvent(PROCESS_STATE.ADDING_REMOTE_ADDRESS_FILTER));
+
+            assertForbidden(process);
+
+            process.kill();
+            assertNotNull(process.checkOrWaitForEvent(PROCESS_STATE.STOPPED));
+        }
+
+        Utils.reset();
+
+        {
+            String[] args = { "../" };
+            Utils.setValueInConfig("ip_allow_cidrs", "\"127.0.0.0/8, ::1\"");
+            TestingProcess process = TestingProcessManager.start(args);
+            assertNotNull(process.checkOrWaitForEvent(PROCESS_STATE.STARTED));
+
+            String response = HttpRequest.sendGETRequest(process.getProcess(), "", "http://localhost:3567/hello", null,
+                    1000, 1000, null);
+            assertEquals("Hello", response);
+
+            process.kill();
+            assertNotNull(process.checkOrWaitForEvent(PROCESS_STATE.STOPPED));
+        }
+
+        Utils.reset();
+
+        {
+            // allowed by the regex, and denied by the ranges
+            String[] args = { "../" };
+            Utils.setValueInConfig("ip_allow_regex", "127\\\\.\\\\d+\\\\.\\\\d+\\\\.\\\\d+|::1|0:0:0:0:0:0:0:1");
+            Utils.setValueInConfig("ip_deny_cidrs", "\"127.0.0.0/8, ::1/128\"");
+            TestingProcess process = TestingProcessManager.start(args);
+            assertNotNull(process.checkOrWaitForEvent(PROCESS_STATE.STARTED));
+
+            assertForbidden(process);
+
+            process.kill();
+            assertNotNull(process.checkOrWaitForEvent(PROCESS_STATE.STOPPED));
+        }
+
+        Utils.reset();
+
+        {
+            // not allowed by the regex, but allowed by the ranges
+            String[] args = { "../" };
+            Utils.setValueInConfig("ip_allow_regex", "192.123.3.4");
+            Utils.setValueInConfig("ip_allow_cidrs", "\"127.0.0.0/8, ::1\"");
+            TestingProcess process = TestingProcessManager.start(args);
+            assertNotNull(process.checkOrWaitForEvent(PROCESS_STATE.STARTED));
+
+            String response = HttpRequest.sendGETRequest(process.getProcess(), "", "http://localhost:3567/hello", null,
+                    1000, 1000, null);
+            assertEquals("Hello", response);
+
+            process.kill();
+            assertNotNull(process.checkOrWaitForEvent(PROCESS_STATE.STOPPED));
+        }
+    }
+
+    private static void assertForbidden(TestingProcess process) throws Exception {
+        try {
+            HttpRequest.sendGETRequest(process.getProcess(), "", "http://localhost:3567/hello", null, 1000, 1000,
+                    null);
+            fail();
+        } catch (HttpResponseException e) {
+            assertEquals(403, e.statusCode);
+        }
+    }
+}
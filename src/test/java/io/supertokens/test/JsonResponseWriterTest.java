@@ -0,0 +1,188 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.test;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.supertokens.ProcessState;
+import io.supertokens.emailpassword.EmailPassword;
+import io.supertokens.emailpassword.PasswordHashing;
+import io.supertokens.test.TestingProcessManager.TestingProcess;
+import io.supertokens.usermetadata.UserMetadata;
+import org.junit.*;
+import org.junit.rules.TestRule;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+public class JsonResponseWriterTest {
+
+    @Rule
+    public TestRule watchman = Utils.getOnFailure();
+
+    @AfterClass
+    public static void afterTesting() {
+        Utils.afterTesting();
+    }
+
+    @Before
+    public void beforeEach() {
+        Utils.reset();
+    }
+
+    @Test
+    public void testSmallResponsesHaveAContentLength() throws Exception {
+        String[] args = { "../" };
+        TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        Response response = get("/apiversion", false);
+        assertEquals(200, response.status);
+        assertEquals("application/json;charset=UTF-8", response.contentType.replace(" ", ""));
+        assertEquals(String.valueOf(response.body.length), response.contentLength);
+        assertNull(response.transferEncoding);
+        JsonObject json = new JsonParser().parse(response.text()).getAsJsonObject();
+        assertTrue(json.has("versions"));
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testLargeAndNonAsciiResponses() throws Exception {
+        String[] args = { "../" };
+        TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        // characters that take 1, 2, 3 and 4 bytes in UTF-8, and some that JSON escapes
+        String name = "Zoë € 😀 <a href=\"x\">'&'</a>\n";
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            large.append("😀é");
+        }
+        JsonObject metadata = new JsonObject();
+        metadata.addProperty("name", name);
+        metadata.addProperty("large", large.toString());
+        UserMetadata.updateUserMetadata(process.getProcess(), "userId", metadata);
+
+        // this is more than can be buffered, so it is sent with chunked encoding
+        Response response = get("/recipe/user/metadata?userId=userId", false);
+        assertEquals(200, response.status);
+        assertNull(response.contentLength);
+        assertEquals("chunked", response.transferEncoding);
+        JsonObject json = new JsonParser().parse(response.text()).getAsJsonObject();
+        assertEquals("OK", json.get("status").getAsString());
+        assertEquals(name, json.getAsJsonObject("metadata").get("name").getAsString());
+        assertEquals(large.toString(), json.getAsJsonObject("metadata").get("large").getAsString());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testUsersAreGzippedOnlyIfTheClientAcceptsIt() throws Exception {
+        String[] args = { "../" };
+        TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        List<String> emails = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            emails.add("user" + i + "@example.com");
+        }
+        String passwordHash = PasswordHashing.getInstance(process.getProcess()).createHashWithSalt("password");
+        EmailPassword.importUsersWithValidatedPasswordHashes(process.getProcess(), emails,
+                Collections.nCopies(emails.size(), passwordHash));
+
+        Response plain = get("/users?limit=200", false);
+        assertEquals(200, plain.status);
+        assertNull(plain.contentEncoding);
+        assertEquals("Accept-Encoding", plain.vary);
+        assertEquals(String.valueOf(plain.body.length), plain.contentLength);
+
+        Response gzipped = get("/users?limit=200", true);
+        assertEquals(200, gzipped.status);
+        assertEquals("gzip", gzipped.contentEncoding);
+        assertEquals("Accept-Encoding", gzipped.vary);
+        assertTrue(gzipped.body.length < plain.body.length);
+
+        JsonObject plainJson = new JsonParser().parse(plain.text()).getAsJsonObject();
+        JsonObject gzippedJson = new JsonParser().parse(gzipped.text()).getAsJsonObject();
+        assertEquals(200, plainJson.getAsJsonArray("users").size());
+        assertEquals(plainJson, gzippedJson);
+
+        // small lists are not worth compressing
+        Response small = get("/users?limit=1", true);
+        assertNull(small.contentEncoding);
+        assertEquals(1, new JsonParser().parse(small.text()).getAsJsonObject().getAsJsonArray("users").size());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    private static class Response {
+        int status;
+        String contentType;
+        String contentLength;
+        String contentEncoding;
+        String transferEncoding;
+        String vary;
+        byte[] body;
+
+        String text() throws IOException {
+            byte[] decoded = body;
+            if ("gzip".equals(contentEncoding)) {
+                try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+                    decoded = in.readAllBytes();
+                }
+            }
+            return new String(decoded, StandardCharsets.UTF_8);
+        }
+    }
+
+    // HttpURLConnection does not decompress responses itself, so we can see what the core sent
+    private static Response get(String path, boolean acceptGzip) throws IOException {
+        HttpURLConnection con = (HttpURLConnection) new URL("http://localhost:3567" + path).openConnection();
+        try {
+            if (acceptGzip) {
+                con.setRequestProperty("Accept-Encoding", "gzip");
+            }
+            Response response = new Response();
+            response.status = con.getResponseCode();
+            response.contentType = con.getHeaderField("Content-Type");
+            response.contentLength = con.getHeaderField("Content-Length");
+            response.contentEncoding = con.getHeaderField("Content-Encoding");
+            response.transferEncoding = con.getHeaderField("Transfer-Encoding");
+            response.vary = con.getHeaderField("Vary");
+            try (InputStream in = con.getInputStream()) {
+                response.body = in.readAllBytes();
+            }
+            return response;
+        } finally {
+            con.disconnect();
+        }
+    }
+}
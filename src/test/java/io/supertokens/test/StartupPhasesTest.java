@@ -0,0 +1,155 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.test;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import io.supertokens.Main;
+import io.supertokens.ProcessState;
+import io.supertokens.startup.StartupPhases;
+import io.supertokens.test.httpRequest.HttpRequestForTesting;
+import io.supertokens.utils.SemVer;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class StartupPhasesTest {
+    @Rule
+    public TestRule watchman = Utils.getOnFailure();
+
+    @AfterClass
+    public static void afterTesting() {
+        Utils.afterTesting();
+    }
+
+    @Before
+    public void beforeEach() {
+        Utils.reset();
+    }
+
+    @Test
+    public void startupReportContainsAllPhases() throws Exception {
+        String[] args = { "../" };
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        JsonObject response = HttpRequestForTesting.sendGETRequest(process.getProcess(), "",
+                "http://localhost:3567/startup/report", new HashMap<>(), 1000, 1000, null, SemVer.v2_21.get(), "");
+        assertEquals("OK", response.get("status").getAsString());
+        assertTrue(response.get("totalDurationMs").getAsLong() >= 0);
+
+        Set<String> names = new HashSet<>();
+        JsonArray phases = response.get("phases").getAsJsonArray();
+        for (JsonElement phase : phases) {
+            names.add(phase.getAsJsonObject().get("name").getAsString());
+            assertTrue(phase.getAsJsonObject().get("durationMs").getAsLong() >= 0);
+        }
+        for (String name : new String[] { "config", "storagePlugin", "fileLogging", "storage", "featureFlag",
+                "accessTokenSigningKey", "refreshTokenKey", "jwtSigningKey", "signingKeys", "caches",
+                "userSearchIndex", "cronjobs", "webserver" }) {
+            assertTrue(name, names.contains(name));
+        }
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void graphRunsPhasesAfterTheirDependencies() throws Exception {
+        String[] args = { "../" };
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+        Main main = process.getProcess();
+
+        List<String> order = new ArrayList<>();
+        AtomicBoolean ranOnCallingThread = new AtomicBoolean(false);
+        Thread callingThread = Thread.currentThread();
+        StartupPhases.getInstance(main).newGraph(false)
+                .add("a", false, () -> {
+                    Thread.sleep(200);
+                    synchronized (order) {
+                        order.add("a");
+                    }
+                })
+                .add("b", false, () -> {
+                    synchronized (order) {
+                        order.add("b");
+                    }
+                })
+                .add("c", false, () -> {
+                    synchronized (order) {
+                        order.add("c");
+                    }
+                }, "a", "b")
+                .addOnCallingThread("d", false, () -> {
+                    ranOnCallingThread.set(Thread.currentThread() == callingThread);
+                    synchronized (order) {
+                        order.add("d");
+                    }
+                }, "c")
+                .run();
+
+        // b does not depend on a, so it does not wait for it
+        assertEquals(List.of("b", "a", "c", "d"), order);
+        assertTrue(ranOnCallingThread.get());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void failureOfAPhaseIsThrownAndItsDependentsDoNotRun() throws Exception {
+        String[] args = { "../" };
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        AtomicBoolean dependentRan = new AtomicBoolean(false);
+        AtomicBoolean independentRan = new AtomicBoolean(false);
+        try {
+            StartupPhases.getInstance(process.getProcess()).newGraph(false)
+                    .add("failing", false, () -> {
+                        throw new IllegalStateException("phase failed");
+                    })
+                    .add("dependent", false, () -> dependentRan.set(true), "failing")
+                    .add("independent", false, () -> independentRan.set(true))
+                    .run();
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("phase failed", e.getMessage());
+        }
+        assertFalse(dependentRan.get());
+        assertTrue(independentRan.get());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.test;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import io.supertokens.ProcessState;
+import io.supertokens.pluginInterface.exceptions.StorageQueryException;
+import io.supertokens.pluginInterface.exceptions.StorageTransactionLogicException;
+import io.supertokens.pluginInterface.sqlStorage.SQLStorage;
+import io.supertokens.storageLayer.StorageLayer;
+import io.supertokens.storageLayer.TransactionCallSite;
+import io.supertokens.storageLayer.TransactionRetryPolicy;
+import io.supertokens.test.httpRequest.HttpRequestForTesting;
+import io.supertokens.utils.SemVer;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TransactionRetryPolicyTest {
+    @Rule
+    public TestRule watchman = Utils.getOnFailure();
+
+    @AfterClass
+    public static void afterTesting() {
+        Utils.afterTesting();
+    }
+
+    @Before
+    public void beforeEach() {
+        Utils.reset();
+    }
+
+    @Test
+    public void retryableErrorsAreClassifiedCorrectly() {
+        assertTrue(TransactionRetryPolicy.isRetryable(new SQLTransactionRollbackException()));
+        assertTrue(TransactionRetryPolicy.isRetryable(new SQLException("serialization failure", "40001")));
+        assertTrue(TransactionRetryPolicy.isRetryable(new SQLException("deadlock detected", "40P01")));
+        assertTrue(TransactionRetryPolicy.isRetryable(new SQLException("[SQLITE_BUSY]", null, 5)));
+        assertTrue(TransactionRetryPolicy.isRetryable(
+                new StorageTransactionLogicException(new SQLException("Deadlock found when trying to get lock"))));
+        assertTrue(TransactionRetryPolicy.isRetryable(new StorageQueryException(new SQLTransactionRollbackException())));
+
+        assertFalse(TransactionRetryPolicy.isRetryable(new SQLException("[SQLITE_CONSTRAINT]", null, 19)));
+        assertFalse(TransactionRetryPolicy.isRetryable(new StorageTransactionLogicException(new Exception("error"))));
+    }
+
+    @Test
+    public void retriesAreCountedPerCallSite() throws Exception {
+        String[] args = { "../" };
+        Utils.setValueInConfig("transaction_max_attempts", "4");
+        Utils.setValueInConfig("transaction_retry_base_delay_ms", "1");
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args, false);
+        process.getProcess().setForceInMemoryDB();
+        process.startProcess();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        SQLStorage storage = (SQLStorage) StorageLayer.getStorage(process.getProcess());
+
+        // fails with a retryable error until the third attempt
+        AtomicInteger attempts = new AtomicInteger(0);
+        TransactionCallSite.startTransaction(storage, "test.succeedsAfterRetries", con -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new StorageTransactionLogicException(new SQLTransactionRollbackException());
+            }
+            storage.commitTransaction(con);
+            return null;
+        });
+        assertEquals(3, attempts.get());
+
+        // always fails with a retryable error
+        try {
+            TransactionCallSite.startTransaction(storage, "test.alwaysFails", con -> {
+                throw new StorageTransactionLogicException(new SQLTransactionRollbackException());
+            });
+            fail();
+        } catch (StorageTransactionLogicException ignored) {
+        }
+
+        // fails with an error that is not retried
+        try {
+            TransactionCallSite.startTransaction(storage, "test.notRetryable", con -> {
+                throw new StorageTransactionLogicException(new Exception("error"));
+            });
+            fail();
+        } catch (StorageTransactionLogicException ignored) {
+        }
+
+        TransactionRetryPolicy retryPolicy = TransactionRetryPolicy.getInstance(process.getProcess());
+
+        TransactionRetryPolicy.CallSiteStats succeeded = retryPolicy.getCallSiteStats()
+                .get("test.succeedsAfterRetries");
+        assertEquals(3, succeeded.getAttempts());
+        assertEquals(2, succeeded.getRetries());
+        assertEquals(0, succeeded.getAborts());
+
+        TransactionRetryPolicy.CallSiteStats failed = retryPolicy.getCallSiteStats().get("test.alwaysFails");
+        assertEquals(4, failed.getAttempts());
+        assertEquals(3, failed.getRetries());
+        assertEquals(1, failed.getAborts());
+
+        TransactionRetryPolicy.CallSiteStats notRetryable = retryPolicy.getCallSiteStats().get("test.notRetryable");
+        assertEquals(1, notRetryable.getAttempts());
+        assertEquals(0, notRetryable.getRetries());
+        assertEquals(0, notRetryable.getAborts());
+
+        // the label only applies while the labelled transaction runs
+        assertEquals(TransactionCallSite.UNLABELLED, TransactionCallSite.get());
+
+        // the counts are returned by the metrics API as well
+        JsonObject response = HttpRequestForTesting.sendGETRequest(process.getProcess(), "",
+                "http://localhost:3567/metrics/transactions", new HashMap<>(), 1000, 1000, null, SemVer.v2_21.get(),
+                "");
+        assertEquals("OK", response.get("status").getAsString());
+        JsonObject alwaysFails = null;
+        for (JsonElement callSite : response.get("callSites").getAsJsonArray()) {
+            if (callSite.getAsJsonObject().get("name").getAsString().equals("test.alwaysFails")) {
+                alwaysFails = callSite.getAsJsonObject();
+            }
+        }
+        assertNotNull(alwaysFails);
+        assertEquals(4, alwaysFails.get("attempts").getAsLong());
+        assertEquals(3, alwaysFails.get("retries").getAsLong());
+        assertEquals(1, alwaysFails.get("aborts").getAsLong());
+        assertEquals(failed.getWaitTimeMs(), alwaysFails.get("waitTimeMs").getAsLong());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void backoffIsBoundedByTheExponentialLimit() throws Exception {
+        String[] args = { "../" };
+        Utils.setValueInConfig("transaction_retry_base_delay_ms", "10");
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        TransactionRetryPolicy retryPolicy = TransactionRetryPolicy.getInstance(process.getProcess());
+        for (int i = 0; i < 1000; i++) {
+            long firstBackoff = retryPolicy.getBackoffMs(1);
+            assertTrue(firstBackoff >= 0 && firstBackoff <= 10);
+            long thirdBackoff = retryPolicy.getBackoffMs(3);
+            assertTrue(thirdBackoff >= 0 && thirdBackoff <= 40);
+            long cappedBackoff = retryPolicy.getBackoffMs(50);
+            assertTrue(cappedBackoff >= 0 && cappedBackoff <= 1000);
+        }
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+}
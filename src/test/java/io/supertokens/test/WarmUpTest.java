@@ -0,0 +1,83 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.test;
+
+import io.supertokens.ProcessState;
+import io.supertokens.pluginInterface.STORAGE_TYPE;
+import io.supertokens.startup.StartupPhases;
+import io.supertokens.storageLayer.StorageLayer;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import static org.junit.Assert.*;
+
+public class WarmUpTest {
+    @Rule
+    public TestRule watchman = Utils.getOnFailure();
+
+    @AfterClass
+    public static void afterTesting() {
+        Utils.afterTesting();
+    }
+
+    @Before
+    public void beforeEach() {
+        Utils.reset();
+    }
+
+    @Test
+    public void warmUpRunsBeforeStartingAndLeavesNoSessions() throws Exception {
+        Utils.setValueInConfig("warm_up_iterations", "50");
+        String[] args = { "../" };
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        assertTrue(StartupPhases.getInstance(process.getProcess()).getPhaseTimings().stream()
+                .anyMatch(timing -> timing.name.equals("warmUp")));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() == STORAGE_TYPE.SQL) {
+            assertEquals(0, StorageLayer.getSessionStorage(process.getProcess()).getNumberOfSessions());
+        }
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void warmUpStopsAtTheMaxDuration() throws Exception {
+        Utils.setValueInConfig("warm_up_iterations", "1000000");
+        Utils.setValueInConfig("warm_up_max_duration_ms", "500");
+        String[] args = { "../" };
+
+        long start = System.currentTimeMillis();
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        StartupPhases.PhaseTiming warmUp = StartupPhases.getInstance(process.getProcess()).getPhaseTimings()
+                .stream().filter(timing -> timing.name.equals("warmUp")).findFirst().orElseThrow();
+        // one iteration may still be running when the time is up
+        assertTrue(warmUp.durationMs < 5000);
+        assertTrue(System.currentTimeMillis() - start < 30000);
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+}
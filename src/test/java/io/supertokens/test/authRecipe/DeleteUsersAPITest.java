@@ -0,0 +1,255 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.test.authRecipe;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import io.supertokens.ProcessState;
+import io.supertokens.authRecipe.AuthRecipe;
+import io.supertokens.emailpassword.EmailPassword;
+import io.supertokens.passwordless.Passwordless;
+import io.supertokens.pluginInterface.RECIPE_ID;
+import io.supertokens.pluginInterface.STORAGE_TYPE;
+import io.supertokens.pluginInterface.emailpassword.UserInfo;
+import io.supertokens.storageLayer.StorageLayer;
+import io.supertokens.test.TestingProcessManager;
+import io.supertokens.test.Utils;
+import io.supertokens.test.httpRequest.HttpRequestForTesting;
+import io.supertokens.test.httpRequest.HttpResponseException;
+import io.supertokens.thirdparty.ThirdParty;
+import io.supertokens.useridmapping.UserIdMapping;
+import io.supertokens.useridmapping.UserIdType;
+import io.supertokens.usermetadata.UserMetadata;
+import io.supertokens.userroles.UserRoles;
+import io.supertokens.utils.SemVer;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DeleteUsersAPITest {
+
+    @Rule
+    public TestRule watchman = Utils.getOnFailure();
+
+    @AfterClass
+    public static void afterTesting() {
+        Utils.afterTesting();
+    }
+
+    @Before
+    public void beforeEach() {
+        Utils.reset();
+    }
+
+    private static JsonObject deleteUsers(TestingProcessManager.TestingProcess process, List<String> userIds)
+            throws Exception {
+        JsonArray userIdsJson = new JsonArray();
+        for (String userId : userIds) {
+            userIdsJson.add(new JsonPrimitive(userId));
+        }
+        JsonObject requestBody = new JsonObject();
+        requestBody.add("userIds", userIdsJson);
+        return HttpRequestForTesting.sendJsonPOSTRequest(process.getProcess(), "",
+                "http://localhost:3567/users/remove", requestBody, 10000, 10000, null, SemVer.v2_21.get(), "");
+    }
+
+    private static void assertUserStatus(JsonObject response, String userId, String status) {
+        for (int i = 0; i < response.get("users").getAsJsonArray().size(); i++) {
+            JsonObject user = response.get("users").getAsJsonArray().get(i).getAsJsonObject();
+            if (user.get("userId").getAsString().equals(userId)) {
+                assertEquals(status, user.get("status").getAsString());
+                return;
+            }
+        }
+        fail("no status for " + userId);
+    }
+
+    @Test
+    public void testBadInput() throws Exception {
+        String[] args = { "../" };
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+
+        try {
+            HttpRequestForTesting.sendJsonPOSTRequest(process.getProcess(), "", "http://localhost:3567/users/remove",
+                    new JsonObject(), 1000, 1000, null, SemVer.v2_21.get(), "");
+            fail();
+        } catch (HttpResponseException e) {
+            assertEquals(400, e.statusCode);
+            assertEquals("Http error. Status Code: 400. Message: Field name 'userIds' is invalid in JSON input",
+                    e.getMessage());
+        }
+
+        try {
+            JsonArray userIds = new JsonArray();
+            userIds.add(new JsonObject());
+            JsonObject requestBody = new JsonObject();
+            requestBody.add("userIds", userIds);
+            HttpRequestForTesting.sendJsonPOSTRequest(process.getProcess(), "", "http://localhost:3567/users/remove",
+                    requestBody, 1000, 1000, null, SemVer.v2_21.get(), "");
+            fail();
+        } catch (HttpResponseException e) {
+            assertEquals(400, e.statusCode);
+            assertEquals("Http error. Status Code: 400. Message: Field name 'userIds' must be an array of strings",
+                    e.getMessage());
+        }
+
+        List<String> tooManyUserIds = new ArrayList<>();
+        for (int i = 0; i < 10001; i++) {
+            tooManyUserIds.add("userId" + i);
+        }
+        try {
+            deleteUsers(process, tooManyUserIds);
+            fail();
+        } catch (HttpResponseException e) {
+            assertEquals(400, e.statusCode);
+            assertEquals("Http error. Status Code: 400. Message: Field name 'userIds' can have at most 10000 items",
+                    e.getMessage());
+        }
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testDeletingUsersOfAllRecipesAcrossBatches() throws Exception {
+        String[] args = { "../" };
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+
+        UserRoles.createNewRoleOrModifyItsPermissions(process.main, "admin", new String[] { "write" });
+
+        // more users than are deleted in one batch
+        List<String> userIds = new ArrayList<>();
+        for (int i = 0; i < AuthRecipe.BULK_DELETE_BATCH_SIZE + 50; i++) {
+            UserInfo user = EmailPassword.signUp(process.main, "user" + i + "@example.com", "password123");
+            userIds.add(user.id);
+            if (i % 10 == 0) {
+                JsonObject metadata = new JsonObject();
+                metadata.addProperty("key", "value");
+                UserMetadata.updateUserMetadata(process.main, user.id, metadata);
+                UserRoles.addRoleToUser(process.main, user.id, "admin");
+            }
+        }
+        String thirdPartyUserId = ThirdParty.signInUp(process.main, "google", "google-id", "tp@example.com").user.id;
+        userIds.add(thirdPartyUserId);
+
+        Passwordless.CreateCodeResponse createCodeResponse = Passwordless.createCode(process.main,
+                "pl@example.com", null, null, null);
+        String passwordlessUserId = Passwordless.consumeCode(process.main, createCodeResponse.deviceId,
+                createCodeResponse.deviceIdHash, createCodeResponse.userInputCode, null).user.id;
+        userIds.add(passwordlessUserId);
+        // a sign in that was started but not finished
+        Passwordless.CreateCodeResponse pendingCode = Passwordless.createCode(process.main, "pl@example.com", null,
+                null, null);
+
+        userIds.add("unknownUserId");
+        // duplicates are reported once
+        userIds.add(userIds.get(0));
+
+        JsonObject response = deleteUsers(process, userIds);
+        assertEquals("OK", response.get("status").getAsString());
+        assertEquals(userIds.size() - 1, response.get("users").getAsJsonArray().size());
+        for (int i = 0; i < userIds.size() - 2; i++) {
+            assertUserStatus(response, userIds.get(i), "OK");
+        }
+        assertUserStatus(response, "unknownUserId", "UNKNOWN_USER_ID_ERROR");
+
+        assertEquals(0, AuthRecipe.getUsersCount(process.main, null));
+        assertEquals(0, AuthRecipe.getUsers(process.main, 10, "ASC", null, null, null).users.length);
+        assertNull(EmailPassword.getUserUsingId(process.main, userIds.get(0)));
+        assertEquals(0, UserMetadata.getUserMetadata(process.main, userIds.get(0)).entrySet().size());
+        assertEquals(0, UserRoles.getRolesForUser(process.main, userIds.get(0)).length);
+        assertEquals(0, UserRoles.getUsersForRole(process.main, "admin").length);
+        assertNull(Passwordless.getDeviceWithCodesById(process.main, pendingCode.deviceId));
+
+        // the counters were updated along with the users
+        assertFalse(StorageLayer.getAuthRecipeStorage(process.main).reconcileUsersCount());
+        assertEquals(0, AuthRecipe.getUsersCount(process.main, new RECIPE_ID[] { RECIPE_ID.EMAIL_PASSWORD }));
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    // In reference to https://docs.google.com/spreadsheets/d/17hYV32B0aDCeLnSxbZhfRN2Y9b0LC2xUF44vV88RNAA/edit#gid=0
+    @Test
+    public void testDeletingUsersWithUserIdMappings() throws Exception {
+        String[] args = { "../" };
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+
+        JsonObject metadata = new JsonObject();
+        metadata.addProperty("key", "value");
+
+        // state A3, deleted using the external userId
+        UserInfo mappedUser = EmailPassword.signUp(process.main, "mapped@example.com", "password123");
+        UserIdMapping.createUserIdMapping(process.main, mappedUser.id, "externalId", null, false);
+        UserMetadata.updateUserMetadata(process.main, "externalId", metadata);
+
+        // state A4, deleted using the userId of the user that was migrated
+        UserInfo migratedUser = EmailPassword.signUp(process.main, "migrated@example.com", "password123");
+        UserMetadata.updateUserMetadata(process.main, migratedUser.id, metadata);
+        String newUserId = ThirdParty.signInUp(process.main, "google", "google-id", "migrated@example.com").user.id;
+        UserIdMapping.createUserIdMapping(process.main, newUserId, migratedUser.id, null, true);
+
+        List<String> userIds = new ArrayList<>();
+        userIds.add("externalId");
+        userIds.add(migratedUser.id);
+        JsonObject response = deleteUsers(process, userIds);
+        assertUserStatus(response, "externalId", "OK");
+        assertUserStatus(response, migratedUser.id, "OK");
+
+        assertNull(EmailPassword.getUserUsingId(process.main, mappedUser.id));
+        assertEquals(0, UserMetadata.getUserMetadata(process.main, "externalId").entrySet().size());
+        assertNull(UserIdMapping.getUserIdMapping(process.main, "externalId", UserIdType.ANY));
+
+        // only the auth recipe data of the migrated user is deleted
+        assertNull(EmailPassword.getUserUsingId(process.main, migratedUser.id));
+        assertEquals("value", UserMetadata.getUserMetadata(process.main, migratedUser.id).get("key").getAsString());
+        io.supertokens.pluginInterface.useridmapping.UserIdMapping mapping = UserIdMapping.getUserIdMapping(
+                process.main, newUserId, UserIdType.ANY);
+        assertNotNull(mapping);
+        assertEquals(migratedUser.id, mapping.externalUserId);
+        assertEquals(1, AuthRecipe.getUsersCount(process.main, null));
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.test.authRecipe;
+
+import io.supertokens.ProcessState.PROCESS_STATE;
+import io.supertokens.authRecipe.AuthRecipe;
+import io.supertokens.authRecipe.UserPaginationContainer;
+import io.supertokens.authRecipe.UserSearchIndex;
+import io.supertokens.emailpassword.EmailPassword;
+import io.supertokens.passwordless.Passwordless;
+import io.supertokens.passwordless.Passwordless.CreateCodeResponse;
+import io.supertokens.pluginInterface.STORAGE_TYPE;
+import io.supertokens.pluginInterface.authRecipe.AuthRecipeUserInfo;
+import io.supertokens.pluginInterface.dashboard.DashboardSearchTags;
+import io.supertokens.storageLayer.StorageLayer;
+import io.supertokens.test.TestingProcessManager;
+import io.supertokens.test.Utils;
+import io.supertokens.thirdparty.ThirdParty;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class UserSearchIndexTest {
+    @Rule
+    public TestRule watchman = Utils.getOnFailure();
+
+    @AfterClass
+    public static void afterTesting() {
+        Utils.afterTesting();
+    }
+
+    @Before
+    public void beforeEach() {
+        Utils.reset();
+    }
+
+    private static ArrayList<String> list(String... values) {
+        return values.length == 0 ? null : new ArrayList<>(Arrays.asList(values));
+    }
+
+    private static List<String> searchUsingIndex(TestingProcessManager.TestingProcess process,
+                                                 DashboardSearchTags tags, String timeJoinedOrder) throws Exception {
+        UserPaginationContainer result = AuthRecipe.getUsers(process.getProcess(), 10, timeJoinedOrder, null, null,
+                tags);
+        assertNull(result.nextPaginationToken);
+        List<String> userIds = new ArrayList<>();
+        for (UserPaginationContainer.UsersContainer user : result.users) {
+            userIds.add(user.user.id);
+        }
+        return userIds;
+    }
+
+    private static List<String> searchUsingDatabase(TestingProcessManager.TestingProcess process,
+                                                    DashboardSearchTags tags, String timeJoinedOrder)
+            throws Exception {
+        AuthRecipeUserInfo[] result = StorageLayer.getAuthRecipeStorage(process.getProcess()).getUsers(11,
+                timeJoinedOrder, null, null, null, tags);
+        List<String> userIds = new ArrayList<>();
+        for (AuthRecipeUserInfo user : result) {
+            userIds.add(user.id);
+        }
+        return userIds;
+    }
+
+    private static void assertSameResultsAsDatabase(TestingProcessManager.TestingProcess process,
+                                                    DashboardSearchTags tags) throws Exception {
+        for (String timeJoinedOrder : new String[]{"ASC", "DESC"}) {
+            assertEquals(searchUsingDatabase(process, tags, timeJoinedOrder),
+                    searchUsingIndex(process, tags, timeJoinedOrder));
+        }
+    }
+
+    private static void assertAllSearchesMatchDatabase(TestingProcessManager.TestingProcess process)
+            throws Exception {
+        assertSameResultsAsDatabase(process, new DashboardSearchTags(list("test"), null, null));
+        assertSameResultsAsDatabase(process, new DashboardSearchTags(list("example"), null, null));
+        assertSameResultsAsDatabase(process, new DashboardSearchTags(list("test2", "other.com"), null, null));
+        assertSameResultsAsDatabase(process, new DashboardSearchTags(list("new"), null, null));
+        assertSameResultsAsDatabase(process, new DashboardSearchTags(list("example.com"), null, null));
+        assertSameResultsAsDatabase(process, new DashboardSearchTags(list("nomatch"), null, null));
+        assertSameResultsAsDatabase(process, new DashboardSearchTags(null, list("+1234"), null));
+        assertSameResultsAsDatabase(process, new DashboardSearchTags(null, list("+99"), null));
+        assertSameResultsAsDatabase(process, new DashboardSearchTags(null, null, list("goo", "testtp")));
+        assertSameResultsAsDatabase(process, new DashboardSearchTags(list("test"), null, list("google")));
+        assertSameResultsAsDatabase(process, new DashboardSearchTags(list("test"), list("+1"), null));
+    }
+
+    @Test
+    public void testSearchUsingIndexReturnsTheSameUsersAsTheDatabase() throws Exception {
+        String[] args = { "../" };
+        Utils.setValueInConfig("user_search_index_enabled", "true");
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+        assertTrue(UserSearchIndex.getInstance(process.getProcess()).isEnabled());
+
+        String epUserId = EmailPassword.signUp(process.getProcess(), "test@example.com", "testPass123").id;
+        EmailPassword.signUp(process.getProcess(), "test2@other.com", "testPass123");
+        EmailPassword.signUp(process.getProcess(), "someone@test.com", "testPass123");
+        ThirdParty.signInUp(process.getProcess(), "testTPID", "tp1", "test2@example.com");
+        ThirdParty.signInUp(process.getProcess(), "google", "tp2", "other@example.com");
+
+        CreateCodeResponse createCodeResponse = Passwordless.createCode(process.getProcess(), "test@example.com",
+                null, null, null);
+        Passwordless.consumeCode(process.getProcess(), createCodeResponse.deviceId, createCodeResponse.deviceIdHash,
+                createCodeResponse.userInputCode, null);
+        createCodeResponse = Passwordless.createCode(process.getProcess(), null, "+123456789012", null, null);
+        String plUserId = Passwordless.consumeCode(process.getProcess(), createCodeResponse.deviceId,
+                createCodeResponse.deviceIdHash, createCodeResponse.userInputCode, null).user.id;
+
+        assertAllSearchesMatchDatabase(process);
+
+        // updates are reflected in the index
+        EmailPassword.updateUsersEmailOrPassword(process.getProcess(), epUserId, "new@example.com", null);
+        ThirdParty.signInUp(process.getProcess(), "google", "tp2", "newtp@test.com");
+        Passwordless.updateUser(process.getProcess(), plUserId, new Passwordless.FieldUpdate("new@test.com"),
+                new Passwordless.FieldUpdate("+9988776655"));
+        assertAllSearchesMatchDatabase(process);
+        assertEquals(List.of(epUserId), searchUsingIndex(process,
+                new DashboardSearchTags(list("new@example"), null, null), "ASC"));
+
+        // deleted users are removed from the index
+        AuthRecipe.deleteUser(process.getProcess(), epUserId);
+        AuthRecipe.deleteUser(process.getProcess(), plUserId);
+        assertAllSearchesMatchDatabase(process);
+        assertEquals(0, searchUsingIndex(process, new DashboardSearchTags(null, list("+99"), null), "ASC").size());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testIndexIsDisabledByDefault() throws Exception {
+        String[] args = { "../" };
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(PROCESS_STATE.STARTED));
+
+        assertFalse(UserSearchIndex.getInstance(process.getProcess()).isEnabled());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(PROCESS_STATE.STOPPED));
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.test.authRecipe;
+
+import io.supertokens.ProcessState;
+import io.supertokens.authRecipe.AuthRecipe;
+import io.supertokens.emailpassword.EmailPassword;
+import io.supertokens.passwordless.Passwordless;
+import io.supertokens.pluginInterface.RECIPE_ID;
+import io.supertokens.pluginInterface.STORAGE_TYPE;
+import io.supertokens.pluginInterface.authRecipe.AuthRecipeUserInfo;
+import io.supertokens.storageLayer.StorageLayer;
+import io.supertokens.test.TestingProcessManager;
+import io.supertokens.test.Utils;
+import io.supertokens.thirdparty.ThirdParty;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class UsersCountTest {
+    @Rule
+    public TestRule watchman = Utils.getOnFailure();
+
+    @AfterClass
+    public static void afterTesting() {
+        Utils.afterTesting();
+    }
+
+    @Before
+    public void beforeEach() {
+        Utils.reset();
+    }
+
+    private static final String PASSWORD_HASH = "$2a$10$S6bOFset3wCUcgNGSBgFxOHBIopaiPEK53YFNalvmiPcOodCK2Ehq";
+
+    private static AuthRecipeUserInfo signUp(TestingProcessManager.TestingProcess process, RECIPE_ID recipeId,
+                                             int index) throws Exception {
+        if (recipeId == RECIPE_ID.EMAIL_PASSWORD) {
+            return EmailPassword.importUserWithPasswordHash(process.getProcess(), "test" + index + "@example.com",
+                    PASSWORD_HASH).user;
+        } else if (recipeId == RECIPE_ID.THIRD_PARTY) {
+            return ThirdParty.signInUp(process.getProcess(), "google", "tp" + index,
+                    "test" + index + "@example.com").user;
+        } else {
+            Passwordless.CreateCodeResponse code = Passwordless.createCode(process.getProcess(),
+                    "test" + index + "@example.com", null, null, null);
+            return Passwordless.consumeCode(process.getProcess(), code.deviceId, code.deviceIdHash,
+                    code.userInputCode, null).user;
+        }
+    }
+
+    @Test
+    public void testUsersCountIsConsistentWithConcurrentSignUpsAndDeletes() throws Exception {
+        String[] args = { "../" };
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+
+        RECIPE_ID[] recipeIds = new RECIPE_ID[]{RECIPE_ID.EMAIL_PASSWORD, RECIPE_ID.THIRD_PARTY,
+                RECIPE_ID.PASSWORDLESS};
+        Map<RECIPE_ID, AtomicInteger> expectedCounts = new HashMap<>();
+        for (RECIPE_ID recipeId : recipeIds) {
+            expectedCounts.put(recipeId, new AtomicInteger());
+        }
+        List<AuthRecipeUserInfo> createdUsers = new ArrayList<>();
+        AtomicInteger failures = new AtomicInteger();
+
+        ExecutorService es = Executors.newFixedThreadPool(50);
+        for (int i = 0; i < 600; i++) {
+            final int index = i;
+            es.execute(() -> {
+                try {
+                    AuthRecipeUserInfo userToDelete = null;
+                    synchronized (createdUsers) {
+                        if (!createdUsers.isEmpty() && ThreadLocalRandom.current().nextInt(3) == 0) {
+                            userToDelete = createdUsers.remove(
+                                    ThreadLocalRandom.current().nextInt(createdUsers.size()));
+                        }
+                    }
+
+                    // the in memory db can fail transactions that run at the same time, so we retry
+                    for (int tries = 0; tries < 50; tries++) {
+                        try {
+                            if (userToDelete != null) {
+                                AuthRecipe.deleteUser(process.getProcess(), userToDelete.id);
+                                expectedCounts.get(userToDelete.getRecipeId()).decrementAndGet();
+                            } else {
+                                RECIPE_ID recipeId = recipeIds[index % recipeIds.length];
+                                AuthRecipeUserInfo user = signUp(process, recipeId, index);
+                                expectedCounts.get(recipeId).incrementAndGet();
+                                synchronized (createdUsers) {
+                                    createdUsers.add(user);
+                                }
+                            }
+                            return;
+                        } catch (Exception e) {
+                            Thread.sleep(10);
+                        }
+                    }
+                    failures.incrementAndGet();
+                } catch (InterruptedException ignored) {
+                }
+            });
+        }
+        es.shutdown();
+        assertTrue(es.awaitTermination(2, TimeUnit.MINUTES));
+        assertEquals(0, failures.get());
+
+        long total = 0;
+        for (RECIPE_ID recipeId : recipeIds) {
+            assertEquals(expectedCounts.get(recipeId).get(),
+                    AuthRecipe.getUsersCount(process.getProcess(), new RECIPE_ID[]{recipeId}));
+            total += expectedCounts.get(recipeId).get();
+        }
+        assertEquals(total, AuthRecipe.getUsersCount(process.getProcess(), null));
+        assertEquals(createdUsers.size(), total);
+
+        // the counters match the users table, so there is nothing to correct
+        assertFalse(StorageLayer.getAuthRecipeStorage(process.getProcess()).reconcileUsersCount());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testUsersCountAfterDeletingUnknownUser() throws Exception {
+        String[] args = { "../" };
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+
+        signUp(process, RECIPE_ID.THIRD_PARTY, 0);
+        AuthRecipe.deleteUser(process.getProcess(), "unknownUserId");
+
+        assertEquals(1, AuthRecipe.getUsersCount(process.getProcess(), null));
+        assertEquals(1, AuthRecipe.getUsersCount(process.getProcess(),
+                new RECIPE_ID[]{RECIPE_ID.THIRD_PARTY, RECIPE_ID.THIRD_PARTY}));
+        assertEquals(0, AuthRecipe.getUsersCount(process.getProcess(), new RECIPE_ID[]{RECIPE_ID.EMAIL_PASSWORD}));
+        assertFalse(StorageLayer.getAuthRecipeStorage(process.getProcess()).reconcileUsersCount());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.test.authRecipe;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.supertokens.ProcessState;
+import io.supertokens.emailpassword.EmailPassword;
+import io.supertokens.pluginInterface.STORAGE_TYPE;
+import io.supertokens.pluginInterface.emailpassword.UserInfo;
+import io.supertokens.storageLayer.StorageLayer;
+import io.supertokens.test.TestingProcessManager;
+import io.supertokens.test.Utils;
+import io.supertokens.test.httpRequest.HttpRequestForTesting;
+import io.supertokens.test.httpRequest.HttpResponseException;
+import io.supertokens.utils.SemVer;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class UsersExportAPITest {
+    @Rule
+    public TestRule watchman = Utils.getOnFailure();
+
+    @AfterClass
+    public static void afterTesting() {
+        Utils.afterTesting();
+    }
+
+    @Before
+    public void beforeEach() {
+        Utils.reset();
+    }
+
+    private static List<JsonObject> exportUsers(String query) throws Exception {
+        HttpURLConnection con = (HttpURLConnection) new URL("http://localhost:3567/users/export" + query)
+                .openConnection();
+        con.setConnectTimeout(1000);
+        con.setReadTimeout(1000);
+        con.setRequestProperty("cdi-version", SemVer.v2_21.get());
+        try {
+            assertEquals(200, con.getResponseCode());
+            assertTrue(con.getContentType().startsWith("application/x-ndjson"));
+            List<JsonObject> lines = new ArrayList<>();
+            try (BufferedReader in = new BufferedReader(
+                    new InputStreamReader(con.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    lines.add(new JsonParser().parse(line).getAsJsonObject());
+                }
+            }
+            return lines;
+        } finally {
+            con.disconnect();
+        }
+    }
+
+    @Test
+    public void testExportingUsersInChunksAndResumingFromACursor() throws Exception {
+        String[] args = { "../" };
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+
+        List<String> expectedUserIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            UserInfo userInfo = EmailPassword.signUp(process.main, "test" + i + "@example.com", "testPass123");
+            if (i % 2 == 0) {
+                StorageLayer.getUserIdMappingStorage(process.main).createUserIdMapping(userInfo.id,
+                        "externalId" + i, null);
+                expectedUserIds.add("externalId" + i);
+            } else {
+                expectedUserIds.add(userInfo.id);
+            }
+        }
+
+        List<JsonObject> lines = exportUsers("?chunkSize=2");
+
+        // 5 users, a cursor after each of the first two chunks and the status line
+        assertEquals(8, lines.size());
+        assertEquals("OK", lines.get(lines.size() - 1).get("status").getAsString());
+
+        List<String> exportedUserIds = new ArrayList<>();
+        List<String> cursors = new ArrayList<>();
+        for (JsonObject line : lines.subList(0, lines.size() - 1)) {
+            if (line.has("nextCursor")) {
+                cursors.add(line.get("nextCursor").getAsString());
+            } else {
+                assertEquals("emailpassword", line.get("recipeId").getAsString());
+                exportedUserIds.add(line.getAsJsonObject("user").get("id").getAsString());
+            }
+        }
+        assertEquals(expectedUserIds, exportedUserIds);
+        assertEquals(2, cursors.size());
+        assertTrue(lines.get(2).has("nextCursor"));
+        assertTrue(lines.get(5).has("nextCursor"));
+
+        // resuming from the first cursor returns the rest of the users
+        List<JsonObject> resumedLines = exportUsers("?chunkSize=2&cursor=" + cursors.get(0));
+        assertEquals(5, resumedLines.size());
+        assertEquals(expectedUserIds.get(2), resumedLines.get(0).getAsJsonObject("user").get("id").getAsString());
+        assertEquals("OK", resumedLines.get(4).get("status").getAsString());
+
+        // without a chunk size, everything comes in one chunk
+        List<JsonObject> allLines = exportUsers("");
+        assertEquals(6, allLines.size());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testExportingWithNoUsers() throws Exception {
+        String[] args = { "../" };
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        List<JsonObject> lines = exportUsers("");
+        assertEquals(1, lines.size());
+        assertEquals("OK", lines.get(0).get("status").getAsString());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testBadInput() throws Exception {
+        String[] args = { "../" };
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        HashMap<String, String> params = new HashMap<>();
+        params.put("cursor", "invalidCursor");
+        try {
+            HttpRequestForTesting.sendGETRequest(process.getProcess(), "", "http://localhost:3567/users/export",
+                    params, 1000, 1000, null, SemVer.v2_21.get(), null);
+            fail();
+        } catch (HttpResponseException e) {
+            assertEquals(400, e.statusCode);
+            assertEquals("Http error. Status Code: 400. Message: invalid cursor", e.getMessage());
+        }
+
+        params = new HashMap<>();
+        params.put("chunkSize", "1001");
+        try {
+            HttpRequestForTesting.sendGETRequest(process.getProcess(), "", "http://localhost:3567/users/export",
+                    params, 1000, 1000, null, SemVer.v2_21.get(), null);
+            fail();
+        } catch (HttpResponseException e) {
+            assertEquals(400, e.statusCode);
+            assertEquals("Http error. Status Code: 400. Message: chunkSize must be between 1 and 1000",
+                    e.getMessage());
+        }
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.test.emailpassword.api;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import io.supertokens.ProcessState;
+import io.supertokens.emailpassword.EmailPassword;
+import io.supertokens.emailpassword.bulkImport.BulkImport;
+import io.supertokens.emailpassword.bulkImport.BulkImportJob;
+import io.supertokens.pluginInterface.STORAGE_TYPE;
+import io.supertokens.pluginInterface.emailpassword.UserInfo;
+import io.supertokens.storageLayer.StorageLayer;
+import io.supertokens.test.TestingProcessManager;
+import io.supertokens.test.Utils;
+import io.supertokens.test.httpRequest.HttpRequestForTesting;
+import io.supertokens.test.httpRequest.HttpResponseException;
+import io.supertokens.utils.SemVer;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class BulkImportUsersWithPasswordHashAPITest {
+    @Rule
+    public TestRule watchman = Utils.getOnFailure();
+
+    @AfterClass
+    public static void afterTesting() {
+        Utils.afterTesting();
+    }
+
+    @Before
+    public void beforeEach() {
+        Utils.reset();
+    }
+
+    private static final String PASSWORD_HASH = "$2a$10$S6bOFset3wCUcgNGSBgFxOHBIopaiPEK53YFNalvmiPcOodCK2Ehq";
+    private static final String PASSWORD = "testPass123";
+
+    private static JsonObject createEntry(String email, String passwordHash) {
+        JsonObject entry = new JsonObject();
+        entry.addProperty("email", email);
+        entry.addProperty("passwordHash", passwordHash);
+        return entry;
+    }
+
+    private static JsonObject waitForJobToFinish(TestingProcessManager.TestingProcess process, String jobId)
+            throws Exception {
+        Map<String, String> params = new HashMap<>();
+        params.put("jobId", jobId);
+        for (int i = 0; i < 100; i++) {
+            JsonObject response = HttpRequestForTesting.sendGETRequest(process.getProcess(), "",
+                    "http://localhost:3567/recipe/user/passwordhash/import/bulk", params, 1000, 1000, null,
+                    SemVer.v2_16.get(), "emailpassword");
+            assertEquals("OK", response.get("status").getAsString());
+            JsonObject job = response.getAsJsonObject("job");
+            if (!job.get("status").getAsString().equals("IN_PROGRESS")) {
+                return job;
+            }
+            Thread.sleep(100);
+        }
+        throw new Exception("Bulk import job did not finish in time");
+    }
+
+    @Test
+    public void testImportingUsersInBatches() throws Exception {
+        String[] args = { "../" };
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+
+        UserInfo existingUser = EmailPassword.signUp(process.getProcess(), "existing@example.com", "oldPass123");
+
+        JsonArray requestBody = new JsonArray();
+        for (int i = 0; i < 25; i++) {
+            requestBody.add(createEntry("user" + i + "@example.com", PASSWORD_HASH));
+        }
+        requestBody.add(createEntry("existing@example.com", PASSWORD_HASH)); // 26
+        requestBody.add(createEntry("invalid@example.com", "invalidHash")); // 27
+        JsonObject missingHash = new JsonObject();
+        missingHash.addProperty("email", "missinghash@example.com");
+        requestBody.add(missingHash); // 28
+        requestBody.add(createEntry("user0@example.com", PASSWORD_HASH)); // 29
+
+        JsonObject response = HttpRequestForTesting.sendJsonPOSTRequest(process.getProcess(), "",
+                "http://localhost:3567/recipe/user/passwordhash/import/bulk?batchSize=10", requestBody, 1000,
+                1000, null, SemVer.v2_16.get(), "emailpassword");
+        assertEquals("OK", response.get("status").getAsString());
+
+        JsonObject job = waitForJobToFinish(process, response.get("jobId").getAsString());
+        assertEquals("COMPLETED", job.get("status").getAsString());
+        assertEquals(29, job.get("processedCount").getAsInt());
+        assertEquals(25, job.get("importedCount").getAsInt());
+        assertEquals(2, job.get("updatedCount").getAsInt());
+        assertEquals(2, job.get("failedCount").getAsInt());
+
+        JsonArray errors = job.getAsJsonArray("errors");
+        assertEquals(2, errors.size());
+        assertEquals(27, errors.get(0).getAsJsonObject().get("line").getAsLong());
+        assertEquals(28, errors.get(1).getAsJsonObject().get("line").getAsLong());
+
+        // imported and updated users can sign in with the imported password
+        UserInfo importedUser = EmailPassword.signIn(process.getProcess(), "user24@example.com", PASSWORD);
+        assertEquals(PASSWORD_HASH, importedUser.passwordHash);
+        UserInfo updatedUser = EmailPassword.signIn(process.getProcess(), "existing@example.com", PASSWORD);
+        assertEquals(existingUser.id, updatedUser.id);
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testImportingNewlineDelimitedJsonReportsInvalidLines() throws Exception {
+        String[] args = { "../" };
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+
+        // a JSON object body is read as a single line of newline delimited JSON
+        JsonObject requestBody = createEntry("test@example.com", PASSWORD_HASH);
+
+        JsonObject response = HttpRequestForTesting.sendJsonPOSTRequest(process.getProcess(), "",
+                "http://localhost:3567/recipe/user/passwordhash/import/bulk", requestBody, 1000, 1000, null,
+                SemVer.v2_16.get(), "emailpassword");
+        assertEquals("OK", response.get("status").getAsString());
+
+        JsonObject job = waitForJobToFinish(process, response.get("jobId").getAsString());
+        assertEquals("COMPLETED", job.get("status").getAsString());
+        assertEquals(1, job.get("importedCount").getAsInt());
+        assertEquals(0, job.get("failedCount").getAsInt());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testBodyLargerThanTheLimitIsRejected() throws Exception {
+        String[] args = { "../" };
+
+        Utils.setValueInConfig("bulk_import_max_input_bytes", "100");
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+
+        JsonArray requestBody = new JsonArray();
+        for (int i = 0; i < 10; i++) {
+            requestBody.add(createEntry("user" + i + "@example.com", PASSWORD_HASH));
+        }
+
+        try {
+            HttpRequestForTesting.sendJsonPOSTRequest(process.getProcess(), "",
+                    "http://localhost:3567/recipe/user/passwordhash/import/bulk", requestBody, 1000, 1000, null,
+                    SemVer.v2_16.get(), "emailpassword");
+            throw new Exception("Should not come here");
+        } catch (HttpResponseException e) {
+            assertTrue(e.statusCode == 400 && e.getMessage().equals(
+                    "Http error. Status Code: 400. Message: Request body must not be larger than 100 bytes"));
+        }
+
+        // the part of the body that was copied before the limit was hit is deleted
+        try (Stream<Path> files = Files.list(Paths.get(System.getProperty("java.io.tmpdir")))) {
+            assertEquals(0, files.filter(
+                    file -> file.getFileName().toString().startsWith("supertokens-bulk-import")).count());
+        }
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testShuttingDownFinishesQueuedJobsAndDeletesTheirInput() throws Exception {
+        String[] args = { "../" };
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+
+        // jobs run one at a time, so all but the first are still queued when the core is killed, unless they are
+        // quick enough to finish before that
+        List<BulkImportJob> jobs = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            JsonArray requestBody = new JsonArray();
+            for (int j = 0; j < 2000; j++) {
+                requestBody.add(createEntry("user" + i + "-" + j + "@example.com", PASSWORD_HASH));
+            }
+            JsonObject response = HttpRequestForTesting.sendJsonPOSTRequest(process.getProcess(), "",
+                    "http://localhost:3567/recipe/user/passwordhash/import/bulk", requestBody, 1000, 5000, null,
+                    SemVer.v2_16.get(), "emailpassword");
+            jobs.add(BulkImport.getInstance(process.getProcess()).getJob(response.get("jobId").getAsString()));
+        }
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+
+        for (BulkImportJob job : jobs) {
+            assertTrue(job.isFinished());
+        }
+        try (Stream<Path> files = Files.list(Paths.get(System.getProperty("java.io.tmpdir")))) {
+            assertEquals(0, files.filter(
+                    file -> file.getFileName().toString().startsWith("supertokens-bulk-import")).count());
+        }
+    }
+
+    @Test
+    public void testBadInput() throws Exception {
+        String[] args = { "../" };
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+
+        try {
+            HttpRequestForTesting.sendJsonPOSTRequest(process.getProcess(), "",
+                    "http://localhost:3567/recipe/user/passwordhash/import/bulk?batchSize=0", new JsonArray(), 1000,
+                    1000, null, SemVer.v2_16.get(), "emailpassword");
+            throw new Exception("Should not come here");
+        } catch (HttpResponseException e) {
+            assertEquals(400, e.statusCode);
+        }
+
+        Map<String, String> params = new HashMap<>();
+        params.put("jobId", "unknown");
+        JsonObject response = HttpRequestForTesting.sendGETRequest(process.getProcess(), "",
+                "http://localhost:3567/recipe/user/passwordhash/import/bulk", params, 1000, 1000, null,
+                SemVer.v2_16.get(), "emailpassword");
+        assertEquals("UNKNOWN_JOB_ID_ERROR", response.get("status").getAsString());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+}
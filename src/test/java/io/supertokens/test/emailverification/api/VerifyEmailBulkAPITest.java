@@ -0,0 +1,204 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.test.emailverification.api;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import io.supertokens.ProcessState;
+import io.supertokens.authRecipe.AuthRecipe;
+import io.supertokens.emailpassword.EmailPassword;
+import io.supertokens.emailverification.EmailVerification;
+import io.supertokens.emailverification.EmailVerificationCache;
+import io.supertokens.pluginInterface.STORAGE_TYPE;
+import io.supertokens.pluginInterface.emailpassword.UserInfo;
+import io.supertokens.storageLayer.StorageLayer;
+import io.supertokens.test.TestingProcessManager;
+import io.supertokens.test.Utils;
+import io.supertokens.test.httpRequest.HttpRequestForTesting;
+import io.supertokens.test.httpRequest.HttpResponseException;
+import io.supertokens.utils.SemVer;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import static org.junit.Assert.*;
+
+public class VerifyEmailBulkAPITest {
+
+    @Rule
+    public TestRule watchman = Utils.getOnFailure();
+
+    @AfterClass
+    public static void afterTesting() {
+        Utils.afterTesting();
+    }
+
+    @Before
+    public void beforeEach() {
+        Utils.reset();
+    }
+
+    private static JsonObject getRequestBody(String[][] userIdAndEmails) {
+        JsonArray users = new JsonArray();
+        for (String[] userIdAndEmail : userIdAndEmails) {
+            JsonObject user = new JsonObject();
+            user.addProperty("userId", userIdAndEmail[0]);
+            user.addProperty("email", userIdAndEmail[1]);
+            users.add(user);
+        }
+        JsonObject requestBody = new JsonObject();
+        requestBody.add("users", users);
+        return requestBody;
+    }
+
+    @Test
+    public void testBadInput() throws Exception {
+        String[] args = { "../" };
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+
+        try {
+            HttpRequestForTesting.sendJsonPOSTRequest(process.getProcess(), "",
+                    "http://localhost:3567/recipe/user/email/verify/bulk", new JsonObject(), 1000, 1000, null,
+                    SemVer.v2_21.get(), "emailverification");
+            fail();
+        } catch (HttpResponseException e) {
+            assertEquals(400, e.statusCode);
+            assertEquals("Http error. Status Code: 400. Message: Field name 'users' is invalid in JSON input",
+                    e.getMessage());
+        }
+
+        try {
+            HttpRequestForTesting.sendJsonPOSTRequest(process.getProcess(), "",
+                    "http://localhost:3567/recipe/user/email/verify/bulk",
+                    getRequestBody(new String[][] { { "userId", null } }), 1000, 1000, null, SemVer.v2_21.get(),
+                    "emailverification");
+            fail();
+        } catch (HttpResponseException e) {
+            assertEquals(400, e.statusCode);
+            assertEquals("Http error. Status Code: 400. Message: Field name 'email' is invalid in JSON input",
+                    e.getMessage());
+        }
+
+        String[][] tooManyUsers = new String[1001][];
+        for (int i = 0; i < tooManyUsers.length; i++) {
+            tooManyUsers[i] = new String[] { "userId" + i, "test@example.com" };
+        }
+        try {
+            HttpRequestForTesting.sendJsonPOSTRequest(process.getProcess(), "",
+                    "http://localhost:3567/recipe/user/email/verify/bulk", getRequestBody(tooManyUsers), 1000, 1000,
+                    null, SemVer.v2_21.get(), "emailverification");
+            fail();
+        } catch (HttpResponseException e) {
+            assertEquals(400, e.statusCode);
+            assertEquals("Http error. Status Code: 400. Message: Field name 'users' can have at most 1000 items",
+                    e.getMessage());
+        }
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testGettingTheVerificationStatusOfManyUsers() throws Exception {
+        String[] args = { "../" };
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+
+        // more users than are queried in one statement, every third of them verified
+        String[][] users = new String[600][];
+        for (int i = 0; i < users.length; i++) {
+            users[i] = new String[] { "userId" + i, "user" + i + "@example.com" };
+            if (i % 3 == 0) {
+                String token = EmailVerification.generateEmailVerificationToken(process.getProcess(), users[i][0],
+                        users[i][1]);
+                EmailVerification.verifyEmail(process.getProcess(), token);
+            }
+        }
+        // the email of a verified user, but paired with another user
+        String[][] usersToCheck = new String[users.length + 1][];
+        System.arraycopy(users, 0, usersToCheck, 0, users.length);
+        usersToCheck[users.length] = new String[] { "userId1", "user0@example.com" };
+
+        JsonObject response = HttpRequestForTesting.sendJsonPOSTRequest(process.getProcess(), "",
+                "http://localhost:3567/recipe/user/email/verify/bulk", getRequestBody(usersToCheck), 1000, 1000,
+                null, SemVer.v2_21.get(), "emailverification");
+
+        assertEquals("OK", response.get("status").getAsString());
+        JsonArray result = response.getAsJsonArray("users");
+        assertEquals(usersToCheck.length, result.size());
+        for (int i = 0; i < usersToCheck.length; i++) {
+            JsonObject user = result.get(i).getAsJsonObject();
+            assertEquals(usersToCheck[i][0], user.get("userId").getAsString());
+            assertEquals(usersToCheck[i][1], user.get("email").getAsString());
+            assertEquals(i < users.length && i % 3 == 0, user.get("isVerified").getAsBoolean());
+        }
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatVerifiedEmailsAreCachedAndInvalidated() throws Exception {
+        String[] args = { "../" };
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+
+        EmailVerificationCache cache = EmailVerificationCache.getInstance(process.getProcess());
+        UserInfo userInfo = EmailPassword.signUp(process.getProcess(), "test@example.com", "password");
+
+        assertFalse(EmailVerification.isEmailVerified(process.getProcess(), userInfo.id, userInfo.email));
+
+        String token = EmailVerification.generateEmailVerificationToken(process.getProcess(), userInfo.id,
+                userInfo.email);
+        EmailVerification.verifyEmail(process.getProcess(), token);
+
+        long hitsBefore = cache.getHitCount();
+        assertTrue(EmailVerification.isEmailVerified(process.getProcess(), userInfo.id, userInfo.email));
+        assertEquals(hitsBefore + 1, cache.getHitCount());
+
+        EmailVerification.unverifyEmail(process.getProcess(), userInfo.id, userInfo.email);
+        assertFalse(EmailVerification.isEmailVerified(process.getProcess(), userInfo.id, userInfo.email));
+
+        token = EmailVerification.generateEmailVerificationToken(process.getProcess(), userInfo.id, userInfo.email);
+        EmailVerification.verifyEmail(process.getProcess(), token);
+        assertTrue(EmailVerification.isEmailVerified(process.getProcess(), userInfo.id, userInfo.email));
+
+        AuthRecipe.deleteUser(process.getProcess(), userInfo.id);
+        assertFalse(EmailVerification.isEmailVerified(process.getProcess(), userInfo.id, userInfo.email));
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+}
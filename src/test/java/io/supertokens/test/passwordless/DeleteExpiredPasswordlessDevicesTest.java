@@ -114,4 +114,45 @@ public class DeleteExpiredPasswordlessDevicesTest {
         process.kill();
         assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
     }
+
+    @Test
+    public void jobDeletesMoreExpiredDevicesThanOneBatchTest() throws Exception {
+        String[] args = { "../" };
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        CronTaskTest.getInstance(process.getProcess())
+                .setIntervalInSeconds(DeleteExpiredPasswordlessDevices.RESOURCE_KEY, 1);
+        process.startProcess();
+
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+
+        PasswordlessStorage passwordlessStorage = StorageLayer.getPasswordlessStorage(process.getProcess());
+
+        long codeLifetime = Config.getConfig(process.getProcess()).getPasswordlessCodeLifetime();
+
+        // more than two batches of the cronjob, so that it has to loop within a single run
+        int numberOfExpiredDevices = 1100;
+        for (int i = 0; i < numberOfExpiredDevices; i++) {
+            passwordlessStorage.createDeviceWithCode("test" + i + "@example.com", null, "linkCodeSalt",
+                    new PasswordlessCode("expiredCode" + i, "expiredDeviceIdHash" + i, "expiredLinkCodeHash" + i,
+                            System.currentTimeMillis() - codeLifetime));
+        }
+        passwordlessStorage.createDeviceWithCode("active@example.com", null, "linkCodeSalt",
+                new PasswordlessCode("activeCode", "activeDeviceIdHash", "activeLinkCodeHash",
+                        System.currentTimeMillis()));
+
+        Thread.sleep(2500);
+
+        for (int i = 0; i < numberOfExpiredDevices; i++) {
+            assertNull(passwordlessStorage.getDevice("expiredDeviceIdHash" + i));
+        }
+        assertNotNull(passwordlessStorage.getDevice("activeDeviceIdHash"));
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
 }
@@ -49,6 +49,10 @@ import static org.junit.Assert.*;
 
 import java.security.SecureRandom;
 import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class PasswordlessStorageTest {
@@ -767,6 +771,91 @@ public class PasswordlessStorageTest {
         assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
     }
 
+    @Test
+    public void testGetDevicesWithCodes() throws Exception {
+        String[] args = { "../" };
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+
+        PasswordlessSQLStorage storage = StorageLayer.getPasswordlessStorage(process.getProcess());
+
+        String email = "test@example.com";
+        String phoneNumber = "+442071838750";
+
+        // a device with several codes
+        PasswordlessCode codeA1 = getRandomCodeInfo();
+        PasswordlessCode codeA2 = getRandomCodeInfo(codeA1.deviceIdHash);
+        PasswordlessCode codeA3 = getRandomCodeInfo(codeA1.deviceIdHash);
+        storage.createDeviceWithCode(email, null, "linkCodeSalt", codeA1);
+        storage.createCode(codeA2);
+        storage.createCode(codeA3);
+
+        // a device with one code
+        PasswordlessCode codeB = getRandomCodeInfo();
+        storage.createDeviceWithCode(email, null, "linkCodeSalt", codeB);
+
+        // a device without any code
+        PasswordlessCode codeC = getRandomCodeInfo();
+        storage.createDeviceWithCode(email, null, "linkCodeSalt", codeC);
+        storage.startTransaction(con -> {
+            storage.deleteCode_Transaction(con, codeC.id);
+            storage.commitTransaction(con);
+            return null;
+        });
+
+        // devices of another email and of a phone number must not be returned for the email
+        PasswordlessCode otherEmailCode = getRandomCodeInfo();
+        storage.createDeviceWithCode("test2@example.com", null, "linkCodeSalt", otherEmailCode);
+        PasswordlessCode phoneCode1 = getRandomCodeInfo();
+        PasswordlessCode phoneCode2 = getRandomCodeInfo(phoneCode1.deviceIdHash);
+        storage.createDeviceWithCode(null, phoneNumber, "linkCodeSalt", phoneCode1);
+        storage.createCode(phoneCode2);
+
+        Map<String, Set<String>> codeIdsByDevice = getCodeIdsByDevice(storage.getDevicesWithCodesByEmail(email));
+        assertEquals(3, codeIdsByDevice.size());
+        assertEquals(Set.of(codeA1.id, codeA2.id, codeA3.id), codeIdsByDevice.get(codeA1.deviceIdHash));
+        assertEquals(Set.of(codeB.id), codeIdsByDevice.get(codeB.deviceIdHash));
+        assertEquals(Set.of(), codeIdsByDevice.get(codeC.deviceIdHash));
+
+        for (Map.Entry<PasswordlessDevice, PasswordlessCode[]> entry : storage.getDevicesWithCodesByEmail(email)
+                .entrySet()) {
+            assertEquals(email, entry.getKey().email);
+            assertNull(entry.getKey().phoneNumber);
+            assertEquals("linkCodeSalt", entry.getKey().linkCodeSalt);
+            for (PasswordlessCode code : entry.getValue()) {
+                assertEquals(entry.getKey().deviceIdHash, code.deviceIdHash);
+                assertEquals(storage.getCode(code.id).linkCodeHash, code.linkCodeHash);
+                assertEquals(storage.getCode(code.id).createdAt, code.createdAt);
+            }
+        }
+
+        codeIdsByDevice = getCodeIdsByDevice(storage.getDevicesWithCodesByPhoneNumber(phoneNumber));
+        assertEquals(1, codeIdsByDevice.size());
+        assertEquals(Set.of(phoneCode1.id, phoneCode2.id), codeIdsByDevice.get(phoneCode1.deviceIdHash));
+
+        assertEquals(0, storage.getDevicesWithCodesByEmail("unknown@example.com").size());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    private static Map<String, Set<String>> getCodeIdsByDevice(Map<PasswordlessDevice, PasswordlessCode[]> devices) {
+        Map<String, Set<String>> codeIdsByDevice = new HashMap<>();
+        for (Map.Entry<PasswordlessDevice, PasswordlessCode[]> entry : devices.entrySet()) {
+            Set<String> codeIds = new HashSet<>();
+            for (PasswordlessCode code : entry.getValue()) {
+                codeIds.add(code.id);
+            }
+            assertNull(codeIdsByDevice.put(entry.getKey().deviceIdHash, codeIds));
+        }
+        return codeIdsByDevice;
+    }
+
     private PasswordlessCode getRandomCodeInfo(String deviceIdHash) {
         String codeId = io.supertokens.utils.Utils.getUUID();
 
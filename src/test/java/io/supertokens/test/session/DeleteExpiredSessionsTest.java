@@ -16,8 +16,13 @@
 
 package io.supertokens.test.session;
 
+import com.google.gson.JsonObject;
 import io.supertokens.ProcessState;
+import io.supertokens.cronjobs.CronTaskTest;
+import io.supertokens.cronjobs.ExpirySweeper;
 import io.supertokens.cronjobs.deleteExpiredSessions.DeleteExpiredSessions;
+import io.supertokens.pluginInterface.session.SessionStorage;
+import io.supertokens.storageLayer.StorageLayer;
 import io.supertokens.test.TestingProcessManager;
 import io.supertokens.test.Utils;
 import org.junit.AfterClass;
@@ -27,6 +32,7 @@ import org.junit.Test;
 import org.junit.rules.TestRule;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 
 public class DeleteExpiredSessionsTest {
@@ -55,4 +61,39 @@ public class DeleteExpiredSessionsTest {
         process.kill();
         assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
     }
+
+    @Test
+    public void jobDeletesExpiredSessionsInBatchesTest() throws Exception {
+        String[] args = { "../" };
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args, false);
+        CronTaskTest.getInstance(process.getProcess()).setIntervalInSeconds(DeleteExpiredSessions.RESOURCE_KEY, 1);
+        process.startProcess();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        SessionStorage storage = StorageLayer.getSessionStorage(process.getProcess());
+
+        // more than two batches of the sweeper
+        int numberOfExpiredSessions = 2500;
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < numberOfExpiredSessions; i++) {
+            storage.createNewSession("expiredSession" + i, "userId", "refreshTokenHash2", new JsonObject(), now - 1000,
+                    new JsonObject(), now - 2000, false);
+        }
+        storage.createNewSession("activeSession", "userId", "refreshTokenHash2", new JsonObject(), now + 3600 * 1000,
+                new JsonObject(), now, false);
+
+        Thread.sleep(2500);
+
+        assertEquals(1, storage.getNumberOfSessions());
+        assertNotNull(storage.getSession("activeSession"));
+
+        ExpirySweeper.RunStats lastRunStats = DeleteExpiredSessions.getInstance(process.getProcess())
+                .getLastRunStats();
+        assertNotNull(lastRunStats);
+        assertFalse(lastRunStats.timeBoxed);
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
 }
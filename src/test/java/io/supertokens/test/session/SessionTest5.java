@@ -21,18 +21,29 @@ import com.auth0.jwt.interfaces.DecodedJWT;
 import com.google.gson.JsonObject;
 import io.supertokens.ProcessState;
 import io.supertokens.config.Config;
+import io.supertokens.exceptions.TokenTheftDetectedException;
+import io.supertokens.exceptions.UnauthorisedException;
+import io.supertokens.pluginInterface.STORAGE_TYPE;
+import io.supertokens.pluginInterface.session.sqlStorage.SessionSQLStorage;
 import io.supertokens.session.Session;
 import io.supertokens.session.info.SessionInformationHolder;
 import io.supertokens.session.jwt.JWT;
 import io.supertokens.signingkeys.AccessTokenSigningKey;
 import io.supertokens.signingkeys.SigningKeys;
+import io.supertokens.storageLayer.StorageLayer;
 import io.supertokens.test.TestingProcessManager;
 import io.supertokens.test.Utils;
 import org.junit.*;
 import org.junit.rules.TestRule;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static junit.framework.TestCase.*;
 import static org.junit.Assert.assertNotEquals;
@@ -374,4 +385,147 @@ public class SessionTest5 {
         assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
 
     }
+
+    @Test
+    public void concurrentRefreshesWithTheSameNewRefreshTokenDoNotDetectTheft() throws Exception {
+
+        String[] args = { "../" };
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        String userId = "userId";
+        JsonObject userDataInJWT = new JsonObject();
+        userDataInJWT.addProperty("key", "value");
+        JsonObject userDataInDatabase = new JsonObject();
+        userDataInDatabase.addProperty("key", "value");
+
+        SessionInformationHolder createInfo = Session.createNewSession(process.getProcess(), userId, userDataInJWT,
+                userDataInDatabase, false, false, false);
+        // the new refresh token is not in the db yet, so the first of the refreshes below promotes it
+        SessionInformationHolder refreshInfo = Session.refreshSession(process.getProcess(),
+                createInfo.refreshToken.token, null, false, true);
+
+        int numberOfRefreshes = 20;
+        ExecutorService es = Executors.newFixedThreadPool(numberOfRefreshes);
+        List<Future<SessionInformationHolder>> results = new ArrayList<>();
+        for (int i = 0; i < numberOfRefreshes; i++) {
+            results.add(es.submit(() -> Session.refreshSession(process.getProcess(), refreshInfo.refreshToken.token,
+                    null, false, true)));
+        }
+        es.shutdown();
+        assertTrue(es.awaitTermination(1, TimeUnit.MINUTES));
+
+        for (Future<SessionInformationHolder> result : results) {
+            assertEquals(createInfo.session.handle, result.get().session.handle);
+        }
+
+        // the first refresh token is no longer the one in the db, nor its parent
+        try {
+            Session.refreshSession(process.getProcess(), createInfo.refreshToken.token, null, false, true);
+            fail();
+        } catch (TokenTheftDetectedException ignored) {
+        }
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+
+    }
+
+    @Test
+    public void getSessionPromotesTheRefreshTokenOfAnExpiredSession() throws Exception {
+
+        String[] args = { "../" };
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+
+        JsonObject userDataInJWT = new JsonObject();
+        userDataInJWT.addProperty("key", "value");
+        SessionInformationHolder createInfo = Session.createNewSession(process.getProcess(), "userId", userDataInJWT,
+                new JsonObject(), false, false, false);
+        // the new refresh token is not in the db until it is used, or promoted by getSession
+        SessionInformationHolder refreshInfo = Session.refreshSession(process.getProcess(),
+                createInfo.refreshToken.token, null, false, true);
+
+        SessionSQLStorage storage = (SessionSQLStorage) StorageLayer.getSessionStorage(process.getProcess());
+        String handle = createInfo.session.handle;
+        String parentRefreshTokenHash2 = storage.getSession(handle).refreshTokenHash2;
+        storage.startTransaction(con -> {
+            storage.updateSessionInfo_Transaction(con, handle, parentRefreshTokenHash2,
+                    System.currentTimeMillis() - 1000);
+            storage.commitTransaction(con);
+            return null;
+        });
+
+        // the access token is still valid, so the refresh token is promoted even though the session has expired
+        SessionInformationHolder getInfo = Session.getSession(process.getProcess(), refreshInfo.accessToken.token,
+                null, false, true, false);
+        assertNotNull(getInfo.accessToken);
+        io.supertokens.pluginInterface.session.SessionInfo sessionInfo = storage.getSession(handle);
+        assertEquals(io.supertokens.utils.Utils.hashSHA256(
+                io.supertokens.utils.Utils.hashSHA256(refreshInfo.refreshToken.token)), sessionInfo.refreshTokenHash2);
+        assertTrue(sessionInfo.expiry > System.currentTimeMillis());
+
+        // refreshing an expired session still fails
+        storage.startTransaction(con -> {
+            storage.updateSessionInfo_Transaction(con, handle, sessionInfo.refreshTokenHash2,
+                    System.currentTimeMillis() - 1000);
+            storage.commitTransaction(con);
+            return null;
+        });
+        try {
+            Session.refreshSession(process.getProcess(), refreshInfo.refreshToken.token, null, false, true);
+            fail();
+        } catch (UnauthorisedException ignored) {
+        }
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+
+    }
+
+    @Test
+    public void conditionalRefreshTokenUpdateOnlyReturnsTheSessionIfItUpdatedIt() throws Exception {
+
+        String[] args = { "../" };
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+
+        SessionInformationHolder createInfo = Session.createNewSession(process.getProcess(), "userId",
+                new JsonObject(), new JsonObject(), false, false, false);
+        SessionSQLStorage storage = (SessionSQLStorage) StorageLayer.getSessionStorage(process.getProcess());
+        String handle = createInfo.session.handle;
+        String currentRefreshTokenHash2 = storage.getSession(handle).refreshTokenHash2;
+        long expiry = System.currentTimeMillis() + 100000;
+
+        // the current hash does not match, so nothing is updated
+        assertNull(storage.updateSessionInfoIfRefreshTokenMatches(handle, "otherHash", "newHash", expiry, true));
+        assertEquals(currentRefreshTokenHash2, storage.getSession(handle).refreshTokenHash2);
+
+        // a session that does not exist is not created
+        assertNull(storage.updateSessionInfoIfRefreshTokenMatches("unknownHandle", currentRefreshTokenHash2,
+                "newHash", expiry, true));
+
+        io.supertokens.pluginInterface.session.SessionInfo updated = storage.updateSessionInfoIfRefreshTokenMatches(
+                handle, currentRefreshTokenHash2, "newHash", expiry, true);
+        assertNotNull(updated);
+        assertEquals("newHash", updated.refreshTokenHash2);
+        assertEquals(expiry, updated.expiry);
+
+        // the same update again finds the new hash, so it does not update anything
+        assertNull(storage.updateSessionInfoIfRefreshTokenMatches(handle, currentRefreshTokenHash2, "newHash2",
+                expiry, true));
+        assertEquals("newHash", storage.getSession(handle).refreshTokenHash2);
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+
+    }
 }
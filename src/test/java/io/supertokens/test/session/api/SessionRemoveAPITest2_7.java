@@ -28,6 +28,7 @@ import io.supertokens.storageLayer.StorageLayer;
 import io.supertokens.test.TestingProcessManager;
 import io.supertokens.test.Utils;
 import io.supertokens.test.httpRequest.HttpRequestForTesting;
+import io.supertokens.test.httpRequest.HttpResponseException;
 import io.supertokens.utils.SemVer;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -244,7 +245,7 @@ public class SessionRemoveAPITest2_7 {
 
         // check that response should only contain s1 and s3 session handles
         assertTrue(revokedSessions.contains(s1Info.get("session").getAsJsonObject().get("handle")));
-        assertTrue(revokedSessions.contains(s2Info.get("session").getAsJsonObject().get("handle")));
+        assertTrue(revokedSessions.contains(s3Info.get("session").getAsJsonObject().get("handle")));
 
         assertEquals(revokedSessions.size(), 2);
 
@@ -370,4 +371,84 @@ public class SessionRemoveAPITest2_7 {
         assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
     }
 
+    @Test
+    public void testRemovingSessionsOfMultipleUsers() throws Exception {
+        String[] args = { "../" };
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        JsonObject userDataInJWT = new JsonObject();
+        userDataInJWT.addProperty("key", "value");
+        JsonObject userDataInDatabase = new JsonObject();
+        userDataInDatabase.addProperty("key", "value");
+
+        // create two sessions for each of userId1, userId2 and userId3
+        JsonArray expectedHandles = new JsonArray();
+        JsonObject otherUserSession = null;
+        for (String userId : new String[]{"userId1", "userId2", "userId3"}) {
+            JsonObject sessionRequest = new JsonObject();
+            sessionRequest.addProperty("userId", userId);
+            sessionRequest.add("userDataInJWT", userDataInJWT);
+            sessionRequest.add("userDataInDatabase", userDataInDatabase);
+            sessionRequest.addProperty("enableAntiCsrf", false);
+
+            for (int i = 0; i < 2; i++) {
+                JsonObject sessionInfo = HttpRequestForTesting.sendJsonPOSTRequest(process.getProcess(), "",
+                        "http://localhost:3567/recipe/session", sessionRequest, 1000, 1000, 2, SemVer.v2_7.get(),
+                        "session");
+                assertEquals(sessionInfo.get("status").getAsString(), "OK");
+                if (userId.equals("userId3")) {
+                    otherUserSession = sessionInfo;
+                } else {
+                    expectedHandles.add(sessionInfo.get("session").getAsJsonObject().get("handle"));
+                }
+            }
+        }
+
+        // remove sessions of userId1, userId2 and a user that has no sessions
+        JsonObject removeSessionBody = new JsonObject();
+        JsonArray userIds = new JsonArray();
+        userIds.add(new JsonPrimitive("userId1"));
+        userIds.add(new JsonPrimitive("userId2"));
+        userIds.add(new JsonPrimitive("unknownUserId"));
+        removeSessionBody.add("userIds", userIds);
+
+        JsonObject sessionRemovedResponse = HttpRequestForTesting.sendJsonPOSTRequest(process.getProcess(), "",
+                "http://localhost:3567/recipe/session/remove", removeSessionBody, 1000, 1000, null,
+                SemVer.v2_7.get(), "session");
+        assertEquals(sessionRemovedResponse.get("status").getAsString(), "OK");
+
+        JsonArray revokedSessions = sessionRemovedResponse.getAsJsonArray("sessionHandlesRevoked");
+        assertEquals(revokedSessions.size(), 4);
+        for (int i = 0; i < expectedHandles.size(); i++) {
+            assertTrue(revokedSessions.contains(expectedHandles.get(i)));
+        }
+        assertFalse(revokedSessions.contains(otherUserSession.get("session").getAsJsonObject().get("handle")));
+
+        // sessions of userId3 are untouched
+        Map<String, String> userParams = new HashMap<>();
+        userParams.put("userId", "userId3");
+
+        JsonObject userResponse = HttpRequestForTesting.sendGETRequest(process.getProcess(), "",
+                "http://localhost:3567/recipe/session/user", userParams, 1000, 1000, null,
+                SemVer.v2_7.get(), "session");
+        assertEquals(userResponse.get("status").getAsString(), "OK");
+        assertEquals(userResponse.get("sessionHandles").getAsJsonArray().size(), 2);
+
+        // passing both userId and userIds is not allowed
+        removeSessionBody.addProperty("userId", "userId3");
+        try {
+            HttpRequestForTesting.sendJsonPOSTRequest(process.getProcess(), "",
+                    "http://localhost:3567/recipe/session/remove", removeSessionBody, 1000, 1000, null,
+                    SemVer.v2_7.get(), "session");
+            fail();
+        } catch (HttpResponseException e) {
+            assertEquals(400, e.statusCode);
+        }
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
 }
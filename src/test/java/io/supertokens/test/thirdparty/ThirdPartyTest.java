@@ -33,6 +33,13 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TestRule;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.Assert.*;
 
 public class ThirdPartyTest {
@@ -495,6 +502,49 @@ public class ThirdPartyTest {
         assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
     }
 
+    // - Call signInUp for the same third party user from many threads at once, with different emails
+    // - Failure condition: more or less than one of the calls creates a user, or the calls return different users
+    @Test
+    public void testConcurrentSignInUpCreatesOneUser() throws Exception {
+        String[] args = { "../" };
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+
+        int numberOfCalls = 20;
+        ExecutorService es = Executors.newFixedThreadPool(numberOfCalls);
+        List<Future<ThirdParty.SignInUpResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < numberOfCalls; i++) {
+            String email = "test" + i + "@example.com";
+            responses.add(es.submit(
+                    () -> ThirdParty.signInUp(process.getProcess(), "thirdPartyId", "thirdPartyUserId", email)));
+        }
+        es.shutdown();
+        assertTrue(es.awaitTermination(1, TimeUnit.MINUTES));
+
+        int createdCount = 0;
+        String userId = null;
+        for (Future<ThirdParty.SignInUpResponse> response : responses) {
+            ThirdParty.SignInUpResponse signInUpResponse = response.get();
+            if (signInUpResponse.createdNewUser) {
+                createdCount++;
+            }
+            if (userId == null) {
+                userId = signInUpResponse.user.id;
+            }
+            assertEquals(userId, signInUpResponse.user.id);
+        }
+        assertEquals(1, createdCount);
+        assertEquals(1, StorageLayer.getThirdPartyStorage(process.getProcess()).getThirdPartyUsersCount());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
     public static void checkSignInUpResponse(ThirdParty.SignInUpResponse response, String thirdPartyUserId,
             String thirdPartyId, String email, boolean createNewUser) {
         assertEquals(response.createdNewUser, createNewUser);
@@ -508,4 +508,56 @@ public class TOTPStorageTest {
         assert (usedCodes[0].equals(invalidCodeToLive));
         assert (usedCodes[1].equals(validCodeToLive));
     }
+
+    @Test
+    public void recentAndValidUsedCodesTest() throws Exception {
+        TestSetupResult result = initSteps();
+        if (result == null) {
+            return;
+        }
+        TOTPSQLStorage storage = result.storage;
+
+        long now = System.currentTimeMillis();
+        long nextDay = now + 1000 * 60 * 60 * 24; // 1 day from now
+        long prevDay = now - 1000 * 60 * 60 * 24; // 1 day ago
+
+        TOTPDevice device = new TOTPDevice("user", "device", "secretKey", 30, 1, false);
+        TOTPUsedCode oldExpiredCode = new TOTPUsedCode("user", "old-ex", true, prevDay, now - 10);
+        TOTPUsedCode oldValidCode = new TOTPUsedCode("user", "old-valid", true, nextDay, now - 9);
+        TOTPUsedCode oldInvalidCode = new TOTPUsedCode("user", "old-in", false, nextDay, now - 8);
+        TOTPUsedCode expiredInvalidCode = new TOTPUsedCode("user", "ex-in", false, prevDay, now + 1);
+        TOTPUsedCode invalidCode = new TOTPUsedCode("user", "invalid", false, nextDay, now + 2);
+        TOTPUsedCode validCode = new TOTPUsedCode("user", "valid", true, nextDay, now + 3);
+
+        storage.createDevice(device);
+        insertUsedCodesUtil(storage, new TOTPUsedCode[]{
+                oldExpiredCode, oldValidCode, oldInvalidCode,
+                expiredInvalidCode, invalidCode, validCode
+        });
+
+        // the latest 3 codes (even if expired) and the older valid codes that have not expired:
+        TOTPUsedCode[] usedCodes = (TOTPUsedCode[]) storage.startTransaction(con -> {
+            TOTPUsedCode[] codes = storage.getRecentAndValidUsedCodesDescOrder_Transaction(con, "user", 3, now);
+            storage.commitTransaction(con);
+            return codes;
+        });
+        assert (usedCodes.length == 4);
+        assert (usedCodes[0].equals(validCode));
+        assert (usedCodes[1].equals(invalidCode));
+        assert (usedCodes[2].equals(expiredInvalidCode));
+        assert (usedCodes[3].equals(oldValidCode));
+
+        // only the expired codes that are older than the latest 3 codes are removed:
+        int removedCount = (int) storage.startTransaction(con -> {
+            int count = storage.removeOldUsedCodes_Transaction(con, "user", 3, now);
+            storage.commitTransaction(con);
+            return count;
+        });
+        assert (removedCount == 1);
+
+        usedCodes = getAllUsedCodesUtil(storage, "user");
+        assert (usedCodes.length == 5);
+        assert (usedCodes[4].equals(oldValidCode));
+        assert (usedCodes[3].equals(oldInvalidCode));
+    }
 }
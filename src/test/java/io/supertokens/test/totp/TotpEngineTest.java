@@ -0,0 +1,143 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.test.totp;
+
+import com.eatthepath.otp.TimeBasedOneTimePasswordGenerator;
+import io.supertokens.ProcessState;
+import io.supertokens.pluginInterface.totp.TOTPDevice;
+import io.supertokens.test.TestingProcessManager;
+import io.supertokens.test.Utils;
+import io.supertokens.totp.TotpEngine;
+import org.apache.commons.codec.binary.Base32;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.security.Key;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.Assert.*;
+
+public class TotpEngineTest {
+
+    @Rule
+    public TestRule watchman = Utils.getOnFailure();
+
+    @AfterClass
+    public static void afterTesting() {
+        Utils.afterTesting();
+    }
+
+    @Before
+    public void beforeEach() {
+        Utils.reset();
+    }
+
+    private static final SecureRandom random = new SecureRandom();
+
+    private static TOTPDevice createDevice(String userId, String deviceName, int period, int skew) {
+        byte[] secret = new byte[20];
+        random.nextBytes(secret);
+        return new TOTPDevice(userId, deviceName, new Base32().encodeToString(secret), period, skew, true);
+    }
+
+    private static String generateCode(TOTPDevice device, Instant time) throws Exception {
+        TimeBasedOneTimePasswordGenerator totp = new TimeBasedOneTimePasswordGenerator(
+                Duration.ofSeconds(device.period));
+        Key key = new SecretKeySpec(new Base32().decode(device.secretKey), "HmacSHA1");
+        return totp.generateOneTimePasswordString(key, time);
+    }
+
+    // what Totp did for each device before TotpEngine was added
+    private static boolean checkCodeWithoutEngine(TOTPDevice device, String code) throws Exception {
+        TimeBasedOneTimePasswordGenerator totp = new TimeBasedOneTimePasswordGenerator(
+                Duration.ofSeconds(device.period), 6);
+        Key key = new SecretKeySpec(new Base32().decode(device.secretKey), "HmacSHA1");
+        for (int i = -device.skew; i <= device.skew; i++) {
+            if (totp.generateOneTimePasswordString(key, Instant.now().plusSeconds(i * device.period)).equals(code)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void testCodesMatchTheReferenceImplementation() throws Exception {
+        String[] args = { "../" };
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        TotpEngine engine = TotpEngine.getInstance(process.main);
+        for (int i = 0; i < 200; i++) {
+            TOTPDevice device = createDevice("user" + i, "device", i % 2 == 0 ? 30 : 60, i % 3);
+            long now = 1_600_000_000_000L + random.nextInt(1_000_000_000);
+
+            for (int step = -device.skew; step <= device.skew; step++) {
+                String code = generateCode(device, Instant.ofEpochMilli(now).plusSeconds((long) step * device.period));
+                assertSame(device, engine.findMatchingDevice(new TOTPDevice[] { device }, code, now));
+            }
+        }
+
+        TOTPDevice device = createDevice("user", "device", 30, 1);
+        long now = System.currentTimeMillis();
+        String tooOldCode = generateCode(device, Instant.ofEpochMilli(now).minusSeconds(5 * 30));
+        if (!checkCodeWithoutEngine(device, tooOldCode)) {
+            assertNull(engine.findMatchingDevice(new TOTPDevice[] { device }, tooOldCode, now));
+        }
+        assertNull(engine.findMatchingDevice(new TOTPDevice[] { device }, "12345", now));
+        assertNull(engine.findMatchingDevice(new TOTPDevice[] { device }, "1234567", now));
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testCachedKeyIsNotUsedForANewSecretOfTheSameDevice() throws Exception {
+        String[] args = { "../" };
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        TotpEngine engine = TotpEngine.getInstance(process.main);
+        long now = System.currentTimeMillis();
+
+        TOTPDevice oldDevice = createDevice("user", "device", 30, 0);
+        String oldCode = generateCode(oldDevice, Instant.ofEpochMilli(now));
+        assertSame(oldDevice, engine.findMatchingDevice(new TOTPDevice[] { oldDevice }, oldCode, now));
+        assertEquals(1, engine.size());
+
+        // the device was deleted and created again, for example through another core
+        TOTPDevice newDevice = createDevice("user", "device", 30, 0);
+        String newCode = generateCode(newDevice, Instant.ofEpochMilli(now));
+        assertSame(newDevice, engine.findMatchingDevice(new TOTPDevice[] { newDevice }, newCode, now));
+        if (!newCode.equals(oldCode)) {
+            assertNull(engine.findMatchingDevice(new TOTPDevice[] { newDevice }, oldCode, now));
+        }
+
+        engine.invalidateUser("user");
+        assertEquals(0, engine.size());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+}
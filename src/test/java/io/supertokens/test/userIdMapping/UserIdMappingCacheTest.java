@@ -0,0 +1,264 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.test.userIdMapping;
+
+import com.google.gson.JsonObject;
+import io.supertokens.ProcessState;
+import io.supertokens.authRecipe.AuthRecipe;
+import io.supertokens.emailpassword.EmailPassword;
+import io.supertokens.pluginInterface.STORAGE_TYPE;
+import io.supertokens.pluginInterface.emailpassword.UserInfo;
+import io.supertokens.pluginInterface.useridmapping.UserIdMappingStorage;
+import io.supertokens.storageLayer.StorageLayer;
+import io.supertokens.test.TestingProcessManager;
+import io.supertokens.test.Utils;
+import io.supertokens.test.httpRequest.HttpRequestForTesting;
+import io.supertokens.useridmapping.UserIdMapping;
+import io.supertokens.useridmapping.UserIdMappingCache;
+import io.supertokens.useridmapping.UserIdType;
+import io.supertokens.utils.SemVer;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import java.util.HashMap;
+
+import static org.junit.Assert.*;
+
+public class UserIdMappingCacheTest {
+    @Rule
+    public TestRule watchman = Utils.getOnFailure();
+
+    @AfterClass
+    public static void afterTesting() {
+        Utils.afterTesting();
+    }
+
+    @Before
+    public void beforeEach() {
+        Utils.reset();
+    }
+
+    @Test
+    public void testThatLookupsAreCachedIncludingMissingMappings() throws Exception {
+        String[] args = { "../" };
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+
+        UserInfo userInfo = EmailPassword.signUp(process.main, "test@example.com", "testPassword");
+        UserIdMappingCache cache = UserIdMappingCache.getInstance(process.main);
+        long hitsBefore = cache.getHitCount();
+        long missesBefore = cache.getMissCount();
+
+        assertNull(UserIdMapping.getUserIdMapping(process.main, userInfo.id, UserIdType.ANY));
+        assertNull(UserIdMapping.getUserIdMapping(process.main, userInfo.id, UserIdType.ANY));
+        assertNull(UserIdMapping.getUserIdMapping(process.main, userInfo.id, UserIdType.ANY));
+
+        assertEquals(missesBefore + 1, cache.getMissCount());
+        assertEquals(hitsBefore + 2, cache.getHitCount());
+        assertTrue(cache.getHitRatio() > 0);
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatCreatingUpdatingAndDeletingAMappingInvalidatesTheCache() throws Exception {
+        String[] args = { "../" };
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+
+        UserInfo userInfo = EmailPassword.signUp(process.main, "test@example.com", "testPassword");
+        String externalUserId = "externalId";
+
+        // cache the lookups which find no mapping
+        assertNull(UserIdMapping.getUserIdMapping(process.main, userInfo.id, UserIdType.SUPERTOKENS));
+        assertNull(UserIdMapping.getUserIdMapping(process.main, externalUserId, UserIdType.EXTERNAL));
+        assertNull(UserIdMapping.getUserIdMapping(process.main, externalUserId, UserIdType.ANY));
+
+        UserIdMapping.createUserIdMapping(process.main, userInfo.id, externalUserId, "info", false);
+
+        for (UserIdType userIdType : new UserIdType[]{ UserIdType.SUPERTOKENS, UserIdType.ANY }) {
+            io.supertokens.pluginInterface.useridmapping.UserIdMapping mapping = UserIdMapping.getUserIdMapping(
+                    process.main, userInfo.id, userIdType);
+            assertNotNull(mapping);
+            assertEquals(externalUserId, mapping.externalUserId);
+            assertEquals("info", mapping.externalUserIdInfo);
+        }
+        for (UserIdType userIdType : new UserIdType[]{ UserIdType.EXTERNAL, UserIdType.ANY }) {
+            io.supertokens.pluginInterface.useridmapping.UserIdMapping mapping = UserIdMapping.getUserIdMapping(
+                    process.main, externalUserId, userIdType);
+            assertNotNull(mapping);
+            assertEquals(userInfo.id, mapping.superTokensUserId);
+        }
+
+        // update the externalUserIdInfo using the externalUserId, lookups using the superTokensUserId must change
+        assertTrue(UserIdMapping.updateOrDeleteExternalUserIdInfo(process.main, externalUserId, UserIdType.EXTERNAL,
+                "newInfo"));
+        assertEquals("newInfo", UserIdMapping.getUserIdMapping(process.main, userInfo.id,
+                UserIdType.SUPERTOKENS).externalUserIdInfo);
+
+        // delete using the superTokensUserId, lookups using the externalUserId must change
+        assertTrue(UserIdMapping.deleteUserIdMapping(process.main, userInfo.id, UserIdType.SUPERTOKENS, false));
+        assertNull(UserIdMapping.getUserIdMapping(process.main, externalUserId, UserIdType.EXTERNAL));
+        assertNull(UserIdMapping.getUserIdMapping(process.main, externalUserId, UserIdType.ANY));
+        assertNull(UserIdMapping.getUserIdMapping(process.main, userInfo.id, UserIdType.ANY));
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatDeletingAUserInvalidatesItsMapping() throws Exception {
+        String[] args = { "../" };
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+
+        UserInfo userInfo = EmailPassword.signUp(process.main, "test@example.com", "testPassword");
+        String externalUserId = "externalId";
+        UserIdMapping.createUserIdMapping(process.main, userInfo.id, externalUserId, null, false);
+        assertNotNull(UserIdMapping.getUserIdMapping(process.main, externalUserId, UserIdType.EXTERNAL));
+
+        AuthRecipe.deleteUser(process.main, externalUserId);
+
+        assertNull(UserIdMapping.getUserIdMapping(process.main, externalUserId, UserIdType.EXTERNAL));
+        assertNull(UserIdMapping.getUserIdMapping(process.main, userInfo.id, UserIdType.SUPERTOKENS));
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatChangesMadeOutsideThisCoreAreSeenAfterTheTTL() throws Exception {
+        String[] args = { "../" };
+        Utils.setValueInConfig("user_id_mapping_cache_ttl", "1");
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+
+        UserInfo userInfo = EmailPassword.signUp(process.main, "test@example.com", "testPassword");
+        assertNull(UserIdMapping.getUserIdMapping(process.main, userInfo.id, UserIdType.ANY));
+
+        // simulates another core instance creating the mapping
+        UserIdMappingStorage storage = StorageLayer.getUserIdMappingStorage(process.main);
+        storage.createUserIdMapping(userInfo.id, "externalId", null);
+
+        assertNull(UserIdMapping.getUserIdMapping(process.main, userInfo.id, UserIdType.ANY));
+
+        Thread.sleep(1500);
+
+        io.supertokens.pluginInterface.useridmapping.UserIdMapping mapping = UserIdMapping.getUserIdMapping(
+                process.main, userInfo.id, UserIdType.ANY);
+        assertNotNull(mapping);
+        assertEquals("externalId", mapping.externalUserId);
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatTheCacheCanBeDisabled() throws Exception {
+        String[] args = { "../" };
+        Utils.setValueInConfig("user_id_mapping_cache_size", "0");
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+
+        UserInfo userInfo = EmailPassword.signUp(process.main, "test@example.com", "testPassword");
+        assertNull(UserIdMapping.getUserIdMapping(process.main, userInfo.id, UserIdType.ANY));
+
+        StorageLayer.getUserIdMappingStorage(process.main).createUserIdMapping(userInfo.id, "externalId", null);
+
+        assertNotNull(UserIdMapping.getUserIdMapping(process.main, userInfo.id, UserIdType.ANY));
+        assertFalse(UserIdMappingCache.getInstance(process.main).isEnabled());
+        assertEquals(0, UserIdMappingCache.getInstance(process.main).size());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatTheCacheIsBounded() throws Exception {
+        String[] args = { "../" };
+        Utils.setValueInConfig("user_id_mapping_cache_size", "10");
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+
+        for (int i = 0; i < 50; i++) {
+            assertNull(UserIdMapping.getUserIdMapping(process.main, "userId" + i, UserIdType.ANY));
+        }
+        assertEquals(10, UserIdMappingCache.getInstance(process.main).size());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatTheCacheMetricsAPIReturnsTheHitCountAndHitRatio() throws Exception {
+        String[] args = { "../" };
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+
+        UserInfo userInfo = EmailPassword.signUp(process.main, "test@example.com", "testPassword");
+        UserIdMappingCache cache = UserIdMappingCache.getInstance(process.main);
+        long hitsBefore = cache.getHitCount();
+
+        assertNull(UserIdMapping.getUserIdMapping(process.main, userInfo.id, UserIdType.ANY));
+        assertNull(UserIdMapping.getUserIdMapping(process.main, userInfo.id, UserIdType.ANY));
+
+        JsonObject response = HttpRequestForTesting.sendGETRequest(process.getProcess(), "",
+                "http://localhost:3567/metrics/caches", new HashMap<>(), 1000, 1000, null, SemVer.v2_21.get(), "");
+        assertEquals("OK", response.get("status").getAsString());
+        JsonObject userIdMapping = response.getAsJsonObject("userIdMapping");
+        assertTrue(userIdMapping.get("enabled").getAsBoolean());
+        assertEquals(cache.getMissCount(), userIdMapping.get("missCount").getAsLong());
+        assertEquals(cache.getHitCount(), userIdMapping.get("hitCount").getAsLong());
+        assertTrue(userIdMapping.get("hitCount").getAsLong() >= hitsBefore + 1);
+        assertEquals(cache.getHitRatio(), userIdMapping.get("hitRatio").getAsDouble(), 0.0001);
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+}
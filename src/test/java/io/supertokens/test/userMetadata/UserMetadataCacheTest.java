@@ -0,0 +1,189 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.test.userMetadata;
+
+import com.google.gson.JsonObject;
+import io.supertokens.ProcessState;
+import io.supertokens.authRecipe.AuthRecipe;
+import io.supertokens.emailpassword.EmailPassword;
+import io.supertokens.pluginInterface.STORAGE_TYPE;
+import io.supertokens.pluginInterface.emailpassword.UserInfo;
+import io.supertokens.storageLayer.StorageLayer;
+import io.supertokens.test.TestingProcessManager;
+import io.supertokens.test.Utils;
+import io.supertokens.test.httpRequest.HttpRequestForTesting;
+import io.supertokens.usermetadata.UserMetadata;
+import io.supertokens.usermetadata.UserMetadataCache;
+import io.supertokens.utils.SemVer;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import java.util.HashMap;
+
+import static org.junit.Assert.*;
+
+public class UserMetadataCacheTest {
+    @Rule
+    public TestRule watchman = Utils.getOnFailure();
+
+    @AfterClass
+    public static void afterTesting() {
+        Utils.afterTesting();
+    }
+
+    @Before
+    public void beforeEach() {
+        Utils.reset();
+    }
+
+    @Test
+    public void testThatUpdatesAreWrittenToTheCache() throws Exception {
+        String[] args = { "../" };
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+
+        UserMetadataCache cache = UserMetadataCache.getInstance(process.getProcess());
+        String userId = "userId";
+
+        JsonObject update = new JsonObject();
+        update.addProperty("a", 1);
+        UserMetadata.updateUserMetadata(process.getProcess(), userId, update);
+
+        long missesBefore = cache.getMissCount();
+        long hitsBefore = cache.getHitCount();
+        JsonObject metadata = UserMetadata.getUserMetadata(process.getProcess(), userId);
+        assertEquals(update, metadata);
+        // the updated metadata was put in the cache, so the read does not go to the database
+        assertEquals(missesBefore, cache.getMissCount());
+        assertEquals(hitsBefore + 1, cache.getHitCount());
+        assertTrue(cache.getUsedBytes() > 0);
+
+        // changing the returned object must not change the cached metadata
+        metadata.addProperty("b", 2);
+        assertEquals(update, UserMetadata.getUserMetadata(process.getProcess(), userId));
+
+        JsonObject update2 = new JsonObject();
+        update2.addProperty("c", 3);
+        UserMetadata.updateUserMetadata(process.getProcess(), userId, update2);
+        JsonObject expected = new JsonObject();
+        expected.addProperty("a", 1);
+        expected.addProperty("c", 3);
+        assertEquals(expected, UserMetadata.getUserMetadata(process.getProcess(), userId));
+
+        UserMetadata.deleteUserMetadata(process.getProcess(), userId);
+        assertEquals(0, UserMetadata.getUserMetadata(process.getProcess(), userId).entrySet().size());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatDeletingAUserRemovesItsCachedMetadata() throws Exception {
+        String[] args = { "../" };
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+
+        UserInfo userInfo = EmailPassword.signUp(process.getProcess(), "test@example.com", "password");
+        JsonObject update = new JsonObject();
+        update.addProperty("a", 1);
+        UserMetadata.updateUserMetadata(process.getProcess(), userInfo.id, update);
+        assertEquals(update, UserMetadata.getUserMetadata(process.getProcess(), userInfo.id));
+
+        AuthRecipe.deleteUser(process.getProcess(), userInfo.id);
+
+        assertEquals(0, UserMetadata.getUserMetadata(process.getProcess(), userInfo.id).entrySet().size());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatTheCacheIsBoundedByTheSizeOfTheMetadata() throws Exception {
+        String[] args = { "../" };
+        Utils.setValueInConfig("user_metadata_cache_max_bytes", "1000");
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+
+        UserMetadataCache cache = UserMetadataCache.getInstance(process.getProcess());
+
+        // each of these takes a bit more than 200 bytes
+        JsonObject update = new JsonObject();
+        update.addProperty("data", "a".repeat(200));
+        for (int i = 0; i < 10; i++) {
+            UserMetadata.updateUserMetadata(process.getProcess(), "user" + i, update);
+            assertTrue(cache.getUsedBytes() <= 1000);
+        }
+        assertEquals(6, cache.getEvictionCount());
+
+        // metadata larger than the whole budget is not cached
+        JsonObject largeUpdate = new JsonObject();
+        largeUpdate.addProperty("data", "a".repeat(2000));
+        UserMetadata.updateUserMetadata(process.getProcess(), "largeUser", largeUpdate);
+        assertEquals(largeUpdate, UserMetadata.getUserMetadata(process.getProcess(), "largeUser"));
+        assertTrue(cache.getUsedBytes() <= 1000);
+
+        // evicted entries are read from the database again
+        assertEquals(update, UserMetadata.getUserMetadata(process.getProcess(), "user0"));
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatTheCacheMetricsAPIReturnsTheUsedBytesAndEvictionCount() throws Exception {
+        String[] args = { "../" };
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+
+        JsonObject update = new JsonObject();
+        update.addProperty("a", 1);
+        UserMetadata.updateUserMetadata(process.getProcess(), "userId", update);
+        assertEquals(update, UserMetadata.getUserMetadata(process.getProcess(), "userId"));
+
+        UserMetadataCache cache = UserMetadataCache.getInstance(process.getProcess());
+        JsonObject response = HttpRequestForTesting.sendGETRequest(process.getProcess(), "",
+                "http://localhost:3567/metrics/caches", new HashMap<>(), 1000, 1000, null, SemVer.v2_21.get(), "");
+        assertEquals("OK", response.get("status").getAsString());
+        JsonObject userMetadata = response.getAsJsonObject("userMetadata");
+        assertTrue(userMetadata.get("enabled").getAsBoolean());
+        assertTrue(userMetadata.get("usedBytes").getAsLong() > 0);
+        assertEquals(cache.getUsedBytes(), userMetadata.get("usedBytes").getAsLong());
+        assertEquals(cache.getEvictionCount(), userMetadata.get("evictionCount").getAsLong());
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.test.userRoles;
+
+import io.supertokens.ProcessState;
+import io.supertokens.pluginInterface.STORAGE_TYPE;
+import io.supertokens.pluginInterface.exceptions.StorageTransactionLogicException;
+import io.supertokens.pluginInterface.userroles.exception.UnknownRoleException;
+import io.supertokens.pluginInterface.userroles.sqlStorage.UserRolesSQLStorage;
+import io.supertokens.storageLayer.StorageLayer;
+import io.supertokens.test.TestingProcessManager;
+import io.supertokens.test.Utils;
+import io.supertokens.userroles.UserRoles;
+import io.supertokens.userroles.UserRolesCache;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import static org.junit.Assert.*;
+
+public class UserRolesCacheTest {
+    @Rule
+    public TestRule watchman = Utils.getOnFailure();
+
+    @AfterClass
+    public static void afterTesting() {
+        Utils.afterTesting();
+    }
+
+    @Before
+    public void beforeEach() {
+        Utils.reset();
+    }
+
+    @Test
+    public void testThatRolesForUserAreCachedAndInvalidated() throws Exception {
+        String[] args = { "../" };
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+
+        UserRolesCache cache = UserRolesCache.getInstance(process.main);
+        UserRoles.createNewRoleOrModifyItsPermissions(process.main, "role1", null);
+        UserRoles.createNewRoleOrModifyItsPermissions(process.main, "role2", null);
+        UserRoles.addRoleToUser(process.main, "userId", "role1");
+
+        long missesBefore = cache.getMissCount();
+        long hitsBefore = cache.getHitCount();
+        assertArrayEquals(new String[] { "role1" }, UserRoles.getRolesForUser(process.main, "userId"));
+        String[] roles = UserRoles.getRolesForUser(process.main, "userId");
+        assertEquals(missesBefore + 1, cache.getMissCount());
+        assertEquals(hitsBefore + 1, cache.getHitCount());
+
+        // changing the returned array must not change the cached one
+        roles[0] = "changed";
+        assertArrayEquals(new String[] { "role1" }, UserRoles.getRolesForUser(process.main, "userId"));
+
+        UserRoles.addRoleToUser(process.main, "userId", "role2");
+        Utils.checkThatArraysAreEqual(new String[] { "role1", "role2" },
+                UserRoles.getRolesForUser(process.main, "userId"));
+
+        UserRoles.removeUserRole(process.main, "userId", "role1");
+        assertArrayEquals(new String[] { "role2" }, UserRoles.getRolesForUser(process.main, "userId"));
+
+        UserRoles.deleteRole(process.main, "role2");
+        assertEquals(0, UserRoles.getRolesForUser(process.main, "userId").length);
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatRolePermissionChangesIncrementTheVersion() throws Exception {
+        String[] args = { "../" };
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+
+        UserRolesCache cache = UserRolesCache.getInstance(process.main);
+        long version = cache.getRoleGraphVersion();
+
+        UserRoles.createNewRoleOrModifyItsPermissions(process.main, "role", new String[] { "p1", "p2" });
+        assertEquals(version + 1, cache.getRoleGraphVersion());
+        Utils.checkThatArraysAreEqual(new String[] { "p1", "p2" },
+                UserRoles.getPermissionsForRole(process.main, "role"));
+
+        UserRoles.deletePermissionsFromRole(process.main, "role", new String[] { "p1" });
+        assertEquals(version + 2, cache.getRoleGraphVersion());
+        assertArrayEquals(new String[] { "p2" }, UserRoles.getPermissionsForRole(process.main, "role"));
+
+        UserRoles.deleteRole(process.main, "role");
+        assertEquals(version + 3, cache.getRoleGraphVersion());
+        try {
+            UserRoles.getPermissionsForRole(process.main, "role");
+            fail();
+        } catch (UnknownRoleException ignored) {
+        }
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testThatRolesCreatedOutsideThisCoreAreFound() throws Exception {
+        String[] args = { "../" };
+        Utils.setValueInConfig("user_roles_cache_ttl", "1");
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+
+        UserRoles.createNewRoleOrModifyItsPermissions(process.main, "role1", new String[] { "p1" });
+        assertArrayEquals(new String[] { "p1" }, UserRoles.getPermissionsForRole(process.main, "role1"));
+
+        // simulates another core instance changing the roles
+        UserRolesSQLStorage storage = StorageLayer.getUserRolesStorage(process.main);
+        storage.startTransaction(con -> {
+            storage.createNewRoleOrDoNothingIfExists_Transaction(con, "role2");
+            try {
+                storage.addPermissionToRoleOrDoNothingIfExists_Transaction(con, "role2", "p2");
+                storage.addPermissionToRoleOrDoNothingIfExists_Transaction(con, "role1", "p3");
+            } catch (UnknownRoleException e) {
+                throw new StorageTransactionLogicException(e);
+            }
+            storage.commitTransaction(con);
+            return null;
+        });
+
+        // a role that is not in the cache is read from the database
+        assertArrayEquals(new String[] { "p2" }, UserRoles.getPermissionsForRole(process.main, "role2"));
+        // but changes to a cached role are seen only after the TTL
+        assertArrayEquals(new String[] { "p1" }, UserRoles.getPermissionsForRole(process.main, "role1"));
+
+        Thread.sleep(1500);
+
+        Utils.checkThatArraysAreEqual(new String[] { "p1", "p3" },
+                UserRoles.getPermissionsForRole(process.main, "role1"));
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ *    Copyright (c) 2023, VRAI Labs and/or its affiliates. All rights reserved.
+ *
+ *    This software is licensed under the Apache License, Version 2.0 (the
+ *    "License") as published by the Apache Software Foundation.
+ *
+ *    You may not use this file except in compliance with the License. You may
+ *    obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *    WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *    License for the specific language governing permissions and limitations
+ *    under the License.
+ */
+
+package io.supertokens.test.userRoles.api;
+
+import com.google.gson.JsonObject;
+import io.supertokens.ProcessState;
+import io.supertokens.pluginInterface.STORAGE_TYPE;
+import io.supertokens.storageLayer.StorageLayer;
+import io.supertokens.test.TestingProcessManager;
+import io.supertokens.test.Utils;
+import io.supertokens.test.httpRequest.HttpRequestForTesting;
+import io.supertokens.test.httpRequest.HttpResponseException;
+import io.supertokens.userroles.UserRoles;
+import io.supertokens.utils.SemVer;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import java.util.HashMap;
+
+import static org.junit.Assert.*;
+
+public class GetRolesAndPermissionsForUserAPITest {
+    @Rule
+    public TestRule watchman = Utils.getOnFailure();
+
+    @AfterClass
+    public static void afterTesting() {
+        Utils.afterTesting();
+    }
+
+    @Before
+    public void beforeEach() {
+        Utils.reset();
+    }
+
+    @Test
+    public void badInputTest() throws Exception {
+        String[] args = { "../" };
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+
+        try {
+            HttpRequestForTesting.sendGETRequest(process.getProcess(), "",
+                    "http://localhost:3567/recipe/user/roles/permissions", new HashMap<>(), 1000, 1000, null,
+                    SemVer.v2_21.get(), "userroles");
+            throw new Exception("should not come here");
+        } catch (HttpResponseException e) {
+            assertTrue(e.statusCode == 400 && e.getMessage().equals(
+                    "Http error. Status Code: 400. Message:" + " Field name 'userId' is missing in GET request"));
+        }
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+
+    @Test
+    public void testGettingRolesAndPermissionsForAUser() throws Exception {
+        String[] args = { "../" };
+
+        TestingProcessManager.TestingProcess process = TestingProcessManager.start(args);
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STARTED));
+
+        if (StorageLayer.getStorage(process.getProcess()).getType() != STORAGE_TYPE.SQL) {
+            return;
+        }
+
+        String userId = "userId";
+        UserRoles.createNewRoleOrModifyItsPermissions(process.main, "role1", new String[] { "read", "write" });
+        UserRoles.createNewRoleOrModifyItsPermissions(process.main, "role2", new String[] { "write", "delete" });
+        UserRoles.createNewRoleOrModifyItsPermissions(process.main, "role3", null);
+        UserRoles.createNewRoleOrModifyItsPermissions(process.main, "role4", new String[] { "admin" });
+        UserRoles.addRoleToUser(process.main, userId, "role1");
+        UserRoles.addRoleToUser(process.main, userId, "role2");
+        UserRoles.addRoleToUser(process.main, userId, "role3");
+
+        HashMap<String, String> QUERY_PARAMS = new HashMap<>();
+        QUERY_PARAMS.put("userId", userId);
+        {
+            JsonObject response = HttpRequestForTesting.sendGETRequest(process.getProcess(), "",
+                    "http://localhost:3567/recipe/user/roles/permissions", QUERY_PARAMS, 1000, 1000, null,
+                    SemVer.v2_21.get(), "userroles");
+
+            assertEquals(3, response.entrySet().size());
+            assertEquals("OK", response.get("status").getAsString());
+            Utils.checkThatArraysAreEqual(new String[] { "role1", "role2", "role3" },
+                    Utils.parseJsonArrayToStringArray(response.getAsJsonArray("roles")));
+            // each permission is returned once
+            Utils.checkThatArraysAreEqual(new String[] { "read", "write", "delete" },
+                    Utils.parseJsonArrayToStringArray(response.getAsJsonArray("permissions")));
+        }
+
+        // changes to the roles and their permissions are seen in the next request
+        UserRoles.deletePermissionsFromRole(process.main, "role1", new String[] { "read" });
+        UserRoles.deleteRole(process.main, "role2");
+        UserRoles.addRoleToUser(process.main, userId, "role4");
+        {
+            JsonObject response = HttpRequestForTesting.sendGETRequest(process.getProcess(), "",
+                    "http://localhost:3567/recipe/user/roles/permissions", QUERY_PARAMS, 1000, 1000, null,
+                    SemVer.v2_21.get(), "userroles");
+
+            assertEquals("OK", response.get("status").getAsString());
+            Utils.checkThatArraysAreEqual(new String[] { "role1", "role3", "role4" },
+                    Utils.parseJsonArrayToStringArray(response.getAsJsonArray("roles")));
+            Utils.checkThatArraysAreEqual(new String[] { "write", "admin" },
+                    Utils.parseJsonArrayToStringArray(response.getAsJsonArray("permissions")));
+        }
+
+        // a user with no roles
+        {
+            QUERY_PARAMS.put("userId", "userId2");
+            JsonObject response = HttpRequestForTesting.sendGETRequest(process.getProcess(), "",
+                    "http://localhost:3567/recipe/user/roles/permissions", QUERY_PARAMS, 1000, 1000, null,
+                    SemVer.v2_21.get(), "userroles");
+
+            assertEquals("OK", response.get("status").getAsString());
+            assertEquals(0, response.getAsJsonArray("roles").size());
+            assertEquals(0, response.getAsJsonArray("permissions").size());
+        }
+
+        process.kill();
+        assertNotNull(process.checkOrWaitForEvent(ProcessState.PROCESS_STATE.STOPPED));
+    }
+}